@@ -0,0 +1,104 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.NewMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 단일 채널에 한 명의 작성자와 1/8/64개의 읽기 스레드가 동시에 접근할 때의 처리량을 비교합니다.
+ * {@code rwlock}은 이전 ReentrantReadWriteLock 구현, {@code optimistic}은 {@link InMemoryMessageRepository}입니다.
+ * <p>
+ * 측정 결과 (ops/ms, 그룹 전체 처리량, JDK 21, -wi 3 -i 5 -w 3s -r 5s).
+ * 1 vCPU 환경에서 측정하여 스레드가 실제로 동시에 실행되지 않으므로, 오차가 크고 경합 비용보다 스케줄링 영향이 더 크게 나타납니다.
+ * <pre>
+ *             optimistic           rwlock
+ * readers1    2995 ±  272     3307 ±   738
+ * readers8    6967 ±  931     3671 ±  1148
+ * readers64  10743 ± 6184    12567 ± 37942
+ * </pre>
+ * <p>
+ * 실행: {@code ./gradlew jmh -Pjmh.includes=MessageArchiveContentionBenchmark}
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MessageArchiveContentionBenchmark {
+
+    private static final String CHANNEL_ID = "benchmark-channel";
+    private static final int HISTORY_SIZE = 20;
+    private static final int PRELOADED_MESSAGES = 10_000;
+    private static final Path COLD_PATH = Path.of(System.getProperty("java.io.tmpdir"), "mymydata-benchmark-cold");
+
+    @Param({"optimistic", "rwlock"})
+    private String implementation;
+
+    private MessageRepository messageRepository;
+    private String lastSeenMessageId;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        messageRepository = switch (implementation) {
+            case "optimistic" -> new InMemoryMessageRepository(0, DataSize.ofBytes(0), COLD_PATH, MessageLayout.OBJECT, new SimpleMeterRegistry());
+            case "rwlock" -> new ReadWriteLockMessageRepository();
+            default -> throw new IllegalArgumentException(implementation);
+        };
+        for (int i = 0; i < PRELOADED_MESSAGES; i++) {
+            messageRepository.save(newMessage());
+        }
+        lastSeenMessageId = messageRepository.findLatest(CHANNEL_ID, HISTORY_SIZE).getFirst().messageId();
+    }
+
+    private static NewMessage newMessage() {
+        return new NewMessage(CHANNEL_ID, Instant.now(), "벤치마크 메시지", Author.USER);
+    }
+
+    @Benchmark
+    @Group("readers1")
+    @GroupThreads(1)
+    public Message writer1() {
+        return messageRepository.save(newMessage());
+    }
+
+    @Benchmark
+    @Group("readers1")
+    @GroupThreads(1)
+    public List<Message> reader1() {
+        return messageRepository.findLatest(CHANNEL_ID, HISTORY_SIZE, lastSeenMessageId);
+    }
+
+    @Benchmark
+    @Group("readers8")
+    @GroupThreads(1)
+    public Message writer8() {
+        return messageRepository.save(newMessage());
+    }
+
+    @Benchmark
+    @Group("readers8")
+    @GroupThreads(8)
+    public List<Message> reader8() {
+        return messageRepository.findLatest(CHANNEL_ID, HISTORY_SIZE, lastSeenMessageId);
+    }
+
+    @Benchmark
+    @Group("readers64")
+    @GroupThreads(1)
+    public Message writer64() {
+        return messageRepository.save(newMessage());
+    }
+
+    @Benchmark
+    @Group("readers64")
+    @GroupThreads(64)
+    public List<Message> reader64() {
+        return messageRepository.findLatest(CHANNEL_ID, HISTORY_SIZE, lastSeenMessageId);
+    }
+}
@@ -0,0 +1,133 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageSearchHit;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 100만 건의 한국어 메시지가 있는 채널에서 {@link MessageSearchIndex#search}의 응답 시간을 측정합니다.
+ * 메시지는 마이데이터 관련 단어를 무작위로 조합하여 만들고, 가장 오래된 블록의 메시지 하나에만 "휴면계좌"를 넣습니다.
+ * <ul>
+ *   <li>{@code search}: 저장할 때 색인한 채널을 검색합니다. 흔한 단어는 최신 블록에서 결과가 모이지만,
+ *   "휴면계좌"(가장 오래된 메시지 하나)와 "환불정책"(결과 없음)은 모든 블록을 훑습니다.</li>
+ *   <li>{@code firstSearch}: 색인 없이 저장된 메시지(다시 연 저널)를 처음 검색할 때 기존 메시지 전체를 색인하는 시간을 포함합니다.</li>
+ * </ul>
+ * 측정 결과 (JDK 21, 1 vCPU, -wi 3 -i 5 -w 2s -r 2s). 결과가 적거나 없는 검색은 블록마다 정렬된 바이그램 목록에서 이진 탐색만 하므로
+ * 1000개 가까운 블록을 모두 훑어도 흔한 단어보다 빠릅니다.
+ * <pre>
+ * search      전송요구                    132 ±  57 us/op
+ * search      개인신용정보 철회           176 ±  85 us/op
+ * search      통합조회 거래내역 확인해    385 ± 112 us/op
+ * search      휴면계좌                     39 ±  12 us/op
+ * search      환불정책                     22 ±   3 us/op
+ * firstSearch 전송요구                   1859 ± 639 ms/op
+ * </pre>
+ * <p>
+ * 실행: {@code ./gradlew jmh -Pjmh.includes=MessageSearchBenchmark}
+ */
+public class MessageSearchBenchmark {
+
+    private static final String CHANNEL_ID = "benchmark-channel";
+    private static final int MESSAGE_COUNT = 1_000_000;
+    private static final int RARE_MESSAGE = 1;
+    private static final String[] WORDS = {
+            "마이데이터", "전송요구", "철회", "개인신용정보", "본인인증", "유효기간", "정기적", "전송", "동의", "서비스",
+            "사업자", "금융회사", "통합조회", "계좌", "카드", "보험", "대출", "자산", "거래내역", "알려주세요",
+            "방법은", "무엇인가요", "어떻게", "해야", "하나요", "가능한가요", "필요합니다", "확인해", "주세요", "감사합니다"};
+
+    /**
+     * 저장할 때 색인한 채널입니다.
+     */
+    @State(Scope.Benchmark)
+    public static class Indexed {
+
+        @Param({"전송요구", "개인신용정보 철회", "통합조회 거래내역 확인해", "휴면계좌", "환불정책"})
+        private String query;
+
+        private MessageSearchIndex searchIndex;
+        private MessageSearchIndex.MessageSource source;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            var messages = generateMessages();
+            source = sourceOf(messages);
+            searchIndex = new MessageSearchIndex();
+            for (int i = 1; i <= MESSAGE_COUNT; i++) {
+                searchIndex.add(messages[i]);
+            }
+        }
+    }
+
+    /**
+     * 색인 없이 메시지만 있는 채널입니다. 반복마다 새 색인으로 첫 검색을 측정합니다.
+     */
+    @State(Scope.Benchmark)
+    public static class Existing {
+
+        private MessageSearchIndex.MessageSource source;
+        private MessageSearchIndex searchIndex;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            source = sourceOf(generateMessages());
+        }
+
+        @Setup(Level.Iteration)
+        public void newIndex() {
+            searchIndex = new MessageSearchIndex();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<MessageSearchHit> search(Indexed state) {
+        return state.searchIndex.search(CHANNEL_ID, state.query, 20, state.source);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<MessageSearchHit> firstSearch(Existing state) {
+        return state.searchIndex.search(CHANNEL_ID, "전송요구", 20, state.source);
+    }
+
+    private static Message[] generateMessages() {
+        var random = new Random(42);
+        var messages = new Message[MESSAGE_COUNT + 1];
+        for (int i = 1; i <= MESSAGE_COUNT; i++) {
+            var text = new StringBuilder(i == RARE_MESSAGE ? "휴면계좌 " : "");
+            int words = 4 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            messages[i] = new Message(UUID.randomUUID().toString(), CHANNEL_ID, (long) i, Instant.now(),
+                    Author.USER.getName(), text.toString().trim(), Author.USER.getColor());
+        }
+        return messages;
+    }
+
+    private static MessageSearchIndex.MessageSource sourceOf(Message[] messages) {
+        var history = Arrays.asList(messages).subList(1, MESSAGE_COUNT + 1);
+        return new MessageSearchIndex.MessageSource() {
+            @Override
+            public List<Message> findAfter(long sequenceNumber, int fetchMax) {
+                int from = (int) Math.min(sequenceNumber, MESSAGE_COUNT);
+                return history.subList(from, Math.min(MESSAGE_COUNT, from + fetchMax));
+            }
+
+            @Override
+            public Message findBySequenceNumber(long sequenceNumber) {
+                return messages[(int) sequenceNumber];
+            }
+        };
+    }
+}
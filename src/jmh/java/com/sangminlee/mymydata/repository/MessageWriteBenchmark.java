@@ -0,0 +1,191 @@
+package com.sangminlee.mymydata.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.NewMessage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 메시지 단건 저장의 처리량을 {@link JournalMessageRepository}와 JSON 파일, JDBC(H2 파일 DB) 저장 방식으로 비교합니다.
+ * 세 방식 모두 저장할 때마다 운영체제에 기록하여 프로세스가 강제 종료되어도 유실되지 않고,
+ * 디스크 동기화는 저널의 flush-interval과 같은 200ms 주기(H2는 자체 커밋 주기)로 일괄 수행합니다.
+ * <p>
+ * 측정 결과 (ops/ms, JDK 21, 1 vCPU, -wi 3 -i 5 -w 2s -r 3s).
+ * <pre>
+ * journal   390 ± 153
+ * json      216 ± 47
+ * jdbc       75 ± 67
+ * </pre>
+ * 저널은 저장할 때 검색 색인의 꼬리 블록에도 추가합니다. 색인을 갱신하지 않으면 661 ± 43이고,
+ * 정규식으로 단어를 나누고 bigram을 박싱된 키의 HashMap에 넣던 때는 165 ± 42였습니다.
+ * <p>
+ * 실행: {@code ./gradlew jmh -Pjmh.includes=MessageWriteBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MessageWriteBenchmark {
+
+    private static final String CHANNEL_ID = "benchmark-channel";
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(200);
+
+    @Param({"journal", "json", "jdbc"})
+    private String target;
+
+    private Path directory;
+    private MessageWriter writer;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("mymydata-write-benchmark");
+        writer = switch (target) {
+            case "journal" -> new JournalWriter(directory);
+            case "json" -> new JsonWriter(directory);
+            case "jdbc" -> new JdbcWriter(directory);
+            default -> throw new IllegalArgumentException(target);
+        };
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        writer.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Message save() throws Exception {
+        return writer.save(new NewMessage(CHANNEL_ID, Instant.now(), "벤치마크 메시지입니다. 마이데이터 전송요구 철회 방법을 알려주세요.", Author.USER));
+    }
+
+    private interface MessageWriter extends AutoCloseable {
+        Message save(NewMessage newMessage) throws Exception;
+    }
+
+    private static class JournalWriter implements MessageWriter {
+        private final JournalMessageRepository repository;
+
+        private JournalWriter(Path directory) {
+            repository = new JournalMessageRepository(directory, DataSize.ofMegabytes(16), 64, FLUSH_INTERVAL, Duration.ZERO);
+        }
+
+        @Override
+        public Message save(NewMessage newMessage) {
+            return repository.save(newMessage);
+        }
+
+        @Override
+        public void close() {
+            repository.close();
+        }
+    }
+
+    /**
+     * 메시지를 한 줄에 하나씩 JSON으로 추가 기록합니다.
+     */
+    private static class JsonWriter implements MessageWriter {
+        private final ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+        private final FileChannel file;
+        private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+        private long nextSequenceNumber = 1;
+
+        private JsonWriter(Path directory) throws IOException {
+            file = FileChannel.open(directory.resolve("messages.jsonl"), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            flusher.scheduleWithFixedDelay(() -> {
+                try {
+                    file.force(false);
+                } catch (IOException ignored) {
+                    // 종료 중에는 무시합니다.
+                }
+            }, FLUSH_INTERVAL.toMillis(), FLUSH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public synchronized Message save(NewMessage newMessage) throws IOException {
+            var message = toMessage(newMessage, nextSequenceNumber++);
+            var line = ByteBuffer.wrap((objectMapper.writeValueAsString(message) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                file.write(line);
+            }
+            return message;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flusher.shutdown();
+            file.close();
+        }
+    }
+
+    /**
+     * 메시지를 H2 파일 DB 테이블에 자동 커밋으로 한 건씩 삽입합니다.
+     */
+    private static class JdbcWriter implements MessageWriter {
+        private final Connection connection;
+        private final PreparedStatement insert;
+        private long nextSequenceNumber = 1;
+
+        private JdbcWriter(Path directory) throws SQLException {
+            connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("messages").toAbsolutePath());
+            try (var statement = connection.createStatement()) {
+                statement.execute("""
+                        CREATE TABLE message (
+                            channel_id VARCHAR(64) NOT NULL,
+                            sequence_number BIGINT NOT NULL,
+                            message_id UUID NOT NULL,
+                            created_at TIMESTAMP NOT NULL,
+                            author VARCHAR(16) NOT NULL,
+                            message VARCHAR NOT NULL,
+                            PRIMARY KEY (channel_id, sequence_number))
+                        """);
+            }
+            insert = connection.prepareStatement("INSERT INTO message VALUES (?, ?, ?, ?, ?, ?)");
+        }
+
+        @Override
+        public synchronized Message save(NewMessage newMessage) throws SQLException {
+            var message = toMessage(newMessage, nextSequenceNumber++);
+            insert.setString(1, message.channelId());
+            insert.setLong(2, message.sequenceNumber());
+            insert.setObject(3, UUID.fromString(message.messageId()));
+            insert.setTimestamp(4, Timestamp.from(message.timestamp()));
+            insert.setString(5, message.author());
+            insert.setString(6, message.message());
+            insert.executeUpdate();
+            return message;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    private static Message toMessage(NewMessage newMessage, long sequenceNumber) {
+        return new Message(UUID.randomUUID().toString(), newMessage.channelId(), sequenceNumber, newMessage.timestamp(),
+                newMessage.author().getName(), newMessage.message(), newMessage.author().getColor());
+    }
+}
@@ -0,0 +1,178 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageSearchHit;
+import com.sangminlee.mymydata.vo.NewMessage;
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 벤치마크 비교 기준으로 사용하는 이전 구현입니다.
+ * ArrayList를 ReentrantReadWriteLock으로 보호하며, 조회 시 읽기 잠금을 잡은 채 부분 리스트를 복사합니다.
+ * 일련번호 조회는 읽기 잠금 안에서 이진 탐색하며, 검색 색인은 검색할 때 읽기 잠금으로 메시지를 읽어 만듭니다.
+ */
+class ReadWriteLockMessageRepository implements MessageRepository {
+
+    private final ConcurrentMap<String, MessageArchive> messageArchives = new ConcurrentHashMap<>();
+    private final MessageSearchIndex searchIndex = new MessageSearchIndex();
+
+    @Override
+    public List<Message> findLatest(String channelId, int fetchMax, @Nullable String lastSeenMessageId) {
+        return Optional.ofNullable(messageArchives.get(channelId))
+                .map(archive -> archive.findLatest(fetchMax, lastSeenMessageId))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<Message> findAfter(String channelId, long sequenceNumber, int fetchMax) {
+        return Optional.ofNullable(messageArchives.get(channelId))
+                .map(archive -> archive.findAfter(sequenceNumber, fetchMax))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<Message> findBefore(String channelId, long sequenceNumber, int fetchMax) {
+        return Optional.ofNullable(messageArchives.get(channelId))
+                .map(archive -> archive.findBefore(sequenceNumber, fetchMax))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<MessageSearchHit> search(String channelId, String query, int limit) {
+        return Optional.ofNullable(messageArchives.get(channelId))
+                .map(archive -> searchIndex.search(channelId, query, limit, archive))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public Message save(NewMessage newMessage) {
+        return messageArchives.computeIfAbsent(newMessage.channelId(), MessageArchive::new).save(newMessage);
+    }
+
+    @Override
+    public boolean deleteLastMessage(String channelId, String messageId) {
+        var archive = messageArchives.get(channelId);
+        return archive != null && archive.deleteLast(messageId);
+    }
+
+    private class MessageArchive implements MessageSearchIndex.MessageSource {
+        private final AtomicLong sequenceNumber = new AtomicLong(1);
+        private final List<Message> messages = new ArrayList<>();
+        private final Map<String, Integer> indexByMessageId = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final String channelId;
+
+        private MessageArchive(String channelId) {
+            this.channelId = channelId;
+        }
+
+        public List<Message> findLatest(int fetchMax, @Nullable String lastSeenMessageId) {
+            lock.readLock().lock();
+            try {
+                var indexOfLastSeenMessage = lastSeenMessageId == null ? -1 : indexByMessageId.getOrDefault(lastSeenMessageId, -1);
+                if (messages.size() - fetchMax > indexOfLastSeenMessage) {
+                    return List.copyOf(messages.subList(messages.size() - fetchMax, messages.size()));
+                } else {
+                    return List.copyOf(messages.subList(indexOfLastSeenMessage + 1, messages.size()));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public List<Message> findAfter(long sequenceNumber, int fetchMax) {
+            lock.readLock().lock();
+            try {
+                int from = indexAfter(sequenceNumber);
+                return List.copyOf(messages.subList(from, Math.min(messages.size(), from + fetchMax)));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        public List<Message> findBefore(long sequenceNumber, int fetchMax) {
+            lock.readLock().lock();
+            try {
+                int to = indexAfter(sequenceNumber - 1);
+                return List.copyOf(messages.subList(Math.max(0, to - fetchMax), to));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Nullable
+        @Override
+        public Message findBySequenceNumber(long sequenceNumber) {
+            var found = findAfter(sequenceNumber - 1, 1);
+            return found.isEmpty() || found.getFirst().sequenceNumber() != sequenceNumber ? null : found.getFirst();
+        }
+
+        /**
+         * 일련번호가 sequenceNumber보다 큰 첫 메시지의 위치를 이진 탐색으로 찾습니다. 읽기 잠금 안에서 호출해야 합니다.
+         */
+        private int indexAfter(long sequenceNumber) {
+            int low = 0;
+            int high = messages.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (messages.get(mid).sequenceNumber() <= sequenceNumber) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        public Message save(NewMessage newMessage) {
+            lock.writeLock().lock();
+            try {
+                var message = new Message(UUID.randomUUID().toString(), channelId, sequenceNumber.getAndIncrement(),
+                        newMessage.timestamp(), newMessage.author().getName(), newMessage.message(), newMessage.author().getColor());
+                searchIndex.add(message);
+                messages.add(message);
+                indexByMessageId.put(message.messageId(), messages.size() - 1);
+                return message;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void deleteLast() {
+            lock.writeLock().lock();
+            try {
+                var removed = messages.removeLast();
+                indexByMessageId.remove(removed.messageId());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        public boolean deleteLast(String messageId) {
+            lock.writeLock().lock();
+            try {
+                Integer index = indexByMessageId.get(messageId);
+                if (index == null || index != messages.size() - 1) {
+                    return false;
+                }
+                deleteLast();
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.sangminlee.mymydata.service;
+
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.vo.Message;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1,000개 채널에 채널당 10명, 총 10,000명의 유휴 구독자가 있을 때 메시지 한 건을 발행하는 비용을 측정합니다.
+ * <p>
+ * {@code globalFilteredSink}는 모든 구독자가 하나의 sink를 구독하고 채널 ID로 거르는 기존 방식이며,
+ * {@code channelSinkRegistry}는 {@link ChannelSinkRegistry}를 통해 해당 채널의 구독자에게만 발행하는 방식입니다.
+ * <p>
+ * 실행: {@code ./gradlew jmh -Pjmh.includes=ChannelSinkRegistryBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChannelSinkRegistryBenchmark {
+
+    private static final int CHANNEL_COUNT = 1_000;
+    private static final int SUBSCRIBERS_PER_CHANNEL = 10;
+
+    private final List<Disposable> subscriptions = new ArrayList<>();
+    private Sinks.Many<List<Message>> globalSink;
+    private ChannelSinkRegistry<Message> registry;
+    private List<Message>[] messagesByChannel;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        globalSink = Sinks.many().multicast().directBestEffort();
+        registry = new ChannelSinkRegistry<>(Message::channelId);
+        messagesByChannel = new List[CHANNEL_COUNT];
+        for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+            var channelId = "channel" + channel;
+            messagesByChannel[channel] = List.of(new Message(UUID.randomUUID().toString(), channelId, 1L, Instant.now(),
+                    Author.USER.getName(), "안녕하세요", Author.USER.getColor()));
+            for (int i = 0; i < SUBSCRIBERS_PER_CHANNEL; i++) {
+                subscriptions.add(globalSink.asFlux()
+                        .map(batch -> batch.stream().filter(m -> m.channelId().equals(channelId)).toList())
+                        .filter(batch -> !batch.isEmpty())
+                        .subscribe());
+                subscriptions.add(registry.subscribe(channelId).subscribe());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        subscriptions.forEach(Disposable::dispose);
+    }
+
+    @Benchmark
+    public void globalFilteredSink() {
+        globalSink.tryEmitNext(nextMessages());
+    }
+
+    @Benchmark
+    public void channelSinkRegistry() {
+        registry.publish(nextMessages());
+    }
+
+    private List<Message> nextMessages() {
+        next = (next + 1) % CHANNEL_COUNT;
+        return messagesByChannel[next];
+    }
+}
@@ -0,0 +1,112 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 문서 청크 임베딩에서 상위 5개 문서를 찾는 시간을 HNSW 검색({@code hnswSearch})과 전체 비교({@code exactSearch})로 측정하고,
+ * 시작할 때 efSearch별 recall@5를 출력합니다.
+ * <p>
+ * 프로젝트 최상단에 SimpleVectorStore가 저장한 simple-vectorstore.json이 있으면 그 임베딩을 사용하고,
+ * 질의는 저장된 임베딩 200개에 작은 잡음을 더해 만듭니다. 파일이 없으면 1536차원의 주제별 합성 벡터 20,000개를 사용합니다.
+ * <p>
+ * 실행: {@code ./gradlew jmh -Pjmh.includes=HnswIndexBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HnswIndexBenchmark {
+
+    private static final String CORPUS_PATH = System.getProperty("hnsw.corpus", "simple-vectorstore.json");
+    private static final int SYNTHETIC_COUNT = 20_000;
+    private static final int SYNTHETIC_DIMENSIONS = 1536;
+    private static final int QUERY_COUNT = 200;
+    private static final int TOP_K = 5;
+
+    @Param({"16", "32", "64", "128"})
+    private int efSearch;
+
+    private HnswIndex index;
+    private float[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        var random = new Random(42);
+        float[][] vectors = new File(CORPUS_PATH).exists() ? loadCorpus(new File(CORPUS_PATH)) : syntheticVectors(random);
+        index = new HnswIndex(vectors[0].length, 16, 200, 42);
+        for (float[] vector : vectors) {
+            index.add(vector);
+        }
+        queries = new float[QUERY_COUNT][];
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            float[] base = vectors[random.nextInt(vectors.length)];
+            queries[q] = new float[base.length];
+            for (int i = 0; i < base.length; i++) {
+                queries[q][i] = base[i] + (float) (random.nextGaussian() * 0.01);
+            }
+        }
+
+        int hits = 0;
+        for (float[] query : queries) {
+            var expected = new HashSet<Integer>();
+            index.exactSearch(query, TOP_K).forEach(neighbor -> expected.add(neighbor.node()));
+            for (var neighbor : index.search(query, TOP_K, efSearch)) {
+                if (expected.contains(neighbor.node())) {
+                    hits++;
+                }
+            }
+        }
+        System.out.printf("%n[HnswIndexBenchmark] vectors=%d, dimensions=%d, efSearch=%d, recall@%d=%.4f%n",
+                vectors.length, vectors[0].length, efSearch, TOP_K, hits / (double) (QUERY_COUNT * TOP_K));
+    }
+
+    @Benchmark
+    public List<HnswIndex.Neighbor> hnswSearch() {
+        return index.search(queries[next++ % QUERY_COUNT], TOP_K, efSearch);
+    }
+
+    @Benchmark
+    public List<HnswIndex.Neighbor> exactSearch() {
+        return index.exactSearch(queries[next++ % QUERY_COUNT], TOP_K);
+    }
+
+    private static float[][] loadCorpus(File file) throws IOException {
+        var vectors = new ArrayList<float[]>();
+        for (JsonNode document : new ObjectMapper().readTree(file)) {
+            JsonNode embedding = document.get("embedding");
+            float[] vector = new float[embedding.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) embedding.get(i).asDouble();
+            }
+            vectors.add(vector);
+        }
+        return vectors.toArray(float[][]::new);
+    }
+
+    private static float[][] syntheticVectors(Random random) {
+        var centers = new float[50][SYNTHETIC_DIMENSIONS];
+        for (float[] center : centers) {
+            for (int i = 0; i < SYNTHETIC_DIMENSIONS; i++) {
+                center[i] = (float) random.nextGaussian();
+            }
+        }
+        var vectors = new float[SYNTHETIC_COUNT][SYNTHETIC_DIMENSIONS];
+        for (float[] vector : vectors) {
+            float[] center = centers[random.nextInt(centers.length)];
+            for (int i = 0; i < SYNTHETIC_DIMENSIONS; i++) {
+                vector[i] = center[i] + (float) (random.nextGaussian() * 0.5);
+            }
+        }
+        return vectors;
+    }
+}
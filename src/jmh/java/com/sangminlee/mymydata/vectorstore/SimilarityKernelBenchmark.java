@@ -0,0 +1,80 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1536차원(text-embedding-3-small) 임베딩 {@code vectors}개와 질의 하나의 유사도를 모두 계산하여 상위 5개를 찾는 시간을
+ * Vector API 커널({@code kernel=vector})과 스칼라 커널({@code kernel=scalar})로 측정합니다.
+ * <p>
+ * {@link MappedVectorFile#search}와 같이 힙 밖의 행렬을 블록 단위로 복사하여 {@link SimilarityKernel#dotRows}로 계산하고 {@link TopK}로 고릅니다.
+ * 10만 개 이상은 메모리에 올리지 않고 10,000개(약 60MB) 행렬을 반복해서 읽으며, 이 크기도 CPU 캐시보다 충분히 커서 메모리에서 읽는 비용은 같습니다.
+ * <p>
+ * 실행: {@code ./gradlew jmh -Pjmh.includes=SimilarityKernelBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SimilarityKernelBenchmark {
+
+    private static final int DIMENSIONS = 1536;
+    private static final int BACKING_ROWS = 10_000;
+    private static final int BLOCK_ROWS = 16 * 1024 / DIMENSIONS;
+    private static final int TOP_K = 5;
+
+    @Param({"10000", "100000", "1000000"})
+    private int vectors;
+
+    @Param({"vector", "scalar"})
+    private String kernel;
+
+    private SimilarityKernel similarityKernel;
+    private FloatBuffer matrix;
+    private float[] query;
+    private float[] block;
+    private float[] scores;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        similarityKernel = kernel.equals("vector") ? new VectorSimilarityKernel() : SimilarityKernel.scalar();
+        var random = new Random(42);
+        int rows = Math.min(vectors, BACKING_ROWS) / BLOCK_ROWS * BLOCK_ROWS;
+        matrix = ByteBuffer.allocateDirect(rows * DIMENSIONS * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        var row = new float[DIMENSIONS];
+        for (int r = 0; r < rows; r++) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                row[i] = (float) random.nextGaussian();
+            }
+            matrix.put(r * DIMENSIONS, Vectors.normalize(row));
+        }
+        var rawQuery = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            rawQuery[i] = (float) random.nextGaussian();
+        }
+        query = Vectors.normalize(rawQuery);
+        block = new float[BLOCK_ROWS * DIMENSIONS];
+        scores = new float[BLOCK_ROWS];
+    }
+
+    @Benchmark
+    public List<HnswIndex.Neighbor> topK() {
+        int backingRows = matrix.capacity() / DIMENSIONS;
+        var top = new TopK(TOP_K);
+        for (int start = 0; start < vectors; start += BLOCK_ROWS) {
+            int rows = Math.min(BLOCK_ROWS, vectors - start);
+            // 행렬 크기가 블록 크기의 배수이므로 블록이 행렬 끝을 넘지 않습니다.
+            matrix.get(start % backingRows * DIMENSIONS, block, 0, rows * DIMENSIONS);
+            similarityKernel.dotRows(query, block, rows, scores);
+            for (int i = 0; i < rows; i++) {
+                top.offer(start + i, scores[i]);
+            }
+        }
+        return top.toList();
+    }
+}
@@ -0,0 +1,54 @@
+package com.sangminlee.mymydata.bus;
+
+import com.sangminlee.mymydata.vo.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 한 JVM 안에서만 메시지를 전달하는 메시지 버스입니다. 단일 인스턴스로 실행할 때 사용합니다.
+ * 동시에 저장된 메시지가 발행 순서가 뒤바뀌어 도착하는 경우에 대비해, 채널별 일련번호 순으로 정렬하여 전달합니다.
+ */
+@Component
+@ConditionalOnProperty(name = "app.message-bus.target", havingValue = "local", matchIfMissing = true)
+class InProcessMessageBus implements MessageBus {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<List<Message>>> listeners = new CopyOnWriteArrayList<>();
+    private final SequenceOrderer orderer;
+
+    /**
+     * InProcessMessageBus 생성자입니다.
+     *
+     * @param reorderWindow 빠진 일련번호를 기다리는 최대 시간
+     */
+    InProcessMessageBus(@Value("${app.message-bus.reorder-window:50ms}") Duration reorderWindow) {
+        this.orderer = new SequenceOrderer(reorderWindow, Schedulers.parallel(), this::deliver);
+    }
+
+    @Override
+    public void publish(List<Message> messages) {
+        orderer.accept(messages);
+    }
+
+    @Override
+    public void subscribe(Consumer<List<Message>> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    private void deliver(List<Message> messages) {
+        listeners.forEach(listener -> listener.accept(messages));
+    }
+}
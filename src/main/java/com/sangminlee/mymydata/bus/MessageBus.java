@@ -0,0 +1,36 @@
+package com.sangminlee.mymydata.bus;
+
+import com.sangminlee.mymydata.vo.Message;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 저장된 메시지를 실시간 스트림으로 전달하는 메시지 버스입니다.
+ * 여러 인스턴스로 실행할 때, 한 노드에서 저장된 메시지를 다른 노드의 구독자에게도 전달합니다.
+ * <p>
+ * 구현체는 채널별로 일련번호 순서를 지켜 리스너에 전달해야 하며, 각 노드는 자기 노드의 구독자에게만 전달합니다.
+ */
+public interface MessageBus {
+
+    /**
+     * 저장된 메시지를 모든 노드에 발행합니다.
+     *
+     * @param messages 발행할 메시지 리스트
+     */
+    void publish(List<Message> messages);
+
+    /**
+     * 이 노드에 전달된 메시지를 받을 리스너를 등록합니다.
+     *
+     * @param listener 메시지 리스너
+     */
+    void subscribe(Consumer<List<Message>> listener);
+
+    /**
+     * 이 노드를 식별하는 ID를 반환합니다.
+     *
+     * @return 노드 ID
+     */
+    String nodeId();
+}
@@ -0,0 +1,112 @@
+package com.sangminlee.mymydata.bus;
+
+import com.sangminlee.mymydata.vo.Message;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 메시지를 채널별 일련번호 순서로 정렬하여 전달합니다.
+ * <p>
+ * 채널마다 마지막으로 전달한 일련번호를 기억하고, 바로 다음 번호의 메시지는 즉시 전달합니다.
+ * 중간 번호가 빠진 메시지는 {@code reorderWindow} 동안 보류하며, 그 사이 빠진 메시지가 도착하면 순서대로 함께 전달하고,
+ * 끝내 도착하지 않으면 빈 번호를 건너뛰고 보류한 메시지를 전달합니다. 채널의 첫 메시지는 기다리지 않고 전달합니다.
+ */
+class SequenceOrderer {
+
+    private final Duration reorderWindow;
+    private final Scheduler scheduler;
+    private final Consumer<List<Message>> downstream;
+    private final ConcurrentMap<String, ChannelOrder> channelOrders = new ConcurrentHashMap<>();
+
+    /**
+     * SequenceOrderer 생성자입니다.
+     *
+     * @param reorderWindow 빠진 일련번호를 기다리는 최대 시간
+     * @param scheduler     보류 만료를 예약할 스케줄러
+     * @param downstream    정렬된 메시지를 받을 함수
+     */
+    SequenceOrderer(Duration reorderWindow, Scheduler scheduler, Consumer<List<Message>> downstream) {
+        this.reorderWindow = reorderWindow;
+        this.scheduler = scheduler;
+        this.downstream = downstream;
+    }
+
+    /**
+     * 메시지를 받아 순서가 맞는 메시지를 채널별로 전달합니다.
+     *
+     * @param messages 도착한 메시지 리스트
+     */
+    void accept(List<Message> messages) {
+        var messagesByChannel = new LinkedHashMap<String, List<Message>>();
+        for (Message message : messages) {
+            messagesByChannel.computeIfAbsent(message.channelId(), id -> new ArrayList<>()).add(message);
+        }
+        messagesByChannel.forEach((channelId, channelMessages) ->
+                channelOrders.computeIfAbsent(channelId, id -> new ChannelOrder()).accept(channelMessages));
+    }
+
+    /**
+     * 한 채널의 정렬 상태입니다. 같은 채널의 전달 순서를 지키기 위해 전달도 this 잠금 안에서 합니다.
+     */
+    private class ChannelOrder {
+        private final TreeMap<Long, Message> pending = new TreeMap<>();
+        private long lastSequenceNumber = -1;
+        private Disposable expiry;
+
+        synchronized void accept(List<Message> messages) {
+            var ready = new ArrayList<Message>();
+            for (Message message : messages) {
+                long sequenceNumber = message.sequenceNumber();
+                if (lastSequenceNumber < 0) {
+                    lastSequenceNumber = sequenceNumber - 1;
+                }
+                if (sequenceNumber <= lastSequenceNumber) {
+                    // 보류 만료로 건너뛴 번호가 늦게 도착한 경우, 순서는 어긋나지만 버리지 않고 전달합니다.
+                    ready.add(message);
+                } else {
+                    pending.put(sequenceNumber, message);
+                }
+            }
+            while (!pending.isEmpty() && pending.firstKey() == lastSequenceNumber + 1) {
+                ready.add(pending.pollFirstEntry().getValue());
+                lastSequenceNumber++;
+            }
+            if (pending.isEmpty()) {
+                cancelExpiry();
+            } else if (expiry == null) {
+                expiry = scheduler.schedule(this::expire, reorderWindow.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (!ready.isEmpty()) {
+                downstream.accept(ready);
+            }
+        }
+
+        private synchronized void expire() {
+            expiry = null;
+            if (pending.isEmpty()) {
+                return;
+            }
+            var ready = new ArrayList<>(pending.values());
+            lastSequenceNumber = pending.lastKey();
+            pending.clear();
+            downstream.accept(ready);
+        }
+
+        private void cancelExpiry() {
+            if (expiry != null) {
+                expiry.dispose();
+                expiry = null;
+            }
+        }
+    }
+}
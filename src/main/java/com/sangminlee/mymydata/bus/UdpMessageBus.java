@@ -0,0 +1,317 @@
+package com.sangminlee.mymydata.bus;
+
+import com.sangminlee.mymydata.repository.MessageRecordCodec;
+import com.sangminlee.mymydata.vo.Message;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * UDP 데이터그램으로 다른 노드에 메시지를 전달하는 메시지 버스입니다.
+ * <p>
+ * 발행된 메시지는 이 노드의 리스너에 바로 전달되고, 송신 스레드가 그동안 쌓인 메시지를 데이터그램 크기에 맞춰 묶어 모든 피어에 보냅니다.
+ * 수신 스레드는 자기 노드 ID가 붙은 데이터그램을 무시하고, 최근에 본 메시지 ID를 기억해 중복 수신된 메시지를 버린 뒤
+ * 채널별 일련번호 순으로 정렬하여 이 노드의 리스너에만 전달합니다.
+ * <p>
+ * 데이터그램 형식은 다음과 같습니다. 메시지 레코드는 {@link MessageRecordCodec} 형식입니다.
+ * <pre>
+ * int    MAGIC
+ * short  노드 ID 길이, byte[] 노드 ID (UTF-8)
+ * short  메시지 수
+ * (short 채널 ID 길이, byte[] 채널 ID (UTF-8), 메시지 레코드) * 메시지 수
+ * </pre>
+ * UDP는 전달을 보장하지 않으므로, 유실된 메시지는 순서 보류 시간이 지난 뒤 건너뛰며, 구독자 대기열의 재동기화로 복구됩니다.
+ * <p>
+ * 채널 ID와 채널별 일련번호, 재동기화가 모든 노드에서 같은 기록을 가리켜야 하므로 모든 노드가 하나의 메시지/채널 저장소를 공유해야 합니다.
+ * 노드마다 저장소를 따로 두면 채널 ID가 노드마다 다르고 일련번호가 겹쳐, 다른 노드의 메시지가 순서 정렬과 구독자 대기열에서 버려지거나
+ * 재동기화로 복구되지 않습니다. 그래서 'app.message-bus.udp.shared-store'가 true가 아니면 시작하지 않습니다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.message-bus.target", havingValue = "udp")
+class UdpMessageBus implements MessageBus {
+
+    private static final int MAGIC = 0x4D594D44;
+    private static final int MAX_DATAGRAM_SIZE = 60_000;
+    private static final int RECENT_MESSAGE_IDS = 65_536;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final String nodeId;
+    private final byte[] encodedNodeId;
+    private final DatagramChannel channel;
+    private final List<InetSocketAddress> peers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<List<Message>>> listeners = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Message> outbound = new LinkedBlockingQueue<>();
+    private final Set<String> recentMessageIds = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > RECENT_MESSAGE_IDS;
+        }
+    });
+    private final SequenceOrderer orderer;
+    private final Thread sender;
+    private final Thread receiver;
+
+    /**
+     * UdpMessageBus 생성자입니다.
+     *
+     * @param nodeId        이 노드의 ID (비어있으면 임의로 생성)
+     * @param port          수신할 UDP 포트 (0이면 임의의 포트)
+     * @param peers         메시지를 보낼 다른 노드의 주소 목록 (host:port)
+     * @param reorderWindow 빠진 일련번호를 기다리는 최대 시간
+     * @param sharedStore   모든 노드가 메시지/채널 저장소를 공유하는지 여부
+     */
+    UdpMessageBus(@Value("${app.message-bus.node-id:}") String nodeId,
+                  @Value("${app.message-bus.udp.port:7420}") int port,
+                  @Value("${app.message-bus.udp.peers:}") List<String> peers,
+                  @Value("${app.message-bus.reorder-window:50ms}") Duration reorderWindow,
+                  @Value("${app.message-bus.udp.shared-store:false}") boolean sharedStore) {
+        if (!sharedStore) {
+            throw new IllegalStateException("The udp message bus requires a message store shared by all nodes; " +
+                    "set app.message-bus.udp.shared-store=true only when every node uses the same store");
+        }
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.encodedNodeId = this.nodeId.getBytes(StandardCharsets.UTF_8);
+        try {
+            this.channel = DatagramChannel.open().bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        peers.stream().filter(peer -> !peer.isBlank()).map(UdpMessageBus::parseAddress).forEach(this::addPeer);
+        this.orderer = new SequenceOrderer(reorderWindow, Schedulers.parallel(), this::deliver);
+        this.sender = startThread("message-bus-sender", this::sendLoop);
+        this.receiver = startThread("message-bus-receiver", this::receiveLoop);
+    }
+
+    @Override
+    public void publish(List<Message> messages) {
+        synchronized (recentMessageIds) {
+            messages.forEach(message -> recentMessageIds.add(message.messageId()));
+        }
+        orderer.accept(messages);
+        outbound.addAll(messages);
+    }
+
+    @Override
+    public void subscribe(Consumer<List<Message>> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 메시지를 보낼 피어를 추가합니다.
+     *
+     * @param peer 피어 주소
+     */
+    void addPeer(InetSocketAddress peer) {
+        peers.add(peer);
+    }
+
+    /**
+     * 이 노드가 수신하는 로컬 주소를 반환합니다.
+     *
+     * @return 로컬 주소
+     */
+    InetSocketAddress localAddress() {
+        try {
+            return (InetSocketAddress) channel.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 송수신 스레드를 멈추고 소켓을 닫습니다. 소켓을 닫으면 수신 대기 중인 수신 스레드가 깨어나 끝나며, 두 스레드가 끝날 때까지 기다립니다.
+     */
+    @PreDestroy
+    void close() {
+        sender.interrupt();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close message bus channel", e);
+        }
+        try {
+            sender.join(CLOSE_TIMEOUT.toMillis());
+            receiver.join(CLOSE_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 송신 또는 수신 스레드가 아직 실행 중인지 반환합니다.
+     *
+     * @return 실행 중이면 true
+     */
+    boolean isRunning() {
+        return sender.isAlive() || receiver.isAlive();
+    }
+
+    private void deliver(List<Message> messages) {
+        listeners.forEach(listener -> listener.accept(messages));
+    }
+
+    /**
+     * 쌓인 메시지를 데이터그램 크기에 맞춰 묶어 보냅니다. 첫 메시지를 기다린 뒤에는 이미 쌓인 메시지만 가져가므로,
+     * 한가할 때는 바로 보내고 몰릴 때는 직전 전송 동안 쌓인 메시지를 한 번에 보냅니다.
+     */
+    private void sendLoop() {
+        var batch = new ArrayList<Message>();
+        var buffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+        while (channel.isOpen()) {
+            try {
+                batch.add(outbound.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            outbound.drainTo(batch);
+            int from = 0;
+            while (from < batch.size()) {
+                from = encode(batch, from, buffer);
+                send(buffer);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * batch[from]부터 데이터그램에 들어가는 만큼 메시지를 기록하고, 다음에 기록할 위치를 반환합니다.
+     * 데이터그램 하나에도 들어가지 않는 메시지는 건너뜁니다.
+     */
+    private int encode(List<Message> batch, int from, ByteBuffer buffer) {
+        buffer.clear();
+        buffer.putInt(MAGIC).putShort((short) encodedNodeId.length).put(encodedNodeId);
+        int countPosition = buffer.position();
+        buffer.putShort((short) 0);
+        int count = 0;
+        int next = from;
+        for (; next < batch.size() && count < Short.MAX_VALUE; next++) {
+            var message = batch.get(next);
+            byte[] channelId = message.channelId().getBytes(StandardCharsets.UTF_8);
+            byte[] body = message.message().getBytes(StandardCharsets.UTF_8);
+            int length = Short.BYTES + channelId.length + MessageRecordCodec.FIXED_LENGTH + body.length;
+            if (length > buffer.remaining()) {
+                if (count == 0) {
+                    log.warn("Message {} is too large for a datagram and will not be sent to peers", message.messageId());
+                    continue;
+                }
+                break;
+            }
+            buffer.putShort((short) channelId.length).put(channelId);
+            MessageRecordCodec.encode(message, body, buffer);
+            count++;
+        }
+        if (count == 0) {
+            buffer.clear().limit(0);
+            return next;
+        }
+        buffer.putShort(countPosition, (short) count);
+        buffer.flip();
+        return next;
+    }
+
+    private void send(ByteBuffer datagram) {
+        if (!datagram.hasRemaining()) {
+            return;
+        }
+        for (InetSocketAddress peer : peers) {
+            try {
+                channel.send(datagram.duplicate(), peer);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Failed to send messages to {}", peer, e);
+            }
+        }
+    }
+
+    private void receiveLoop() {
+        var buffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+        while (channel.isOpen()) {
+            buffer.clear();
+            try {
+                channel.receive(buffer);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Failed to receive messages", e);
+                continue;
+            }
+            buffer.flip();
+            try {
+                var messages = decode(buffer);
+                if (!messages.isEmpty()) {
+                    orderer.accept(messages);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Discarding malformed message bus datagram", e);
+            }
+        }
+    }
+
+    /**
+     * 데이터그램에서 다른 노드가 보낸, 처음 보는 메시지만 읽습니다.
+     */
+    private List<Message> decode(ByteBuffer buffer) {
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+            return List.of();
+        }
+        byte[] sender = new byte[buffer.getShort()];
+        buffer.get(sender);
+        if (Arrays.equals(sender, encodedNodeId)) {
+            return List.of();
+        }
+        int count = buffer.getShort();
+        var messages = new ArrayList<Message>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] channelId = new byte[buffer.getShort()];
+            buffer.get(channelId);
+            var message = MessageRecordCodec.decode(buffer, new String(channelId, StandardCharsets.UTF_8));
+            boolean firstSeen;
+            synchronized (recentMessageIds) {
+                firstSeen = recentMessageIds.add(message.messageId());
+            }
+            if (firstSeen) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    private static Thread startThread(String name, Runnable task) {
+        var thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static InetSocketAddress parseAddress(String address) {
+        int separator = address.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Peer address must be host:port: " + address);
+        }
+        return new InetSocketAddress(address.substring(0, separator).trim(), Integer.parseInt(address.substring(separator + 1).trim()));
+    }
+}
@@ -1,15 +1,109 @@
 package com.sangminlee.mymydata.config;
 
+import com.sangminlee.mymydata.llm.BoundedChatMemory;
+import com.sangminlee.mymydata.llm.MessageRepositoryChatMemory;
+import com.sangminlee.mymydata.llm.TokenBudgetChatMemory;
+import com.sangminlee.mymydata.repository.MessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 대화 기억 설정을 위한 구성 클래스입니다. <br>
+ * 'app.chat-memory.target' 속성에 따라 대화 기억을 채널 메시지 저장소에서 읽거나(repository) 별도 메모리에 보관하며(memory),
+ * 어느 쪽이든 토큰 예산 안에 맞추고 오래된 메시지를 요약으로 대신합니다.
+ */
 @Configuration
 public class ChatMemoryConfig {
 
+    private final ChatModel chatModel;
+    private final String summaryPrompt;
+    private final int maxTokens;
+    private final Duration idleTimeout;
+    private final DataSize maxSummarySize;
+
+    /**
+     * ChatMemoryConfig 생성자입니다.
+     *
+     * @param chatModel             오래된 메시지를 요약할 ChatModel
+     * @param summaryPromptResource 대화 요약 프롬프트 리소스
+     * @param maxTokens             대화 기억의 최대 토큰 수
+     * @param idleTimeout           사용되지 않은 대화 기억과 요약을 제거할 때까지의 시간
+     * @param maxSummarySize        전체 대화 요약의 최대 보관 크기
+     * @throws IOException 리소스 읽기 실패 시 발생
+     */
+    public ChatMemoryConfig(ChatModel chatModel,
+                            @Value("classpath:/prompt/conversation-summary-prompt.st") Resource summaryPromptResource,
+                            @Value("${app.chat-memory.max-tokens:3000}") int maxTokens,
+                            @Value("${app.chat-memory.idle-timeout:24h}") Duration idleTimeout,
+                            @Value("${app.chat-memory.max-summary-size:16MB}") DataSize maxSummarySize) throws IOException {
+        this.chatModel = chatModel;
+        this.summaryPrompt = summaryPromptResource.getContentAsString(StandardCharsets.UTF_8);
+        this.maxTokens = maxTokens;
+        this.idleTimeout = idleTimeout;
+        this.maxSummarySize = maxSummarySize;
+    }
+
+    /**
+     * 대화 요약을 갱신할 가상 스레드 실행기를 생성합니다.
+     *
+     * @return 요약 실행기
+     */
+    @Bean(destroyMethod = "close")
+    ExecutorService chatMemorySummaryExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * 채널 메시지 저장소를 그대로 대화 기억으로 사용하는 ChatMemory 빈을 생성합니다.
+     * 'app.chat-memory.target' 속성이 'repository'일 때 활성화됩니다.
+     *
+     * @param messageRepository 채널 메시지 저장소
+     * @param clock             요약 사용 시각을 구할 시계
+     * @param meterRegistry     대화 기억 지표를 기록할 레지스트리
+     * @return 구성된 ChatMemory 인스턴스
+     */
     @Bean
-    public ChatMemory chatMemory() {
-        return new InMemoryChatMemory();
+    @ConditionalOnProperty(name = "app.chat-memory.target", havingValue = "repository", matchIfMissing = true)
+    public ChatMemory repositoryChatMemory(MessageRepository messageRepository, Clock clock, MeterRegistry meterRegistry) {
+        return withTokenBudget(new MessageRepositoryChatMemory(messageRepository), clock, meterRegistry);
+    }
+
+    /**
+     * 대화별 개수, 전체 크기, 미사용 시간이 제한된 메모리에 대화 기억을 보관하는 ChatMemory 빈을 생성합니다.
+     * 'app.chat-memory.target' 속성이 'memory'일 때 활성화됩니다.
+     *
+     * @param clock         대화 사용 시각을 구할 시계
+     * @param meterRegistry 대화 기억 지표를 기록할 레지스트리
+     * @param maxMessages   대화별 최대 보관 메시지 수
+     * @param maxSize       전체 대화의 최대 보관 크기
+     * @return 구성된 ChatMemory 인스턴스
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.chat-memory.target", havingValue = "memory")
+    public ChatMemory inMemoryChatMemory(Clock clock, MeterRegistry meterRegistry,
+                                         @Value("${app.chat-memory.max-messages:200}") int maxMessages,
+                                         @Value("${app.chat-memory.max-size:64MB}") DataSize maxSize) {
+        return withTokenBudget(new BoundedChatMemory(maxMessages, maxSize.toBytes(), idleTimeout, clock, meterRegistry),
+                clock, meterRegistry);
+    }
+
+    private ChatMemory withTokenBudget(ChatMemory messages, Clock clock, MeterRegistry meterRegistry) {
+        return new TokenBudgetChatMemory(messages, chatModel, new JTokkitTokenCountEstimator(), summaryPrompt, maxTokens,
+                chatMemorySummaryExecutor(), idleTimeout, maxSummarySize.toBytes(), clock, meterRegistry);
     }
 }
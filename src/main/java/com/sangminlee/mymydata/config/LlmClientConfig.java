@@ -1,7 +1,7 @@
 package com.sangminlee.mymydata.config;
 
+import com.sangminlee.mymydata.llm.ChannelChatMemoryAdvisor;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.QuestionAnswerAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
@@ -53,7 +53,7 @@ public class LlmClientConfig {
                 .defaultSystem(defaultSystemPrompt)
                 .defaultAdvisors(
                         // 채팅 기억 advisor를 추가합니다.
-                        new MessageChatMemoryAdvisor(chatMemory),
+                        new ChannelChatMemoryAdvisor(chatMemory),
                         // 벡터스토어를 사용하여 관련 컨텍스트를 질문에 활용하도록 합니다.
                         new QuestionAnswerAdvisor(vectorStore, searchRequest, userTextAdvise),
                         // 가장 간단한 로깅 advisor 추가합니다.
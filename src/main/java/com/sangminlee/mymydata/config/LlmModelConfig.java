@@ -0,0 +1,62 @@
+package com.sangminlee.mymydata.config;
+
+import com.sangminlee.mymydata.llm.LlmRequestScheduler;
+import com.sangminlee.mymydata.llm.ScheduledChatModel;
+import com.sangminlee.mymydata.llm.ScheduledEmbeddingModel;
+import com.sangminlee.mymydata.llm.SingleFlightChatModel;
+import com.sangminlee.mymydata.llm.SingleFlightEmbeddingModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * 자동 구성된 ChatModel과 EmbeddingModel을 감싸는 구성 클래스입니다. <br>
+ * 동시에 들어온 같은 요청은 하나로 합치고, 남은 요청은 분당 요청 수/토큰 수 한도에 맞춰 보냅니다.
+ * 감싼 모델을 기본(Primary) 빈으로 등록하므로 ChatClient와 벡터 스토어는 모두 이 순서를 거쳐 요청을 보냅니다.
+ * 채팅 모델과 임베딩 모델은 제공자의 한도가 따로 적용되므로 스케줄러도 따로 둡니다.
+ */
+@Configuration
+public class LlmModelConfig {
+
+    /**
+     * 자동 구성된 ChatModel을 감싼 ChatModel 빈을 생성합니다.
+     *
+     * @param chatModel         자동 구성된 ChatModel 인스턴스
+     * @param meterRegistry     대기 지표와 합쳐진 요청 수를 기록할 레지스트리
+     * @param requestsPerMinute 분당 요청 수 한도
+     * @param tokensPerMinute   분당 토큰 수 한도
+     * @param completionTokens  요청마다 응답용으로 예약할 토큰 수
+     * @return 같은 요청을 합치고 한도에 맞춰 보내는 ChatModel 인스턴스
+     */
+    @Bean
+    @Primary
+    SingleFlightChatModel primaryChatModel(ChatModel chatModel, MeterRegistry meterRegistry,
+                                           @Value("${app.llm-scheduler.chat.requests-per-minute:500}") int requestsPerMinute,
+                                           @Value("${app.llm-scheduler.chat.tokens-per-minute:200000}") long tokensPerMinute,
+                                           @Value("${app.llm-scheduler.chat.completion-tokens:512}") long completionTokens) {
+        var scheduler = new LlmRequestScheduler("chat", requestsPerMinute, tokensPerMinute, meterRegistry);
+        return new SingleFlightChatModel(new ScheduledChatModel(chatModel, scheduler, completionTokens), meterRegistry);
+    }
+
+    /**
+     * 자동 구성된 EmbeddingModel을 감싼 EmbeddingModel 빈을 생성합니다.
+     *
+     * @param embeddingModel    자동 구성된 EmbeddingModel 인스턴스
+     * @param meterRegistry     대기 지표와 합쳐진 요청 수를 기록할 레지스트리
+     * @param requestsPerMinute 분당 요청 수 한도
+     * @param tokensPerMinute   분당 토큰 수 한도
+     * @return 같은 요청을 합치고 한도에 맞춰 보내는 EmbeddingModel 인스턴스
+     */
+    @Bean
+    @Primary
+    SingleFlightEmbeddingModel primaryEmbeddingModel(EmbeddingModel embeddingModel, MeterRegistry meterRegistry,
+                                                     @Value("${app.llm-scheduler.embedding.requests-per-minute:3000}") int requestsPerMinute,
+                                                     @Value("${app.llm-scheduler.embedding.tokens-per-minute:1000000}") long tokensPerMinute) {
+        var scheduler = new LlmRequestScheduler("embedding", requestsPerMinute, tokensPerMinute, meterRegistry);
+        return new SingleFlightEmbeddingModel(new ScheduledEmbeddingModel(embeddingModel, scheduler), meterRegistry);
+    }
+}
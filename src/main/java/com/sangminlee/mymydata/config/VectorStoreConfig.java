@@ -1,8 +1,13 @@
 package com.sangminlee.mymydata.config;
 
+import com.sangminlee.mymydata.constant.LlmPriority;
+import com.sangminlee.mymydata.llm.LlmRequestScheduler;
+import com.sangminlee.mymydata.vectorstore.HnswVectorStore;
+import com.sangminlee.mymydata.vectorstore.MappedVectorStore;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chroma.ChromaApi;
 import org.springframework.ai.document.Document;
@@ -16,7 +21,6 @@ import org.springframework.ai.transformer.SummaryMetadataEnricher;
 import org.springframework.ai.transformer.splitter.TextSplitter;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.ChromaVectorStore;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
@@ -24,18 +28,20 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.io.Resource;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
 
 /**
  * 벡터 스토어 설정을 위한 구성 클래스입니다.
- * 이 클래스는 SimpleVectorStore와 ChromaVectorStore를 조건부로 설정합니다.
- * 두 벡터 스토어 구현(Simple, Chroma) 중 하나를 선택적으로 사용할 수 있도록 설계되어 있어,
+ * 이 클래스는 MappedVectorStore, HnswVectorStore와 ChromaVectorStore를 조건부로 설정합니다.
+ * 세 벡터 스토어 구현(Simple, HNSW, Chroma) 중 하나를 선택적으로 사용할 수 있도록 설계되어 있어,
  * 애플리케이션의 요구사항에 따라 유연하게 벡터 스토어를 선택할 수 있습니다.
  */
+@Slf4j
 @Getter
 @Setter
 @Configuration
@@ -47,6 +53,16 @@ public class VectorStoreConfig {
 
     @Value("${app.vectorstore.path:./simple-vectorstore.json}")
     private String vectorStorePath;
+    @Value("${app.vectorstore.mapped-path:./mapped-vectorstore}")
+    private String mappedVectorStorePath;
+    @Value("${app.vectorstore.hnsw.path:./hnsw-vectorstore}")
+    private String hnswPath;
+    @Value("${app.vectorstore.hnsw.m:16}")
+    private int hnswM;
+    @Value("${app.vectorstore.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+    @Value("${app.vectorstore.hnsw.ef-search:64}")
+    private int hnswEfSearch;
     @Value("${app.resources}")
     private List<String> pdfUrl;
     @Value("${spring.ai.vectorstore.chroma.collection-name}")
@@ -55,23 +71,56 @@ public class VectorStoreConfig {
     private Resource defaultSummaryPromptResource;
 
     /**
-     * SimpleVectorStore 빈을 생성하고 구성합니다.
+     * MappedVectorStore 빈을 생성하고 구성합니다.
      * 'app.vectorstore.target' 속성이 'simple'일 때 활성화됩니다.
-     * 생성한 vectorstore 파일은 프로젝트 최상단에 저장됩니다.
+     * 문서와 임베딩은 'app.vectorstore.mapped-path' 디렉터리의 메모리 맵 파일에 저장되어, 시작할 때 JSON을 읽지 않고 바로 엽니다.
+     * 파일이 없고 이전 형식의 simple-vectorstore.json이 있으면 임베딩을 다시 계산하지 않고 한 번 변환합니다.
+     * 문서 적재 중의 LLM 요청은 채팅 요청보다 낮은 우선순위로 보냅니다.
      *
-     * @return 구성된 SimpleVectorStore 인스턴스
-     * @throws IOException 파일 처리 중 오류 발생 시
+     * @return 구성된 MappedVectorStore 인스턴스
+     * @throws Exception 문서 처리 또는 파일 처리 중 오류 발생 시
      */
     @Bean
     @ConditionalOnProperty(name = "app.vectorstore.target", havingValue = "simple", matchIfMissing = true)
-    SimpleVectorStore simpleVectorStore() throws IOException {
-        var vectorStore = new SimpleVectorStore(embeddingModel);
-        File vectorStoreFile = new File(vectorStorePath);
-        if (vectorStoreFile.exists()) {
-            vectorStore.load(vectorStoreFile);
+    MappedVectorStore simpleVectorStore() throws Exception {
+        Path directory = Path.of(mappedVectorStorePath);
+        Path legacyFile = Path.of(vectorStorePath);
+        if (!MappedVectorStore.exists(directory) && Files.exists(legacyFile)) {
+            int converted = MappedVectorStore.convert(legacyFile, directory);
+            log.info("Converted {} documents from {} to {}", converted, legacyFile, directory);
+        }
+        var vectorStore = new MappedVectorStore(embeddingModel, directory);
+        if (!MappedVectorStore.exists(directory)) {
+            LlmRequestScheduler.callWithPriority(LlmPriority.BACKGROUND, () -> {
+                vectorStore.add(processPdfDocuments());
+                return null;
+            });
+        }
+        return vectorStore;
+    }
+
+    /**
+     * HnswVectorStore 빈을 생성하고 구성합니다.
+     * 'app.vectorstore.target' 속성이 'hnsw'일 때 활성화됩니다.
+     * 저장된 색인이 있으면 그래프를 다시 만들지 않고 읽으며, 없으면 문서를 적재한 뒤 색인을 저장합니다.
+     * 문서 적재 중의 LLM 요청은 채팅 요청보다 낮은 우선순위로 보냅니다.
+     *
+     * @return 구성된 HnswVectorStore 인스턴스
+     * @throws Exception 문서 처리 또는 색인 파일 처리 중 오류 발생 시
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.vectorstore.target", havingValue = "hnsw")
+    HnswVectorStore hnswVectorStore() throws Exception {
+        var vectorStore = new HnswVectorStore(embeddingModel, hnswM, hnswEfConstruction, hnswEfSearch);
+        Path directory = Path.of(hnswPath);
+        if (HnswVectorStore.exists(directory)) {
+            vectorStore.load(directory);
         } else {
-            vectorStore.add(processPdfDocuments());
-            vectorStore.save(vectorStoreFile);
+            LlmRequestScheduler.callWithPriority(LlmPriority.BACKGROUND, () -> {
+                vectorStore.add(processPdfDocuments());
+                return null;
+            });
+            vectorStore.save(directory);
         }
         return vectorStore;
     }
@@ -79,6 +128,7 @@ public class VectorStoreConfig {
     /**
      * ChromaVectorStore 빈을 생성하고 구성합니다.
      * 'app.vectorstore.target' 속성이 'chroma'일 때 활성화됩니다.
+     * 문서 적재 중의 LLM 요청은 채팅 요청보다 낮은 우선순위로 보냅니다.
      *
      * @param chromaApi ChromaApi 인스턴스
      * @return 구성된 ChromaVectorStore 인스턴스
@@ -90,10 +140,14 @@ public class VectorStoreConfig {
     ChromaVectorStore chromaVectorStore(ChromaApi chromaApi) throws Exception {
         ChromaVectorStore vectorStore;
         if (chromaApi.getCollection(chromaCollectionName) == null) {
-            vectorStore = new ChromaVectorStore(embeddingModel, chromaApi, true);
-            List<Document> documents = processPdfDocuments();
-            vectorStore.afterPropertiesSet();
-            vectorStore.add(documents);
+            var newVectorStore = new ChromaVectorStore(embeddingModel, chromaApi, true);
+            LlmRequestScheduler.callWithPriority(LlmPriority.BACKGROUND, () -> {
+                List<Document> documents = processPdfDocuments();
+                newVectorStore.afterPropertiesSet();
+                newVectorStore.add(documents);
+                return null;
+            });
+            vectorStore = newVectorStore;
         } else {
             vectorStore = new ChromaVectorStore(embeddingModel, chromaApi, true);
         }
@@ -15,4 +15,20 @@ public enum Author {
         this.color = color;
     }
 
+    /**
+     * 표시 이름으로 작성자를 찾습니다.
+     *
+     * @param name 작성자 표시 이름
+     * @return 표시 이름에 해당하는 작성자
+     * @throws IllegalArgumentException 일치하는 작성자가 없는 경우
+     */
+    public static Author fromName(String name) {
+        for (Author author : values()) {
+            if (author.name.equals(name)) {
+                return author;
+            }
+        }
+        throw new IllegalArgumentException("Unknown author: " + name);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.sangminlee.mymydata.constant;
+
+/**
+ * 채널 목록의 정렬 순서입니다. 채널 이름은 대소문자를 구분하지 않고 비교합니다.
+ */
+public enum ChannelSort {
+    NAME_ASC,
+    NAME_DESC
+}
@@ -0,0 +1,15 @@
+package com.sangminlee.mymydata.constant;
+
+/**
+ * 실시간 메시지 구독자의 대기열이 가득 찼을 때의 처리 방식입니다.
+ */
+public enum LiveOverflowPolicy {
+    /**
+     * 가장 오래된 묶음부터 버리고, 다음에 전달하는 묶음에 메시지가 빠졌음을 표시합니다.
+     */
+    DROP_OLDEST,
+    /**
+     * 대기열을 모두 비우고, 구독자가 다음 묶음을 요청할 때 마지막으로 전달한 일련번호 이후의 메시지를 저장소에서 다시 읽어 전달합니다.
+     */
+    RESYNC
+}
@@ -0,0 +1,15 @@
+package com.sangminlee.mymydata.constant;
+
+/**
+ * LLM 요청의 우선순위입니다. 한도를 기다리는 요청 중 우선순위가 높은 요청이 먼저 보내집니다.
+ */
+public enum LlmPriority {
+    /**
+     * 사용자가 응답을 기다리는 채팅 요청입니다.
+     */
+    INTERACTIVE,
+    /**
+     * 문서 요약, 키워드 추출, 임베딩 등 문서 적재 중의 요청입니다.
+     */
+    BACKGROUND
+}
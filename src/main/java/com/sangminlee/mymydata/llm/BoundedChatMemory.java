@@ -0,0 +1,202 @@
+package com.sangminlee.mymydata.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 크기가 제한된 인메모리 ChatMemory입니다.
+ * <ul>
+ *   <li>대화별로 최근 {@code maxMessagesPerConversation}개의 메시지만 보관하고 오래된 메시지부터 버립니다.</li>
+ *   <li>전체 보관 크기가 {@code maxBytes}를 넘으면 가장 오래 사용되지 않은 대화부터 제거합니다.</li>
+ *   <li>{@code idleTimeout} 동안 사용되지 않은 대화는 다음 정리 때 제거합니다. 정리는 별도 스레드 없이 메시지를 추가할 때 수행합니다.</li>
+ * </ul>
+ * 전역 잠금 없이 대화별로만 잠그며, 정리 작업은 한 번에 한 스레드만 수행하고 나머지 스레드는 기다리지 않습니다.
+ */
+public class BoundedChatMemory implements ChatMemory {
+
+    /**
+     * 메시지 하나의 보관 크기를 추정할 때 본문 외에 더하는 객체 오버헤드입니다.
+     */
+    private static final long MESSAGE_OVERHEAD_BYTES = 64;
+
+    private final int maxMessagesPerConversation;
+    private final long maxBytes;
+    private final long idleTimeoutMillis;
+    private final long sweepIntervalMillis;
+    private final Clock clock;
+    private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final AtomicLong lastSweptAt;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Counter idleEvictions;
+    private final Counter budgetEvictions;
+
+    /**
+     * BoundedChatMemory 생성자입니다.
+     *
+     * @param maxMessagesPerConversation 대화별 최대 메시지 수
+     * @param maxBytes                   전체 대화의 최대 보관 크기 (추정치)
+     * @param idleTimeout                사용되지 않은 대화를 제거할 때까지의 시간
+     * @param clock                      대화 사용 시각을 구할 시계
+     * @param meterRegistry              대화 수, 보관 크기, 제거 횟수를 기록할 레지스트리
+     */
+    public BoundedChatMemory(int maxMessagesPerConversation, long maxBytes, Duration idleTimeout, Clock clock,
+                             MeterRegistry meterRegistry) {
+        this.maxMessagesPerConversation = maxMessagesPerConversation;
+        this.maxBytes = maxBytes;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.sweepIntervalMillis = Math.max(1, idleTimeoutMillis / 10);
+        this.clock = clock;
+        this.lastSweptAt = new AtomicLong(clock.millis());
+        Gauge.builder("mymydata.chat.memory.conversations", conversations, Map::size)
+                .description("대화 기억을 보관 중인 대화 수")
+                .register(meterRegistry);
+        Gauge.builder("mymydata.chat.memory.bytes", retainedBytes, AtomicLong::get)
+                .description("대화 기억의 추정 보관 크기")
+                .tag("type", "messages")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.idleEvictions = Counter.builder("mymydata.chat.memory.evicted")
+                .description("제거된 대화 수")
+                .tag("reason", "idle")
+                .register(meterRegistry);
+        this.budgetEvictions = Counter.builder("mymydata.chat.memory.evicted")
+                .description("제거된 대화 수")
+                .tag("reason", "budget")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        long now = clock.millis();
+        while (true) {
+            var conversation = conversations.computeIfAbsent(conversationId, id -> new Conversation());
+            synchronized (conversation) {
+                // 정리 작업이 제거한 대화에는 추가하지 않고 새 대화를 만듭니다.
+                if (conversation.removed) {
+                    continue;
+                }
+                conversation.lastAccessedAt = now;
+                long delta = 0;
+                for (Message message : messages) {
+                    conversation.messages.addLast(message);
+                    delta += sizeOf(message);
+                }
+                while (conversation.messages.size() > maxMessagesPerConversation) {
+                    delta -= sizeOf(conversation.messages.removeFirst());
+                }
+                conversation.bytes += delta;
+                retainedBytes.addAndGet(delta);
+                break;
+            }
+        }
+        evictIfNeeded(now);
+    }
+
+    @Override
+    public List<Message> get(String conversationId, int lastN) {
+        var conversation = conversations.get(conversationId);
+        if (conversation == null) {
+            return List.of();
+        }
+        synchronized (conversation) {
+            conversation.lastAccessedAt = clock.millis();
+            return conversation.messages.stream()
+                    .skip(Math.max(0, conversation.messages.size() - lastN))
+                    .toList();
+        }
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        var conversation = conversations.get(conversationId);
+        if (conversation != null) {
+            remove(conversationId, conversation);
+        }
+    }
+
+    long retainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * 정리 간격이 지났으면 오래 사용되지 않은 대화를 제거하고, 전체 크기가 예산을 넘으면 가장 오래 사용되지 않은 대화부터 제거합니다.
+     * 다른 스레드가 정리 중이면 기다리지 않고 돌아갑니다.
+     */
+    private void evictIfNeeded(long now) {
+        boolean sweepDue = now - lastSweptAt.get() >= sweepIntervalMillis;
+        if (!sweepDue && retainedBytes.get() <= maxBytes || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (sweepDue) {
+                lastSweptAt.set(now);
+                conversations.forEach((id, conversation) -> {
+                    if (now - conversation.lastAccessedAt >= idleTimeoutMillis && remove(id, conversation)) {
+                        idleEvictions.increment();
+                    }
+                });
+            }
+            if (retainedBytes.get() > maxBytes) {
+                // 정렬 중에 사용 시각이 바뀌지 않도록 먼저 복사합니다.
+                var oldestFirst = conversations.entrySet().stream()
+                        .map(entry -> new Candidate(entry.getKey(), entry.getValue(), entry.getValue().lastAccessedAt))
+                        .sorted(Comparator.comparingLong(Candidate::lastAccessedAt))
+                        .toList();
+                for (var candidate : oldestFirst) {
+                    if (retainedBytes.get() <= maxBytes) {
+                        break;
+                    }
+                    if (remove(candidate.conversationId(), candidate.conversation())) {
+                        budgetEvictions.increment();
+                    }
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean remove(String conversationId, Conversation conversation) {
+        synchronized (conversation) {
+            if (conversation.removed) {
+                return false;
+            }
+            conversation.removed = true;
+            retainedBytes.addAndGet(-conversation.bytes);
+        }
+        conversations.remove(conversationId, conversation);
+        return true;
+    }
+
+    private static long sizeOf(Message message) {
+        String content = message.getContent();
+        return MESSAGE_OVERHEAD_BYTES + (content == null ? 0 : content.length() * 2L);
+    }
+
+    private record Candidate(String conversationId, Conversation conversation, long lastAccessedAt) {
+    }
+
+    /**
+     * 대화 하나의 메시지입니다. 필드는 이 객체의 모니터로 보호하며, 정리 작업은 사용 시각만 잠금 없이 읽습니다.
+     */
+    private static class Conversation {
+        private final ArrayDeque<Message> messages = new ArrayDeque<>();
+        private long bytes;
+        private volatile long lastAccessedAt;
+        private boolean removed;
+    }
+}
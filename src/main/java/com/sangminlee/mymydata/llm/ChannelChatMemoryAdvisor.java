@@ -0,0 +1,75 @@
+package com.sangminlee.mymydata.llm;
+
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * 응답할 질문의 일련번호까지 ChatMemory에 전달하는 MessageChatMemoryAdvisor입니다.
+ * <p>
+ * 질문은 응답을 생성하기 전에 채널에 저장되고 같은 채널의 응답은 차례로 생성되므로, 응답을 기다리는 동안 뒤이은 질문이 채널에 저장될 수 있습니다.
+ * advisor 파라미터 {@link #QUESTION_SEQUENCE_NUMBER_KEY}에 질문의 일련번호가 있으면 대화 ID를 {@code 대화 ID#일련번호}로 바꾸어 전달하며,
+ * ChatMemory는 {@link #conversationId}와 {@link #questionSequenceNumber}로 다시 나누어 그 질문보다 앞선 메시지만 대화 기억으로 사용합니다.
+ */
+public class ChannelChatMemoryAdvisor extends MessageChatMemoryAdvisor {
+
+    /**
+     * 응답할 질문의 일련번호를 담는 advisor 파라미터 키입니다.
+     */
+    public static final String QUESTION_SEQUENCE_NUMBER_KEY = "chat_memory_question_sequence_number";
+
+    private static final char SEPARATOR = '#';
+
+    /**
+     * ChannelChatMemoryAdvisor 생성자입니다.
+     *
+     * @param chatMemory 대화 기억
+     */
+    public ChannelChatMemoryAdvisor(ChatMemory chatMemory) {
+        super(chatMemory);
+    }
+
+    @Override
+    protected String doGetConversationId(Map<String, Object> context) {
+        String conversationId = super.doGetConversationId(context);
+        Object sequenceNumber = context.get(QUESTION_SEQUENCE_NUMBER_KEY);
+        return sequenceNumber == null ? conversationId : conversationId + SEPARATOR + sequenceNumber;
+    }
+
+    /**
+     * advisor가 전달한 대화 ID에서 질문의 일련번호를 뗀 대화 ID를 반환합니다.
+     *
+     * @param key advisor가 전달한 대화 ID
+     * @return 대화 ID
+     */
+    public static String conversationId(String key) {
+        int separator = separatorIndex(key);
+        return separator < 0 ? key : key.substring(0, separator);
+    }
+
+    /**
+     * advisor가 전달한 대화 ID에 담긴 질문의 일련번호를 반환합니다.
+     *
+     * @param key advisor가 전달한 대화 ID
+     * @return 질문의 일련번호 (없으면 빈 OptionalLong)
+     */
+    public static OptionalLong questionSequenceNumber(String key) {
+        int separator = separatorIndex(key);
+        return separator < 0 ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(key.substring(separator + 1)));
+    }
+
+    private static int separatorIndex(String key) {
+        int separator = key.lastIndexOf(SEPARATOR);
+        if (separator < 0 || separator == key.length() - 1 || key.length() - separator > 19) {
+            return -1;
+        }
+        for (int i = separator + 1; i < key.length(); i++) {
+            if (!Character.isDigit(key.charAt(i))) {
+                return -1;
+            }
+        }
+        return separator;
+    }
+}
@@ -0,0 +1,204 @@
+package com.sangminlee.mymydata.llm;
+
+import com.sangminlee.mymydata.constant.LlmPriority;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 분당 요청 수(RPM)와 분당 토큰 수(TPM) 한도에 맞춰 LLM 요청을 보낼 시점을 정합니다.
+ * <p>
+ * 두 한도는 각각 1분 동안의 한도를 용량으로 하고 한도/60초의 속도로 채워지는 토큰 버킷으로 관리합니다.
+ * 요청은 예상 토큰 수를 예약한 뒤에 보내지며, 한도가 부족하면 우선순위 큐에서 기다립니다.
+ * 큐의 맨 앞 요청만 한도를 가져갈 수 있고, 필요한 만큼 채워지는 시점까지 정확히 기다린 뒤 보내지므로
+ * 한도를 넘겨 429 응답을 받고 재시도하는 일을 줄입니다. 같은 우선순위에서는 먼저 온 요청이 먼저 보내집니다.
+ * <p>
+ * 응답을 받은 뒤 실제 사용한 토큰 수로 {@link #settle}하면 예약한 토큰과의 차이를 돌려주거나 더 차감합니다.
+ */
+public class LlmRequestScheduler {
+
+    private static final ThreadLocal<LlmPriority> CURRENT_PRIORITY = ThreadLocal.withInitial(() -> LlmPriority.INTERACTIVE);
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Ticket> waiting = new PriorityQueue<>(
+            Comparator.comparing(Ticket::priority).thenComparingLong(Ticket::sequence));
+    private final Map<LlmPriority, Timer> waitTimes = new EnumMap<>(LlmPriority.class);
+    private long nextSequence;
+
+    /**
+     * LlmRequestScheduler 생성자입니다.
+     *
+     * @param model             지표에 표시할 모델 구분 (chat, embedding 등)
+     * @param requestsPerMinute 분당 요청 수 한도
+     * @param tokensPerMinute   분당 토큰 수 한도
+     * @param meterRegistry     대기 시간과 대기 요청 수를 기록할 레지스트리
+     */
+    public LlmRequestScheduler(String model, int requestsPerMinute, long tokensPerMinute, MeterRegistry meterRegistry) {
+        if (requestsPerMinute < 1 || tokensPerMinute < 1) {
+            throw new IllegalArgumentException("requestsPerMinute and tokensPerMinute must be at least 1");
+        }
+        this.requestBucket = new TokenBucket(requestsPerMinute);
+        this.tokenBucket = new TokenBucket(tokensPerMinute);
+        for (LlmPriority priority : LlmPriority.values()) {
+            waitTimes.put(priority, Timer.builder("mymydata.llm.scheduler.wait")
+                    .description("LLM 요청이 RPM/TPM 한도를 기다린 시간")
+                    .tag("model", model)
+                    .tag("priority", priority.name().toLowerCase())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("mymydata.llm.scheduler.queued", this, LlmRequestScheduler::queued)
+                .description("RPM/TPM 한도를 기다리는 LLM 요청 수")
+                .tag("model", model)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 현재 스레드에서 보내는 LLM 요청의 우선순위를 지정하고 작업을 실행합니다.
+     *
+     * @param priority 작업 중 보내는 요청의 우선순위
+     * @param task     실행할 작업
+     * @return 작업의 결과
+     * @throws Exception 작업에서 발생한 예외
+     */
+    public static <T> T callWithPriority(LlmPriority priority, Callable<T> task) throws Exception {
+        var previous = CURRENT_PRIORITY.get();
+        CURRENT_PRIORITY.set(priority);
+        try {
+            return task.call();
+        } finally {
+            CURRENT_PRIORITY.set(previous);
+        }
+    }
+
+    /**
+     * 현재 스레드에서 보내는 LLM 요청의 우선순위를 반환합니다. 지정하지 않았으면 {@link LlmPriority#INTERACTIVE}입니다.
+     *
+     * @return 현재 우선순위
+     */
+    public static LlmPriority currentPriority() {
+        return CURRENT_PRIORITY.get();
+    }
+
+    /**
+     * 요청 하나와 예상 토큰 수만큼의 한도를 예약합니다. 한도가 부족하면 채워질 때까지 기다립니다.
+     * 분당 토큰 한도보다 큰 요청은 분당 토큰 한도만큼 예약합니다.
+     *
+     * @param estimatedTokens 요청과 응답에 쓰일 것으로 예상되는 토큰 수
+     * @param priority        요청의 우선순위
+     * @return 예약한 토큰 수 ({@link #settle}에 전달)
+     * @throws InterruptedException 기다리는 중 인터럽트된 경우
+     */
+    public long acquire(long estimatedTokens, LlmPriority priority) throws InterruptedException {
+        long startedAt = System.nanoTime();
+        long reserved = Math.min(Math.max(estimatedTokens, 0), tokenBucket.capacity);
+        lock.lockInterruptibly();
+        try {
+            var ticket = new Ticket(priority, nextSequence++);
+            waiting.add(ticket);
+            changed.signalAll();
+            try {
+                while (true) {
+                    if (waiting.peek() != ticket) {
+                        changed.await();
+                        continue;
+                    }
+                    long now = System.nanoTime();
+                    long waitNanos = Math.max(requestBucket.nanosUntilAvailable(1, now), tokenBucket.nanosUntilAvailable(reserved, now));
+                    if (waitNanos <= 0) {
+                        requestBucket.take(1, now);
+                        tokenBucket.take(reserved, now);
+                        break;
+                    }
+                    changed.awaitNanos(waitNanos);
+                }
+            } finally {
+                waiting.remove(ticket);
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        waitTimes.get(priority).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        return reserved;
+    }
+
+    /**
+     * 실제 사용한 토큰 수로 예약을 정산합니다. 덜 썼으면 차이를 돌려주고, 더 썼으면 더 차감합니다.
+     *
+     * @param reservedTokens {@link #acquire}가 반환한 예약 토큰 수
+     * @param actualTokens   실제 사용한 토큰 수
+     */
+    public void settle(long reservedTokens, long actualTokens) {
+        lock.lock();
+        try {
+            tokenBucket.refund(reservedTokens - actualTokens, System.nanoTime());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int queued() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Ticket(LlmPriority priority, long sequence) {
+    }
+
+    /**
+     * 1분 한도를 용량으로 하고 한도/60초의 속도로 채워지는 버킷입니다. 정산으로 음수가 될 수 있습니다.
+     * 잠금은 {@link LlmRequestScheduler}가 관리합니다.
+     */
+    private static class TokenBucket {
+        private final long capacity;
+        private double available;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(long capacity) {
+            this.capacity = capacity;
+            this.available = capacity;
+        }
+
+        long nanosUntilAvailable(long amount, long now) {
+            refill(now);
+            if (available >= amount) {
+                return 0;
+            }
+            return (long) Math.ceil((amount - available) * NANOS_PER_MINUTE / capacity);
+        }
+
+        void take(long amount, long now) {
+            refill(now);
+            available -= amount;
+        }
+
+        void refund(long amount, long now) {
+            refill(now);
+            available = Math.min(capacity, available + amount);
+        }
+
+        private void refill(long now) {
+            available = Math.min(capacity, available + (double) (now - refilledAt) * capacity / NANOS_PER_MINUTE);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.sangminlee.mymydata.llm;
+
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.repository.MessageRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 채널에 저장된 메시지를 그대로 대화 기억으로 사용하는 ChatMemory입니다.
+ * <p>
+ * 대화 ID는 채널 ID이며, 메시지는 {@link MessageRepository#findLatest}로 읽어 사용자 메시지는 user 역할로,
+ * 어시스턴트 메시지는 assistant 역할로 변환합니다. 대화는 {@code ChatService}가 이미 저장소에 저장하므로 따로 보관하지 않으며,
+ * 메시지 삭제 등 저장소의 변경이 대화 기억에 바로 반영됩니다.
+ * <p>
+ * 응답을 생성할 때 질문은 이미 채널에 저장되어 있고 advisor가 프롬프트에 따로 추가하며, 그 뒤에 다른 질문이 대기 중일 수도 있습니다.
+ * 따라서 {@link ChannelChatMemoryAdvisor}가 질문의 일련번호를 전달하면 {@link #getBefore}로 그 질문보다 앞선 메시지만 읽습니다.
+ */
+public class MessageRepositoryChatMemory implements SequencedChatMemory {
+
+    /**
+     * 변환한 메시지의 메타데이터에 원본 메시지 ID를 담는 키입니다. 같은 본문의 메시지를 구분하는 데 사용됩니다.
+     */
+    public static final String MESSAGE_ID_KEY = "messageId";
+
+    private final MessageRepository messageRepository;
+
+    /**
+     * MessageRepositoryChatMemory 생성자입니다.
+     *
+     * @param messageRepository 채널 메시지를 읽을 저장소
+     */
+    public MessageRepositoryChatMemory(MessageRepository messageRepository) {
+        this.messageRepository = messageRepository;
+    }
+
+    /**
+     * 메시지는 채널에 저장될 때 이미 대화 기억에 포함되므로 아무것도 하지 않습니다.
+     */
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+    }
+
+    @Override
+    public List<Message> get(String conversationId, int lastN) {
+        if (lastN < 1) {
+            return List.of();
+        }
+        return toChatMessages(messageRepository.findLatest(conversationId, lastN));
+    }
+
+    @Override
+    public List<Message> getBefore(String conversationId, long sequenceNumber, int lastN) {
+        if (lastN < 1) {
+            return List.of();
+        }
+        return toChatMessages(messageRepository.findBefore(conversationId, sequenceNumber, lastN));
+    }
+
+    /**
+     * 채널 메시지는 채널이 관리하므로 대화 기억을 초기화해도 삭제하지 않습니다.
+     */
+    @Override
+    public void clear(String conversationId) {
+    }
+
+    private static List<Message> toChatMessages(List<com.sangminlee.mymydata.vo.Message> messages) {
+        return messages.stream()
+                .map(MessageRepositoryChatMemory::toChatMessage)
+                .toList();
+    }
+
+    private static Message toChatMessage(com.sangminlee.mymydata.vo.Message message) {
+        Map<String, Object> metadata = Map.of(MESSAGE_ID_KEY, message.messageId());
+        return switch (Author.fromName(message.author())) {
+            case USER -> new UserMessage(message.message(), List.of(), metadata);
+            case ASSISTANT -> new AssistantMessage(message.message(), metadata);
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.sangminlee.mymydata.llm;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link LlmRequestScheduler}가 정한 시점에 요청을 보내는 ChatModel입니다.
+ * 요청의 우선순위는 요청을 보내는 스레드의 {@link LlmRequestScheduler#currentPriority()}를 따릅니다.
+ * 응답의 사용량으로 예약한 토큰을 정산하며, 스트리밍 응답은 사용량이 담긴 마지막 조각을 기준으로 스트림이 끝날 때 정산합니다.
+ */
+public class ScheduledChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final LlmRequestScheduler scheduler;
+    private final long completionTokens;
+
+    /**
+     * ScheduledChatModel 생성자입니다.
+     *
+     * @param delegate         실제로 요청을 보낼 ChatModel
+     * @param scheduler        요청을 보낼 시점을 정하는 스케줄러
+     * @param completionTokens 응답에 쓰일 것으로 예상하여 프롬프트 토큰에 더해 예약할 토큰 수
+     */
+    public ScheduledChatModel(ChatModel delegate, LlmRequestScheduler scheduler, long completionTokens) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+        this.completionTokens = completionTokens;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        long reserved = acquire(estimate(prompt));
+        ChatResponse response = delegate.call(prompt);
+        long totalTokens = totalTokens(response);
+        if (totalTokens > 0) {
+            scheduler.settle(reserved, totalTokens);
+        }
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        var priority = LlmRequestScheduler.currentPriority();
+        long estimated = estimate(prompt);
+        return Mono.fromCallable(() -> scheduler.acquire(estimated, priority))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(reserved -> {
+                    var totalTokens = new AtomicLong();
+                    return delegate.stream(prompt)
+                            .doOnNext(response -> {
+                                long tokens = totalTokens(response);
+                                if (tokens > 0) {
+                                    totalTokens.set(tokens);
+                                }
+                            })
+                            .doOnComplete(() -> {
+                                if (totalTokens.get() > 0) {
+                                    scheduler.settle(reserved, totalTokens.get());
+                                }
+                            });
+                });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    /**
+     * 응답 메타데이터의 전체 사용 토큰 수를 반환합니다. 사용량이 없으면 0입니다.
+     */
+    private static long totalTokens(ChatResponse response) {
+        var metadata = response.getMetadata();
+        var usage = metadata == null ? null : metadata.getUsage();
+        return usage == null || usage.getTotalTokens() == null ? 0 : usage.getTotalTokens();
+    }
+
+    private long estimate(Prompt prompt) {
+        return TokenEstimator.estimate(prompt.getContents()) + completionTokens;
+    }
+
+    private long acquire(long estimatedTokens) {
+        try {
+            return scheduler.acquire(estimatedTokens, LlmRequestScheduler.currentPriority());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("LLM 요청 대기 중 인터럽트되었습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.sangminlee.mymydata.llm;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * {@link LlmRequestScheduler}가 정한 시점에 요청을 보내는 EmbeddingModel입니다.
+ * 요청의 우선순위는 요청을 보내는 스레드의 {@link LlmRequestScheduler#currentPriority()}를 따릅니다.
+ */
+public class ScheduledEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final LlmRequestScheduler scheduler;
+
+    /**
+     * ScheduledEmbeddingModel 생성자입니다.
+     *
+     * @param delegate  실제로 요청을 보낼 EmbeddingModel
+     * @param scheduler 요청을 보낼 시점을 정하는 스케줄러
+     */
+    public ScheduledEmbeddingModel(EmbeddingModel delegate, LlmRequestScheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        long estimated = request.getInstructions().stream().mapToLong(TokenEstimator::estimate).sum();
+        long reserved = acquire(estimated);
+        EmbeddingResponse response = delegate.call(request);
+        var usage = response.getMetadata().getUsage();
+        if (usage != null && usage.getTotalTokens() != null && usage.getTotalTokens() > 0) {
+            scheduler.settle(reserved, usage.getTotalTokens());
+        }
+        return response;
+    }
+
+    /**
+     * 문서 하나를 임베딩합니다. 위임 모델의 embed(Document)는 사용량을 돌려주지 않으므로, 같은 요청을 {@link #call}로 보내 정산합니다.
+     */
+    @Override
+    public List<Double> embed(Document document) {
+        var request = new EmbeddingRequest(List.of(document.getFormattedContent(MetadataMode.EMBED)), EmbeddingOptions.EMPTY);
+        return call(request).getResult().getOutput();
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private long acquire(long estimatedTokens) {
+        try {
+            return scheduler.acquire(estimatedTokens, LlmRequestScheduler.currentPriority());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("LLM 요청 대기 중 인터럽트되었습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.sangminlee.mymydata.llm;
+
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * 채널 메시지의 일련번호를 기준으로 대화 기억을 읽을 수 있는 ChatMemory입니다.
+ */
+public interface SequencedChatMemory extends ChatMemory {
+
+    /**
+     * 지정한 일련번호보다 앞선 메시지 중 최근 {@code lastN}개를 반환합니다.
+     *
+     * @param conversationId 대화 ID
+     * @param sequenceNumber 기준 일련번호 (이 값보다 작은 일련번호의 메시지만 반환)
+     * @param lastN          반환할 최대 메시지 수
+     * @return 오래된 순서의 메시지 리스트
+     */
+    List<Message> getBefore(String conversationId, long sequenceNumber, int lastN);
+}
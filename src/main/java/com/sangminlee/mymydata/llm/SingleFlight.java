@@ -0,0 +1,67 @@
+package com.sangminlee.mymydata.llm;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키의 작업이 이미 실행 중이면 새로 실행하지 않고 실행 중인 작업의 결과를 함께 받습니다.
+ * 작업이 끝나면 키를 제거하므로, 결과를 보관하는 캐시가 아니라 동시에 들어온 요청만 합칩니다.
+ *
+ * @param <K> 작업 키 타입
+ * @param <V> 작업 결과 타입
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    /**
+     * SingleFlight 생성자입니다.
+     *
+     * @param coalesced 실행 중인 작업에 합쳐진 요청 수를 기록할 카운터
+     */
+    SingleFlight(Counter coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    /**
+     * 같은 키의 작업이 실행 중이면 그 결과를 기다리고, 아니면 작업을 현재 스레드에서 실행합니다.
+     *
+     * @param key  작업 키
+     * @param task 실행할 작업
+     * @return 작업의 결과
+     */
+    V execute(K key, Supplier<V> task) {
+        var own = new CompletableFuture<V>();
+        var existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            V result = task.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,96 @@
+package com.sangminlee.mymydata.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * 동시에 들어온 같은 프롬프트의 요청을 하나로 합쳐 보내는 ChatModel입니다.
+ * <p>
+ * 키는 advisor가 채운 최종 프롬프트의 메시지 종류와 본문(공백 정규화)이므로, 질문과 대화 기억, 검색된 문서 컨텍스트가 모두 같을 때만 합쳐집니다.
+ * 옵션은 키에 포함하지 않으며, 모든 요청이 같은 ChatClient의 기본 옵션을 사용한다고 가정합니다. 이미지가 포함된 요청은 합치지 않습니다.
+ * 스트리밍 요청은 응답을 재생하며 공유하므로 늦게 합류한 요청도 처음부터 모든 토큰을 받고, 모든 구독자가 취소하면 요청도 취소됩니다.
+ */
+public class SingleFlightChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final SingleFlight<String, ChatResponse> calls;
+    private final ConcurrentHashMap<String, Flux<ChatResponse>> streams = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    /**
+     * SingleFlightChatModel 생성자입니다.
+     *
+     * @param delegate      실제로 요청을 보낼 ChatModel
+     * @param meterRegistry 합쳐진 요청 수를 기록할 레지스트리
+     */
+    public SingleFlightChatModel(ChatModel delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.coalesced = Counter.builder("mymydata.llm.coalesced")
+                .description("실행 중인 같은 LLM 요청에 합쳐진 요청 수")
+                .tag("model", "chat")
+                .register(meterRegistry);
+        this.calls = new SingleFlight<>(coalesced);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String key = key(prompt);
+        if (key == null) {
+            return delegate.call(prompt);
+        }
+        return calls.execute(key, () -> delegate.call(prompt));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        String key = key(prompt);
+        if (key == null) {
+            return delegate.stream(prompt);
+        }
+        return Flux.defer(() -> {
+            var created = new AtomicReference<Flux<ChatResponse>>();
+            var shared = streams.computeIfAbsent(key, k -> {
+                Flux<ChatResponse> flux = delegate.stream(prompt)
+                        .doFinally(signal -> streams.remove(k, created.get()))
+                        .replay()
+                        .refCount();
+                created.set(flux);
+                return flux;
+            });
+            if (shared != created.get()) {
+                coalesced.increment();
+            }
+            return shared;
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    /**
+     * 프롬프트의 합치기 키를 만듭니다. 이미지가 포함되어 있으면 null을 반환합니다.
+     */
+    private static String key(Prompt prompt) {
+        for (Message message : prompt.getInstructions()) {
+            if (message instanceof UserMessage userMessage && !userMessage.getMedia().isEmpty()) {
+                return null;
+            }
+        }
+        return prompt.getInstructions().stream()
+                .map(message -> message.getMessageType() + ":" + message.getContent().strip().replaceAll("\\s+", " "))
+                .collect(Collectors.joining("\u0000"));
+    }
+}
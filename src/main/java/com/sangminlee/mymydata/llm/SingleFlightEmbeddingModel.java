@@ -0,0 +1,50 @@
+package com.sangminlee.mymydata.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * 동시에 들어온 같은 텍스트의 임베딩 요청을 하나로 합쳐 보내는 EmbeddingModel입니다.
+ * 같은 질문이 몰리면 QuestionAnswerAdvisor의 검색용 질문 임베딩이 한 번만 요청됩니다.
+ * 옵션은 키에 포함하지 않으며, 모든 요청이 기본 옵션을 사용한다고 가정합니다.
+ */
+public class SingleFlightEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final SingleFlight<List<String>, EmbeddingResponse> calls;
+
+    /**
+     * SingleFlightEmbeddingModel 생성자입니다.
+     *
+     * @param delegate      실제로 요청을 보낼 EmbeddingModel
+     * @param meterRegistry 합쳐진 요청 수를 기록할 레지스트리
+     */
+    public SingleFlightEmbeddingModel(EmbeddingModel delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.calls = new SingleFlight<>(Counter.builder("mymydata.llm.coalesced")
+                .description("실행 중인 같은 LLM 요청에 합쳐진 요청 수")
+                .tag("model", "embedding")
+                .register(meterRegistry));
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return calls.execute(List.copyOf(request.getInstructions()), () -> delegate.call(request));
+    }
+
+    @Override
+    public List<Double> embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
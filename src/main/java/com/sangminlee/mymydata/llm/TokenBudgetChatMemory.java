@@ -0,0 +1,342 @@
+package com.sangminlee.mymydata.llm;
+
+import com.sangminlee.mymydata.constant.LlmPriority;
+import jakarta.annotation.Nullable;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * 대화 기억을 토큰 예산 안에 맞춰 반환하는 ChatMemory입니다.
+ * <p>
+ * 최근 메시지부터 거꾸로 토큰 수를 세어 예산({@code maxTokens})에 들어가는 만큼만 그대로 반환하고,
+ * 그보다 오래된 메시지는 대화별로 유지하는 요약 하나로 대신합니다.
+ * 요약은 요청 처리 중에 만들지 않고, 요약되지 않은 오래된 메시지가 생기면 백그라운드에서 이전 요약과 새로 밀려난 메시지만으로 갱신합니다.
+ * 갱신이 끝나기 전에는 이전 요약을 그대로 사용합니다.
+ * 요약은 {@link BoundedChatMemory}와 같이 {@code summaryIdleTimeout} 동안 조회되지 않으면 다음 정리 때 제거하고,
+ * 전체 크기가 {@code maxSummaryBytes}를 넘으면 가장 오래 조회되지 않은 요약부터 제거합니다. 정리는 요약을 저장할 때 수행합니다.
+ * <p>
+ * {@link ChannelChatMemoryAdvisor}가 대화 ID에 질문의 일련번호를 붙여 전달하면, 요약은 일련번호를 뗀 대화 ID로 관리하고
+ * 메시지는 {@link SequencedChatMemory#getBefore}로 그 질문보다 앞선 것만 읽습니다.
+ */
+@Slf4j
+public class TokenBudgetChatMemory implements ChatMemory {
+
+    private final ChatMemory delegate;
+    private final ChatModel chatModel;
+    private final TokenCountEstimator tokenCountEstimator;
+    private final PromptTemplate summaryPrompt;
+    private final int maxTokens;
+    private final Executor summaryExecutor;
+    private final long summaryIdleTimeoutMillis;
+    private final long sweepIntervalMillis;
+    private final long maxSummaryBytes;
+    private final Clock clock;
+    private final Summaries summaries;
+    private final Set<String> summarizing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * TokenBudgetChatMemory 생성자입니다.
+     *
+     * @param delegate            메시지를 보관할 ChatMemory
+     * @param chatModel           오래된 메시지를 요약할 ChatModel
+     * @param tokenCountEstimator 메시지의 토큰 수를 셀 토크나이저
+     * @param summaryPrompt       이전 요약({@code summary})과 이어진 대화({@code conversation})로 새 요약을 요청하는 프롬프트
+     * @param maxTokens           반환할 대화 기억의 최대 토큰 수 (요약 포함)
+     * @param summaryExecutor     요약을 갱신할 실행기
+     * @param summaryIdleTimeout  조회되지 않은 요약을 제거할 때까지의 시간
+     * @param maxSummaryBytes     전체 요약의 최대 보관 크기 (추정치)
+     * @param clock               요약 사용 시각을 구할 시계
+     * @param meterRegistry       요약 보관 크기를 기록할 레지스트리
+     */
+    public TokenBudgetChatMemory(ChatMemory delegate, ChatModel chatModel, TokenCountEstimator tokenCountEstimator,
+                                 String summaryPrompt, int maxTokens, Executor summaryExecutor,
+                                 Duration summaryIdleTimeout, long maxSummaryBytes, Clock clock, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.chatModel = chatModel;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.summaryPrompt = new PromptTemplate(summaryPrompt);
+        this.maxTokens = maxTokens;
+        this.summaryExecutor = summaryExecutor;
+        this.summaryIdleTimeoutMillis = summaryIdleTimeout.toMillis();
+        this.sweepIntervalMillis = Math.max(1, summaryIdleTimeoutMillis / 10);
+        this.maxSummaryBytes = maxSummaryBytes;
+        this.clock = clock;
+        this.summaries = new Summaries();
+        Gauge.builder("mymydata.chat.memory.bytes", summaries.retainedBytes, AtomicLong::get)
+                .description("대화 기억의 추정 보관 크기")
+                .tag("type", "summaries")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        delegate.add(ChannelChatMemoryAdvisor.conversationId(conversationId), messages);
+    }
+
+    /**
+     * 최근 메시지 중 최대 {@code lastN}개를 토큰 예산 안에서 반환합니다.
+     * 예산 밖으로 밀려난 메시지가 있으면 요약을 맨 앞에 시스템 메시지로 붙입니다.
+     * 저장소에서는 최근 {@code lastN}개만 읽으므로, 조회 사이에 그보다 많은 메시지가 쌓이지 않는 한 밀려난 메시지는 모두 요약에 반영됩니다.
+     *
+     * @param key   대화 ID (질문의 일련번호가 붙어 있을 수 있음)
+     * @param lastN 반환할 최대 메시지 수
+     * @return 요약과 최근 메시지 리스트
+     */
+    @Override
+    public List<Message> get(String key, int lastN) {
+        String conversationId = ChannelChatMemoryAdvisor.conversationId(key);
+        OptionalLong sequenceNumber = ChannelChatMemoryAdvisor.questionSequenceNumber(key);
+        List<Message> messages = read(conversationId, sequenceNumber, lastN);
+        Summary summary = Objects.requireNonNullElse(summaries.get(conversationId), Summary.EMPTY);
+        int budget = maxTokens - (summary.text().isEmpty() ? 0 : tokenCountEstimator.estimate(summaryMessage(summary).getContent()));
+
+        int start = messages.size();
+        int used = 0;
+        while (start > 0) {
+            int tokens = tokenCountEstimator.estimate(messages.get(start - 1).getContent());
+            if (used + tokens > budget) {
+                break;
+            }
+            used += tokens;
+            start--;
+        }
+
+        if (start > summary.coveredCount(messages)) {
+            summarizeInBackground(conversationId, sequenceNumber, messages.get(start - 1), lastN);
+        }
+        var result = new ArrayList<Message>(messages.size() - start + 1);
+        if (start > 0 && !summary.text().isEmpty()) {
+            result.add(summaryMessage(summary));
+        }
+        result.addAll(messages.subList(start, messages.size()));
+        return result;
+    }
+
+    @Override
+    public void clear(String key) {
+        String conversationId = ChannelChatMemoryAdvisor.conversationId(key);
+        delegate.clear(conversationId);
+        summaries.remove(conversationId);
+    }
+
+    long summaryBytes() {
+        return summaries.retainedBytes.get();
+    }
+
+    /**
+     * 질문의 일련번호가 있고 delegate가 지원하면 그 질문보다 앞선 메시지만 읽습니다.
+     */
+    private List<Message> read(String conversationId, OptionalLong sequenceNumber, int lastN) {
+        if (sequenceNumber.isPresent() && delegate instanceof SequencedChatMemory sequenced) {
+            return sequenced.getBefore(conversationId, sequenceNumber.getAsLong(), lastN);
+        }
+        return delegate.get(conversationId, lastN);
+    }
+
+    /**
+     * {@code coverUntil} 메시지까지 포함하도록 요약을 갱신합니다. 같은 대화의 갱신은 한 번에 하나만 실행합니다.
+     */
+    private void summarizeInBackground(String conversationId, OptionalLong sequenceNumber, Message coverUntil, int lastN) {
+        if (!summarizing.add(conversationId)) {
+            return;
+        }
+        try {
+            summaryExecutor.execute(() -> {
+                try {
+                    LlmRequestScheduler.callWithPriority(LlmPriority.BACKGROUND, () -> {
+                        summarize(conversationId, sequenceNumber, coverUntil, lastN);
+                        return null;
+                    });
+                } catch (Exception e) {
+                    log.warn("Failed to summarize conversation {}", conversationId, e);
+                } finally {
+                    summarizing.remove(conversationId);
+                }
+            });
+        } catch (RuntimeException e) {
+            summarizing.remove(conversationId);
+            log.warn("Failed to schedule summary of conversation {}", conversationId, e);
+        }
+    }
+
+    private void summarize(String conversationId, OptionalLong sequenceNumber, Message coverUntil, int lastN) {
+        Summary previous = summaries.get(conversationId);
+        List<Message> messages = read(conversationId, sequenceNumber, lastN);
+        int from = previous == null ? 0 : previous.coveredCount(messages);
+        int to = indexOf(messages, coverUntil) + 1;
+        if (to <= from) {
+            return;
+        }
+        String conversation = messages.subList(from, to).stream()
+                .map(message -> message.getMessageType().getValue() + ": " + message.getContent())
+                .collect(Collectors.joining("\n"));
+        String text = chatModel.call(summaryPrompt.render(Map.of(
+                "summary", previous == null ? "(없음)" : previous.text(),
+                "conversation", conversation)));
+        // 요약하는 동안 다른 요약이 저장되었거나 대화가 초기화되었으면 버립니다.
+        summaries.replace(conversationId, previous, new Summary(text.strip(), coverUntil),
+                () -> indexOf(read(conversationId, sequenceNumber, lastN), coverUntil) >= 0);
+    }
+
+    /**
+     * 메시지의 위치를 찾습니다. 메시지 객체가 다시 만들어지는 저장소도 있으므로 동등성으로 비교하며, 같은 메시지가 여러 번 있으면 마지막 위치를 반환합니다.
+     */
+    private static int indexOf(List<Message> messages, @Nullable Message message) {
+        if (message == null) {
+            return -1;
+        }
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (message.equals(messages.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static SystemMessage summaryMessage(Summary summary) {
+        return new SystemMessage("지금까지의 대화 요약입니다:\n" + summary.text());
+    }
+
+    /**
+     * 대화의 처음부터 {@code lastCovered} 메시지까지의 요약입니다.
+     * 메시지 위치 대신 마지막 메시지를 기억하므로, 저장소가 오래된 메시지를 버려 위치가 바뀌어도 요약 범위를 잃지 않습니다.
+     */
+    private record Summary(String text, @Nullable Message lastCovered) {
+        static final Summary EMPTY = new Summary("", null);
+
+        /**
+         * 현재 메시지 리스트에서 이 요약이 포함하는 앞쪽 메시지 수를 반환합니다.
+         * 마지막으로 요약한 메시지가 이미 버려졌으면 남은 메시지는 모두 요약 이후의 메시지입니다.
+         */
+        int coveredCount(List<Message> messages) {
+            return indexOf(messages, lastCovered) + 1;
+        }
+    }
+
+    /**
+     * 대화별 요약 저장소입니다. 요약을 저장할 때 정리 간격이 지났으면 오래 조회되지 않은 요약을 제거하고,
+     * 전체 크기가 예산을 넘으면 가장 오래 조회되지 않은 요약부터 제거합니다. 다른 스레드가 정리 중이면 기다리지 않습니다.
+     */
+    private final class Summaries {
+        private final Map<String, StoredSummary> entries = new ConcurrentHashMap<>();
+        private final AtomicLong retainedBytes = new AtomicLong();
+        private final AtomicLong lastSweptAt = new AtomicLong(clock.millis());
+        private final ReentrantLock evictionLock = new ReentrantLock();
+
+        @Nullable
+        Summary get(String conversationId) {
+            var stored = entries.get(conversationId);
+            if (stored == null) {
+                return null;
+            }
+            stored.lastAccessedAt = clock.millis();
+            return stored.summary;
+        }
+
+        /**
+         * 현재 요약이 {@code expected}이고 {@code condition}을 만족하면 {@code next}로 바꿉니다. 조건은 대화별로 원자적으로 확인합니다.
+         */
+        void replace(String conversationId, @Nullable Summary expected, Summary next, BooleanSupplier condition) {
+            long now = clock.millis();
+            entries.compute(conversationId, (id, current) -> {
+                if ((current == null ? null : current.summary) != expected || !condition.getAsBoolean()) {
+                    return current;
+                }
+                var stored = new StoredSummary(next, now);
+                retainedBytes.addAndGet(stored.bytes - (current == null ? 0 : current.bytes));
+                return stored;
+            });
+            evictIfNeeded(now);
+        }
+
+        void remove(String conversationId) {
+            var removed = entries.remove(conversationId);
+            if (removed != null) {
+                retainedBytes.addAndGet(-removed.bytes);
+            }
+        }
+
+        private void evictIfNeeded(long now) {
+            boolean sweepDue = now - lastSweptAt.get() >= sweepIntervalMillis;
+            if (!sweepDue && retainedBytes.get() <= maxSummaryBytes || !evictionLock.tryLock()) {
+                return;
+            }
+            try {
+                if (sweepDue) {
+                    lastSweptAt.set(now);
+                    entries.forEach((id, stored) -> {
+                        if (now - stored.lastAccessedAt >= summaryIdleTimeoutMillis) {
+                            remove(id, stored);
+                        }
+                    });
+                }
+                if (retainedBytes.get() > maxSummaryBytes) {
+                    // 정렬 중에 사용 시각이 바뀌지 않도록 먼저 복사합니다.
+                    var oldestFirst = entries.entrySet().stream()
+                            .map(entry -> new Candidate(entry.getKey(), entry.getValue(), entry.getValue().lastAccessedAt))
+                            .sorted(Comparator.comparingLong(Candidate::lastAccessedAt))
+                            .toList();
+                    for (var candidate : oldestFirst) {
+                        if (retainedBytes.get() <= maxSummaryBytes) {
+                            break;
+                        }
+                        remove(candidate.conversationId(), candidate.stored());
+                    }
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+
+        private void remove(String conversationId, StoredSummary stored) {
+            if (entries.remove(conversationId, stored)) {
+                retainedBytes.addAndGet(-stored.bytes);
+            }
+        }
+    }
+
+    private record Candidate(String conversationId, StoredSummary stored, long lastAccessedAt) {
+    }
+
+    /**
+     * 저장된 요약과 보관 크기, 마지막 조회 시각입니다. 요약이 기억하는 마지막 메시지도 보관 크기에 포함합니다.
+     */
+    private static final class StoredSummary {
+        private static final long OVERHEAD_BYTES = 64;
+
+        private final Summary summary;
+        private final long bytes;
+        private volatile long lastAccessedAt;
+
+        StoredSummary(Summary summary, long lastAccessedAt) {
+            this.summary = summary;
+            this.lastAccessedAt = lastAccessedAt;
+            String covered = summary.lastCovered() == null ? null : summary.lastCovered().getContent();
+            this.bytes = 2 * OVERHEAD_BYTES + summary.text().length() * 2L + (covered == null ? 0 : covered.length() * 2L);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.sangminlee.mymydata.llm;
+
+/**
+ * 토크나이저 없이 텍스트의 토큰 수를 보수적으로 추정합니다.
+ * <p>
+ * 영문과 숫자 등 ASCII 문자는 4자당 1토큰, 한글 등 그 밖의 문자는 1자당 1토큰으로 계산합니다.
+ * 한도 예약에 쓰이므로 실제보다 약간 많게 추정하는 편이 안전하며, 실제 사용량은 응답을 받은 뒤 정산합니다.
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 텍스트의 토큰 수를 추정합니다.
+     *
+     * @param text 추정할 텍스트 (null 가능)
+     * @return 추정 토큰 수
+     */
+    public static long estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        long ascii = 0;
+        long other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 0x80) {
+                ascii++;
+            } else {
+                other++;
+            }
+        }
+        return (ascii + 3) / 4 + other;
+    }
+}
@@ -1,6 +1,7 @@
 package com.sangminlee.mymydata.repository;
 
 
+import com.sangminlee.mymydata.constant.ChannelSort;
 import com.sangminlee.mymydata.vo.Channel;
 
 import java.util.List;
@@ -15,6 +16,46 @@ public interface ChannelRepository {
      */
     List<Channel> findAll();
 
+    /**
+     * 이름이 주어진 접두어로 시작하는 채널의 수를 반환합니다. 접두어는 대소문자를 구분하지 않습니다.
+     *
+     * @param namePrefix 채널 이름 접두어 (빈 문자열이면 모든 채널)
+     * @return 채널 수
+     */
+    int count(String namePrefix);
+
+    /**
+     * 모든 채널의 수를 반환합니다.
+     *
+     * @return 채널 수
+     */
+    default int count() {
+        return count("");
+    }
+
+    /**
+     * 이름이 주어진 접두어로 시작하는 채널 중 지정된 구간을 조회합니다. 접두어는 대소문자를 구분하지 않습니다.
+     *
+     * @param namePrefix 채널 이름 접두어 (빈 문자열이면 모든 채널)
+     * @param offset     건너뛸 채널 수
+     * @param limit      조회할 최대 채널 수
+     * @param sort       정렬 순서
+     * @return 채널 리스트
+     */
+    List<Channel> find(String namePrefix, int offset, int limit, ChannelSort sort);
+
+    /**
+     * 모든 채널 중 지정된 구간을 조회합니다.
+     *
+     * @param offset 건너뛸 채널 수
+     * @param limit  조회할 최대 채널 수
+     * @param sort   정렬 순서
+     * @return 채널 리스트
+     */
+    default List<Channel> find(int offset, int limit, ChannelSort sort) {
+        return find("", offset, limit, sort);
+    }
+
     /**
      * 새로운 채널을 저장합니다.
      *
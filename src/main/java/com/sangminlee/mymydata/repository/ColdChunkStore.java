@@ -0,0 +1,166 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.vo.Message;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 힙에서 내려놓은 {@link MessageLog} 청크를 채널별 디렉터리에 GZIP 압축 파일로 보관합니다.
+ * <pre>
+ * &lt;basePath&gt;/&lt;channelId&gt;/&lt;chunkIndex&gt;.chunk.gz
+ * int   메시지 수
+ * (int 레코드 길이, byte[] {@link MessageRecordCodec} 레코드) * 메시지 수
+ * </pre>
+ * 최근에 읽은 청크는 작은 LRU 캐시에 보관하여, 같은 구간을 이어서 스크롤하는 경우 매번 압축을 풀지 않도록 합니다.
+ */
+class ColdChunkStore {
+
+    static final String CHUNK_SUFFIX = ".chunk.gz";
+    private static final int CACHED_CHUNKS = 16;
+    private static final Pattern CHANNEL_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final Path basePath;
+    private final Map<String, Message[]> cache = new LinkedHashMap<>(CACHED_CHUNKS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Message[]> eldest) {
+            return size() > CACHED_CHUNKS;
+        }
+    };
+
+    /**
+     * ColdChunkStore 생성자입니다. 메모리 저장소는 재시작 시 비어있으므로, 이전 실행에서 남은 청크 파일은 삭제합니다.
+     *
+     * @param basePath 청크 파일을 보관할 디렉터리
+     */
+    ColdChunkStore(Path basePath) {
+        this.basePath = basePath;
+        deleteLeftoverChunks();
+    }
+
+    /**
+     * 채널 ID를 디렉터리 이름으로 안전하게 사용할 수 있는지 확인합니다.
+     *
+     * @param channelId 채널 ID
+     * @return 청크를 보관할 수 있으면 true
+     */
+    static boolean accepts(String channelId) {
+        return CHANNEL_ID_PATTERN.matcher(channelId).matches();
+    }
+
+    /**
+     * 청크를 압축하여 기록합니다. 임시 파일에 먼저 기록한 뒤 이동하므로, 읽기 측은 완성된 파일만 보게 됩니다.
+     *
+     * @param channelId  채널 ID
+     * @param chunkIndex 청크 번호
+     * @param chunk      청크 내용
+     * @throws IOException 파일 기록에 실패한 경우
+     */
+    void write(String channelId, int chunkIndex, List<Message> chunk) throws IOException {
+        var directory = Files.createDirectories(basePath.resolve(channelId));
+        var file = directory.resolve(chunkIndex + CHUNK_SUFFIX);
+        var temporary = directory.resolve(chunkIndex + CHUNK_SUFFIX + ".tmp");
+        try (var out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(chunk.size());
+            for (Message message : chunk) {
+                byte[] record = MessageRecordCodec.encode(message);
+                out.writeInt(record.length);
+                out.write(record);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (cache) {
+            cache.remove(key(channelId, chunkIndex));
+        }
+    }
+
+    /**
+     * 청크를 읽어옵니다. 최근에 읽은 청크라면 캐시에서 반환합니다.
+     *
+     * @param channelId  채널 ID
+     * @param chunkIndex 청크 번호
+     * @return 청크 내용
+     * @throws UncheckedIOException 파일을 읽지 못한 경우
+     */
+    Message[] read(String channelId, int chunkIndex) {
+        var key = key(channelId, chunkIndex);
+        synchronized (cache) {
+            var cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        var chunk = load(channelId, chunkIndex);
+        synchronized (cache) {
+            cache.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    private Message[] load(String channelId, int chunkIndex) {
+        var file = basePath.resolve(channelId).resolve(chunkIndex + CHUNK_SUFFIX);
+        try (var in = new DataInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+            var chunk = new Message[in.readInt()];
+            for (int i = 0; i < chunk.length; i++) {
+                byte[] record = new byte[in.readInt()];
+                in.readFully(record);
+                chunk[i] = MessageRecordCodec.decode(ByteBuffer.wrap(record), channelId);
+            }
+            return chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read cold chunk " + file, e);
+        }
+    }
+
+    /**
+     * 청크가 다시 힙에 올라간 경우 캐시에서 제외합니다. 파일은 다음 기록 시 덮어씌워집니다.
+     *
+     * @param channelId  채널 ID
+     * @param chunkIndex 청크 번호
+     */
+    void evict(String channelId, int chunkIndex) {
+        synchronized (cache) {
+            cache.remove(key(channelId, chunkIndex));
+        }
+    }
+
+    private static String key(String channelId, int chunkIndex) {
+        return channelId + '/' + chunkIndex;
+    }
+
+    private void deleteLeftoverChunks() {
+        if (!Files.isDirectory(basePath)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(basePath)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                if (file.getFileName().toString().contains(CHUNK_SUFFIX)
+                        || (Files.isDirectory(file) && !file.equals(basePath) && isEmpty(file))) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to clean cold chunk directory " + basePath, e);
+        }
+    }
+
+    private static boolean isEmpty(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries.findAny().isEmpty();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.vo.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * 메시지를 열 단위 원시 배열로 풀어서 보관하는 청크입니다. {@link Message} 객체는 읽을 때만 만들어집니다.
+ * <p>
+ * 채널 ID는 청크가 한 번만 보관하고, 메시지 ID(UUID)는 두 long으로, 작성자는 {@link Author} ordinal 한 바이트로 보관합니다.
+ * 본문은 UTF-8과 UTF-16 중 더 짧은 쪽으로 인코딩합니다. 한글은 UTF-8에서 글자당 3바이트이므로 대부분 UTF-16(2바이트)이 선택되고,
+ * 영문과 숫자 위주의 본문은 UTF-8이 선택됩니다. 어떤 인코딩을 사용했는지는 작성자 바이트의 최상위 비트에 기록합니다.
+ * <p>
+ * 메시지가 몇 개뿐인 채널이 청크 크기만큼의 열을 미리 잡지 않도록, 열은 작은 크기로 시작하여 기록 위치에 맞춰 두 배씩 늘립니다.
+ * 늘릴 때는 모든 열을 복사한 새 {@link Columns}로 교체하므로, 잠금 없이 읽는 쪽은 항상 같은 크기의 열 묶음을 봅니다.
+ */
+final class CompactMessageChunk implements MessageChunk {
+
+    private static final Author[] AUTHORS = Author.values();
+    private static final int UTF_16_FLAG = 0x80;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String channelId;
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+
+    /**
+     * CompactMessageChunk 생성자입니다.
+     *
+     * @param channelId 청크에 보관할 메시지들의 채널 ID
+     */
+    CompactMessageChunk(String channelId) {
+        this.channelId = channelId;
+    }
+
+    @Override
+    public Message get(int offset) {
+        var current = columns;
+        int authorByte = current.authors[offset] & 0xff;
+        var author = AUTHORS[authorByte & ~UTF_16_FLAG];
+        var charset = (authorByte & UTF_16_FLAG) != 0 ? StandardCharsets.UTF_16LE : StandardCharsets.UTF_8;
+        return new Message(new UUID(current.messageIdHighBits[offset], current.messageIdLowBits[offset]).toString(), channelId,
+                current.sequenceNumbers[offset], Instant.ofEpochSecond(current.epochSeconds[offset], current.nanos[offset]),
+                author.getName(), new String(current.bodies[offset], charset), author.getColor());
+    }
+
+    @Override
+    public long sequenceNumber(int offset) {
+        return columns.sequenceNumbers[offset];
+    }
+
+    @Override
+    public void set(int offset, Message message) {
+        var messageId = UUID.fromString(message.messageId());
+        var body = message.message().getBytes(StandardCharsets.UTF_8);
+        int authorByte = Author.fromName(message.author()).ordinal();
+        if (body.length > message.message().length() * 2) {
+            body = message.message().getBytes(StandardCharsets.UTF_16LE);
+            authorByte |= UTF_16_FLAG;
+        }
+        var current = columns;
+        if (offset >= current.capacity()) {
+            current = current.copyOf(Math.min(MessageLog.CHUNK_SIZE, Math.max(offset + 1, current.capacity() * 2)));
+            columns = current;
+        }
+        current.sequenceNumbers[offset] = message.sequenceNumber();
+        current.messageIdHighBits[offset] = messageId.getMostSignificantBits();
+        current.messageIdLowBits[offset] = messageId.getLeastSignificantBits();
+        current.epochSeconds[offset] = message.timestamp().getEpochSecond();
+        current.nanos[offset] = message.timestamp().getNano();
+        current.authors[offset] = (byte) authorByte;
+        current.bodies[offset] = body;
+    }
+
+    /**
+     * 같은 크기의 열 배열 묶음입니다.
+     */
+    private static final class Columns {
+        private final long[] sequenceNumbers;
+        private final long[] messageIdHighBits;
+        private final long[] messageIdLowBits;
+        private final long[] epochSeconds;
+        private final int[] nanos;
+        private final byte[] authors;
+        private final byte[][] bodies;
+
+        private Columns(int capacity) {
+            this(new long[capacity], new long[capacity], new long[capacity], new long[capacity],
+                    new int[capacity], new byte[capacity], new byte[capacity][]);
+        }
+
+        private Columns(long[] sequenceNumbers, long[] messageIdHighBits, long[] messageIdLowBits,
+                        long[] epochSeconds, int[] nanos, byte[] authors, byte[][] bodies) {
+            this.sequenceNumbers = sequenceNumbers;
+            this.messageIdHighBits = messageIdHighBits;
+            this.messageIdLowBits = messageIdLowBits;
+            this.epochSeconds = epochSeconds;
+            this.nanos = nanos;
+            this.authors = authors;
+            this.bodies = bodies;
+        }
+
+        private int capacity() {
+            return sequenceNumbers.length;
+        }
+
+        private Columns copyOf(int capacity) {
+            return new Columns(Arrays.copyOf(sequenceNumbers, capacity), Arrays.copyOf(messageIdHighBits, capacity),
+                    Arrays.copyOf(messageIdLowBits, capacity), Arrays.copyOf(epochSeconds, capacity),
+                    Arrays.copyOf(nanos, capacity), Arrays.copyOf(authors, capacity), Arrays.copyOf(bodies, capacity));
+        }
+    }
+}
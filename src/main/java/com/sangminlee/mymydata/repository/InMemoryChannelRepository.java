@@ -1,51 +1,207 @@
 package com.sangminlee.mymydata.repository;
 
+import com.sangminlee.mymydata.constant.ChannelSort;
 import com.sangminlee.mymydata.vo.Channel;
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageDeletedEvent;
+import com.sangminlee.mymydata.vo.MessagesSavedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * 채널을 메모리에 보관하는 채널 저장소입니다.
+ * 채널 목록은 이름순(대소문자 무시)으로 정렬된 스냅샷으로 유지되며, 채널이 추가될 때만 새 스냅샷으로 교체됩니다.
+ * 구간 조회와 접두어 검색은 스냅샷에서 이진 탐색으로 범위를 찾으므로, 채널 수와 무관하게 요청한 개수만큼만 채널 객체를 만듭니다.
+ * 각 채널의 마지막 메시지는 메시지 저장/삭제 이벤트로 갱신되므로, 조회 시 메시지 저장소에 접근하지 않습니다.
+ * 메시지를 메모리에만 보관하는 'memory' 대상에서 사용하며, 'journal' 대상에서는 채널도 함께 기록하는 {@link JournalChannelRepository}를 사용합니다.
+ */
 @Component
+@ConditionalOnProperty(name = "app.message-repository.target", havingValue = "memory", matchIfMissing = true)
 @RequiredArgsConstructor
 class InMemoryChannelRepository implements ChannelRepository {
 
+    private static final Comparator<ChannelEntry> BY_NAME = Comparator.<ChannelEntry, String>comparing(entry -> entry.name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(entry -> entry.name);
+
     private final MessageRepository messageRepository;
-    private final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ChannelEntry> channels = new ConcurrentHashMap<>();
+    private volatile List<ChannelEntry> sortedChannels = List.of();
 
     @Override
     public List<Channel> findAll() {
-        return channels.values().stream()
-                .sorted(Comparator.comparing(Channel::name))
-                .map(this::addLatestMessageIfAvailable)
-                .toList();
+        return sortedChannels.stream().map(ChannelEntry::toChannel).toList();
     }
 
-    private Channel addLatestMessageIfAvailable(Channel channel) {
-        return messageRepository.findLatest(channel.id(), 1).stream()
-                .findFirst()
-                .map(msg -> new Channel(channel.id(), channel.name(), msg))
-                .orElse(channel);
+    @Override
+    public int count(String namePrefix) {
+        var snapshot = sortedChannels;
+        return prefixEnd(snapshot, namePrefix) - prefixStart(snapshot, namePrefix);
     }
 
     @Override
-    public void save(String newChannel) {
-        var channel = new Channel(UUID.randomUUID().toString(), newChannel);
-        channels.put(channel.id(), channel);
+    public List<Channel> find(String namePrefix, int offset, int limit, ChannelSort sort) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        var snapshot = sortedChannels;
+        int start = prefixStart(snapshot, namePrefix);
+        int end = prefixEnd(snapshot, namePrefix);
+        int from = (int) Math.min(end - start, (long) offset);
+        int to = (int) Math.min(end - start, (long) offset + limit);
+        var page = new ArrayList<Channel>(to - from);
+        for (int i = from; i < to; i++) {
+            var entry = sort == ChannelSort.NAME_ASC ? snapshot.get(start + i) : snapshot.get(end - 1 - i);
+            page.add(entry.toChannel());
+        }
+        return page;
+    }
+
+    /**
+     * 이름이 접두어로 시작하거나 접두어보다 뒤에 오는 첫 채널의 위치를 찾습니다.
+     */
+    private static int prefixStart(List<ChannelEntry> snapshot, String prefix) {
+        return search(snapshot, prefix, false);
+    }
+
+    /**
+     * 이름이 접두어로 시작하는 마지막 채널의 다음 위치를 찾습니다.
+     */
+    private static int prefixEnd(List<ChannelEntry> snapshot, String prefix) {
+        return search(snapshot, prefix, true);
+    }
+
+    private static int search(List<ChannelEntry> snapshot, String prefix, boolean upper) {
+        int low = 0;
+        int high = snapshot.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            var name = snapshot.get(mid).name;
+            int compared = String.CASE_INSENSITIVE_ORDER.compare(name.substring(0, Math.min(prefix.length(), name.length())), prefix);
+            if (compared < 0 || (upper && compared == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public synchronized void save(String newChannel) {
+        addChannel(UUID.randomUUID().toString(), newChannel);
+    }
+
+    /**
+     * 주어진 ID와 이름의 채널을 스냅샷에 추가합니다.
+     *
+     * @param channelId 채널 ID
+     * @param name      채널 이름
+     */
+    synchronized void addChannel(String channelId, String name) {
+        var entry = new ChannelEntry(channelId, name);
+        var snapshot = new ArrayList<>(sortedChannels);
+        int position = Collections.binarySearch(snapshot, entry, BY_NAME);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        while (position < snapshot.size() && BY_NAME.compare(snapshot.get(position), entry) == 0) {
+            position++;
+        }
+        snapshot.add(position, entry);
+        channels.put(entry.id, entry);
+        sortedChannels = List.copyOf(snapshot);
+    }
+
+    /**
+     * 여러 채널을 한 번에 스냅샷에 추가합니다. 채널마다 스냅샷을 복사하지 않도록 모두 추가한 뒤 한 번 정렬합니다.
+     *
+     * @param namesById 채널 ID별 채널 이름
+     */
+    synchronized void addChannels(Map<String, String> namesById) {
+        var snapshot = new ArrayList<>(sortedChannels);
+        namesById.forEach((channelId, name) -> {
+            var entry = new ChannelEntry(channelId, name);
+            snapshot.add(entry);
+            channels.put(channelId, entry);
+        });
+        snapshot.sort(BY_NAME);
+        sortedChannels = List.copyOf(snapshot);
     }
 
     @Override
     public Optional<Channel> findById(String channelId) {
-        return Optional.ofNullable(channels.get(channelId)).map(this::addLatestMessageIfAvailable);
+        return Optional.ofNullable(channels.get(channelId)).map(ChannelEntry::toChannel);
     }
 
     @Override
     public boolean exists(String channelId) {
         return channels.containsKey(channelId);
     }
+
+    /**
+     * 저장된 메시지로 채널의 마지막 메시지를 갱신합니다.
+     *
+     * @param event 메시지 저장 이벤트
+     */
+    @EventListener
+    void onMessagesSaved(MessagesSavedEvent event) {
+        for (Message message : event.messages()) {
+            var entry = channels.get(message.channelId());
+            if (entry != null) {
+                entry.offer(message);
+            }
+        }
+    }
+
+    /**
+     * 메시지가 삭제된 채널의 마지막 메시지를 메시지 저장소에서 다시 읽어옵니다.
+     *
+     * @param event 메시지 삭제 이벤트
+     */
+    @EventListener
+    void onMessageDeleted(MessageDeletedEvent event) {
+        refreshLastMessage(event.channelId());
+    }
+
+    /**
+     * 채널의 마지막 메시지를 메시지 저장소에서 다시 읽어옵니다.
+     *
+     * @param channelId 채널 ID
+     */
+    void refreshLastMessage(String channelId) {
+        var entry = channels.get(channelId);
+        if (entry != null) {
+            entry.lastMessage.set(messageRepository.findLatest(channelId, 1).stream().findFirst().orElse(null));
+        }
+    }
+
+    private static class ChannelEntry {
+        private final String id;
+        private final String name;
+        private final AtomicReference<Message> lastMessage = new AtomicReference<>();
+
+        private ChannelEntry(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        /**
+         * 이벤트가 저장 순서와 다르게 도착할 수 있으므로, 일련번호가 더 큰 메시지만 반영합니다.
+         */
+        private void offer(Message message) {
+            lastMessage.accumulateAndGet(message, (current, offered) ->
+                    current == null || current.sequenceNumber() < offered.sequenceNumber() ? offered : current);
+        }
+
+        private Channel toChannel() {
+            return new Channel(id, name, lastMessage.get());
+        }
+    }
 }
@@ -1,21 +1,86 @@
 package com.sangminlee.mymydata.repository;
 
 import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageSearchHit;
 import com.sangminlee.mymydata.vo.NewMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
+/**
+ * 채널별 메시지를 힙에 보관하는 메시지 저장소입니다.
+ * 채널마다 최근 메시지(hot)의 최대 개수 또는 추정 바이트 예산을 넘으면, 오래된 청크를 압축하여 디스크(cold)로 내려놓습니다.
+ * cold 청크는 hot 구간보다 이전의 메시지를 조회할 때만 읽어옵니다.
+ */
+@Slf4j
 @Component
+@ConditionalOnProperty(name = "app.message-repository.target", havingValue = "memory", matchIfMissing = true)
 class InMemoryMessageRepository implements MessageRepository {
 
     private final ConcurrentMap<String, MessageArchive> messageArchives = new ConcurrentHashMap<>();
+    private final MessageSearchIndex searchIndex = new MessageSearchIndex();
+    private final int hotMaxMessages;
+    private final long hotMaxBytes;
+    private final ColdChunkStore coldChunkStore;
+    private final MessageLayout layout;
+
+    /**
+     * InMemoryMessageRepository 생성자입니다. 보관 한도가 0이면 해당 한도를 적용하지 않습니다.
+     *
+     * @param hotMaxMessages 채널별로 힙에 보관할 최대 메시지 수
+     * @param hotMaxSize     채널별로 힙에 보관할 메시지의 추정 크기 한도
+     * @param coldPath       힙에서 내려놓은 메시지를 보관할 디렉터리
+     * @param layout         힙에 메시지를 보관하는 방식
+     * @param meterRegistry  전체 hot/cold 크기 지표를 등록할 레지스트리
+     */
+    InMemoryMessageRepository(@Value("${app.message-retention.hot-max-messages:0}") int hotMaxMessages,
+                              @Value("${app.message-retention.hot-max-size:0B}") DataSize hotMaxSize,
+                              @Value("${app.message-retention.cold-path:./message-cold}") Path coldPath,
+                              @Value("${app.message-repository.layout:object}") MessageLayout layout,
+                              MeterRegistry meterRegistry) {
+        this.hotMaxMessages = hotMaxMessages;
+        this.hotMaxBytes = hotMaxSize.toBytes();
+        this.coldChunkStore = new ColdChunkStore(coldPath);
+        this.layout = layout;
+        Gauge.builder("mymydata.messages.hot", this, repository -> repository.sumOfArchives(MessageArchive::hotMessages))
+                .description("모든 채널에서 힙에 보관 중인 메시지 수")
+                .register(meterRegistry);
+        Gauge.builder("mymydata.messages.hot.bytes", this, repository -> repository.sumOfArchives(archive -> archive.hotBytes))
+                .description("모든 채널에서 힙에 보관 중인 메시지의 추정 크기")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("mymydata.messages.cold", this, repository -> repository.sumOfArchives(MessageArchive::coldMessages))
+                .description("모든 채널에서 디스크로 내려놓은 메시지 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 모든 채널 보관소의 값을 합산합니다. 채널 수만큼 지표가 늘어나지 않도록 hot/cold 지표는 채널 태그 없이 합계로 기록합니다.
+     */
+    private long sumOfArchives(ToLongFunction<MessageArchive> value) {
+        long sum = 0;
+        for (MessageArchive archive : messageArchives.values()) {
+            sum += value.applyAsLong(archive);
+        }
+        return sum;
+    }
 
     @Override
     public List<Message> findLatest(String channelId, int fetchMax, @Nullable String lastSeenMessageId) {
@@ -27,65 +92,277 @@ class InMemoryMessageRepository implements MessageRepository {
                 .orElse(Collections.emptyList());
     }
 
+    @Override
+    public List<Message> findAfter(String channelId, long sequenceNumber, int fetchMax) {
+        if (fetchMax < 1) {
+            throw new IllegalArgumentException("fetchMax must be at least 1");
+        }
+        return Optional.ofNullable(messageArchives.get(channelId))
+                .map(archive -> archive.findAfter(sequenceNumber, fetchMax))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<Message> findBefore(String channelId, long sequenceNumber, int fetchMax) {
+        if (fetchMax < 1) {
+            throw new IllegalArgumentException("fetchMax must be at least 1");
+        }
+        return Optional.ofNullable(messageArchives.get(channelId))
+                .map(archive -> archive.findBefore(sequenceNumber, fetchMax))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<MessageSearchHit> search(String channelId, String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Optional.ofNullable(messageArchives.get(channelId))
+                .map(archive -> searchIndex.search(channelId, query, limit, archive))
+                .orElse(Collections.emptyList());
+    }
+
     @Override
     public Message save(NewMessage newMessage) {
         return messageArchives.computeIfAbsent(newMessage.channelId(), MessageArchive::new).save(newMessage);
     }
 
     @Override
-    public void deleteLastUserMessage(String channelId) {
-        messageArchives.computeIfAbsent(channelId, MessageArchive::new).deleteLast();
+    public List<Message> saveAll(List<NewMessage> newMessages) {
+        var saved = new Message[newMessages.size()];
+        groupByChannel(newMessages).forEach((channelId, indexes) -> {
+            var archive = messageArchives.computeIfAbsent(channelId, MessageArchive::new);
+            var messages = archive.saveAll(indexes.stream().map(newMessages::get).toList());
+            for (int i = 0; i < indexes.size(); i++) {
+                saved[indexes.get(i)] = messages.get(i);
+            }
+        });
+        return List.of(saved);
     }
 
-    private static class MessageArchive {
+    /**
+     * 메시지의 위치를 채널별로 묶습니다. 채널 내 순서는 입력 순서를 따릅니다.
+     */
+    static Map<String, List<Integer>> groupByChannel(List<NewMessage> newMessages) {
+        var indexesByChannel = new LinkedHashMap<String, List<Integer>>();
+        for (int i = 0; i < newMessages.size(); i++) {
+            indexesByChannel.computeIfAbsent(newMessages.get(i).channelId(), id -> new ArrayList<>()).add(i);
+        }
+        return indexesByChannel;
+    }
+
+    @Override
+    public boolean deleteLastMessage(String channelId, String messageId) {
+        var archive = messageArchives.get(channelId);
+        return archive != null && archive.deleteLast(messageId);
+    }
+
+    /**
+     * 채널별 메시지 보관소입니다.
+     * 저장은 writerLock으로 직렬화된 단일 작성자가 {@link MessageLog}에 추가하고, 조회는 잠금 없이 발행된 길이까지만 읽습니다.
+     * 마지막 메시지 삭제만 StampedLock의 쓰기 잠금을 잡아 동시에 진행된 낙관적 읽기를 무효화하며,
+     * 검증에 실패한 읽기는 읽기 잠금을 잡고 다시 수행합니다.
+     * <p>
+     * 저장 후 hot 구간이 보관 한도를 넘으면 가장 오래된 청크부터 {@link ColdChunkStore}로 내려놓습니다.
+     * 꼬리 청크와 그 직전 청크는 항상 힙에 남겨 두어, 마지막 메시지 삭제가 cold 청크를 건드리는 일이 드물도록 합니다.
+     */
+    private class MessageArchive implements MessageSearchIndex.MessageSource {
         private final AtomicLong sequenceNumber = new AtomicLong(1);
-        private final List<Message> messages = new ArrayList<>();
-        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final MessageLog messages;
+        /**
+         * 메시지 ID로 로그 내 위치를 바로 찾기 위한 색인입니다.
+         * 메시지는 끝에만 추가/삭제되므로 저장된 위치는 삭제 전까지 변하지 않습니다. cold 청크의 메시지는 색인에서 제외합니다.
+         */
+        private final Map<String, Integer> indexByMessageId = new ConcurrentHashMap<>();
+        private final Lock writerLock = new ReentrantLock();
+        private final StampedLock truncationLock = new StampedLock();
         private final String channelId;
+        private final boolean spillable;
+        private volatile long hotBytes;
 
         private MessageArchive(String channelId) {
             this.channelId = channelId;
+            this.messages = new MessageLog(() -> layout.newChunk(channelId),
+                    chunkIndex -> new ObjectMessageChunk(coldChunkStore.read(channelId, chunkIndex)));
+            this.spillable = (hotMaxMessages > 0 || hotMaxBytes > 0) && ColdChunkStore.accepts(channelId);
+        }
+
+        private int coldMessages() {
+            return Math.min(messages.coldChunks() * MessageLog.CHUNK_SIZE, messages.size());
+        }
+
+        private int hotMessages() {
+            return messages.size() - coldMessages();
         }
 
         public List<Message> findLatest(int fetchMax, @Nullable String lastSeenMessageId) {
-            lock.readLock().lock();
-            try {
-                var indexOfLastSeenMessage = lastSeenMessageId == null ? -1 : indexOfMessage(lastSeenMessageId);
-                if (messages.size() - fetchMax > indexOfLastSeenMessage) {
-                    return List.copyOf(messages.subList(messages.size() - fetchMax, messages.size()));
+            return readOptimistically(() -> {
+                var size = messages.size();
+                var indexOfLastSeenMessage = lastSeenMessageId == null ? -1 : Math.min(indexOfMessage(lastSeenMessageId), size - 1);
+                if (size - fetchMax > indexOfLastSeenMessage) {
+                    return messages.copyRange(size - fetchMax, size);
                 } else {
-                    return List.copyOf(messages.subList(indexOfLastSeenMessage + 1, messages.size()));
+                    return messages.copyRange(indexOfLastSeenMessage + 1, size);
                 }
+            });
+        }
+
+        @Override
+        public List<Message> findAfter(long sequenceNumber, int fetchMax) {
+            return readOptimistically(() -> {
+                var size = messages.size();
+                var from = messages.indexAfter(sequenceNumber, size);
+                return messages.copyRange(from, Math.min(size, from + fetchMax));
+            });
+        }
+
+        public List<Message> findBefore(long sequenceNumber, int fetchMax) {
+            return readOptimistically(() -> {
+                var to = messages.indexAfter(sequenceNumber - 1, messages.size());
+                return messages.copyRange(Math.max(0, to - fetchMax), to);
+            });
+        }
+
+        @Nullable
+        @Override
+        public Message findBySequenceNumber(long sequenceNumber) {
+            var found = findAfter(sequenceNumber - 1, 1);
+            return found.isEmpty() || found.getFirst().sequenceNumber() != sequenceNumber ? null : found.getFirst();
+        }
+
+        /**
+         * 잠금 없이 조회한 뒤, 그 사이 삭제가 없었는지 검증합니다. 검증에 실패하면 읽기 잠금을 잡고 다시 조회합니다.
+         */
+        private List<Message> readOptimistically(Supplier<List<Message>> reader) {
+            long stamp = truncationLock.tryOptimisticRead();
+            if (stamp != 0) {
+                var result = reader.get();
+                if (truncationLock.validate(stamp)) {
+                    return result;
+                }
+            }
+            stamp = truncationLock.readLock();
+            try {
+                return reader.get();
             } finally {
-                lock.readLock().unlock();
+                truncationLock.unlockRead(stamp);
             }
         }
 
         private int indexOfMessage(String messageId) {
-            for (int i = messages.size() - 1; i >= 0; i--) {
-                if (messages.get(i).messageId().equals(messageId)) {
-                    return i;
+            return indexByMessageId.getOrDefault(messageId, -1);
+        }
+
+        public Message save(NewMessage newMessage) {
+            writerLock.lock();
+            try {
+                var saved = append(newMessage);
+                enforceRetention();
+                return saved;
+            } finally {
+                writerLock.unlock();
+            }
+        }
+
+        public List<Message> saveAll(List<NewMessage> newMessages) {
+            writerLock.lock();
+            try {
+                var saved = newMessages.stream().map(this::append).toList();
+                enforceRetention();
+                return saved;
+            } finally {
+                writerLock.unlock();
+            }
+        }
+
+        private Message append(NewMessage newMessage) {
+            var message = new Message(UUID.randomUUID().toString(), channelId, sequenceNumber.getAndIncrement(),
+                    newMessage.timestamp(), newMessage.author().getName(), newMessage.message(), newMessage.author().getColor());
+            // 잠금 없이 읽는 검색이 메시지를 보기 전에 색인합니다.
+            searchIndex.add(message);
+            var index = messages.append(message);
+            indexByMessageId.put(message.messageId(), index);
+            hotBytes += layout.estimateSize(message);
+            return message;
+        }
+
+        /**
+         * hot 구간이 보관 한도를 넘는 동안 가장 오래된 hot 청크를 디스크로 내려놓습니다.
+         * 기록에 실패하면 메시지를 잃지 않도록 힙에 그대로 둡니다.
+         */
+        private void enforceRetention() {
+            while (spillable && exceedsRetention()
+                    && (messages.coldChunks() + 2) * MessageLog.CHUNK_SIZE <= messages.size()) {
+                int chunkIndex = messages.coldChunks();
+                var chunk = messages.copyRange(chunkIndex * MessageLog.CHUNK_SIZE, (chunkIndex + 1) * MessageLog.CHUNK_SIZE);
+                try {
+                    coldChunkStore.write(channelId, chunkIndex, chunk);
+                } catch (IOException e) {
+                    log.warn("Failed to spill messages of channel {} to cold storage", channelId, e);
+                    return;
+                }
+                messages.cool();
+                for (Message message : chunk) {
+                    indexByMessageId.remove(message.messageId());
+                    hotBytes -= layout.estimateSize(message);
                 }
             }
-            return -1;
         }
 
-        public Message save(NewMessage newMessage) {
-            lock.writeLock().lock();
+        private boolean exceedsRetention() {
+            return (hotMaxMessages > 0 && hotMessages() > hotMaxMessages) || (hotMaxBytes > 0 && hotBytes > hotMaxBytes);
+        }
+
+        /**
+         * 마지막 메시지가 cold 청크에 있다면 그 청크를 다시 힙에 올려, 이후의 추가가 항상 hot 청크에 기록되도록 합니다.
+         */
+        private void warmTailChunk() {
+            int coldChunks = messages.coldChunks();
+            if (messages.size() > coldChunks * MessageLog.CHUNK_SIZE) {
+                return;
+            }
+            int chunkIndex = coldChunks - 1;
+            var chunk = Arrays.asList(coldChunkStore.read(channelId, chunkIndex));
+            messages.warm(chunk);
+            coldChunkStore.evict(channelId, chunkIndex);
+            for (int i = 0; i < chunk.size(); i++) {
+                indexByMessageId.put(chunk.get(i).messageId(), chunkIndex * MessageLog.CHUNK_SIZE + i);
+                hotBytes += layout.estimateSize(chunk.get(i));
+            }
+        }
+
+        private void deleteLast() {
+            writerLock.lock();
+            long stamp = truncationLock.writeLock();
             try {
-                var message = new Message(UUID.randomUUID().toString(), channelId, sequenceNumber.getAndIncrement(),
-                        newMessage.timestamp(), newMessage.author().getName(), newMessage.message(), newMessage.author().getColor());
-                messages.add(message);
-                return message;
+                if (messages.coldChunks() > 0) {
+                    warmTailChunk();
+                }
+                var removed = messages.removeLast();
+                indexByMessageId.remove(removed.messageId());
+                hotBytes -= layout.estimateSize(removed);
             } finally {
-                lock.writeLock().unlock();
+                truncationLock.unlockWrite(stamp);
+                writerLock.unlock();
             }
         }
 
-        public void deleteLast() {
-            lock.writeLock().lock();
-            messages.remove(messages.getLast());
-            lock.writeLock().unlock();
+        /**
+         * 마지막 메시지가 주어진 메시지이면 삭제합니다.
+         * 삭제가 이어져 꼬리가 cold 구간에 닿으면 마지막 메시지가 ID 색인에 없으므로 로그에서 직접 읽어 확인합니다.
+         */
+        public boolean deleteLast(String messageId) {
+            writerLock.lock();
+            try {
+                int size = messages.size();
+                if (size == 0 || !messages.get(size - 1).messageId().equals(messageId)) {
+                    return false;
+                }
+                deleteLast();
+                return true;
+            } finally {
+                writerLock.unlock();
+            }
         }
     }
 }
@@ -0,0 +1,149 @@
+package com.sangminlee.mymydata.repository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * 채널을 메시지 저널과 같은 디렉터리의 채널 파일에 기록하는 채널 저장소입니다.
+ * 'app.message-repository.target' 속성이 'journal'로 설정된 경우에만 활성화되어, 재시작 후에도 채널과 메시지가 함께 복구됩니다.
+ * <p>
+ * 채널 파일({@code <app.message-journal.path>/channels.log})은 {@code [int 길이][int CRC32C][int ID 길이][채널 ID][채널 이름]}
+ * 항목을 추가 기록하며, 채널 생성은 드물기 때문에 항목마다 디스크에 동기화합니다.
+ * 조회와 마지막 메시지 갱신은 {@link InMemoryChannelRepository}의 메모리 스냅샷을 그대로 사용합니다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.message-repository.target", havingValue = "journal")
+class JournalChannelRepository extends InMemoryChannelRepository {
+
+    static final String CHANNEL_FILE = "channels.log";
+    private static final int HEADER_LENGTH = Integer.BYTES * 2;
+
+    private final FileChannel channelFile;
+
+    /**
+     * JournalChannelRepository 생성자입니다. 채널 파일에 기록된 채널과 각 채널의 마지막 메시지를 복구합니다.
+     *
+     * @param messageRepository 마지막 메시지를 읽어올 메시지 저장소
+     * @param basePath          메시지 저널 디렉터리
+     */
+    JournalChannelRepository(MessageRepository messageRepository,
+                             @Value("${app.message-journal.path:./message-journal}") Path basePath) {
+        super(messageRepository);
+        try {
+            Files.createDirectories(basePath);
+            this.channelFile = FileChannel.open(basePath.resolve(CHANNEL_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var restored = recover();
+        addChannels(restored);
+        restored.keySet().forEach(this::refreshLastMessage);
+        log.info("Restored {} channels from {}", restored.size(), basePath.resolve(CHANNEL_FILE));
+    }
+
+    /**
+     * 채널 파일을 처음부터 읽어 채널을 복구합니다. 비정상 종료로 손상된 꼬리 항목은 잘라냅니다.
+     */
+    private Map<String, String> recover() {
+        var channels = new LinkedHashMap<String, String>();
+        try {
+            var buffer = ByteBuffer.allocate((int) channelFile.size());
+            while (buffer.hasRemaining() && channelFile.read(buffer, buffer.position()) > 0) {
+                // 파일 끝까지 읽습니다.
+            }
+            buffer.flip();
+            int validEnd = 0;
+            while (buffer.remaining() >= HEADER_LENGTH) {
+                int length = buffer.getInt(validEnd);
+                if (length < Integer.BYTES || length > buffer.limit() - validEnd - HEADER_LENGTH) {
+                    break;
+                }
+                var payload = buffer.slice(validEnd + HEADER_LENGTH, length);
+                var crc = new CRC32C();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != buffer.getInt(validEnd + Integer.BYTES)) {
+                    break;
+                }
+                byte[] id = new byte[payload.getInt()];
+                payload.get(id);
+                byte[] name = new byte[payload.remaining()];
+                payload.get(name);
+                channels.put(new String(id, StandardCharsets.UTF_8), new String(name, StandardCharsets.UTF_8));
+                validEnd += HEADER_LENGTH + length;
+                buffer.position(validEnd);
+            }
+            if (validEnd < channelFile.size()) {
+                log.warn("Truncating torn channel record at offset {}", validEnd);
+                channelFile.truncate(validEnd);
+            }
+            channelFile.position(validEnd);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return channels;
+    }
+
+    /**
+     * 새로운 채널을 채널 파일에 기록하고 디스크에 동기화한 뒤 스냅샷에 추가합니다.
+     *
+     * @param newChannel 새 채널의 이름
+     */
+    @Override
+    public synchronized void save(String newChannel) {
+        var channelId = UUID.randomUUID().toString();
+        append(channelId, newChannel);
+        addChannel(channelId, newChannel);
+    }
+
+    private void append(String channelId, String name) {
+        byte[] id = channelId.getBytes(StandardCharsets.UTF_8);
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = Integer.BYTES + id.length + nameBytes.length;
+        var payload = ByteBuffer.allocate(length).putInt(id.length).put(id).put(nameBytes).flip();
+        var crc = new CRC32C();
+        crc.update(payload.duplicate());
+        var record = ByteBuffer.allocate(HEADER_LENGTH + length)
+                .putInt(length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+        try {
+            while (record.hasRemaining()) {
+                channelFile.write(record);
+            }
+            channelFile.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 채널 파일을 닫습니다.
+     */
+    @PreDestroy
+    void close() {
+        try {
+            channelFile.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageSearchHit;
+import com.sangminlee.mymydata.vo.NewMessage;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 메시지를 채널별 메모리 맵 세그먼트 파일에 추가 기록하는 영속 저장소입니다.
+ * 'app.message-repository.target' 속성이 'journal'로 설정된 경우에만 활성화됩니다.
+ * <p>
+ * 채널마다 {@code <app.message-journal.path>/<채널 ID>/} 디렉터리에 {@link JournalSegment} 파일들을 두며,
+ * 기록은 페이지 캐시에 바로 반영되므로 프로세스가 강제 종료되어도 유실되지 않습니다.
+ * 디스크 동기화는 flush-interval 주기로 일괄 수행하므로, 전원 장애 시에는 마지막 주기의 기록까지만 유실될 수 있습니다.
+ * commit-window를 지정하면 단건 저장은 그 시간 동안 모인 다른 저장들과 함께 한 번에 동기화(group commit)된 뒤 반환되며,
+ * {@link #saveAll}은 채널별 묶음마다 한 번 동기화한 뒤 반환합니다.
+ * 채널 저널은 처음 접근할 때 희소 색인을 이용해 열리므로 기동 시 전체 기록을 읽지 않습니다.
+ * 저장한 메시지는 저장할 때 검색 색인에 추가하고, 다시 연 저널의 기존 메시지는 채널을 처음 검색할 때 색인합니다.
+ * 마지막 메시지를 삭제하면 발급한 가장 큰 일련번호를 {@code sequence.hwm} 파일에 남겨, 재시작 후에도 일련번호를 다시 쓰지 않습니다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.message-repository.target", havingValue = "journal")
+class JournalMessageRepository implements MessageRepository {
+
+    private static final Pattern CHANNEL_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final String HIGH_WATER_MARK_FILE = "sequence.hwm";
+
+    private final Path basePath;
+    private final int segmentSize;
+    private final int indexInterval;
+    private final ConcurrentMap<String, ChannelJournal> journals = new ConcurrentHashMap<>();
+    private final MessageSearchIndex searchIndex = new MessageSearchIndex();
+    private final ScheduledExecutorService flusher;
+    private final Duration commitWindow;
+    private final Object commitLock = new Object();
+    private Set<ChannelJournal> pendingCommit = new HashSet<>();
+    @Nullable
+    private CompletableFuture<Void> pendingCommitFuture;
+
+    /**
+     * JournalMessageRepository 생성자입니다.
+     *
+     * @param basePath      저널 파일을 저장할 디렉터리
+     * @param segmentSize   세그먼트 파일 크기
+     * @param indexInterval 희소 색인 간격 (레코드 수)
+     * @param flushInterval 디스크 동기화 주기
+     * @param commitWindow  단건 저장을 모아 함께 동기화할 시간 (0이면 주기적 동기화만 수행)
+     */
+    JournalMessageRepository(@Value("${app.message-journal.path:./message-journal}") Path basePath,
+                             @Value("${app.message-journal.segment-size:16MB}") DataSize segmentSize,
+                             @Value("${app.message-journal.index-interval:64}") int indexInterval,
+                             @Value("${app.message-journal.flush-interval:200ms}") Duration flushInterval,
+                             @Value("${app.message-journal.commit-window:0ms}") Duration commitWindow) {
+        if (segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segment-size must be smaller than 2GB");
+        }
+        if (indexInterval < 1) {
+            throw new IllegalArgumentException("index-interval must be at least 1");
+        }
+        this.basePath = basePath;
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.indexInterval = indexInterval;
+        this.commitWindow = commitWindow;
+        try {
+            Files.createDirectories(basePath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "message-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<Message> findLatest(String channelId, int fetchMax, @Nullable String lastSeenMessageId) {
+        if (fetchMax < 1) {
+            throw new IllegalArgumentException("fetchMax must be at least 1");
+        }
+        return findJournal(channelId)
+                .map(journal -> journal.findLatest(fetchMax, lastSeenMessageId))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<Message> findAfter(String channelId, long sequenceNumber, int fetchMax) {
+        if (fetchMax < 1) {
+            throw new IllegalArgumentException("fetchMax must be at least 1");
+        }
+        return findJournal(channelId)
+                .map(journal -> journal.findAfter(sequenceNumber, fetchMax))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<Message> findBefore(String channelId, long sequenceNumber, int fetchMax) {
+        if (fetchMax < 1) {
+            throw new IllegalArgumentException("fetchMax must be at least 1");
+        }
+        return findJournal(channelId)
+                .map(journal -> journal.findBefore(sequenceNumber, fetchMax))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<MessageSearchHit> search(String channelId, String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return findJournal(channelId)
+                .map(journal -> searchIndex.search(channelId, query, limit, journal))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public Message save(NewMessage newMessage) {
+        var journal = journalOf(newMessage.channelId());
+        var message = journal.save(newMessage);
+        if (!commitWindow.isZero()) {
+            requestCommit(journal).join();
+        }
+        return message;
+    }
+
+    @Override
+    public List<Message> saveAll(List<NewMessage> newMessages) {
+        var saved = new Message[newMessages.size()];
+        InMemoryMessageRepository.groupByChannel(newMessages).forEach((channelId, indexes) -> {
+            var journal = journalOf(channelId);
+            var messages = journal.saveAll(indexes.stream().map(newMessages::get).toList());
+            journal.flush();
+            for (int i = 0; i < indexes.size(); i++) {
+                saved[indexes.get(i)] = messages.get(i);
+            }
+        });
+        return List.of(saved);
+    }
+
+    /**
+     * 저널을 다음 group commit 대상에 등록합니다.
+     * commit-window 동안 등록된 저널들은 한 번씩만 동기화되며, 동기화가 끝나면 반환된 Future가 완료됩니다.
+     */
+    private CompletableFuture<Void> requestCommit(ChannelJournal journal) {
+        synchronized (commitLock) {
+            pendingCommit.add(journal);
+            if (pendingCommitFuture == null) {
+                pendingCommitFuture = new CompletableFuture<>();
+                flusher.schedule(this::commit, commitWindow.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            return pendingCommitFuture;
+        }
+    }
+
+    private void commit() {
+        Set<ChannelJournal> journalsToCommit;
+        CompletableFuture<Void> future;
+        synchronized (commitLock) {
+            journalsToCommit = pendingCommit;
+            future = pendingCommitFuture;
+            pendingCommit = new HashSet<>();
+            pendingCommitFuture = null;
+        }
+        try {
+            journalsToCommit.forEach(ChannelJournal::flush);
+            future.complete(null);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public boolean deleteLastMessage(String channelId, String messageId) {
+        return findJournal(channelId).map(journal -> journal.deleteLast(messageId)).orElse(false);
+    }
+
+    /**
+     * 이미 열려 있거나 디스크에 존재하는 채널 저널을 찾습니다. 존재하지 않는 채널에 대해 디렉터리를 만들지 않습니다.
+     */
+    private Optional<ChannelJournal> findJournal(String channelId) {
+        var journal = journals.get(channelId);
+        if (journal != null) {
+            return Optional.of(journal);
+        }
+        if (!CHANNEL_ID_PATTERN.matcher(channelId).matches() || !Files.isDirectory(basePath.resolve(channelId))) {
+            return Optional.empty();
+        }
+        return Optional.of(journalOf(channelId));
+    }
+
+    private ChannelJournal journalOf(String channelId) {
+        if (!CHANNEL_ID_PATTERN.matcher(channelId).matches()) {
+            throw new IllegalArgumentException("Invalid channel id: " + channelId);
+        }
+        return journals.computeIfAbsent(channelId, id -> new ChannelJournal(id, basePath.resolve(id)));
+    }
+
+    private void flush() {
+        journals.values().forEach(journal -> {
+            try {
+                journal.flush();
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush message journal of channel {}", journal.channelId, e);
+            }
+        });
+    }
+
+    /**
+     * 모든 저널을 디스크에 동기화하고 파일을 닫습니다.
+     */
+    @PreDestroy
+    void close() {
+        flusher.shutdown();
+        journals.values().forEach(ChannelJournal::close);
+    }
+
+    /**
+     * 한 채널의 세그먼트 목록을 관리하는 저널입니다.
+     * 세그먼트는 첫 일련번호 순으로 정렬되어 있으며, 마지막 세그먼트에만 기록합니다.
+     */
+    private class ChannelJournal implements MessageSearchIndex.MessageSource {
+        private final String channelId;
+        private final Path directory;
+        private final List<JournalSegment> segments = new ArrayList<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Object flushLock = new Object();
+        private final Path highWaterMarkFile;
+        private long nextSequenceNumber = 1;
+        private long highWaterMark;
+
+        private ChannelJournal(String channelId, Path directory) {
+            this.channelId = channelId;
+            this.directory = directory;
+            this.highWaterMarkFile = directory.resolve(HIGH_WATER_MARK_FILE);
+            try {
+                Files.createDirectories(directory);
+                if (Files.exists(highWaterMarkFile) && Files.size(highWaterMarkFile) == Long.BYTES) {
+                    highWaterMark = ByteBuffer.wrap(Files.readAllBytes(highWaterMarkFile)).getLong();
+                }
+                try (Stream<Path> files = Files.list(directory)) {
+                    files.filter(file -> file.getFileName().toString().endsWith(JournalSegment.DATA_SUFFIX))
+                            .map(file -> JournalSegment.open(file, indexInterval))
+                            .sorted(Comparator.comparingLong(JournalSegment::firstSequenceNumber))
+                            .forEach(segments::add);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            while (segments.size() > 1 && segments.getLast().recordCount() == 0) {
+                segments.removeLast().delete();
+            }
+            for (int i = 0; i < segments.size() - 1; i++) {
+                segments.get(i).seal();
+            }
+            if (!segments.isEmpty()) {
+                nextSequenceNumber = segments.getLast().lastSequenceNumber() + 1;
+            }
+            nextSequenceNumber = Math.max(nextSequenceNumber, highWaterMark + 1);
+        }
+
+        private int size() {
+            int size = 0;
+            for (JournalSegment segment : segments) {
+                size += segment.recordCount();
+            }
+            return size;
+        }
+
+        /**
+         * 채널 전체 순번 [from, to) 구간의 메시지를 세그먼트에 걸쳐 읽습니다.
+         */
+        private List<Message> read(int from, int to) {
+            var messages = new ArrayList<Message>(Math.max(0, to - from));
+            int segmentStart = 0;
+            for (JournalSegment segment : segments) {
+                int segmentEnd = segmentStart + segment.recordCount();
+                if (segmentEnd > from && segmentStart < to) {
+                    messages.addAll(segment.read(Math.max(from, segmentStart) - segmentStart,
+                            Math.min(to, segmentEnd) - segmentStart, channelId));
+                }
+                segmentStart = segmentEnd;
+            }
+            return messages;
+        }
+
+        public List<Message> findLatest(int fetchMax, @Nullable String lastSeenMessageId) {
+            lock.readLock().lock();
+            try {
+                int size = size();
+                var latest = read(Math.max(0, size - fetchMax), size);
+                if (lastSeenMessageId != null) {
+                    for (int i = latest.size() - 1; i >= 0; i--) {
+                        if (latest.get(i).messageId().equals(lastSeenMessageId)) {
+                            return List.copyOf(latest.subList(i + 1, latest.size()));
+                        }
+                    }
+                }
+                return List.copyOf(latest);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public List<Message> findAfter(long sequenceNumber, int fetchMax) {
+            lock.readLock().lock();
+            try {
+                int from = ordinalAfter(sequenceNumber);
+                return List.copyOf(read(from, (int) Math.min(size(), (long) from + fetchMax)));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        public List<Message> findBefore(long sequenceNumber, int fetchMax) {
+            lock.readLock().lock();
+            try {
+                int to = ordinalAfter(sequenceNumber - 1);
+                return List.copyOf(read(Math.max(0, to - fetchMax), to));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 주어진 일련번호보다 큰 일련번호를 가진 첫 레코드의 채널 내 순번을 찾습니다. 없다면 전체 레코드 수를 반환합니다.
+         */
+        private int ordinalAfter(long sequenceNumber) {
+            int segmentStart = 0;
+            for (JournalSegment segment : segments) {
+                if (segment.lastSequenceNumber() > sequenceNumber) {
+                    return segmentStart + segment.ordinalAfter(sequenceNumber);
+                }
+                segmentStart += segment.recordCount();
+            }
+            return segmentStart;
+        }
+
+        @Nullable
+        @Override
+        public Message findBySequenceNumber(long sequenceNumber) {
+            var found = findAfter(sequenceNumber - 1, 1);
+            return found.isEmpty() || found.getFirst().sequenceNumber() != sequenceNumber ? null : found.getFirst();
+        }
+
+        public Message save(NewMessage newMessage) {
+            lock.writeLock().lock();
+            try {
+                return append(newMessage);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        public List<Message> saveAll(List<NewMessage> newMessages) {
+            lock.writeLock().lock();
+            try {
+                return newMessages.stream().map(this::append).toList();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private Message append(NewMessage newMessage) {
+            var message = new Message(UUID.randomUUID().toString(), channelId, nextSequenceNumber,
+                    newMessage.timestamp(), newMessage.author().getName(), newMessage.message(), newMessage.author().getColor());
+            var record = MessageRecordCodec.encode(message);
+            if (!JournalSegment.fits(record.length, segmentSize)) {
+                throw new IllegalArgumentException("Message is too large for a journal segment");
+            }
+            if (segments.isEmpty() || !segments.getLast().hasRoom(record.length)) {
+                if (!segments.isEmpty()) {
+                    segments.getLast().seal();
+                }
+                segments.add(JournalSegment.create(directory, message.sequenceNumber(), segmentSize, indexInterval));
+            }
+            segments.getLast().append(message.sequenceNumber(), record);
+            searchIndex.add(message);
+            nextSequenceNumber++;
+            return message;
+        }
+
+        public boolean deleteLast(String messageId) {
+            lock.writeLock().lock();
+            try {
+                var last = read(size() - 1, size());
+                if (last.isEmpty() || !last.getFirst().messageId().equals(messageId)) {
+                    return false;
+                }
+                deleteLast();
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void deleteLast() {
+            lock.writeLock().lock();
+            try {
+                if (segments.isEmpty() || segments.getLast().recordCount() == 0) {
+                    throw new NoSuchElementException();
+                }
+                var tail = segments.getLast();
+                persistHighWaterMark(nextSequenceNumber - 1);
+                tail.removeLast(channelId);
+                if (tail.recordCount() == 0 && segments.size() > 1) {
+                    segments.removeLast().delete();
+                    segments.getLast().unseal();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * 발급한 가장 큰 일련번호를 기록합니다. 마지막 레코드를 지우면 세그먼트만으로는 그 번호를 알 수 없으므로,
+         * 재시작 후 같은 번호를 다시 발급하지 않도록 레코드를 지우기 전에 디스크에 동기화합니다.
+         */
+        private void persistHighWaterMark(long sequenceNumber) {
+            if (sequenceNumber <= highWaterMark) {
+                return;
+            }
+            try (var channel = FileChannel.open(highWaterMarkFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(Long.BYTES).putLong(sequenceNumber).flip(), 0);
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            highWaterMark = sequenceNumber;
+        }
+
+        /**
+         * 마지막 세그먼트의 변경 영역을 디스크에 동기화합니다.
+         * 변경 영역은 잠금 안에서 넘겨받고 동기화는 잠금 밖에서 수행하므로, 동기화하는 동안에도 읽기와 기록이 진행됩니다.
+         * flush끼리는 순서대로 수행하여, 반환 시점에는 호출 전에 기록된 메시지가 모두 동기화되어 있도록 합니다.
+         */
+        public void flush() {
+            synchronized (flushLock) {
+                JournalSegment segment;
+                JournalSegment.DirtyRange range;
+                lock.writeLock().lock();
+                try {
+                    if (segments.isEmpty()) {
+                        return;
+                    }
+                    segment = segments.getLast();
+                    range = segment.takeDirtyRange();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (range == null) {
+                    return;
+                }
+                try {
+                    segment.force(range);
+                } catch (RuntimeException e) {
+                    lock.writeLock().lock();
+                    try {
+                        segment.restoreDirtyRange(range);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    throw e;
+                }
+            }
+        }
+
+        public void close() {
+            lock.writeLock().lock();
+            try {
+                segments.forEach(JournalSegment::close);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.vo.Message;
+import jakarta.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * 채널 메시지 저널을 구성하는 메모리 맵 세그먼트 파일입니다.
+ * <p>
+ * 데이터 파일({@code <첫 일련번호>.seg})은 {@code [int 길이][int CRC32C][레코드]} 형식의 항목이 연속으로 기록되며,
+ * 길이가 0이거나 CRC가 맞지 않는 항목에서 끝난 것으로 간주합니다.
+ * 색인 파일({@code <첫 일련번호>.idx})은 indexInterval개 레코드마다 {@code [long 일련번호][int 위치]}를 기록하는 희소 색인으로,
+ * 재시작 시 세그먼트 전체를 읽지 않고 마지막 색인 이후의 레코드만 검사하면 되도록 합니다.
+ * <p>
+ * 이 클래스는 스레드 안전하지 않으며, 호출자({@link JournalMessageRepository})가 채널 단위로 동기화합니다.
+ * 단, {@link #force(DirtyRange)}는 디스크 동기화 동안 기록을 막지 않도록 잠금 밖에서 호출할 수 있습니다.
+ */
+class JournalSegment {
+
+    static final String DATA_SUFFIX = ".seg";
+    static final String INDEX_SUFFIX = ".idx";
+    private static final int HEADER_LENGTH = Integer.BYTES * 2;
+    private static final int INDEX_ENTRY_LENGTH = Long.BYTES + Integer.BYTES;
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final long firstSequenceNumber;
+    private final int indexInterval;
+    private final MappedByteBuffer buffer;
+    private FileChannel indexChannel;
+
+    private long[] indexSequenceNumbers = new long[16];
+    private int[] indexPositions = new int[16];
+    private int indexSize;
+
+    private int recordCount;
+    private int writePosition;
+    private int lastRecordPosition = -1;
+    private int dirtyFrom = Integer.MAX_VALUE;
+
+    private JournalSegment(Path dataFile, long firstSequenceNumber, int indexInterval, MappedByteBuffer buffer) {
+        this.dataFile = dataFile;
+        this.indexFile = dataFile.resolveSibling(firstSequenceNumber + INDEX_SUFFIX);
+        this.firstSequenceNumber = firstSequenceNumber;
+        this.indexInterval = indexInterval;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 새 세그먼트 파일을 생성합니다.
+     *
+     * @param directory           채널 저널 디렉터리
+     * @param firstSequenceNumber 세그먼트에 처음 기록될 메시지의 일련번호
+     * @param segmentSize         세그먼트 파일 크기 (바이트)
+     * @param indexInterval       희소 색인 간격 (레코드 수)
+     * @return 생성된 세그먼트
+     */
+    static JournalSegment create(Path directory, long firstSequenceNumber, int segmentSize, int indexInterval) {
+        var dataFile = directory.resolve(firstSequenceNumber + DATA_SUFFIX);
+        var segment = new JournalSegment(dataFile, firstSequenceNumber, indexInterval, map(dataFile, segmentSize));
+        segment.openIndexChannel();
+        return segment;
+    }
+
+    /**
+     * 기존 세그먼트 파일을 엽니다.
+     * 희소 색인의 마지막 유효 항목부터 레코드를 검사하여 기록 위치를 복구하고, 손상된 꼬리 레코드는 잘라냅니다.
+     *
+     * @param dataFile      세그먼트 데이터 파일
+     * @param indexInterval 희소 색인 간격 (레코드 수)
+     * @return 열린 세그먼트
+     */
+    static JournalSegment open(Path dataFile, int indexInterval) {
+        try {
+            var fileName = dataFile.getFileName().toString();
+            long firstSequenceNumber = Long.parseLong(fileName.substring(0, fileName.length() - DATA_SUFFIX.length()));
+            var segment = new JournalSegment(dataFile, firstSequenceNumber, indexInterval,
+                    map(dataFile, (int) Files.size(dataFile)));
+            segment.recover();
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MappedByteBuffer map(Path dataFile, int size) {
+        try (var file = new RandomAccessFile(dataFile.toFile(), "rw")) {
+            if (file.length() < size) {
+                file.setLength(size);
+            }
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void recover() throws IOException {
+        loadIndex();
+        int entry = indexSize - 1;
+        while (entry >= 0 && !(isValidRecord(indexPositions[entry])
+                && MessageRecordCodec.sequenceNumber(buffer, indexPositions[entry] + HEADER_LENGTH) == indexSequenceNumbers[entry])) {
+            entry--;
+        }
+        indexSize = entry + 1;
+        openIndexChannel();
+        indexChannel.truncate((long) indexSize * INDEX_ENTRY_LENGTH);
+
+        int position = entry < 0 ? 0 : indexPositions[entry];
+        recordCount = entry < 0 ? 0 : entry * indexInterval;
+        while (isValidRecord(position)) {
+            if (recordCount % indexInterval == 0 && recordCount / indexInterval == indexSize) {
+                appendIndexEntry(MessageRecordCodec.sequenceNumber(buffer, position + HEADER_LENGTH), position);
+            }
+            lastRecordPosition = position;
+            position = nextPosition(position);
+            recordCount++;
+        }
+        writePosition = position;
+        if (writePosition + Integer.BYTES <= buffer.capacity() && buffer.getInt(writePosition) != 0) {
+            // 비정상 종료로 일부만 기록된 레코드를 지워 이후 검사가 이 위치에서 멈추도록 합니다.
+            buffer.putInt(writePosition, 0);
+            markDirty(writePosition);
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        var index = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        while (index.remaining() >= INDEX_ENTRY_LENGTH) {
+            addIndexEntry(index.getLong(), index.getInt());
+        }
+    }
+
+    private void openIndexChannel() {
+        if (indexChannel != null) {
+            return;
+        }
+        try {
+            indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean isValidRecord(int position) {
+        if (position < 0 || position + HEADER_LENGTH > buffer.capacity()) {
+            return false;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + HEADER_LENGTH + length > buffer.capacity()) {
+            return false;
+        }
+        var crc = new CRC32C();
+        crc.update(buffer.slice(position + HEADER_LENGTH, length));
+        return (int) crc.getValue() == buffer.getInt(position + Integer.BYTES);
+    }
+
+    private int nextPosition(int position) {
+        return position + HEADER_LENGTH + buffer.getInt(position);
+    }
+
+    private void addIndexEntry(long sequenceNumber, int position) {
+        if (indexSize == indexPositions.length) {
+            indexSequenceNumbers = Arrays.copyOf(indexSequenceNumbers, indexSize * 2);
+            indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+        }
+        indexSequenceNumbers[indexSize] = sequenceNumber;
+        indexPositions[indexSize] = position;
+        indexSize++;
+    }
+
+    private void appendIndexEntry(long sequenceNumber, int position) {
+        addIndexEntry(sequenceNumber, position);
+        try {
+            var entry = ByteBuffer.allocate(INDEX_ENTRY_LENGTH).putLong(sequenceNumber).putInt(position).flip();
+            indexChannel.write(entry, (long) (indexSize - 1) * INDEX_ENTRY_LENGTH);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void markDirty(int position) {
+        dirtyFrom = Math.min(dirtyFrom, position);
+    }
+
+    long firstSequenceNumber() {
+        return firstSequenceNumber;
+    }
+
+    int recordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 레코드를 추가할 공간이 남아있는지 확인합니다.
+     *
+     * @param recordLength 레코드 길이
+     * @return 공간이 있으면 true
+     */
+    boolean hasRoom(int recordLength) {
+        return (long) writePosition + HEADER_LENGTH + recordLength <= buffer.capacity();
+    }
+
+    /**
+     * 빈 세그먼트에 들어갈 수 있는 최대 레코드 길이인지 확인합니다.
+     *
+     * @param recordLength 레코드 길이
+     * @param segmentSize  세그먼트 파일 크기
+     * @return 들어갈 수 있으면 true
+     */
+    static boolean fits(int recordLength, int segmentSize) {
+        return (long) HEADER_LENGTH + recordLength <= segmentSize;
+    }
+
+    /**
+     * 레코드를 세그먼트 끝에 기록합니다. 본문과 CRC를 먼저 쓰고 길이를 마지막에 써서,
+     * 중간에 중단되더라도 불완전한 레코드가 유효하게 읽히지 않도록 합니다.
+     *
+     * @param sequenceNumber 레코드의 일련번호
+     * @param record         {@link MessageRecordCodec}으로 인코딩된 레코드
+     */
+    void append(long sequenceNumber, byte[] record) {
+        int position = writePosition;
+        var crc = new CRC32C();
+        crc.update(record);
+        buffer.put(position + HEADER_LENGTH, record);
+        buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(position, record.length);
+        if (recordCount % indexInterval == 0) {
+            appendIndexEntry(sequenceNumber, position);
+        }
+        markDirty(position);
+        lastRecordPosition = position;
+        writePosition = position + HEADER_LENGTH + record.length;
+        recordCount++;
+    }
+
+    /**
+     * 마지막 레코드를 잘라냅니다.
+     *
+     * @param channelId 메시지가 속한 채널 ID
+     * @return 잘라낸 레코드의 메시지
+     */
+    Message removeLast(String channelId) {
+        var removed = readAt(lastRecordPosition, channelId);
+        buffer.putInt(lastRecordPosition, 0);
+        markDirty(lastRecordPosition);
+        writePosition = lastRecordPosition;
+        recordCount--;
+        if (indexSize > 0 && (indexSize - 1) * indexInterval >= recordCount) {
+            indexSize--;
+            try {
+                openIndexChannel();
+                indexChannel.truncate((long) indexSize * INDEX_ENTRY_LENGTH);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        lastRecordPosition = recordCount == 0 ? -1 : positionOf(recordCount - 1);
+        return removed;
+    }
+
+    /**
+     * 마지막 레코드의 일련번호를 반환합니다.
+     *
+     * @return 마지막 일련번호, 레코드가 없다면 첫 일련번호 - 1
+     */
+    long lastSequenceNumber() {
+        return lastRecordPosition < 0
+                ? firstSequenceNumber - 1
+                : MessageRecordCodec.sequenceNumber(buffer, lastRecordPosition + HEADER_LENGTH);
+    }
+
+    private int positionOf(int ordinal) {
+        int position = indexPositions[ordinal / indexInterval];
+        for (int i = ordinal % indexInterval; i > 0; i--) {
+            position = nextPosition(position);
+        }
+        return position;
+    }
+
+    private Message readAt(int position, String channelId) {
+        return MessageRecordCodec.decode(buffer.slice(position + HEADER_LENGTH, buffer.getInt(position)), channelId);
+    }
+
+    /**
+     * 세그먼트 내 순번 [from, to) 구간의 메시지를 읽습니다.
+     *
+     * @param from      시작 순번 (포함)
+     * @param to        끝 순번 (미포함)
+     * @param channelId 메시지가 속한 채널 ID
+     * @return 메시지 리스트
+     */
+    List<Message> read(int from, int to, String channelId) {
+        var messages = new ArrayList<Message>(Math.max(0, to - from));
+        if (from >= to) {
+            return messages;
+        }
+        int position = positionOf(from);
+        for (int i = from; i < to; i++) {
+            messages.add(readAt(position, channelId));
+            position = nextPosition(position);
+        }
+        return messages;
+    }
+
+    /**
+     * 주어진 일련번호보다 큰 첫 레코드의 순번을 찾습니다.
+     * 희소 색인을 이진 탐색한 뒤 최대 indexInterval개의 레코드만 순차 검사합니다.
+     *
+     * @param sequenceNumber 기준 일련번호
+     * @return 첫 레코드의 순번, 없다면 recordCount
+     */
+    int ordinalAfter(long sequenceNumber) {
+        int low = 0;
+        int high = indexSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (indexSequenceNumbers[mid] <= sequenceNumber) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+        int ordinal = (low - 1) * indexInterval;
+        int position = indexPositions[low - 1];
+        while (ordinal < recordCount && MessageRecordCodec.sequenceNumber(buffer, position + HEADER_LENGTH) <= sequenceNumber) {
+            position = nextPosition(position);
+            ordinal++;
+        }
+        return ordinal;
+    }
+
+    /**
+     * 마지막 flush 이후 변경된 영역과 색인을 디스크에 동기화합니다.
+     */
+    void force() {
+        var range = takeDirtyRange();
+        if (range != null) {
+            force(range);
+        }
+    }
+
+    /**
+     * 마지막 flush 이후 변경된 영역을 넘겨받고 변경 표시를 지웁니다.
+     * 호출자의 잠금 안에서 호출하며, 넘겨받은 영역은 잠금을 놓은 뒤 {@link #force(DirtyRange)}로 동기화합니다.
+     *
+     * @return 변경된 영역, 변경이 없으면 null
+     */
+    @Nullable
+    DirtyRange takeDirtyRange() {
+        if (dirtyFrom == Integer.MAX_VALUE) {
+            return null;
+        }
+        int from = dirtyFrom;
+        dirtyFrom = Integer.MAX_VALUE;
+        return new DirtyRange(from, Math.min(buffer.capacity(), writePosition + Integer.BYTES), indexChannel);
+    }
+
+    /**
+     * 동기화에 실패한 영역을 다시 변경된 것으로 표시하여 다음 flush에서 재시도하도록 합니다.
+     *
+     * @param range {@link #takeDirtyRange()}로 넘겨받은 영역
+     */
+    void restoreDirtyRange(DirtyRange range) {
+        markDirty(range.from());
+    }
+
+    /**
+     * 넘겨받은 영역과 색인을 디스크에 동기화합니다. 기록과 동시에 호출해도 되므로 호출자의 잠금 밖에서 호출할 수 있습니다.
+     * 그 사이 세그먼트가 봉인되어 색인 채널이 닫혔다면, 봉인할 때 이미 색인을 동기화했으므로 무시합니다.
+     *
+     * @param range {@link #takeDirtyRange()}로 넘겨받은 영역
+     */
+    void force(DirtyRange range) {
+        buffer.force(range.from(), range.to() - range.from());
+        try {
+            if (range.indexChannel() != null) {
+                range.indexChannel().force(false);
+            }
+        } catch (ClosedChannelException e) {
+            // 봉인 또는 종료 시 색인을 동기화한 뒤 닫았습니다.
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 더 이상 기록하지 않는 세그먼트의 색인 파일 채널을 닫습니다. 데이터는 읽기를 위해 계속 매핑해 둡니다.
+     */
+    void seal() {
+        force();
+        closeIndexChannel();
+    }
+
+    /**
+     * 봉인된 세그먼트를 다시 기록 가능한 상태로 엽니다.
+     */
+    void unseal() {
+        openIndexChannel();
+    }
+
+    void close() {
+        force();
+        closeIndexChannel();
+    }
+
+    /**
+     * 세그먼트의 데이터 파일과 색인 파일을 삭제합니다.
+     */
+    void delete() {
+        closeIndexChannel();
+        try {
+            Files.deleteIfExists(indexFile);
+            Files.deleteIfExists(dataFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeIndexChannel() {
+        if (indexChannel == null) {
+            return;
+        }
+        try {
+            indexChannel.close();
+            indexChannel = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 디스크에 동기화할 데이터 파일의 [from, to) 영역과 그때의 색인 파일 채널입니다.
+     */
+    record DirtyRange(int from, int to, @Nullable FileChannel indexChannel) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.vo.Message;
+
+/**
+ * {@link MessageLog}가 메시지를 보관하는 고정 크기({@link MessageLog#CHUNK_SIZE}) 저장 단위입니다.
+ * 구현체는 메시지를 그대로 보관하거나({@link ObjectMessageChunk}), 열 단위 원시 배열로 풀어서 보관할 수 있습니다({@link CompactMessageChunk}).
+ * <p>
+ * 기록({@link #set})은 단일 작성자가 수행하며, 읽기 측은 {@link MessageLog}가 발행한 위치까지만 읽습니다.
+ */
+interface MessageChunk {
+
+    /**
+     * 지정된 위치의 메시지를 반환합니다.
+     *
+     * @param offset 청크 내 위치
+     * @return 메시지
+     */
+    Message get(int offset);
+
+    /**
+     * 지정된 위치의 메시지 일련번호를 반환합니다. 메시지 객체를 만들지 않으므로 탐색에 사용합니다.
+     *
+     * @param offset 청크 내 위치
+     * @return 일련번호
+     */
+    long sequenceNumber(int offset);
+
+    /**
+     * 지정된 위치에 메시지를 기록합니다.
+     *
+     * @param offset  청크 내 위치
+     * @param message 기록할 메시지
+     */
+    void set(int offset, Message message);
+}
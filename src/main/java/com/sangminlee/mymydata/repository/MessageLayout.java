@@ -0,0 +1,51 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.vo.Message;
+
+/**
+ * {@link InMemoryMessageRepository}가 힙에 메시지를 보관하는 방식입니다.
+ */
+enum MessageLayout {
+    /**
+     * {@link Message} 객체를 그대로 보관합니다. 조회 시 객체를 새로 만들지 않습니다.
+     */
+    OBJECT(200) {
+        @Override
+        MessageChunk newChunk(String channelId) {
+            return new ObjectMessageChunk();
+        }
+    },
+    /**
+     * 열 단위 원시 배열로 보관합니다. 메시지당 힙 사용량이 작은 대신 조회 시 {@link Message} 객체를 만듭니다.
+     */
+    COMPACT(64) {
+        @Override
+        MessageChunk newChunk(String channelId) {
+            return new CompactMessageChunk(channelId);
+        }
+    };
+
+    private final int overheadBytes;
+
+    MessageLayout(int overheadBytes) {
+        this.overheadBytes = overheadBytes;
+    }
+
+    /**
+     * 새 청크를 만듭니다.
+     *
+     * @param channelId 청크가 속한 채널 ID
+     * @return 빈 청크
+     */
+    abstract MessageChunk newChunk(String channelId);
+
+    /**
+     * 메시지 한 건이 힙에서 차지하는 크기를 추정합니다. 본문은 글자당 2바이트로 계산합니다.
+     *
+     * @param message 메시지
+     * @return 추정 크기 (바이트)
+     */
+    long estimateSize(Message message) {
+        return overheadBytes + 2L * message.message().length();
+    }
+}
@@ -0,0 +1,214 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.vo.Message;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * 단일 작성자(single-writer)를 전제로 한 청크 기반 추가 전용 메시지 로그입니다.
+ * 메시지는 고정 크기 청크({@link MessageChunk})에 기록되며, 기록이 끝난 뒤 volatile 길이(size)를 갱신하여 발행합니다.
+ * 읽기 측은 잠금 없이 발행된 길이까지의 메시지를 읽을 수 있고, 청크는 추가만 되므로 기존 원소가 복사되거나 이동하지 않습니다.
+ * <p>
+ * 오래된 청크는 {@link #cool}로 힙에서 내려놓을 수 있으며(cold 청크), 이후 해당 청크를 읽을 때는 생성 시 전달한
+ * coldChunkLoader로 다시 읽어옵니다. cold 청크는 항상 로그 앞쪽의 연속 구간입니다.
+ * <p>
+ * 작성 메서드({@link #append}, {@link #removeLast}, {@link #cool}, {@link #warm})는 호출자가 직렬화해야 합니다.
+ * {@link #removeLast} 이후 같은 위치에 새 메시지가 기록될 수 있으므로, 삭제와 동시에 진행된 읽기의 유효성은 호출자가 검증해야 합니다.
+ */
+class MessageLog {
+
+    static final int CHUNK_SIZE = 1024;
+
+    private final Supplier<MessageChunk> chunkFactory;
+    private final IntFunction<MessageChunk> coldChunkLoader;
+    private volatile MessageChunk[] chunks = new MessageChunk[0];
+    private volatile long[] firstSequenceNumbers = new long[0];
+    private volatile int coldChunks;
+    private volatile int size;
+
+    /**
+     * MessageLog 생성자입니다.
+     *
+     * @param chunkFactory    새 청크를 만드는 함수
+     * @param coldChunkLoader cold 청크 번호를 받아 청크 내용을 읽어오는 함수
+     */
+    MessageLog(Supplier<MessageChunk> chunkFactory, IntFunction<MessageChunk> coldChunkLoader) {
+        this.chunkFactory = chunkFactory;
+        this.coldChunkLoader = coldChunkLoader;
+    }
+
+    /**
+     * 발행된 메시지 수를 반환합니다.
+     *
+     * @return 읽을 수 있는 메시지 수
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 힙에서 내려놓은 앞쪽 청크의 수를 반환합니다.
+     *
+     * @return cold 청크 수
+     */
+    int coldChunks() {
+        return coldChunks;
+    }
+
+    /**
+     * 지정된 위치의 메시지를 반환합니다. 위치는 {@link #size()}보다 작아야 합니다.
+     *
+     * @param index 메시지 위치
+     * @return 메시지
+     */
+    Message get(int index) {
+        return chunk(chunks, index / CHUNK_SIZE).get(index % CHUNK_SIZE);
+    }
+
+    private MessageChunk chunk(MessageChunk[] snapshot, int chunkIndex) {
+        var chunk = snapshot[chunkIndex];
+        return chunk != null ? chunk : coldChunkLoader.apply(chunkIndex);
+    }
+
+    /**
+     * [from, to) 구간의 메시지를 복사하여 반환합니다.
+     *
+     * @param from 시작 위치 (포함)
+     * @param to   끝 위치 (미포함)
+     * @return 복사된 읽기 전용 메시지 리스트
+     */
+    List<Message> copyRange(int from, int to) {
+        var snapshot = chunks;
+        var copied = new Message[Math.max(0, to - from)];
+        int i = from;
+        while (i < to) {
+            var chunk = chunk(snapshot, i / CHUNK_SIZE);
+            int end = Math.min((i / CHUNK_SIZE + 1) * CHUNK_SIZE, to);
+            for (; i < end; i++) {
+                copied[i - from] = chunk.get(i % CHUNK_SIZE);
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(copied));
+    }
+
+    /**
+     * 주어진 일련번호보다 큰 일련번호를 가진 첫 메시지의 위치를 이진 탐색합니다.
+     * 청크별 첫 일련번호로 청크를 먼저 고른 뒤 그 청크 안에서만 탐색하므로, cold 청크는 많아야 하나만 읽어옵니다.
+     *
+     * @param sequenceNumber 기준 일련번호
+     * @param size           탐색할 범위의 길이
+     * @return 첫 메시지의 위치, 없다면 size
+     */
+    int indexAfter(long sequenceNumber, int size) {
+        if (size == 0) {
+            return 0;
+        }
+        var firsts = firstSequenceNumbers;
+        int low = 0;
+        int high = (size - 1) / CHUNK_SIZE + 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (firsts[mid] <= sequenceNumber) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+        int chunkStart = (low - 1) * CHUNK_SIZE;
+        var chunk = chunk(chunks, low - 1);
+        low = 0;
+        high = Math.min(CHUNK_SIZE, size - chunkStart);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunk.sequenceNumber(mid) <= sequenceNumber) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return chunkStart + low;
+    }
+
+    /**
+     * 메시지를 로그 끝에 기록한 뒤 발행합니다. 기록할 청크가 cold 상태라면 호출자가 먼저 {@link #warm}해야 합니다.
+     *
+     * @param message 추가할 메시지
+     * @return 추가된 메시지의 위치
+     */
+    int append(Message message) {
+        int index = size;
+        int chunkIndex = index / CHUNK_SIZE;
+        var current = chunks;
+        if (chunkIndex == current.length) {
+            current = Arrays.copyOf(current, chunkIndex + 1);
+            current[chunkIndex] = chunkFactory.get();
+            firstSequenceNumbers = Arrays.copyOf(firstSequenceNumbers, chunkIndex + 1);
+            chunks = current;
+        }
+        current[chunkIndex].set(index % CHUNK_SIZE, message);
+        if (index % CHUNK_SIZE == 0) {
+            firstSequenceNumbers[chunkIndex] = message.sequenceNumber();
+        }
+        size = index + 1;
+        return index;
+    }
+
+    /**
+     * 마지막 메시지를 발행 범위에서 제외합니다.
+     * 동시에 진행 중인 읽기가 참조를 잃지 않도록 슬롯은 비우지 않으며, 다음 추가 시 덮어씌워집니다.
+     *
+     * @return 제외된 메시지
+     * @throws NoSuchElementException 로그가 비어있는 경우
+     */
+    Message removeLast() {
+        int last = size - 1;
+        if (last < 0) {
+            throw new NoSuchElementException();
+        }
+        var removed = get(last);
+        size = last;
+        return removed;
+    }
+
+    /**
+     * 가장 오래된 hot 청크를 힙에서 내려놓습니다. 청크 내용은 호출자가 미리 cold 저장소에 기록해야 합니다.
+     * 진행 중인 읽기가 이전 청크 배열을 계속 볼 수 있도록 청크 배열을 복사하여 교체합니다.
+     *
+     * @return 내려놓은 청크 번호
+     */
+    int cool() {
+        int chunkIndex = coldChunks;
+        var current = chunks.clone();
+        current[chunkIndex] = null;
+        chunks = current;
+        coldChunks = chunkIndex + 1;
+        return chunkIndex;
+    }
+
+    /**
+     * 마지막 cold 청크를 다시 힙에 올립니다.
+     *
+     * @param messages cold 저장소에서 읽어온 청크 내용
+     * @return 다시 올린 청크 번호
+     */
+    int warm(List<Message> messages) {
+        int chunkIndex = coldChunks - 1;
+        var chunk = chunkFactory.get();
+        for (int i = 0; i < messages.size(); i++) {
+            chunk.set(i, messages.get(i));
+        }
+        var current = chunks.clone();
+        current[chunkIndex] = chunk;
+        chunks = current;
+        coldChunks = chunkIndex;
+        return chunkIndex;
+    }
+}
@@ -0,0 +1,92 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.vo.Message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * 메시지를 고정 길이 헤더와 UTF-8 본문으로 이루어진 바이너리 레코드로 변환합니다.
+ * <pre>
+ * long  sequenceNumber
+ * long  messageId (UUID 상위 64비트)
+ * long  messageId (UUID 하위 64비트)
+ * long  timestamp (epoch second)
+ * int   timestamp (nano)
+ * byte  author (Author ordinal)
+ * int   본문 길이
+ * byte[] 본문 (UTF-8)
+ * </pre>
+ * 채널 ID는 레코드에 포함하지 않으며, 레코드를 담는 저장 단위(채널별 파일, 메시지 버스 데이터그램 등)가 알고 있다고 가정합니다.
+ */
+public final class MessageRecordCodec {
+
+    public static final int FIXED_LENGTH = Long.BYTES * 4 + Integer.BYTES + Byte.BYTES + Integer.BYTES;
+
+    private MessageRecordCodec() {
+    }
+
+    /**
+     * 메시지를 레코드 바이트 배열로 변환합니다.
+     *
+     * @param message 변환할 메시지
+     * @return 레코드 바이트 배열
+     */
+    public static byte[] encode(Message message) {
+        byte[] body = message.message().getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.allocate(FIXED_LENGTH + body.length);
+        encode(message, body, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * 메시지를 버퍼의 현재 위치에 기록합니다.
+     *
+     * @param message 기록할 메시지
+     * @param body    UTF-8로 인코딩된 메시지 본문
+     * @param buffer  기록할 버퍼
+     */
+    public static void encode(Message message, byte[] body, ByteBuffer buffer) {
+        var messageId = UUID.fromString(message.messageId());
+        buffer.putLong(message.sequenceNumber())
+                .putLong(messageId.getMostSignificantBits())
+                .putLong(messageId.getLeastSignificantBits())
+                .putLong(message.timestamp().getEpochSecond())
+                .putInt(message.timestamp().getNano())
+                .put((byte) Author.fromName(message.author()).ordinal())
+                .putInt(body.length)
+                .put(body);
+    }
+
+    /**
+     * 버퍼의 현재 위치에서 레코드 하나를 읽어 메시지로 변환합니다.
+     *
+     * @param buffer    레코드를 읽을 버퍼
+     * @param channelId 메시지가 속한 채널 ID
+     * @return 변환된 메시지
+     */
+    public static Message decode(ByteBuffer buffer, String channelId) {
+        long sequenceNumber = buffer.getLong();
+        var messageId = new UUID(buffer.getLong(), buffer.getLong());
+        var timestamp = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        var author = Author.values()[buffer.get()];
+        byte[] body = new byte[buffer.getInt()];
+        buffer.get(body);
+        return new Message(messageId.toString(), channelId, sequenceNumber, timestamp,
+                author.getName(), new String(body, StandardCharsets.UTF_8), author.getColor());
+    }
+
+    /**
+     * 레코드에서 일련번호만 읽습니다.
+     *
+     * @param buffer 레코드를 담은 버퍼
+     * @param offset 레코드 시작 위치
+     * @return 일련번호
+     */
+    static long sequenceNumber(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset);
+    }
+}
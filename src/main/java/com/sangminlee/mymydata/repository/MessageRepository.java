@@ -1,6 +1,7 @@
 package com.sangminlee.mymydata.repository;
 
 import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageSearchHit;
 import com.sangminlee.mymydata.vo.NewMessage;
 import jakarta.annotation.Nullable;
 
@@ -33,6 +34,39 @@ public interface MessageRepository {
         return findLatest(channelId, fetchMax, null);
     }
 
+    /**
+     * 특정 채널에서 지정한 일련번호 이후에 저장된 메시지들을 조회합니다.
+     * 일련번호는 채널 내에서 단조 증가하므로 구현체는 이진 탐색으로 시작 위치를 찾을 수 있습니다.
+     *
+     * @param channelId      메시지를 조회할 채널의 ID
+     * @param sequenceNumber 기준 일련번호 (이 값보다 큰 일련번호의 메시지만 조회)
+     * @param fetchMax       조회할 최대 메시지 수
+     * @return 일련번호 오름차순으로 정렬된 메시지 리스트
+     */
+    List<Message> findAfter(String channelId, long sequenceNumber, int fetchMax);
+
+    /**
+     * 특정 채널에서 지정한 일련번호 이전에 저장된 메시지들 중 가장 최근 것들을 조회합니다.
+     * 클라이언트가 이미 받은 가장 오래된 메시지보다 앞쪽으로 스크롤할 때 사용합니다.
+     *
+     * @param channelId      메시지를 조회할 채널의 ID
+     * @param sequenceNumber 기준 일련번호 (이 값보다 작은 일련번호의 메시지만 조회)
+     * @param fetchMax       조회할 최대 메시지 수
+     * @return 일련번호 오름차순으로 정렬된 메시지 리스트
+     */
+    List<Message> findBefore(String channelId, long sequenceNumber, int fetchMax);
+
+    /**
+     * 특정 채널의 메시지 본문을 검색합니다.
+     * 구현체는 저장 시점에 갱신되는 역색인을 사용하여, 검색할 때마다 채널의 메시지를 전부 훑지 않고 결과를 찾아야 합니다.
+     *
+     * @param channelId 검색할 채널의 ID
+     * @param query     검색어
+     * @param limit     반환할 최대 결과 수
+     * @return 점수 내림차순으로 정렬된 검색 결과
+     */
+    List<MessageSearchHit> search(String channelId, String query, int limit);
+
     /**
      * 새로운 메시지를 저장합니다.
      *
@@ -42,9 +76,23 @@ public interface MessageRepository {
     Message save(NewMessage newMessage);
 
     /**
-     * 특정 채널의 마지막 사용자 메시지를 삭제합니다.
+     * 여러 메시지를 한 번에 저장합니다.
+     * 구현체는 채널별로 한 번만 잠금을 잡고, 영속 저장소의 경우 묶음 단위로 한 번만 디스크에 동기화해야 합니다.
+     *
+     * @param newMessages 저장할 새 메시지 리스트
+     * @return 저장된 메시지 리스트 (입력 순서와 동일)
+     */
+    default List<Message> saveAll(List<NewMessage> newMessages) {
+        return newMessages.stream().map(this::save).toList();
+    }
+
+    /**
+     * 특정 채널의 마지막 메시지가 주어진 메시지일 때만 삭제합니다.
+     * 메시지는 끝에서만 삭제할 수 있으므로, 그 뒤에 다른 메시지가 저장되었으면 삭제하지 않습니다.
      *
      * @param channelId 메시지를 삭제할 채널의 ID
+     * @param messageId 삭제할 메시지의 ID
+     * @return 삭제했으면 true
      */
-    void deleteLastUserMessage(String channelId);
+    boolean deleteLastMessage(String channelId, String messageId);
 }
\ No newline at end of file
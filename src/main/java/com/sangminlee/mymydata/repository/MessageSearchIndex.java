@@ -0,0 +1,523 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageSearchHit;
+import jakarta.annotation.Nullable;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * 채널별 메시지 본문에 대한 문자 bigram 역색인입니다.
+ * 한국어는 띄어쓰기 단위가 곧 검색 단위가 아니므로(조사, 어미 결합), 형태소 분석 대신 연속된 두 글자를 색인 단위로 사용합니다.
+ * <p>
+ * 저장소는 메시지를 저장할 때 {@link #add}로 색인을 갱신합니다. 채널 색인은 {@link #BLOCK_SIZE}개 메시지 단위의 블록으로 나뉘며,
+ * 메시지는 꼬리 블록의 bigram별 일련번호 목록(posting list)에 추가됩니다. 꼬리 블록이 가득 차면 posting list를
+ * 일련번호 차이의 varint 바이트 배열 하나로 압축하여 봉인하므로, 봉인된 블록은 bigram 하나의 출현마다 대략 1바이트만 씁니다.
+ * 봉인된 블록은 바뀌지 않으므로 검색은 채널 잠금 없이 읽고, 버렸다가 저장소에서 다시 만드는 일도 없습니다.
+ * <p>
+ * 색인이 만들어지기 전에 저장된 메시지(다시 연 저널의 기존 메시지)는 채널을 처음 검색할 때 저장소({@link MessageSource})에서
+ * 블록 단위로 읽어 봉인된 블록으로 추가합니다. 블록은 채널 잠금 밖에서 만들고 끼워 넣을 때만 잠그므로, 그동안에도 저장은 막히지 않습니다.
+ * <p>
+ * 검색은 최신 블록부터 질의의 모든 bigram을 포함하는 메시지를 가장 드문 posting list부터 최신순으로 교집합하여 찾고,
+ * 본문에 질의어가 실제로 포함되는지 확인한 뒤 점수를 매깁니다. 두 글자 미만의 질의어는 bigram이 없으므로 검색되지 않습니다.
+ * 삭제된 메시지는 posting list에 남아 있을 수 있지만 {@link MessageSource#findBySequenceNumber}가 null을 반환하므로 결과에서 빠집니다.
+ */
+class MessageSearchIndex {
+
+    static final int BLOCK_SIZE = MessageLog.CHUNK_SIZE;
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    /**
+     * 점수를 매기기 위해 확인할 후보 수를 요청한 결과 수의 몇 배로 할지 정합니다.
+     */
+    private static final int CANDIDATE_FACTOR = 4;
+
+    private final ConcurrentMap<String, ChannelIndex> channelIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * 저장된 메시지를 채널 색인에 추가합니다.
+     * 저장소는 채널의 저장을 직렬화하는 잠금 안에서, 메시지를 조회할 수 있게 되기 전에 일련번호 순서대로 호출해야 합니다.
+     *
+     * @param message 저장된 메시지
+     */
+    void add(Message message) {
+        channelIndexes.computeIfAbsent(message.channelId(), id -> new ChannelIndex()).add(message);
+    }
+
+    /**
+     * 채널의 메시지를 검색합니다.
+     * 본문이 질의 전체를 그대로 포함하면 1.0, 질의어를 모두 포함하지만 순서나 간격이 다르면 0.5점을 주며,
+     * 같은 점수에서는 최신 메시지가 앞에 옵니다.
+     *
+     * @param channelId 검색할 채널 ID
+     * @param query     검색어
+     * @param limit     반환할 최대 결과 수
+     * @param source    채널의 메시지를 읽어올 저장소
+     * @return 점수 내림차순으로 정렬된 검색 결과
+     */
+    List<MessageSearchHit> search(String channelId, String query, int limit, MessageSource source) {
+        var terms = terms(query);
+        var bigrams = bigrams(terms);
+        if (bigrams.length == 0) {
+            return Collections.emptyList();
+        }
+        var channelIndex = channelIndexes.computeIfAbsent(channelId, id -> new ChannelIndex());
+        channelIndex.indexExisting(source);
+        var phrase = String.join(" ", terms);
+        var hits = new ArrayList<MessageSearchHit>();
+        for (long sequenceNumber : channelIndex.candidates(bigrams, limit * CANDIDATE_FACTOR)) {
+            var message = source.findBySequenceNumber(sequenceNumber);
+            if (message == null) {
+                continue;
+            }
+            var text = String.join(" ", terms(message.message()));
+            if (text.contains(phrase)) {
+                hits.add(new MessageSearchHit(message, 1.0));
+            } else if (terms.stream().allMatch(text::contains)) {
+                hits.add(new MessageSearchHit(message, 0.5));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(MessageSearchHit::score).reversed()
+                .thenComparing(hit -> hit.message().sequenceNumber(), Comparator.reverseOrder()));
+        return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * 채널 색인의 봉인된 블록 수를 반환합니다.
+     *
+     * @param channelId 채널 ID
+     * @return 봉인된 블록 수
+     */
+    int sealedBlocks(String channelId) {
+        var channelIndex = channelIndexes.get(channelId);
+        return channelIndex == null ? 0 : channelIndex.sealedBlocks().length;
+    }
+
+    /**
+     * 채널 색인의 봉인된 블록이 차지하는 추정 크기를 반환합니다.
+     *
+     * @param channelId 채널 ID
+     * @return 봉인된 블록의 추정 크기 (바이트)
+     */
+    long sealedBytes(String channelId) {
+        var channelIndex = channelIndexes.get(channelId);
+        return channelIndex == null ? 0 : Arrays.stream(channelIndex.sealedBlocks()).mapToLong(SealedBlock::bytes).sum();
+    }
+
+    /**
+     * 텍스트를 NFC로 정규화하고 소문자로 바꾼 뒤, 글자와 숫자가 아닌 문자를 기준으로 나눕니다.
+     */
+    static List<String> terms(String text) {
+        var normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        return Arrays.stream(TERM_SEPARATOR.split(normalized)).filter(term -> !term.isEmpty()).toList();
+    }
+
+    /**
+     * 각 단어 안의 연속된 두 글자를 하나의 int로 묶은 bigram 목록을 중복 없이 반환합니다.
+     */
+    static int[] bigrams(List<String> terms) {
+        int count = 0;
+        for (String term : terms) {
+            count += Math.max(0, term.length() - 1);
+        }
+        var bigrams = new int[count];
+        int i = 0;
+        for (String term : terms) {
+            for (int j = 0; j + 1 < term.length(); j++) {
+                bigrams[i++] = term.charAt(j) << 16 | term.charAt(j + 1);
+            }
+        }
+        return sortedDistinct(bigrams, i);
+    }
+
+    /**
+     * 메시지 본문의 bigram 목록을 {@code bigrams(terms(text))}와 같게 만들되, 저장할 때마다 호출되므로 정규식과 단어 리스트 없이 한 번에 훑습니다.
+     */
+    static int[] bigrams(String text) {
+        var normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        var bigrams = new int[Math.max(0, normalized.length() - 1)];
+        int count = 0;
+        int previous = -1;
+        for (int i = 0; i < normalized.length(); ) {
+            int codePoint = normalized.codePointAt(i);
+            int length = Character.charCount(codePoint);
+            if (isTermCharacter(codePoint)) {
+                for (int j = i; j < i + length; j++) {
+                    char c = normalized.charAt(j);
+                    if (previous >= 0) {
+                        bigrams[count++] = previous << 16 | c;
+                    }
+                    previous = c;
+                }
+            } else {
+                previous = -1;
+            }
+            i += length;
+        }
+        return sortedDistinct(bigrams, count);
+    }
+
+    private static boolean isTermCharacter(int codePoint) {
+        return switch (Character.getType(codePoint)) {
+            case Character.UPPERCASE_LETTER, Character.LOWERCASE_LETTER, Character.TITLECASE_LETTER,
+                 Character.MODIFIER_LETTER, Character.OTHER_LETTER,
+                 Character.DECIMAL_DIGIT_NUMBER, Character.LETTER_NUMBER, Character.OTHER_NUMBER -> true;
+            default -> false;
+        };
+    }
+
+    private static int[] sortedDistinct(int[] values, int count) {
+        Arrays.sort(values, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || values[distinct - 1] != values[i]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return distinct == values.length ? values : Arrays.copyOf(values, distinct);
+    }
+
+    /**
+     * 색인이 메시지를 읽어오는 채널 저장소입니다.
+     */
+    interface MessageSource {
+
+        /**
+         * 주어진 일련번호 이후의 메시지를 일련번호 오름차순으로 읽습니다.
+         *
+         * @param sequenceNumber 기준 일련번호
+         * @param fetchMax       읽을 최대 메시지 수
+         * @return 메시지 리스트
+         */
+        List<Message> findAfter(long sequenceNumber, int fetchMax);
+
+        /**
+         * 일련번호로 메시지를 읽습니다.
+         *
+         * @param sequenceNumber 일련번호
+         * @return 메시지, 삭제되었거나 없으면 null
+         */
+        @Nullable
+        Message findBySequenceNumber(long sequenceNumber);
+    }
+
+    /**
+     * 한 채널의 블록 목록입니다. 블록 목록과 꼬리 블록은 이 객체의 모니터로 보호하며, 기존 메시지 색인은 backfillLock으로 한 번에 하나만 수행합니다.
+     */
+    private static class ChannelIndex {
+        /**
+         * 일련번호 오름차순의 봉인된 블록입니다. 기존 메시지의 블록은 앞쪽 {@code existingBlocks}개 자리에 끼워 넣습니다.
+         */
+        private final List<SealedBlock> sealed = new ArrayList<>();
+        private final ReentrantLock backfillLock = new ReentrantLock();
+        private int existingBlocks;
+        @Nullable
+        private TailBlock tail;
+        /**
+         * 저장 시 처음 추가된 일련번호입니다. 이보다 앞선 메시지는 색인이 만들어지기 전에 저장된 기존 메시지입니다.
+         */
+        private long firstAddedSequenceNumber = Long.MAX_VALUE;
+        /**
+         * 색인한 기존 메시지의 마지막 일련번호입니다.
+         */
+        private long existingIndexedSequenceNumber;
+        private volatile boolean existingIndexed;
+
+        synchronized void add(Message message) {
+            if (firstAddedSequenceNumber == Long.MAX_VALUE) {
+                firstAddedSequenceNumber = message.sequenceNumber();
+            }
+            if (tail == null) {
+                tail = new TailBlock(message.sequenceNumber());
+            }
+            tail.add(message);
+            if (tail.size == BLOCK_SIZE) {
+                sealed.add(tail.seal());
+                tail = null;
+            }
+        }
+
+        synchronized SealedBlock[] sealedBlocks() {
+            return sealed.toArray(SealedBlock[]::new);
+        }
+
+        /**
+         * 처음 추가된 메시지보다 앞선 기존 메시지를 저장소에서 블록 단위로 읽어 색인합니다.
+         * 저장하는 메시지는 조회할 수 있게 되기 전에 {@link #add}되므로, 읽은 메시지가 처음 추가된 일련번호에 이르면 나머지는 이미 색인되어 있습니다.
+         */
+        void indexExisting(MessageSource source) {
+            if (existingIndexed) {
+                return;
+            }
+            backfillLock.lock();
+            try {
+                while (!existingIndexed) {
+                    long after;
+                    synchronized (this) {
+                        after = existingIndexedSequenceNumber;
+                        if (after + 1 >= firstAddedSequenceNumber) {
+                            existingIndexed = true;
+                            return;
+                        }
+                    }
+                    var messages = source.findAfter(after, BLOCK_SIZE);
+                    long end;
+                    synchronized (this) {
+                        end = firstAddedSequenceNumber;
+                    }
+                    int count = 0;
+                    while (count < messages.size() && messages.get(count).sequenceNumber() < end) {
+                        count++;
+                    }
+                    if (count > 0) {
+                        var block = new TailBlock(messages.getFirst().sequenceNumber());
+                        messages.subList(0, count).forEach(block::add);
+                        var sealedBlock = block.seal();
+                        synchronized (this) {
+                            sealed.add(existingBlocks++, sealedBlock);
+                            existingIndexedSequenceNumber = messages.get(count - 1).sequenceNumber();
+                        }
+                    }
+                    existingIndexed = count < BLOCK_SIZE;
+                }
+            } finally {
+                backfillLock.unlock();
+            }
+        }
+
+        /**
+         * 모든 bigram을 포함하는 메시지의 일련번호를 최신순으로 최대 maxCandidates개 찾습니다.
+         * 꼬리 블록만 채널 잠금 안에서 찾고, 봉인된 블록은 잠금 밖에서 최신 블록부터 후보가 모일 때까지 내려갑니다.
+         */
+        List<Long> candidates(int[] bigrams, int maxCandidates) {
+            var candidates = new ArrayList<Long>();
+            SealedBlock[] blocks;
+            synchronized (this) {
+                if (tail != null) {
+                    tail.collect(bigrams, maxCandidates, candidates);
+                }
+                blocks = sealed.toArray(SealedBlock[]::new);
+            }
+            for (int i = blocks.length - 1; i >= 0 && candidates.size() < maxCandidates; i--) {
+                blocks[i].collect(bigrams, maxCandidates, candidates);
+            }
+            return candidates;
+        }
+    }
+
+    /**
+     * 메시지가 추가되는 블록입니다. bigram별로 블록의 첫 일련번호와의 차이를 오름차순 int 배열에 추가합니다.
+     * 저장할 때마다 메시지의 bigram 수만큼 찾으므로, bigram을 박싱하지 않는 선형 탐사 해시 테이블에 posting list를 둡니다.
+     */
+    private static class TailBlock {
+        private final long firstSequenceNumber;
+        private int[] keys = new int[256];
+        private Postings[] postingsBySlot = new Postings[256];
+        private int bigramCount;
+        private int size;
+
+        private TailBlock(long firstSequenceNumber) {
+            this.firstSequenceNumber = firstSequenceNumber;
+        }
+
+        void add(Message message) {
+            int offset = Math.toIntExact(message.sequenceNumber() - firstSequenceNumber);
+            for (int bigram : bigrams(message.message())) {
+                int slot = slot(bigram);
+                if (postingsBySlot[slot] == null) {
+                    keys[slot] = bigram;
+                    postingsBySlot[slot] = new Postings();
+                    if (++bigramCount * 2 > keys.length) {
+                        resize();
+                        slot = slot(bigram);
+                    }
+                }
+                postingsBySlot[slot].append(offset);
+            }
+            size++;
+        }
+
+        @Nullable
+        private Postings get(int bigram) {
+            return postingsBySlot[slot(bigram)];
+        }
+
+        /**
+         * bigram이 있는 자리나, 없으면 넣을 빈 자리를 반환합니다.
+         */
+        private int slot(int bigram) {
+            int mask = keys.length - 1;
+            int hash = bigram * 0x9E3779B9;
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (postingsBySlot[slot] != null && keys[slot] != bigram) {
+                slot = slot + 1 & mask;
+            }
+            return slot;
+        }
+
+        private void resize() {
+            var oldKeys = keys;
+            var oldPostings = postingsBySlot;
+            keys = new int[oldKeys.length * 2];
+            postingsBySlot = new Postings[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldPostings[i] != null) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    postingsBySlot[slot] = oldPostings[i];
+                }
+            }
+        }
+
+        void collect(int[] bigrams, int maxCandidates, List<Long> candidates) {
+            var lists = new Postings[bigrams.length];
+            for (int i = 0; i < bigrams.length; i++) {
+                lists[i] = get(bigrams[i]);
+                if (lists[i] == null) {
+                    return;
+                }
+            }
+            intersect(lists, firstSequenceNumber, maxCandidates, candidates);
+        }
+
+        /**
+         * posting list를 bigram 순서로 정렬하여, 각 목록의 첫 차이와 이어지는 차이들을 varint로 이어 붙인 봉인된 블록을 만듭니다.
+         */
+        SealedBlock seal() {
+            var bigrams = new int[bigramCount];
+            int capacity = 0;
+            for (int i = 0, j = 0; i < keys.length; i++) {
+                if (postingsBySlot[i] != null) {
+                    bigrams[j++] = keys[i];
+                    capacity += postingsBySlot[i].size * 5;
+                }
+            }
+            Arrays.sort(bigrams);
+            var starts = new int[bigrams.length + 1];
+            var encoded = new byte[capacity];
+            int position = 0;
+            for (int i = 0; i < bigrams.length; i++) {
+                starts[i] = position;
+                var postings = get(bigrams[i]);
+                int previous = 0;
+                for (int j = 0; j < postings.size; j++) {
+                    position = writeVarint(encoded, position, postings.offsets[j] - previous);
+                    previous = postings.offsets[j];
+                }
+            }
+            starts[bigrams.length] = position;
+            return new SealedBlock(firstSequenceNumber, bigrams, starts, Arrays.copyOf(encoded, position));
+        }
+
+        private static int writeVarint(byte[] target, int position, int value) {
+            while ((value & ~0x7F) != 0) {
+                target[position++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            target[position++] = (byte) value;
+            return position;
+        }
+    }
+
+    /**
+     * 가득 찬 블록의 압축된 posting list입니다. 만든 뒤에는 바뀌지 않으므로 잠금 없이 읽습니다.
+     * bigram은 오름차순으로 정렬되어 있고, bigram i의 목록은 encoded[starts[i], starts[i + 1]) 구간에 차이의 varint로 들어 있습니다.
+     */
+    private record SealedBlock(long firstSequenceNumber, int[] bigrams, int[] starts, byte[] encoded) {
+        private static final long OVERHEAD_BYTES = 64;
+
+        long bytes() {
+            return OVERHEAD_BYTES + (long) bigrams.length * Integer.BYTES + (long) starts.length * Integer.BYTES + encoded.length;
+        }
+
+        void collect(int[] queryBigrams, int maxCandidates, List<Long> candidates) {
+            var found = new int[queryBigrams.length];
+            for (int i = 0; i < queryBigrams.length; i++) {
+                found[i] = Arrays.binarySearch(bigrams, queryBigrams[i]);
+                if (found[i] < 0) {
+                    return;
+                }
+            }
+            var lists = new Postings[queryBigrams.length];
+            for (int i = 0; i < queryBigrams.length; i++) {
+                lists[i] = decode(starts[found[i]], starts[found[i] + 1]);
+            }
+            intersect(lists, firstSequenceNumber, maxCandidates, candidates);
+        }
+
+        private Postings decode(int from, int to) {
+            var postings = new Postings(to - from);
+            int position = from;
+            int offset = 0;
+            while (position < to) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = encoded[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                offset += delta;
+                postings.append(offset);
+            }
+            return postings;
+        }
+    }
+
+    /**
+     * 모든 목록에 있는 차이를 최신순으로 찾아 candidates에 maxCandidates개가 될 때까지 일련번호로 추가합니다.
+     * 가장 짧은 목록을 뒤에서부터 훑으며, 나머지 목록에서는 이전 위치를 상한으로 이진 탐색합니다.
+     */
+    private static void intersect(Postings[] lists, long firstSequenceNumber, int maxCandidates, List<Long> candidates) {
+        Arrays.sort(lists, Comparator.comparingInt(postings -> postings.size));
+        var rarest = lists[0];
+        var upperBounds = new int[lists.length];
+        for (int k = 0; k < lists.length; k++) {
+            upperBounds[k] = lists[k].size;
+        }
+        for (int i = rarest.size - 1; i >= 0 && candidates.size() < maxCandidates; i--) {
+            int offset = rarest.offsets[i];
+            boolean matchesAll = true;
+            for (int k = 1; k < lists.length && matchesAll; k++) {
+                int found = Arrays.binarySearch(lists[k].offsets, 0, upperBounds[k], offset);
+                if (found >= 0) {
+                    upperBounds[k] = found;
+                } else {
+                    upperBounds[k] = -found - 1;
+                    matchesAll = false;
+                }
+            }
+            if (matchesAll) {
+                candidates.add(firstSequenceNumber + offset);
+            }
+        }
+    }
+
+    /**
+     * 블록 안에서 오름차순으로 추가되는 일련번호 차이 목록입니다.
+     */
+    private static class Postings {
+        private int[] offsets;
+        private int size;
+
+        Postings() {
+            this(4);
+        }
+
+        Postings(int capacity) {
+            this.offsets = new int[Math.max(1, capacity)];
+        }
+
+        void append(int offset) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = offset;
+        }
+    }
+}
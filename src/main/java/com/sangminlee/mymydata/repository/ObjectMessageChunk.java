@@ -0,0 +1,39 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.vo.Message;
+
+/**
+ * {@link Message} 객체를 그대로 배열에 보관하는 청크입니다.
+ */
+final class ObjectMessageChunk implements MessageChunk {
+
+    private final Message[] messages;
+
+    ObjectMessageChunk() {
+        this(new Message[MessageLog.CHUNK_SIZE]);
+    }
+
+    /**
+     * 이미 만들어진 메시지 배열을 감쌉니다. cold 저장소에서 읽어온 청크에 사용합니다.
+     *
+     * @param messages 메시지 배열
+     */
+    ObjectMessageChunk(Message[] messages) {
+        this.messages = messages;
+    }
+
+    @Override
+    public Message get(int offset) {
+        return messages[offset];
+    }
+
+    @Override
+    public long sequenceNumber(int offset) {
+        return messages[offset].sequenceNumber();
+    }
+
+    @Override
+    public void set(int offset, Message message) {
+        messages[offset] = message;
+    }
+}
@@ -1,5 +1,6 @@
 package com.sangminlee.mymydata.service;
 
+import com.sangminlee.mymydata.constant.ChannelSort;
 import com.sangminlee.mymydata.repository.ChannelRepository;
 import com.sangminlee.mymydata.vo.Channel;
 import org.springframework.stereotype.Service;
@@ -33,6 +34,29 @@ public class ChannelService {
         return channelRepository.findAll();
     }
 
+    /**
+     * 이름이 주어진 접두어로 시작하는 채널의 수를 조회합니다.
+     *
+     * @param namePrefix 채널 이름 접두어 (빈 문자열이면 모든 채널)
+     * @return 채널 수
+     */
+    public int countChannels(String namePrefix) {
+        return channelRepository.count(namePrefix);
+    }
+
+    /**
+     * 이름이 주어진 접두어로 시작하는 채널 중 한 페이지를 조회합니다.
+     *
+     * @param namePrefix 채널 이름 접두어 (빈 문자열이면 모든 채널)
+     * @param offset     건너뛸 채널 수
+     * @param limit      조회할 최대 채널 수
+     * @param sort       정렬 순서
+     * @return 채널 리스트
+     */
+    public List<Channel> findChannels(String namePrefix, int offset, int limit, ChannelSort sort) {
+        return channelRepository.find(namePrefix, offset, limit, sort);
+    }
+
     /**
      * 새로운 채널을 생성합니다.
      *
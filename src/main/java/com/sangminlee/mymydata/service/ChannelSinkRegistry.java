@@ -0,0 +1,110 @@
+package com.sangminlee.mymydata.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 채널별 실시간 메시지 sink를 관리합니다.
+ * sink는 채널의 첫 구독 시 만들어지고, 마지막 구독자가 떠나면 제거됩니다.
+ * 메시지는 해당 채널의 sink에만 발행되므로, 발행 비용은 그 채널의 구독자 수에만 비례합니다.
+ *
+ * @param <T> 발행할 요소의 타입
+ */
+class ChannelSinkRegistry<T> {
+
+    /**
+     * 같은 채널에 동시에 발행하는 경우 sink가 직렬화를 요구하므로, 잠시 재시도합니다.
+     */
+    private static final Sinks.EmitFailureHandler RETRY_NON_SERIALIZED = Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+    private final ConcurrentMap<String, ChannelSink<T>> sinks = new ConcurrentHashMap<>();
+    private final Function<T, String> channelIdOf;
+
+    /**
+     * ChannelSinkRegistry 생성자입니다.
+     *
+     * @param channelIdOf 요소가 속한 채널 ID를 구하는 함수
+     */
+    ChannelSinkRegistry(Function<T, String> channelIdOf) {
+        this.channelIdOf = channelIdOf;
+    }
+
+    /**
+     * 채널의 메시지 묶음 스트림을 구독합니다. 구독 시점에 sink를 얻고, 구독이 끝나면 반납합니다.
+     *
+     * @param channelId 구독할 채널의 ID
+     * @return 메시지 묶음의 Flux 스트림
+     */
+    Flux<List<T>> subscribe(String channelId) {
+        return Flux.defer(() -> {
+            var channelSink = acquire(channelId);
+            return channelSink.sink.asFlux().doFinally(signal -> release(channelId, channelSink));
+        });
+    }
+
+    /**
+     * 메시지를 채널별로 묶어 각 채널의 sink에 발행합니다. 구독자가 없는 채널의 메시지는 버립니다.
+     *
+     * @param messages 발행할 메시지 리스트
+     */
+    void publish(List<T> messages) {
+        if (messages.size() == 1) {
+            publish(channelIdOf.apply(messages.getFirst()), messages);
+            return;
+        }
+        var messagesByChannel = new LinkedHashMap<String, List<T>>();
+        for (T message : messages) {
+            messagesByChannel.computeIfAbsent(channelIdOf.apply(message), id -> new ArrayList<>()).add(message);
+        }
+        messagesByChannel.forEach(this::publish);
+    }
+
+    private void publish(String channelId, List<T> messages) {
+        var channelSink = sinks.get(channelId);
+        if (channelSink != null) {
+            channelSink.sink.emitNext(List.copyOf(messages), RETRY_NON_SERIALIZED);
+        }
+    }
+
+    /**
+     * 구독자가 있는 채널 수를 반환합니다.
+     *
+     * @return sink가 살아있는 채널 수
+     */
+    int activeChannels() {
+        return sinks.size();
+    }
+
+    private ChannelSink<T> acquire(String channelId) {
+        return sinks.compute(channelId, (id, existing) -> {
+            var channelSink = existing != null ? existing : new ChannelSink<T>();
+            channelSink.subscribers++;
+            return channelSink;
+        });
+    }
+
+    private void release(String channelId, ChannelSink<T> channelSink) {
+        sinks.computeIfPresent(channelId, (id, current) -> {
+            if (current != channelSink) {
+                return current;
+            }
+            return --current.subscribers == 0 ? null : current;
+        });
+    }
+
+    /**
+     * 채널 sink와 구독자 수입니다. 구독자 수는 ConcurrentHashMap의 compute 안에서만 변경됩니다.
+     */
+    private static class ChannelSink<T> {
+        private final Sinks.Many<List<T>> sink = Sinks.many().multicast().directBestEffort();
+        private int subscribers;
+    }
+}
@@ -1,15 +1,31 @@
 package com.sangminlee.mymydata.service;
 
 import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.llm.ChannelChatMemoryAdvisor;
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageDraft;
 import com.sangminlee.mymydata.vo.NewMessage;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MimeTypeUtils;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
 import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_CONVERSATION_ID_KEY;
 import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvisor.CHAT_MEMORY_RETRIEVE_SIZE_KEY;
@@ -19,48 +35,218 @@ import static org.springframework.ai.chat.client.advisor.AbstractChatMemoryAdvis
  * 사용자 메시지 처리와 AI 응답 생성을 담당합니다.
  */
 @Service
-@RequiredArgsConstructor
 public class ChatService {
 
     private final ChannelService channelService;
     private final MessageService messageService;
     private final ChatClient chatClient;
+    private final SemanticAnswerCache answerCache;
+    private final ChatMemory chatMemory;
     private final Clock clock;
+    private final long draftIntervalNanos;
+    private final int streamMaxAttempts;
+    private final Duration streamRetryBackoff;
+    private final Timer firstTokenLatency;
+    private final Timer answerLatency;
+
+    /**
+     * ChatService 생성자입니다.
+     *
+     * @param channelService     채널 관련 기능을 제공하는 서비스
+     * @param messageService     메시지 관련 기능을 제공하는 서비스
+     * @param chatClient         AI 채팅 클라이언트
+     * @param answerCache        의미가 같은 질문의 응답을 재사용하는 캐시
+     * @param chatMemory         캐시된 응답을 대화 기억에 남길 채팅 기억 저장소
+     * @param clock              메시지 작성 시각을 구할 시계
+     * @param meterRegistry      응답 지연 시간을 기록할 레지스트리
+     * @param draftInterval      생성 중인 응답을 구독자에게 발행하는 최소 간격
+     * @param streamMaxAttempts  첫 토큰을 받기 전에 실패한 스트리밍 응답 요청의 최대 시도 횟수
+     * @param streamRetryBackoff 스트리밍 응답 요청을 다시 시도하기 전의 첫 대기 시간
+     */
+    public ChatService(ChannelService channelService, MessageService messageService, ChatClient chatClient,
+                       SemanticAnswerCache answerCache, ChatMemory chatMemory, Clock clock, MeterRegistry meterRegistry,
+                       @Value("${app.chat.draft-interval:100ms}") Duration draftInterval,
+                       @Value("${spring.ai.retry.max-attempts:10}") int streamMaxAttempts,
+                       @Value("${spring.ai.retry.backoff.initial-interval:2000ms}") Duration streamRetryBackoff) {
+        this.channelService = channelService;
+        this.messageService = messageService;
+        this.chatClient = chatClient;
+        this.answerCache = answerCache;
+        this.chatMemory = chatMemory;
+        this.clock = clock;
+        this.draftIntervalNanos = draftInterval.toNanos();
+        this.streamMaxAttempts = streamMaxAttempts;
+        this.streamRetryBackoff = streamRetryBackoff;
+        this.firstTokenLatency = Timer.builder("mymydata.chat.first-token")
+                .description("AI 응답 요청부터 첫 토큰을 받기까지의 시간")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.answerLatency = Timer.builder("mymydata.chat.answer")
+                .description("AI 응답 요청부터 응답이 끝나기까지의 시간")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
 
     /**
      * 메시지를 처리하고 저장합니다.
      *
      * @param channelId 메시지가 속한 채널 ID
      * @param message   사용자 메시지 내용
+     * @return 저장된 메시지
      * @throws IllegalArgumentException 지정된 채널이 존재하지 않는 경우
      */
-    public void postMessage(String channelId, String message, Author author) {
+    public Message postMessage(String channelId, String message, Author author) {
         if (channelService.channelNotExists(channelId)) {
             throw new IllegalArgumentException("The specified channel does not exist");
         }
         var newMessage = new NewMessage(channelId, clock.instant(), message, author);
-        messageService.saveMessage(newMessage);
+        return messageService.saveMessage(newMessage);
     }
 
     /**
      * 사용자 메시지에 대한 AI 응답을 생성하고 저장합니다.
+     * 응답은 토큰 단위로 받아 생성 중인 메시지로 구독자에게 발행하며, 발행 간격은 {@code app.chat.draft-interval} 이상으로 제한합니다.
+     * 스트리밍 요청에는 Spring AI의 재시도가 적용되지 않으므로, 첫 토큰을 받기 전에 실패한 요청은 {@code spring.ai.retry} 설정에 따라 다시 보냅니다.
+     * 토큰을 받은 뒤의 실패는 다시 보내면 응답이 중복되므로 그대로 전달합니다.
+     * 응답이 끝나면 최종 본문을 한 번만 저장한 뒤, 생성 중인 메시지를 완료 상태로 발행합니다.
+     * 이미지가 없고 이전 대화가 없는 질문은 의미가 같은 질문의 응답이 캐시에 있으면 AI 응답을 생성하지 않고 재사용합니다.
      *
-     * @param channelId 메시지가 속한 채널 ID
-     * @param message   사용자 메시지 내용
+     * 대화 기억에는 질문보다 앞선 메시지만 사용하므로, 응답을 기다리는 동안 뒤이어 게시된 질문은 포함되지 않습니다.
+     *
+     * @param question 채널에 게시된 사용자 질문
+     * @param resource 질문에 첨부한 이미지 (없으면 null)
      * @throws IllegalArgumentException 지정된 채널이 존재하지 않는 경우
      */
-    public void answerMessage(String channelId, String message, Resource resource) throws NonTransientAiException {
+    public void answerMessage(Message question, Resource resource) throws NonTransientAiException {
+        String channelId = question.channelId();
+        String message = question.message();
+        Optional<SemanticAnswerCache.Lookup> cacheLookup = resource == null && !hasPriorContext(question)
+                ? answerCache.lookup(message)
+                : Optional.empty();
+        if (cacheLookup.isPresent() && cacheLookup.get().hit()) {
+            String cachedAnswer = cacheLookup.get().answer();
+            chatMemory.add(channelId, List.of(new UserMessage(message), new AssistantMessage(cachedAnswer)));
+            postMessage(channelId, cachedAnswer, Author.ASSISTANT);
+            return;
+        }
         ChatClient.ChatClientRequestSpec requestSpec = chatClient.prompt()
                 .user(message)
                 .advisors(a ->
                         // 채널 ID를 대화 기억의 식별자로 사용
                         a.param(CHAT_MEMORY_CONVERSATION_ID_KEY, channelId)
                                 // 대화 컨텍스트로 사용할 이전 메시지의 수 설정
-                                .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 100));
+                                .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 100)
+                                // 질문보다 앞선 메시지만 대화 기억으로 사용
+                                .param(ChannelChatMemoryAdvisor.QUESTION_SEQUENCE_NUMBER_KEY, question.sequenceNumber()));
         if (resource != null) {
             requestSpec = requestSpec.user(u -> u.text(message).media(MimeTypeUtils.IMAGE_PNG, resource));
         }
-        String botAnswer = requestSpec.call().content();
-        postMessage(channelId, botAnswer, Author.ASSISTANT);
+        var streamingAnswer = new StreamingAnswer(channelId);
+        try {
+            requestSpec.stream().content()
+                    .retryWhen(Retry.backoff(streamMaxAttempts - 1, streamRetryBackoff)
+                            .filter(error -> !streamingAnswer.tokenReceived() && !(error instanceof NonTransientAiException))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .doOnNext(streamingAnswer::append)
+                    .blockLast();
+            streamingAnswer.recordLatency();
+            postMessage(channelId, streamingAnswer.text(), Author.ASSISTANT);
+            cacheLookup.ifPresent(lookup -> answerCache.put(lookup, streamingAnswer.text()));
+        } finally {
+            streamingAnswer.complete();
+        }
+    }
+
+    /**
+     * 채널에 질문보다 앞선 메시지가 있는지 확인합니다. 이전 대화가 있으면 응답이 대화 맥락에 따라 달라지므로 캐시를 사용하지 않습니다.
+     */
+    private boolean hasPriorContext(Message question) {
+        return !messageService.getMessagesBefore(question.channelId(), question.sequenceNumber(), 1).isEmpty();
+    }
+
+    /**
+     * 토큰 단위로 생성 중인 AI 응답입니다. 토큰은 스트림 구독 스레드에서, 뒤늦은 발행은 스케줄러 스레드에서 일어나므로 this로 동기화합니다.
+     */
+    private class StreamingAnswer {
+        private final String draftId = UUID.randomUUID().toString();
+        private final String channelId;
+        private final StringBuilder text = new StringBuilder();
+        private final long requestedAt = System.nanoTime();
+        private long lastPublishedAt = requestedAt - draftIntervalNanos;
+        private int publishedLength;
+        private boolean tokenReceived;
+        private boolean completed;
+        private Disposable trailingPublish;
+
+        StreamingAnswer(String channelId) {
+            this.channelId = channelId;
+        }
+
+        synchronized boolean tokenReceived() {
+            return tokenReceived;
+        }
+
+        /**
+         * 토큰을 이어 붙이고, 마지막 발행 후 발행 간격이 지났으면 지금까지의 본문을 발행합니다.
+         * 간격이 지나지 않았으면 간격이 끝나는 시점에 발행을 예약하여, 토큰이 잠시 끊겨도 받은 본문이 구독자에게 늦지 않게 전달되도록 합니다.
+         */
+        synchronized void append(String token) {
+            long now = System.nanoTime();
+            if (!tokenReceived) {
+                tokenReceived = true;
+                firstTokenLatency.record(now - requestedAt, TimeUnit.NANOSECONDS);
+            }
+            text.append(token);
+            long sincePublished = now - lastPublishedAt;
+            if (sincePublished >= draftIntervalNanos) {
+                publishDraft(now);
+            } else if (trailingPublish == null) {
+                trailingPublish = Schedulers.parallel().schedule(this::publishPending,
+                        draftIntervalNanos - sincePublished, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        void recordLatency() {
+            answerLatency.record(System.nanoTime() - requestedAt, TimeUnit.NANOSECONDS);
+        }
+
+        synchronized String text() {
+            return text.toString();
+        }
+
+        /**
+         * 생성이 끝났음을 발행합니다. 구독자는 생성 중인 메시지를 목록에서 제거합니다.
+         */
+        synchronized void complete() {
+            cancelTrailingPublish();
+            completed = true;
+            publish(true);
+        }
+
+        private synchronized void publishPending() {
+            trailingPublish = null;
+            if (!completed && text.length() > publishedLength) {
+                publishDraft(System.nanoTime());
+            }
+        }
+
+        private void publishDraft(long now) {
+            cancelTrailingPublish();
+            lastPublishedAt = now;
+            publishedLength = text.length();
+            publish(false);
+        }
+
+        private void cancelTrailingPublish() {
+            if (trailingPublish != null) {
+                trailingPublish.dispose();
+                trailingPublish = null;
+            }
+        }
+
+        private void publish(boolean completed) {
+            messageService.publishDraft(new MessageDraft(draftId, channelId, Author.ASSISTANT.getName(), text.toString(),
+                    Author.ASSISTANT.getColor(), completed));
+        }
     }
 }
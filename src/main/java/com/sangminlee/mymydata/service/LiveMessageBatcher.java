@@ -0,0 +1,147 @@
+package com.sangminlee.mymydata.service;
+
+import io.micrometer.core.instrument.Timer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실시간 메시지 묶음을 지연 시간에 맞춰 적응적으로 모읍니다.
+ * <p>
+ * 채널이 한가하면 도착한 묶음을 즉시 전달하고, 그 뒤 {@code window} 동안은 도착하는 메시지를 모아 두었다가
+ * 창이 끝나거나 {@code maxSize}개가 모이면 한 번에 전달합니다. 창이 끝났을 때 모인 메시지가 없으면 다시 한가한 상태로 돌아가므로,
+ * 빈 묶음은 전달하지 않고 메시지가 없는 동안에는 타이머도 돌지 않습니다.
+ * <p>
+ * 메시지가 도착한 시점부터 구독자에게 전달된 시점까지의 지연 시간을 메시지마다 {@link Timer}에 기록합니다.
+ */
+class LiveMessageBatcher {
+
+    private final Duration window;
+    private final int maxSize;
+    private final Scheduler scheduler;
+    private final Timer deliveryLatency;
+
+    /**
+     * LiveMessageBatcher 생성자입니다.
+     *
+     * @param window          연속된 메시지를 모으는 최대 시간
+     * @param maxSize         한 번에 전달할 최대 메시지 수 (이만큼 모이면 창이 끝나기 전에 전달)
+     * @param scheduler       창의 끝을 예약할 스케줄러
+     * @param deliveryLatency 전달 지연 시간을 기록할 타이머
+     */
+    LiveMessageBatcher(Duration window, int maxSize, Scheduler scheduler, Timer deliveryLatency) {
+        this.window = window;
+        this.maxSize = maxSize;
+        this.scheduler = scheduler;
+        this.deliveryLatency = deliveryLatency;
+    }
+
+    /**
+     * 메시지 묶음 스트림에 적응형 묶음 전달을 적용합니다.
+     *
+     * @param source 원본 메시지 묶음 스트림
+     * @return 비어있지 않은 묶음만 전달하는 스트림
+     */
+    <T> Flux<List<T>> batch(Flux<List<T>> source) {
+        return Flux.create(sink -> {
+            var state = new BatchState<>(sink);
+            var subscription = source.subscribe(state::onNext, state::onError, state::onComplete);
+            sink.onDispose(() -> {
+                subscription.dispose();
+                state.cancelFlush();
+            });
+        });
+    }
+
+    /**
+     * 구독자 하나의 묶음 상태입니다. 원본 스트림과 예약된 flush가 서로 다른 스레드에서 호출되므로 모든 상태 변경은 this로 동기화합니다.
+     */
+    private class BatchState<T> {
+        private final FluxSink<List<T>> sink;
+        private final List<T> pending = new ArrayList<>();
+        private final List<Long> arrivalNanos = new ArrayList<>();
+        private boolean windowOpen;
+        private Disposable scheduledFlush;
+        /**
+         * 예약된 flush를 식별합니다. 취소가 늦어 이미 실행 중인 이전 flush는 세대가 달라 무시됩니다.
+         */
+        private long generation;
+
+        BatchState(FluxSink<List<T>> sink) {
+            this.sink = sink;
+        }
+
+        synchronized void onNext(List<T> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            long now = System.nanoTime();
+            pending.addAll(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                arrivalNanos.add(now);
+            }
+            if (!windowOpen || pending.size() >= maxSize) {
+                windowOpen = true;
+                flushPending();
+                scheduleFlush();
+            }
+        }
+
+        synchronized void onError(Throwable error) {
+            cancelFlush();
+            sink.error(error);
+        }
+
+        synchronized void onComplete() {
+            cancelFlush();
+            if (!pending.isEmpty()) {
+                flushPending();
+            }
+            sink.complete();
+        }
+
+        synchronized void cancelFlush() {
+            if (scheduledFlush != null) {
+                scheduledFlush.dispose();
+            }
+        }
+
+        /**
+         * 창이 끝났을 때 호출됩니다. 모인 메시지가 있으면 전달하고 창을 한 번 더 열며, 없으면 한가한 상태로 돌아갑니다.
+         */
+        private synchronized void onWindowEnd(long flushGeneration) {
+            if (flushGeneration != generation) {
+                return;
+            }
+            if (pending.isEmpty()) {
+                windowOpen = false;
+                return;
+            }
+            flushPending();
+            scheduleFlush();
+        }
+
+        private void scheduleFlush() {
+            cancelFlush();
+            long flushGeneration = ++generation;
+            scheduledFlush = scheduler.schedule(() -> onWindowEnd(flushGeneration), window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        private void flushPending() {
+            long now = System.nanoTime();
+            var batch = List.copyOf(pending);
+            for (long arrived : arrivalNanos) {
+                deliveryLatency.record(now - arrived, TimeUnit.NANOSECONDS);
+            }
+            pending.clear();
+            arrivalNanos.clear();
+            sink.next(batch);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.sangminlee.mymydata.service;
+
+import com.sangminlee.mymydata.constant.LiveOverflowPolicy;
+import com.sangminlee.mymydata.repository.MessageRepository;
+import com.sangminlee.mymydata.vo.LiveMessageBatch;
+import com.sangminlee.mymydata.vo.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 실시간 메시지 구독자마다 크기가 제한된 대기열을 둡니다.
+ * <p>
+ * 채널 sink는 구독자가 요청하지 않은 메시지를 조용히 버리므로, 각 구독자 앞에 대기열을 두고 구독자의 요청량만큼만 꺼내 전달합니다.
+ * 느린 구독자의 대기열이 {@code capacity}개의 메시지를 넘으면 {@link LiveOverflowPolicy}에 따라 처리하며,
+ * 다른 구독자의 전달에는 영향을 주지 않습니다.
+ * <p>
+ * 재동기화는 {@code resyncScheduler}에서 대기열 잠금 밖에서 저장소를 읽으므로, 발행 스레드는 저장소 조회를 기다리지 않습니다.
+ * 마지막으로 전달한 일련번호보다 크지 않은 메시지는 전달하지 않으므로, 저장소에서 다시 읽은 메시지와 대기열의 메시지가 겹쳐도 중복 전달되지 않습니다.
+ * 버려진 메시지 수, 재동기화 횟수, 전체 대기열 깊이를 지표로 기록합니다.
+ */
+class LiveMessageQueue {
+
+    private final int capacity;
+    private final LiveOverflowPolicy overflowPolicy;
+    private final MessageRepository messageRepository;
+    private final Scheduler resyncScheduler;
+    private final Counter droppedMessages;
+    private final Counter resyncs;
+    private final AtomicLong queuedMessages = new AtomicLong();
+
+    /**
+     * LiveMessageQueue 생성자입니다.
+     *
+     * @param capacity          구독자별 대기열에 보관할 최대 메시지 수
+     * @param overflowPolicy    대기열이 넘쳤을 때의 처리 방식
+     * @param messageRepository 재동기화 시 메시지를 다시 읽을 저장소
+     * @param resyncScheduler   재동기화 시 저장소를 읽을 스케줄러
+     * @param meterRegistry     지표를 등록할 레지스트리
+     */
+    LiveMessageQueue(int capacity, LiveOverflowPolicy overflowPolicy, MessageRepository messageRepository,
+                     Scheduler resyncScheduler, MeterRegistry meterRegistry) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.messageRepository = messageRepository;
+        this.resyncScheduler = resyncScheduler;
+        this.droppedMessages = Counter.builder("mymydata.live.dropped")
+                .description("구독자 대기열이 넘쳐 버려진 실시간 메시지 수")
+                .register(meterRegistry);
+        this.resyncs = Counter.builder("mymydata.live.resyncs")
+                .description("구독자 대기열이 넘쳐 저장소에서 다시 읽은 횟수")
+                .register(meterRegistry);
+        Gauge.builder("mymydata.live.queue.depth", queuedMessages, AtomicLong::get)
+                .description("모든 구독자 대기열에 쌓여 있는 실시간 메시지 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 채널의 메시지 묶음 스트림 앞에 구독자 전용 대기열을 둡니다.
+     *
+     * @param channelId 구독할 채널의 ID
+     * @param source    채널의 메시지 묶음 스트림
+     * @return 구독자의 요청량만큼 전달하는 메시지 묶음 스트림
+     */
+    Flux<LiveMessageBatch> bound(String channelId, Flux<List<Message>> source) {
+        return Flux.create(sink -> {
+            var queue = new SubscriberQueue(channelId, sink);
+            sink.onRequest(queue::request);
+            var subscription = source.subscribe(queue::offer, queue::error, queue::complete);
+            sink.onDispose(() -> {
+                subscription.dispose();
+                queue.dispose();
+            });
+        });
+    }
+
+    /**
+     * 구독자 하나의 대기열입니다. 발행 스레드, 구독자의 요청 스레드, 재동기화 스레드가 다르므로 모든 상태 변경은 this로 동기화합니다.
+     */
+    private class SubscriberQueue {
+        private final String channelId;
+        private final FluxSink<LiveMessageBatch> sink;
+        private final ArrayDeque<List<Message>> batches = new ArrayDeque<>();
+        private int depth;
+        private long demand;
+        /**
+         * 마지막으로 전달한 메시지의 일련번호입니다. 아직 전달한 메시지가 없으면 처음 받은 메시지의 바로 앞 번호입니다.
+         */
+        private long lastDeliveredSequenceNumber = -1;
+        private boolean resyncPending;
+        private boolean resyncInFlight;
+        private boolean gap;
+        private boolean completed;
+        private boolean disposed;
+
+        SubscriberQueue(String channelId, FluxSink<LiveMessageBatch> sink) {
+            this.channelId = channelId;
+            this.sink = sink;
+        }
+
+        synchronized void request(long n) {
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            drain();
+        }
+
+        synchronized void offer(List<Message> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (lastDeliveredSequenceNumber < 0) {
+                lastDeliveredSequenceNumber = batch.getFirst().sequenceNumber() - 1;
+            }
+            batches.add(batch);
+            changeDepth(batch.size());
+            if (depth > capacity) {
+                overflow();
+            }
+            drain();
+        }
+
+        synchronized void error(Throwable error) {
+            clear();
+            sink.error(error);
+        }
+
+        synchronized void complete() {
+            completed = true;
+            drain();
+        }
+
+        synchronized void clear() {
+            batches.clear();
+            changeDepth(-depth);
+        }
+
+        synchronized void dispose() {
+            disposed = true;
+            clear();
+        }
+
+        private void overflow() {
+            if (overflowPolicy == LiveOverflowPolicy.RESYNC) {
+                droppedMessages.increment(depth);
+                clear();
+                if (!resyncPending) {
+                    resyncPending = true;
+                    resyncs.increment();
+                }
+                return;
+            }
+            while (depth > capacity) {
+                var dropped = batches.poll();
+                changeDepth(-dropped.size());
+                droppedMessages.increment(dropped.size());
+            }
+            gap = true;
+        }
+
+        private void drain() {
+            while (demand > 0 && !resyncInFlight) {
+                if (resyncPending) {
+                    resyncInFlight = true;
+                    long after = lastDeliveredSequenceNumber;
+                    resyncScheduler.schedule(() -> resync(after));
+                    return;
+                }
+                if (batches.isEmpty()) {
+                    break;
+                }
+                var next = batches.poll();
+                changeDepth(-next.size());
+                deliver(next);
+            }
+            if (completed && batches.isEmpty() && !resyncPending) {
+                sink.complete();
+            }
+        }
+
+        /**
+         * 잠금 없이 저장소를 한 페이지 읽은 뒤 전달합니다. 한 페이지가 가득 차면 다음 요청 때 이어서 읽습니다.
+         */
+        private void resync(long after) {
+            List<Message> page;
+            try {
+                page = messageRepository.findAfter(channelId, after, capacity);
+            } catch (RuntimeException e) {
+                error(e);
+                return;
+            }
+            synchronized (this) {
+                resyncInFlight = false;
+                if (disposed) {
+                    return;
+                }
+                resyncPending = page.size() == capacity;
+                deliver(page);
+                drain();
+            }
+        }
+
+        private void deliver(List<Message> messages) {
+            var undelivered = messages.stream().filter(m -> m.sequenceNumber() > lastDeliveredSequenceNumber).toList();
+            if (!undelivered.isEmpty()) {
+                emit(undelivered);
+            }
+        }
+
+        private void emit(List<Message> messages) {
+            lastDeliveredSequenceNumber = messages.getLast().sequenceNumber();
+            while (!batches.isEmpty() && batches.peek().getLast().sequenceNumber() <= lastDeliveredSequenceNumber) {
+                changeDepth(-batches.poll().size());
+            }
+            if (demand != Long.MAX_VALUE) {
+                demand--;
+            }
+            var batch = new LiveMessageBatch(messages, gap);
+            gap = false;
+            sink.next(batch);
+        }
+
+        private void changeDepth(int delta) {
+            depth += delta;
+            queuedMessages.addAndGet(delta);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.sangminlee.mymydata.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * LLM 호출처럼 오래 걸리는 블로킹 작업을 전용 가상 스레드에서 실행합니다.
+ * <p>
+ * 작업마다 가상 스레드를 하나씩 쓰므로 공용 ForkJoinPool을 점유하지 않으며, 동시에 실행되는 작업 수는 세마포어로 제한합니다.
+ * 같은 채널의 작업은 제출된 순서대로 하나씩 실행되어 한 채널에서 응답이 겹치지 않습니다.
+ * 실행 중이거나 대기 중인 작업이 {@code max-concurrency + max-queued}개를 넘으면 새 작업은 기다리지 않고 즉시 거절합니다.
+ * <p>
+ * 대기 중인 작업 수, 실행 중인 작업 수, 대기 시간, 거절 횟수를 지표로 기록합니다.
+ */
+@Component
+public class LlmExecutor {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentMap<String, CompletableFuture<?>> channelTails = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Timer waitTime;
+    private final Counter rejected;
+
+    /**
+     * LlmExecutor 생성자입니다.
+     *
+     * @param maxConcurrency 동시에 실행할 최대 작업 수
+     * @param maxQueued      실행을 기다릴 수 있는 최대 작업 수
+     * @param meterRegistry  지표를 등록할 레지스트리
+     */
+    public LlmExecutor(@Value("${app.llm-executor.max-concurrency:8}") int maxConcurrency,
+                       @Value("${app.llm-executor.max-queued:32}") int maxQueued,
+                       MeterRegistry meterRegistry) {
+        if (maxConcurrency < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("max-concurrency must be at least 1 and max-queued must not be negative");
+        }
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxPending = maxConcurrency + maxQueued;
+        Gauge.builder("mymydata.llm.queued", queued, AtomicInteger::get)
+                .description("실행을 기다리는 LLM 작업 수")
+                .register(meterRegistry);
+        Gauge.builder("mymydata.llm.active", active, AtomicInteger::get)
+                .description("실행 중인 LLM 작업 수")
+                .register(meterRegistry);
+        this.waitTime = Timer.builder("mymydata.llm.wait")
+                .description("LLM 작업이 제출된 뒤 실행되기까지 기다린 시간")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("mymydata.llm.rejected")
+                .description("대기열이 가득 차 거절된 LLM 작업 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 채널의 작업을 제출합니다. 같은 채널의 이전 작업이 끝난 뒤, 실행 슬롯이 나면 실행됩니다.
+     *
+     * @param channelId 작업이 속한 채널 ID
+     * @param task      실행할 작업
+     * @return 작업의 결과. 대기열이 가득 찬 경우 {@link RejectedExecutionException}으로 실패한 future
+     */
+    public CompletableFuture<Void> submit(String channelId, Runnable task) {
+        return submit(channelId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 채널의 작업을 제출합니다. 같은 채널의 이전 작업이 끝난 뒤, 실행 슬롯이 나면 실행됩니다.
+     *
+     * @param channelId 작업이 속한 채널 ID
+     * @param task      실행할 작업
+     * @return 작업의 결과. 대기열이 가득 찬 경우 {@link RejectedExecutionException}으로 실패한 future
+     */
+    public <T> CompletableFuture<T> submit(String channelId, Supplier<T> task) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.increment();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("AI 응답을 기다리는 요청이 너무 많습니다. 잠시 후 다시 시도해 주세요."));
+        }
+        queued.incrementAndGet();
+        long submittedAt = System.nanoTime();
+        var result = new CompletableFuture<T>();
+        var previous = channelTails.put(channelId, result);
+        result.whenComplete((value, error) -> channelTails.remove(channelId, result));
+        executor.execute(() -> run(previous, task, result, submittedAt));
+        return result;
+    }
+
+    private <T> void run(CompletableFuture<?> previous, Supplier<T> task, CompletableFuture<T> result, long submittedAt) {
+        boolean acquired = false;
+        try {
+            if (previous != null) {
+                previous.handle((value, error) -> null).join();
+            }
+            permits.acquire();
+            acquired = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        } finally {
+            queued.decrementAndGet();
+        }
+        if (!acquired) {
+            pending.decrementAndGet();
+            return;
+        }
+        waitTime.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        active.incrementAndGet();
+        T value = null;
+        Throwable failure = null;
+        try {
+            value = task.get();
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+            pending.decrementAndGet();
+        }
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        } else {
+            result.complete(value);
+        }
+    }
+
+    /**
+     * 실행 중인 작업을 중단하고 가상 스레드 실행기를 닫습니다.
+     */
+    @PreDestroy
+    void close() {
+        executor.shutdownNow();
+    }
+}
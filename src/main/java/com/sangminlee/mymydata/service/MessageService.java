@@ -1,12 +1,23 @@
 package com.sangminlee.mymydata.service;
 
+import com.sangminlee.mymydata.bus.MessageBus;
+import com.sangminlee.mymydata.constant.LiveOverflowPolicy;
 import com.sangminlee.mymydata.repository.MessageRepository;
+import com.sangminlee.mymydata.vo.LiveMessageBatch;
 import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageDraft;
+import com.sangminlee.mymydata.vo.MessageDeletedEvent;
+import com.sangminlee.mymydata.vo.MessageSearchHit;
+import com.sangminlee.mymydata.vo.MessagesSavedEvent;
 import com.sangminlee.mymydata.vo.NewMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 import java.util.List;
@@ -19,16 +30,42 @@ import java.util.List;
 public class MessageService {
 
     private final MessageRepository messageRepository;
-    private final Sinks.Many<Message> sink;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MessageBus messageBus;
+    private final ChannelSinkRegistry<Message> channelSinks = new ChannelSinkRegistry<>(Message::channelId);
+    private final ChannelSinkRegistry<MessageDraft> draftSinks = new ChannelSinkRegistry<>(MessageDraft::channelId);
+    private final LiveMessageBatcher liveMessageBatcher;
+    private final LiveMessageQueue liveMessageQueue;
 
     /**
      * MessageService 생성자입니다.
      *
      * @param messageRepository 메시지 저장소 인스턴스
+     * @param eventPublisher    메시지 저장/삭제 이벤트를 발행할 퍼블리셔
+     * @param messageBus        저장된 메시지를 모든 노드의 실시간 스트림으로 전달할 메시지 버스
+     * @param meterRegistry     실시간 메시지 전달 지연 시간과 대기열 지표를 기록할 레지스트리
+     * @param batchWindow       연속된 실시간 메시지를 모아서 전달하는 최대 시간
+     * @param batchMaxSize      한 번에 전달할 최대 실시간 메시지 수
+     * @param subscriberBuffer  구독자별 대기열에 보관할 최대 실시간 메시지 수
+     * @param overflowPolicy    구독자 대기열이 넘쳤을 때의 처리 방식
      */
-    public MessageService(MessageRepository messageRepository) {
+    public MessageService(MessageRepository messageRepository, ApplicationEventPublisher eventPublisher,
+                          MessageBus messageBus, MeterRegistry meterRegistry,
+                          @Value("${app.live-messages.batch-window:200ms}") Duration batchWindow,
+                          @Value("${app.live-messages.batch-max-size:100}") int batchMaxSize,
+                          @Value("${app.live-messages.subscriber-buffer:1000}") int subscriberBuffer,
+                          @Value("${app.live-messages.overflow:resync}") LiveOverflowPolicy overflowPolicy) {
         this.messageRepository = messageRepository;
-        this.sink = Sinks.many().multicast().directBestEffort();
+        this.eventPublisher = eventPublisher;
+        this.messageBus = messageBus;
+        messageBus.subscribe(channelSinks::publish);
+        var deliveryLatency = Timer.builder("mymydata.live.delivery.latency")
+                .description("실시간 메시지가 발행된 뒤 구독자에게 전달되기까지의 시간")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.liveMessageBatcher = new LiveMessageBatcher(batchWindow, batchMaxSize, Schedulers.parallel(), deliveryLatency);
+        this.liveMessageQueue = new LiveMessageQueue(subscriberBuffer, overflowPolicy, messageRepository,
+                Schedulers.boundedElastic(), meterRegistry);
     }
 
     /**
@@ -44,33 +81,105 @@ public class MessageService {
     }
 
     /**
-     * 새로운 메시지를 저장하고 실시간 스트림에 발행합니다.
+     * 특정 채널에서 지정한 일련번호 이전의 메시지를 조회합니다. 이미 받은 기록보다 앞쪽으로 스크롤할 때 사용합니다.
+     *
+     * @param channelId      조회할 채널의 ID
+     * @param sequenceNumber 이미 받은 가장 오래된 메시지의 일련번호
+     * @param fetchMax       조회할 최대 메시지 수
+     * @return 일련번호 오름차순으로 정렬된 메시지 리스트
+     */
+    public List<Message> getMessagesBefore(String channelId, long sequenceNumber, int fetchMax) {
+        return messageRepository.findBefore(channelId, sequenceNumber, fetchMax);
+    }
+
+    /**
+     * 특정 채널의 메시지를 검색합니다.
+     *
+     * @param channelId 검색할 채널의 ID
+     * @param query     검색어
+     * @param limit     반환할 최대 결과 수
+     * @return 점수 내림차순으로 정렬된 검색 결과 (검색어가 비어있으면 빈 리스트)
+     */
+    public List<MessageSearchHit> search(String channelId, String query, int limit) {
+        if (query.isBlank()) {
+            return List.of();
+        }
+        return messageRepository.search(channelId, query, limit);
+    }
+
+    /**
+     * 새로운 메시지를 저장하고 실시간 스트림과 저장 이벤트로 발행합니다.
      *
      * @param newMessage 저장할 새 메시지 객체
+     * @return 저장된 메시지
      */
-    public void saveMessage(NewMessage newMessage) {
+    public Message saveMessage(NewMessage newMessage) {
         Message savedMessage = messageRepository.save(newMessage);
-        sink.tryEmitNext(savedMessage);
+        eventPublisher.publishEvent(new MessagesSavedEvent(List.of(savedMessage)));
+        messageBus.publish(List.of(savedMessage));
+        return savedMessage;
+    }
+
+    /**
+     * 여러 메시지를 한 번에 저장하고, 저장된 묶음을 실시간 스트림에 한 번에 발행합니다.
+     *
+     * @param newMessages 저장할 새 메시지 리스트
+     * @return 저장된 메시지 리스트
+     */
+    public List<Message> saveMessages(List<NewMessage> newMessages) {
+        if (newMessages.isEmpty()) {
+            return List.of();
+        }
+        List<Message> savedMessages = messageRepository.saveAll(newMessages);
+        eventPublisher.publishEvent(new MessagesSavedEvent(savedMessages));
+        messageBus.publish(savedMessages);
+        return savedMessages;
     }
 
     /**
      * 특정 채널의 실시간 메시지 스트림을 제공합니다.
+     * 채널이 한가하면 메시지를 즉시 전달하고, 메시지가 몰릴 때만 묶어서 전달하며, 빈 리스트는 전달하지 않습니다.
+     * 구독자가 요청한 만큼만 전달하며, 요청하지 않은 메시지는 구독자별 대기열에 쌓입니다.
+     *
+     * @param channelId 구독할 채널의 ID
+     * @return 메시지 묶음의 Flux 스트림
+     */
+    public Flux<LiveMessageBatch> getLiveMessages(String channelId) {
+        return liveMessageQueue.bound(channelId, liveMessageBatcher.batch(channelSinks.subscribe(channelId)));
+    }
+
+    /**
+     * 생성 중인 메시지를 이 노드에서 채널을 구독 중인 사용자에게 발행합니다. 저장하지 않습니다.
+     *
+     * @param draft 생성 중인 메시지
+     */
+    public void publishDraft(MessageDraft draft) {
+        draftSinks.publish(List.of(draft));
+    }
+
+    /**
+     * 특정 채널에서 생성 중인 메시지의 실시간 스트림을 제공합니다. 같은 ID의 메시지는 나중에 발행된 것이 이전 것을 대체합니다.
      *
      * @param channelId 구독할 채널의 ID
-     * @return 메시지 리스트의 Flux 스트림
+     * @return 생성 중인 메시지의 Flux 스트림
      */
-    public Flux<List<Message>> getLiveMessages(String channelId) {
-        return sink.asFlux()
-                .filter(m -> m.channelId().equals(channelId))
-                .buffer(Duration.ofMillis(500));
+    public Flux<MessageDraft> getLiveDrafts(String channelId) {
+        return draftSinks.subscribe(channelId).flatMapIterable(drafts -> drafts);
     }
 
     /**
-     * 특정 채널의 마지막 사용자 메시지를 삭제하고 삭제 알림을 스트림에 발행합니다.
+     * 특정 채널의 마지막 메시지가 주어진 메시지일 때만 삭제하고 삭제 이벤트를 발행합니다.
+     * 그 뒤에 다른 메시지가 저장되었으면 다른 메시지를 지우지 않도록 아무것도 삭제하지 않습니다.
      *
      * @param channelId 메시지를 삭제할 채널의 ID
+     * @param messageId 삭제할 메시지의 ID
+     * @return 삭제했으면 true
      */
-    public void deleteLastUserMessage(String channelId) {
-        messageRepository.deleteLastUserMessage(channelId);
+    public boolean deleteLastMessage(String channelId, String messageId) {
+        if (!messageRepository.deleteLastMessage(channelId, messageId)) {
+            return false;
+        }
+        eventPublisher.publishEvent(new MessageDeletedEvent(channelId));
+        return true;
     }
 }
\ No newline at end of file
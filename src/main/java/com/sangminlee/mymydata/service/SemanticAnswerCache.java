@@ -0,0 +1,113 @@
+package com.sangminlee.mymydata.service;
+
+import com.sangminlee.mymydata.vectorstore.Vectors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 의미가 같은 질문에 대해 이전에 생성한 AI 응답을 재사용하는 캐시입니다.
+ * <p>
+ * 질문을 설정된 EmbeddingModel로 임베딩하고, 코사인 유사도가 {@code app.answer-cache.similarity-threshold} 이상인
+ * 가장 유사한 질문의 응답을 반환합니다. 적중/실패 횟수는 {@code mymydata.chat.cache} 지표로 기록합니다.
+ */
+@Slf4j
+@Component
+public class SemanticAnswerCache {
+
+    private final EmbeddingModel embeddingModel;
+    private final SemanticCacheIndex index;
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * SemanticAnswerCache 생성자입니다.
+     *
+     * @param embeddingModel      질문을 임베딩할 모델
+     * @param clock               항목 유효 시간 계산에 사용할 시계
+     * @param meterRegistry       적중률과 항목 수를 기록할 레지스트리
+     * @param enabled             캐시 사용 여부
+     * @param similarityThreshold 저장된 응답을 재사용할 최소 코사인 유사도
+     * @param maxEntries          보관할 최대 응답 수
+     * @param ttl                 저장된 응답의 유효 시간
+     */
+    public SemanticAnswerCache(EmbeddingModel embeddingModel, Clock clock, MeterRegistry meterRegistry,
+                               @Value("${app.answer-cache.enabled:true}") boolean enabled,
+                               @Value("${app.answer-cache.similarity-threshold:0.95}") double similarityThreshold,
+                               @Value("${app.answer-cache.max-entries:1000}") int maxEntries,
+                               @Value("${app.answer-cache.ttl:24h}") Duration ttl) {
+        this.embeddingModel = embeddingModel;
+        this.index = new SemanticCacheIndex(maxEntries, ttl, clock);
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.hits = Counter.builder("mymydata.chat.cache")
+                .description("의미 기반 응답 캐시 조회 횟수")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("mymydata.chat.cache")
+                .description("의미 기반 응답 캐시 조회 횟수")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("mymydata.chat.cache.size", index, SemanticCacheIndex::size)
+                .description("의미 기반 응답 캐시에 보관 중인 응답 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 질문과 의미가 같은 질문의 저장된 응답을 찾습니다. 임베딩에 실패하면 캐시를 사용하지 않습니다.
+     *
+     * @param question 사용자 질문
+     * @return 조회 결과 (캐시를 사용하지 않으면 빈 Optional)
+     */
+    public Optional<Lookup> lookup(String question) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        float[] embedding;
+        try {
+            embedding = Vectors.toFloatArray(embeddingModel.embed(question));
+        } catch (RuntimeException e) {
+            log.warn("Failed to embed question for answer cache", e);
+            return Optional.empty();
+        }
+        var answer = index.find(embedding, similarityThreshold);
+        (answer.isPresent() ? hits : misses).increment();
+        return Optional.of(new Lookup(embedding, answer.orElse(null)));
+    }
+
+    /**
+     * 조회에 실패한 질문에 대해 새로 생성한 응답을 저장합니다.
+     *
+     * @param lookup {@link #lookup}의 결과
+     * @param answer 저장할 응답
+     */
+    public void put(Lookup lookup, String answer) {
+        if (!answer.isBlank()) {
+            index.put(lookup.embedding(), answer);
+        }
+    }
+
+    /**
+     * 캐시 조회 결과입니다.
+     *
+     * @param embedding 질문 임베딩
+     * @param answer    저장된 응답 (없으면 null)
+     */
+    public record Lookup(float[] embedding, @Nullable String answer) {
+
+        public boolean hit() {
+            return answer != null;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.sangminlee.mymydata.service;
+
+import com.sangminlee.mymydata.vectorstore.Vectors;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 질문 임베딩으로 저장된 응답을 찾는 작은 인메모리 인덱스입니다.
+ * <p>
+ * 벡터는 정규화하여 보관하므로 내적이 곧 코사인 유사도입니다. 항목 수가 적으므로(기본 1,000개)
+ * 근사 색인 없이 모든 항목과 비교하여 정확한 최근접 항목을 찾습니다.
+ * 가장 오래 조회되지 않은 항목부터 최대 개수를 넘지 않도록 제거하며, 유효 시간이 지난 항목은 조회 중에 제거합니다.
+ */
+class SemanticCacheIndex {
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Clock clock;
+    private final LinkedHashMap<Long, Entry> entries;
+    private long nextId;
+
+    /**
+     * SemanticCacheIndex 생성자입니다.
+     *
+     * @param maxEntries 보관할 최대 항목 수
+     * @param ttl        항목의 유효 시간
+     * @param clock      유효 시간 계산에 사용할 시계
+     */
+    SemanticCacheIndex(int maxEntries, Duration ttl, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > SemanticCacheIndex.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 주어진 임베딩과 가장 유사한 항목의 응답을 찾습니다.
+     *
+     * @param embedding 질문 임베딩
+     * @param threshold 응답을 반환할 최소 코사인 유사도
+     * @return 유사도가 기준 이상인 가장 유사한 항목의 응답 (없으면 빈 Optional)
+     */
+    synchronized Optional<String> find(float[] embedding, double threshold) {
+        float[] query = Vectors.normalize(embedding);
+        Instant now = clock.instant();
+        Long bestId = null;
+        double bestSimilarity = threshold;
+        var iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (!entry.getValue().expiresAt().isAfter(now)) {
+                iterator.remove();
+                continue;
+            }
+            float[] vector = entry.getValue().vector();
+            if (vector.length != query.length) {
+                continue;
+            }
+            double similarity = Vectors.dot(query, vector);
+            if (similarity >= bestSimilarity) {
+                bestSimilarity = similarity;
+                bestId = entry.getKey();
+            }
+        }
+        // 조회 순서를 갱신하기 위해 get으로 다시 접근합니다.
+        return bestId == null ? Optional.empty() : Optional.of(entries.get(bestId).answer());
+    }
+
+    /**
+     * 질문 임베딩과 응답을 저장합니다.
+     *
+     * @param embedding 질문 임베딩
+     * @param answer    저장할 응답
+     */
+    synchronized void put(float[] embedding, String answer) {
+        if (maxEntries < 1) {
+            return;
+        }
+        entries.put(nextId++, new Entry(Vectors.normalize(embedding), answer, clock.instant().plus(ttl)));
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry(float[] vector, String answer, Instant expiresAt) {
+    }
+}
@@ -15,8 +15,9 @@ import java.util.stream.Stream;
  */
 public class LimitedSortedAppendOnlyList<T> {
 
-    private final int limit;
+    private final int initialLimit;
     private final TreeSet<T> items;
+    private int limit;
 
     /**
      * LimitedSortedAppendOnlyList의 생성자입니다.
@@ -25,6 +26,7 @@ public class LimitedSortedAppendOnlyList<T> {
      * @param comparator 요소를 정렬하는데 사용할 Comparator
      */
     public LimitedSortedAppendOnlyList(int limit, Comparator<T> comparator) {
+        this.initialLimit = limit;
         this.limit = limit;
         this.items = new TreeSet<>(comparator);
     }
@@ -51,6 +53,16 @@ public class LimitedSortedAppendOnlyList<T> {
         items.forEach(this::add);
     }
 
+    /**
+     * 이미 보관 중인 요소보다 앞선 요소들을 추가합니다. 추가한 수만큼 최대 크기를 늘려 기존 요소가 제거되지 않도록 합니다.
+     *
+     * @param olderItems 추가할 이전 요소들의 컬렉션
+     */
+    public void addOlder(Collection<T> olderItems) {
+        limit += olderItems.size();
+        addAll(olderItems);
+    }
+
     /**
      * 리스트의 요소들을 스트림으로 반환합니다.
      *
@@ -60,6 +72,18 @@ public class LimitedSortedAppendOnlyList<T> {
         return items.stream();
     }
 
+    /**
+     * 리스트의 첫 요소(가장 낮은 우선순위의 요소)를 반환합니다.
+     *
+     * @return 첫 요소를 포함한 Optional, 리스트가 비어있으면 빈 Optional
+     */
+    public Optional<T> getFirst() {
+        if (items.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(items.getFirst());
+    }
+
     /**
      * 리스트의 마지막 요소(가장 높은 우선순위의 요소)를 반환합니다.
      *
@@ -73,10 +97,11 @@ public class LimitedSortedAppendOnlyList<T> {
     }
 
     /**
-     * 리스트를 초기화합니다.
+     * 리스트를 초기화합니다. {@link #addOlder}로 늘어난 최대 크기도 처음 크기로 되돌립니다.
      */
     public void clear() {
         items.clear();
+        limit = initialLimit;
     }
 
     /**
@@ -0,0 +1,408 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 코사인 유사도 기반의 HNSW(Hierarchical Navigable Small World) 근사 최근접 이웃 색인입니다.
+ * <p>
+ * 벡터는 정규화하여 보관하므로 내적이 곧 코사인 유사도입니다. 노드는 지수 분포로 뽑은 층까지 연결되며,
+ * 검색은 최상위 층의 진입점에서 탐욕적으로 내려온 뒤 0층에서 {@code ef}개의 후보를 유지하며 탐색합니다.
+ * 이웃은 Malkov &amp; Yashunin의 휴리스틱으로 고르고, 휴리스틱이 버린 후보로 남은 자리를 채웁니다.
+ * <p>
+ * 추가는 쓰기 잠금, 검색은 읽기 잠금으로 보호합니다. 삭제는 노드를 표시만 하며, 표시된 노드는 탐색 경로로는 쓰이지만 결과에서는 제외됩니다.
+ */
+class HnswIndex {
+
+    private static final int MAGIC = 0x484E5357;
+
+    private final int dimensions;
+    private final int m;
+    private final int maxConnections0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<float[]> vectors = new ArrayList<>();
+    /**
+     * 노드별, 층별 이웃 목록입니다. {@code links.get(node)[level]}의 첫 원소는 이웃 수이고 나머지가 이웃 노드입니다.
+     */
+    private final List<int[][]> links = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    /**
+     * HnswIndex 생성자입니다.
+     *
+     * @param dimensions     벡터 차원
+     * @param m              노드별 층당 최대 이웃 수 (0층은 2배)
+     * @param efConstruction 추가할 때 이웃 후보로 탐색할 노드 수
+     * @param seed           층을 뽑을 난수 시드
+     */
+    HnswIndex(int dimensions, int m, int efConstruction, long seed) {
+        if (m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("m must be at least 2 and efConstruction at least 1");
+        }
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxConnections0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return vectors.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 벡터를 추가합니다.
+     *
+     * @param vector 추가할 벡터
+     * @return 추가된 노드 번호
+     */
+    int add(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+        float[] normalized = Vectors.normalize(vector);
+        lock.writeLock().lock();
+        try {
+            int node = vectors.size();
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            vectors.add(normalized);
+            var nodeLinks = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                nodeLinks[l] = new int[maxConnections(l) + 1];
+            }
+            links.add(nodeLinks);
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return node;
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                var candidates = searchLayer(normalized, List.of(current), efConstruction, l);
+                var neighbors = selectNeighbors(normalized, candidates, m);
+                for (var neighbor : neighbors) {
+                    connect(node, neighbor.node(), l);
+                    connect(neighbor.node(), node, l);
+                }
+                current = candidates.getFirst().node();
+            }
+            if (level > maxLevel) {
+                entryPoint = node;
+                maxLevel = level;
+            }
+            return node;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 노드를 삭제된 것으로 표시합니다.
+     *
+     * @param node 삭제할 노드 번호
+     */
+    void delete(int node) {
+        lock.writeLock().lock();
+        try {
+            deleted.set(node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean isDeleted(int node) {
+        lock.readLock().lock();
+        try {
+            return deleted.get(node);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 질의 벡터와 가장 유사한 노드를 찾습니다.
+     *
+     * @param query 질의 벡터
+     * @param k     반환할 최대 노드 수
+     * @param ef    0층에서 유지할 후보 수 ({@code k}보다 작으면 {@code k}를 사용)
+     * @return 유사도 내림차순으로 정렬된 노드 리스트
+     */
+    List<Neighbor> search(float[] query, int k, int ef) {
+        if (query.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + query.length);
+        }
+        float[] normalized = Vectors.normalize(query);
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+            var result = new ArrayList<Neighbor>(k);
+            for (var candidate : searchLayer(normalized, List.of(current), Math.max(ef, k), 0)) {
+                if (!deleted.get(candidate.node())) {
+                    result.add(candidate);
+                    if (result.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 모든 노드와 비교하여 정확한 최근접 노드를 찾습니다. 근사 검색의 재현율을 확인하는 데 사용합니다.
+     *
+     * @param query 질의 벡터
+     * @param k     반환할 최대 노드 수
+     * @return 유사도 내림차순으로 정렬된 노드 리스트
+     */
+    List<Neighbor> exactSearch(float[] query, int k) {
+        float[] normalized = Vectors.normalize(query);
+        lock.readLock().lock();
+        try {
+            var top = new TopK(k);
+            for (int node = 0; node < vectors.size(); node++) {
+                if (!deleted.get(node)) {
+                    top.offer(node, Vectors.dot(normalized, vectors.get(node)));
+                }
+            }
+            return top.toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 색인을 스트림에 기록합니다.
+     *
+     * @param out 기록할 스트림
+     * @throws IOException 기록 실패 시
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(dimensions);
+            out.writeInt(m);
+            out.writeInt(efConstruction);
+            out.writeInt(vectors.size());
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            for (int node = 0; node < vectors.size(); node++) {
+                out.writeBoolean(deleted.get(node));
+                for (float value : vectors.get(node)) {
+                    out.writeFloat(value);
+                }
+                int[][] nodeLinks = links.get(node);
+                out.writeInt(nodeLinks.length);
+                for (int[] levelLinks : nodeLinks) {
+                    out.writeInt(levelLinks[0]);
+                    for (int i = 1; i <= levelLinks[0]; i++) {
+                        out.writeInt(levelLinks[i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 스트림에서 색인을 읽습니다. 그래프를 다시 만들지 않고 기록된 이웃을 그대로 사용합니다.
+     *
+     * @param in   읽을 스트림
+     * @param seed 이후 추가할 노드의 층을 뽑을 난수 시드
+     * @return 읽은 색인
+     * @throws IOException 읽기 실패 또는 형식이 맞지 않는 경우
+     */
+    static HnswIndex readFrom(DataInputStream in, long seed) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an HNSW index file");
+        }
+        var index = new HnswIndex(in.readInt(), in.readInt(), in.readInt(), seed);
+        int size = in.readInt();
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        for (int node = 0; node < size; node++) {
+            if (in.readBoolean()) {
+                index.deleted.set(node);
+            }
+            float[] vector = new float[index.dimensions];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = in.readFloat();
+            }
+            index.vectors.add(vector);
+            var nodeLinks = new int[in.readInt()][];
+            for (int l = 0; l < nodeLinks.length; l++) {
+                nodeLinks[l] = new int[index.maxConnections(l) + 1];
+                nodeLinks[l][0] = in.readInt();
+                for (int i = 1; i <= nodeLinks[l][0]; i++) {
+                    nodeLinks[l][i] = in.readInt();
+                }
+            }
+            index.links.add(nodeLinks);
+        }
+        return index;
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? maxConnections0 : m;
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        double currentSimilarity = Vectors.dot(query, vectors.get(current));
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] levelLinks = links.get(current)[level];
+            for (int i = 1; i <= levelLinks[0]; i++) {
+                double similarity = Vectors.dot(query, vectors.get(levelLinks[i]));
+                if (similarity > currentSimilarity) {
+                    currentSimilarity = similarity;
+                    current = levelLinks[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 한 층에서 진입점부터 탐색하여 가장 유사한 노드를 최대 {@code ef}개 찾습니다.
+     *
+     * @return 유사도 내림차순으로 정렬된 노드 리스트
+     */
+    private List<Neighbor> searchLayer(float[] query, List<Integer> entryPoints, int ef, int level) {
+        var visited = new BitSet(vectors.size());
+        var candidates = new PriorityQueue<Neighbor>(Comparator.comparingDouble(Neighbor::similarity).reversed());
+        var found = new PriorityQueue<Neighbor>(Comparator.comparingDouble(Neighbor::similarity));
+        for (int entry : entryPoints) {
+            var neighbor = new Neighbor(entry, Vectors.dot(query, vectors.get(entry)));
+            visited.set(entry);
+            candidates.add(neighbor);
+            found.add(neighbor);
+        }
+        while (!candidates.isEmpty()) {
+            var closest = candidates.poll();
+            if (found.size() >= ef && closest.similarity() < found.peek().similarity()) {
+                break;
+            }
+            int[] levelLinks = links.get(closest.node())[level];
+            for (int i = 1; i <= levelLinks[0]; i++) {
+                int node = levelLinks[i];
+                if (visited.get(node)) {
+                    continue;
+                }
+                visited.set(node);
+                double similarity = Vectors.dot(query, vectors.get(node));
+                if (found.size() < ef || similarity > found.peek().similarity()) {
+                    var neighbor = new Neighbor(node, similarity);
+                    candidates.add(neighbor);
+                    found.add(neighbor);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+        var result = new ArrayList<>(found);
+        result.sort(Comparator.comparingDouble(Neighbor::similarity).reversed());
+        return result;
+    }
+
+    /**
+     * 후보 중 이웃을 최대 {@code max}개 고릅니다. 이미 고른 이웃보다 기준 노드에 더 가까운 후보를 먼저 고르고,
+     * 자리가 남으면 버린 후보 중 가까운 순서로 채웁니다.
+     *
+     * @param candidates 유사도 내림차순으로 정렬된 후보
+     */
+    private List<Neighbor> selectNeighbors(float[] base, List<Neighbor> candidates, int max) {
+        var selected = new ArrayList<Neighbor>(max);
+        var discarded = new ArrayList<Neighbor>();
+        for (var candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            float[] candidateVector = vectors.get(candidate.node());
+            boolean diverse = true;
+            for (var chosen : selected) {
+                if (Vectors.dot(candidateVector, vectors.get(chosen.node())) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : discarded).add(candidate);
+        }
+        for (int i = 0; i < discarded.size() && selected.size() < max; i++) {
+            selected.add(discarded.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * {@code from}의 이웃에 {@code to}를 추가합니다. 이웃이 가득 차면 기존 이웃과 함께 다시 골라 줄입니다.
+     */
+    private void connect(int from, int to, int level) {
+        int[] levelLinks = links.get(from)[level];
+        int count = levelLinks[0];
+        if (count < levelLinks.length - 1) {
+            levelLinks[count + 1] = to;
+            levelLinks[0] = count + 1;
+            return;
+        }
+        float[] base = vectors.get(from);
+        var candidates = new ArrayList<Neighbor>(count + 1);
+        for (int i = 1; i <= count; i++) {
+            candidates.add(new Neighbor(levelLinks[i], Vectors.dot(base, vectors.get(levelLinks[i]))));
+        }
+        candidates.add(new Neighbor(to, Vectors.dot(base, vectors.get(to))));
+        candidates.sort(Comparator.comparingDouble(Neighbor::similarity).reversed());
+        var selected = selectNeighbors(base, candidates, count);
+        for (int i = 0; i < selected.size(); i++) {
+            levelLinks[i + 1] = selected.get(i).node();
+        }
+        levelLinks[0] = selected.size();
+    }
+
+    /**
+     * 검색 결과 노드와 질의 벡터와의 코사인 유사도입니다.
+     */
+    record Neighbor(int node, double similarity) {
+    }
+}
@@ -0,0 +1,209 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link HnswIndex}로 유사 문서를 찾는 인메모리 VectorStore입니다.
+ * <p>
+ * SimpleVectorStore가 질문마다 모든 임베딩과 유사도를 계산하는 것과 달리, HNSW 그래프를 따라 일부 노드만 비교합니다.
+ * 색인 그래프와 문서는 {@link #save}로 디렉터리의 파일 하나에 기록하고 {@link #load}로 그래프를 다시 만들지 않고 읽습니다.
+ * 메타데이터 필터 검색은 지원하지 않습니다.
+ */
+public class HnswVectorStore implements VectorStore {
+
+    private static final String INDEX_FILE = "hnsw.bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long SEED = 42;
+
+    private final EmbeddingModel embeddingModel;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * 노드 번호 순서의 문서입니다. 삭제된 문서의 자리는 null입니다.
+     * 가득 차면 두 배 크기의 배열로 교체하고, 검색은 잠금 없이 현재 배열을 읽습니다.
+     * 문서를 색인보다 먼저 기록하므로 검색이 찾은 노드의 문서는 색인의 잠금을 거쳐 보입니다.
+     */
+    private volatile StoredDocument[] documents = new StoredDocument[INITIAL_CAPACITY];
+    /**
+     * 기록된 문서 수입니다. {@code this}로 동기화합니다.
+     */
+    private int documentCount;
+    private final Map<String, Integer> nodesById = new ConcurrentHashMap<>();
+    private volatile HnswIndex index;
+
+    /**
+     * HnswVectorStore 생성자입니다.
+     *
+     * @param embeddingModel 문서와 질문을 임베딩할 모델
+     * @param m              노드별 층당 최대 이웃 수
+     * @param efConstruction 문서를 추가할 때 이웃 후보로 탐색할 노드 수
+     * @param efSearch       검색할 때 유지할 후보 수
+     */
+    public HnswVectorStore(EmbeddingModel embeddingModel, int m, int efConstruction, int efSearch) {
+        this.embeddingModel = embeddingModel;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * 문서를 임베딩하여 추가합니다. 같은 ID의 문서가 있으면 대체합니다.
+     *
+     * @param documents 추가할 문서 리스트
+     */
+    @Override
+    public synchronized void add(List<Document> documents) {
+        for (Document document : documents) {
+            float[] vector = Vectors.toFloatArray(embeddingModel.embed(document));
+            if (index == null) {
+                index = new HnswIndex(vector.length, m, efConstruction, SEED);
+            }
+            delete(document.getId());
+            // 검색이 노드를 찾았을 때 문서가 이미 있도록 색인보다 먼저 추가합니다.
+            appendDocument(new StoredDocument(document.getId(), document.getContent(), document.getMetadata()));
+            nodesById.put(document.getId(), index.add(vector));
+        }
+    }
+
+    @Override
+    public synchronized Optional<Boolean> delete(List<String> idList) {
+        boolean deleted = false;
+        for (String id : idList) {
+            deleted |= delete(id);
+        }
+        return Optional.of(deleted);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (request.hasFilterExpression()) {
+            throw new UnsupportedOperationException("HnswVectorStore does not support metadata filter expressions");
+        }
+        var currentIndex = index;
+        if (currentIndex == null) {
+            return List.of();
+        }
+        float[] query = Vectors.toFloatArray(embeddingModel.embed(request.getQuery()));
+        var neighbors = currentIndex.search(query, request.getTopK(), Math.max(efSearch, request.getTopK()));
+        var currentDocuments = documents;
+        var result = new ArrayList<Document>(request.getTopK());
+        for (var neighbor : neighbors) {
+            StoredDocument stored = currentDocuments[neighbor.node()];
+            if (stored != null && neighbor.similarity() >= request.getSimilarityThreshold()) {
+                result.add(stored.toDocument(neighbor.similarity()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 색인 그래프와 문서를 디렉터리에 기록합니다. 그래프 뒤에 {@code [int 길이][문서 JSON]}을 이어 붙인 파일 하나를
+     * 임시 파일에 쓰고 디스크에 동기화한 뒤 한 번의 이동으로 교체하므로, 도중에 종료되어도 그래프와 문서가 어긋나지 않습니다.
+     *
+     * @param directory 기록할 디렉터리
+     * @throws IOException 기록 실패 시
+     */
+    public synchronized void save(Path directory) throws IOException {
+        if (index == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(INDEX_FILE + TEMP_SUFFIX);
+        byte[] documentsJson = objectMapper.writeValueAsBytes(Arrays.asList(Arrays.copyOf(documents, documentCount)));
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            index.writeTo(out);
+            out.writeInt(documentsJson.length);
+            out.write(documentsJson);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 디렉터리에 기록된 색인 그래프와 문서를 읽습니다.
+     *
+     * @param directory 읽을 디렉터리
+     * @throws IOException 읽기 실패 또는 그래프와 문서가 맞지 않는 경우
+     */
+    public synchronized void load(Path directory) throws IOException {
+        HnswIndex loaded;
+        List<StoredDocument> loadedDocuments;
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(directory.resolve(INDEX_FILE))))) {
+            loaded = HnswIndex.readFrom(in, SEED);
+            byte[] documentsJson = new byte[in.readInt()];
+            in.readFully(documentsJson);
+            loadedDocuments = objectMapper.readValue(documentsJson, new TypeReference<>() {
+            });
+        }
+        if (loadedDocuments.size() != loaded.size()) {
+            throw new IOException("HNSW graph has " + loaded.size() + " nodes but " + loadedDocuments.size() + " documents were stored");
+        }
+        nodesById.clear();
+        for (int node = 0; node < loadedDocuments.size(); node++) {
+            StoredDocument stored = loadedDocuments.get(node);
+            if (stored != null && !loaded.isDeleted(node)) {
+                nodesById.put(stored.id(), node);
+            }
+        }
+        documents = loadedDocuments.toArray(new StoredDocument[Math.max(INITIAL_CAPACITY, loadedDocuments.size())]);
+        documentCount = loadedDocuments.size();
+        index = loaded;
+    }
+
+    /**
+     * 저장 파일이 있는지 확인합니다.
+     *
+     * @param directory 확인할 디렉터리
+     * @return 저장 파일이 있으면 true
+     */
+    public static boolean exists(Path directory) {
+        return Files.exists(directory.resolve(INDEX_FILE));
+    }
+
+    private void appendDocument(StoredDocument document) {
+        var current = documents;
+        if (documentCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            documents = current;
+        }
+        current[documentCount++] = document;
+    }
+
+    private boolean delete(String id) {
+        Integer node = nodesById.remove(id);
+        if (node == null) {
+            return false;
+        }
+        index.delete(node);
+        documents[node] = null;
+        return true;
+    }
+}
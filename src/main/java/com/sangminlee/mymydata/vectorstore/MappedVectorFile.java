@@ -0,0 +1,493 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 문서 임베딩과 본문을 메모리 맵으로 읽는 읽기 전용 벡터 파일입니다.
+ * <p>
+ * 파일은 세대 번호를 붙여 기록하며, 매니페스트({@code manifest})가 현재 세대와 커밋된 문서 수, 차원, 문서 파일 길이를 가리킵니다.
+ * <ul>
+ *     <li>벡터 파일({@code vectors-세대.f32})은 {@code [int 매직][int 차원][int 예약][int 예약]} 헤더 뒤에 정규화된 임베딩을
+ *     리틀 엔디언 float32 행렬로 기록합니다. 행렬은 매핑으로 페이지 캐시에 두어 전체를 힙에 올리지 않지만,
+ *     검색은 {@link SimilarityKernel}이 배열로 계산하도록 행렬을 64KB 블록씩 힙의 재사용 배열로 복사하여 계산합니다.</li>
+ *     <li>문서 파일({@code documents-세대.dat})은 {@code [int 매직]} 뒤에 문서별 {@code [int 길이][ID][int 길이][본문][메타데이터 JSON]}
+ *     레코드를 기록하며, 검색 결과로 선택된 문서만 읽습니다.</li>
+ *     <li>오프셋 파일({@code offsets-세대.idx})은 문서별 레코드 시작 위치를 {@code long}으로 기록합니다.</li>
+ * </ul>
+ * 커밋은 세 파일을 디스크에 동기화한 뒤 매니페스트를 임시 파일에 쓰고 한 번의 이동으로 교체하므로, 도중에 종료되어도
+ * 이전 매니페스트가 가리키는 파일이 그대로 남습니다. 문서 추가는 현재 세대의 파일 뒤에 이어 기록하고, 문서를 빼야 할 때만 새 세대를 기록합니다.
+ * <p>
+ * 열 때는 매니페스트의 길이까지만 매핑하므로 커밋되지 않은 꼬리는 보이지 않고, 문서 수와 관계없이 바로 열립니다.
+ * 매핑 한 개의 크기 제한으로 각 파일은 2GB를 넘을 수 없습니다.
+ */
+final class MappedVectorFile {
+
+    static final String MANIFEST_FILE = "manifest";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Pattern GENERATION_FILE = Pattern.compile("(?:vectors|documents|offsets)-(\\d+)\\.(?:f32|dat|idx)");
+    private static final int MANIFEST_MAGIC = 0x4D4D4E46;
+    private static final int VECTORS_MAGIC = 0x4D564543;
+    private static final int DOCUMENTS_MAGIC = 0x4D444F43;
+    private static final int MANIFEST_LENGTH = Integer.BYTES * 3 + Long.BYTES * 2;
+    private static final int VECTORS_HEADER_LENGTH = Integer.BYTES * 4;
+    /**
+     * 검색할 때 한 번에 복사하여 계산할 행렬 블록의 크기(float 수)입니다.
+     */
+    private static final int BLOCK_FLOATS = 16 * 1024;
+    private static final SimilarityKernel KERNEL = SimilarityKernel.preferred();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final int size;
+    private final int dimensions;
+    private final FloatBuffer vectors;
+    private final ByteBuffer documents;
+    private final ByteBuffer offsets;
+
+    private MappedVectorFile(int size, int dimensions, FloatBuffer vectors, ByteBuffer documents, ByteBuffer offsets) {
+        this.size = size;
+        this.dimensions = dimensions;
+        this.vectors = vectors;
+        this.documents = documents;
+        this.offsets = offsets;
+    }
+
+    /**
+     * 매니페스트가 가리키는 세대의 파일을 커밋된 길이까지 엽니다.
+     *
+     * @param directory 파일이 있는 디렉터리
+     * @return 열린 벡터 파일
+     * @throws IOException 읽기 실패 또는 파일의 형식이나 길이가 매니페스트와 맞지 않는 경우
+     */
+    static MappedVectorFile open(Path directory) throws IOException {
+        Manifest manifest = Manifest.read(directory);
+        int size = manifest.size();
+        int dimensions = manifest.dimensions();
+        Path vectorsFile = vectorsFile(directory, manifest.generation());
+        Path documentsFile = documentsFile(directory, manifest.generation());
+        ByteBuffer vectorBuffer = map(vectorsFile, VECTORS_HEADER_LENGTH + (long) size * dimensions * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer documentBuffer = map(documentsFile, manifest.documentsLength());
+        ByteBuffer offsetBuffer = map(offsetsFile(directory, manifest.generation()), (long) size * Long.BYTES);
+        if (vectorBuffer.getInt(0) != VECTORS_MAGIC || vectorBuffer.getInt(4) != dimensions) {
+            throw new IOException("Not a vector file: " + vectorsFile);
+        }
+        if (documentBuffer.capacity() < Integer.BYTES || documentBuffer.getInt(0) != DOCUMENTS_MAGIC) {
+            throw new IOException("Not a document file: " + documentsFile);
+        }
+        FloatBuffer vectors = vectorBuffer.slice(VECTORS_HEADER_LENGTH, vectorBuffer.capacity() - VECTORS_HEADER_LENGTH)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer();
+        return new MappedVectorFile(size, dimensions, vectors, documentBuffer, offsetBuffer);
+    }
+
+    /**
+     * 디렉터리에 커밋된 파일이 있는지 확인합니다.
+     *
+     * @param directory 확인할 디렉터리
+     * @return 매니페스트가 있으면 true
+     */
+    static boolean exists(Path directory) {
+        return Files.exists(directory.resolve(MANIFEST_FILE));
+    }
+
+    private static ByteBuffer map(Path file, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("File is larger than 2GB: " + file);
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < length) {
+                throw new IOException("File is truncated: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+    }
+
+    private static Path vectorsFile(Path directory, long generation) {
+        return directory.resolve("vectors-" + generation + ".f32");
+    }
+
+    private static Path documentsFile(Path directory, long generation) {
+        return directory.resolve("documents-" + generation + ".dat");
+    }
+
+    private static Path offsetsFile(Path directory, long generation) {
+        return directory.resolve("offsets-" + generation + ".idx");
+    }
+
+    /**
+     * 지정한 세대가 아닌 파일을 지웁니다. 지우지 못한 파일은 다음 세대를 커밋할 때 다시 지웁니다.
+     */
+    private static void deleteOtherGenerations(Path directory, long generation) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Matcher matcher = GENERATION_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(1)) != generation) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException ignored) {
+                        // 다른 프로세스가 매핑 중이면 지워지지 않을 수 있습니다.
+                    }
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * 질의와 코사인 유사도가 가장 큰 문서를 최대 {@code k}개 찾습니다. 저장된 임베딩은 정규화되어 있으므로 내적으로 계산합니다.
+     * 행렬은 L2 캐시에 들어가는 크기의 블록 단위로 복사하여 {@link SimilarityKernel#dotRows}로 계산합니다.
+     *
+     * @param query     질의 임베딩
+     * @param k         찾을 문서 수
+     * @param threshold 결과에 포함할 최소 유사도
+     * @return 유사도 내림차순의 행 번호와 유사도
+     */
+    List<HnswIndex.Neighbor> search(float[] query, int k, double threshold) {
+        if (query.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + query.length);
+        }
+        if (k <= 0) {
+            return List.of();
+        }
+        float[] normalized = Vectors.normalize(query);
+        int blockRows = Math.max(1, BLOCK_FLOATS / dimensions);
+        float[] block = new float[blockRows * dimensions];
+        float[] scores = new float[blockRows];
+        var top = new TopK(k);
+        for (int start = 0; start < size; start += blockRows) {
+            int rows = Math.min(blockRows, size - start);
+            vectors.get(start * dimensions, block, 0, rows * dimensions);
+            KERNEL.dotRows(normalized, block, rows, scores);
+            for (int i = 0; i < rows; i++) {
+                if (scores[i] >= threshold) {
+                    top.offer(start + i, scores[i]);
+                }
+            }
+        }
+        return top.toList();
+    }
+
+    /**
+     * 행의 정규화된 임베딩을 복사하여 반환합니다.
+     */
+    float[] embedding(int row) {
+        float[] embedding = new float[dimensions];
+        vectors.get(row * dimensions, embedding);
+        return embedding;
+    }
+
+    /**
+     * 주어진 ID의 문서가 하나라도 있는지 확인합니다. 본문과 메타데이터는 읽지 않습니다.
+     *
+     * @param ids 확인할 문서 ID
+     * @return 하나라도 있으면 true
+     */
+    boolean containsAny(Set<String> ids) {
+        for (int row = 0; row < size; row++) {
+            int position = documentPosition(row);
+            if (ids.contains(string(position + Integer.BYTES, documents.getInt(position)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 행의 문서를 읽습니다.
+     */
+    StoredDocument document(int row) {
+        int position = documentPosition(row);
+        int end = row + 1 < size ? documentPosition(row + 1) : documents.capacity();
+        int idLength = documents.getInt(position);
+        String id = string(position + Integer.BYTES, idLength);
+        position += Integer.BYTES + idLength;
+        int contentLength = documents.getInt(position);
+        String content = string(position + Integer.BYTES, contentLength);
+        position += Integer.BYTES + contentLength;
+        return new StoredDocument(id, content, metadata(position, end - position));
+    }
+
+    private int documentPosition(int row) {
+        return (int) offsets.getLong(row * Long.BYTES);
+    }
+
+    private String string(int position, int length) {
+        byte[] bytes = new byte[length];
+        documents.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Nullable
+    private Map<String, Object> metadata(int position, int length) {
+        byte[] bytes = new byte[length];
+        documents.get(position, bytes);
+        try {
+            return OBJECT_MAPPER.readValue(bytes, new TypeReference<>() {
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupted document metadata", e);
+        }
+    }
+
+    /**
+     * 디렉터리에 새 세대의 파일을 기록하는 Writer를 엽니다.
+     * {@link Writer#commit()}에서 매니페스트가 새 세대를 가리키도록 교체하고 이전 세대의 파일을 지웁니다.
+     *
+     * @param directory  기록할 디렉터리
+     * @param dimensions 임베딩 차원
+     * @return 열린 Writer
+     * @throws IOException 파일 생성 실패 시
+     */
+    static Writer writer(Path directory, int dimensions) throws IOException {
+        Files.createDirectories(directory);
+        long generation = exists(directory) ? Manifest.read(directory).generation() + 1 : 1;
+        return new Writer(directory, new Manifest(generation, 0, dimensions, 0), false);
+    }
+
+    /**
+     * 현재 세대의 파일 뒤에 문서를 이어 기록하는 Writer를 엽니다. 기존 문서는 다시 기록하지 않으며,
+     * {@link Writer#commit()}에서 매니페스트의 문서 수와 길이를 늘립니다.
+     *
+     * @param directory 기록할 디렉터리
+     * @return 열린 Writer
+     * @throws IOException 매니페스트가 없거나 파일 열기 실패 시
+     */
+    static Writer appender(Path directory) throws IOException {
+        return new Writer(directory, Manifest.read(directory), true);
+    }
+
+    /**
+     * SimpleVectorStore가 저장한 JSON 파일을 벡터 파일과 문서 파일로 변환합니다.
+     * JSON은 문서 단위로 읽으므로 전체 파일을 한 번에 힙에 올리지 않습니다.
+     *
+     * @param jsonFile  SimpleVectorStore JSON 파일
+     * @param directory 기록할 디렉터리
+     * @return 변환한 문서 수
+     * @throws IOException 읽기, 기록 실패 또는 JSON 형식이 맞지 않는 경우
+     */
+    static int convertSimpleVectorStore(Path jsonFile, Path directory) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.createParser(jsonFile.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object of documents: " + jsonFile);
+            }
+            Writer writer = null;
+            try {
+                int count = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.currentName();
+                    parser.nextToken();
+                    JsonNode document = parser.readValueAsTree();
+                    JsonNode embeddingNode = document.path("embedding");
+                    float[] embedding = new float[embeddingNode.size()];
+                    for (int i = 0; i < embedding.length; i++) {
+                        embedding[i] = (float) embeddingNode.get(i).asDouble();
+                    }
+                    if (writer == null) {
+                        writer = writer(directory, embedding.length);
+                    }
+                    JsonNode content = document.has("content") ? document.get("content") : document.path("text");
+                    Map<String, Object> metadata = document.hasNonNull("metadata")
+                            ? OBJECT_MAPPER.convertValue(document.get("metadata"), new TypeReference<>() {
+                    })
+                            : null;
+                    writer.append(document.path("id").asText(key), content.asText(""), metadata, embedding);
+                    count++;
+                }
+                if (writer == null) {
+                    throw new IOException("No documents to convert: " + jsonFile);
+                }
+                writer.commit();
+                return count;
+            } finally {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * 문서를 차례로 추가하여 벡터 파일, 문서 파일, 오프셋 파일을 기록합니다. 이 클래스는 스레드 안전하지 않습니다.
+     */
+    static final class Writer implements Closeable {
+        private final Path directory;
+        private final long generation;
+        private final int dimensions;
+        private final boolean append;
+        private final FileChannel vectorChannel;
+        private final FileChannel documentChannel;
+        private final FileChannel offsetChannel;
+        private final ByteBuffer vectorBuffer;
+        private final ByteBuffer offsetBuffer = ByteBuffer.allocate(Long.BYTES);
+        private int size;
+        private long documentPosition;
+        private boolean committed;
+
+        private Writer(Path directory, Manifest manifest, boolean append) throws IOException {
+            this.directory = directory;
+            this.generation = manifest.generation();
+            this.dimensions = manifest.dimensions();
+            this.append = append;
+            StandardOpenOption[] options = append
+                    ? new StandardOpenOption[]{StandardOpenOption.WRITE}
+                    : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE};
+            this.vectorChannel = FileChannel.open(vectorsFile(directory, generation), options);
+            this.documentChannel = FileChannel.open(documentsFile(directory, generation), options);
+            this.offsetChannel = FileChannel.open(offsetsFile(directory, generation), options);
+            this.vectorBuffer = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (append) {
+                // commit하지 않고 끝난 이전 Writer가 남긴 꼬리를 잘라 내고 커밋된 끝에서 이어 씁니다.
+                size = manifest.size();
+                documentPosition = manifest.documentsLength();
+                truncate(vectorChannel, VECTORS_HEADER_LENGTH + (long) size * dimensions * Float.BYTES);
+                truncate(documentChannel, documentPosition);
+                truncate(offsetChannel, (long) size * Long.BYTES);
+            } else {
+                write(vectorChannel, ByteBuffer.allocate(VECTORS_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(VECTORS_MAGIC).putInt(dimensions).putInt(0).putInt(0).flip());
+                documentPosition = write(documentChannel, ByteBuffer.allocate(Integer.BYTES).putInt(0, DOCUMENTS_MAGIC));
+            }
+        }
+
+        /**
+         * 문서 하나를 추가합니다. 임베딩은 정규화하여 기록합니다.
+         *
+         * @param id        문서 ID
+         * @param content   문서 본문
+         * @param metadata  문서 메타데이터
+         * @param embedding 문서 임베딩
+         * @throws IOException 기록 실패 시
+         */
+        void append(String id, String content, @Nullable Map<String, Object> metadata, float[] embedding) throws IOException {
+            if (embedding.length != dimensions) {
+                throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + embedding.length);
+            }
+            vectorBuffer.clear();
+            vectorBuffer.asFloatBuffer().put(Vectors.normalize(embedding));
+            write(vectorChannel, vectorBuffer);
+
+            byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+            byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+            byte[] metadataBytes = OBJECT_MAPPER.writeValueAsBytes(metadata);
+            var record = ByteBuffer.allocate(Integer.BYTES * 2 + idBytes.length + contentBytes.length + metadataBytes.length)
+                    .putInt(idBytes.length).put(idBytes)
+                    .putInt(contentBytes.length).put(contentBytes)
+                    .put(metadataBytes)
+                    .flip();
+            write(offsetChannel, offsetBuffer.clear().putLong(documentPosition).flip());
+            documentPosition += write(documentChannel, record);
+            size++;
+        }
+
+        /**
+         * 기록한 파일을 디스크에 동기화한 뒤 매니페스트를 교체하여 커밋합니다.
+         *
+         * @throws IOException 기록 실패 또는 파일이 2GB를 넘는 경우
+         */
+        void commit() throws IOException {
+            if (vectorChannel.size() > Integer.MAX_VALUE || documentChannel.size() > Integer.MAX_VALUE
+                    || offsetChannel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Vector store files cannot be larger than 2GB");
+            }
+            vectorChannel.force(true);
+            documentChannel.force(true);
+            offsetChannel.force(true);
+            vectorChannel.close();
+            documentChannel.close();
+            offsetChannel.close();
+            new Manifest(generation, size, dimensions, documentPosition).write(directory);
+            committed = true;
+            if (!append) {
+                deleteOtherGenerations(directory, generation);
+            }
+        }
+
+        /**
+         * 파일을 닫습니다. 새 세대를 commit하지 않았으면 기록한 파일을 지웁니다.
+         * 이어 쓰기를 commit하지 않았으면 매니페스트가 가리키지 않는 꼬리만 남으며, 다음 이어 쓰기에서 잘라 냅니다.
+         */
+        @Override
+        public void close() throws IOException {
+            vectorChannel.close();
+            documentChannel.close();
+            offsetChannel.close();
+            if (!committed && !append) {
+                Files.deleteIfExists(vectorsFile(directory, generation));
+                Files.deleteIfExists(documentsFile(directory, generation));
+                Files.deleteIfExists(offsetsFile(directory, generation));
+            }
+        }
+
+        private static void truncate(FileChannel channel, long length) throws IOException {
+            channel.truncate(length);
+            channel.position(length);
+        }
+
+        private static int write(FileChannel channel, ByteBuffer buffer) throws IOException {
+            int length = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return length;
+        }
+    }
+
+    /**
+     * 현재 세대와 커밋된 문서 수, 차원, 문서 파일 길이를 담는 매니페스트입니다.
+     * {@code [int 매직][long 세대][int 문서 수][int 차원][long 문서 파일 길이]}로 기록합니다.
+     */
+    private record Manifest(long generation, int size, int dimensions, long documentsLength) {
+
+        static Manifest read(Path directory) throws IOException {
+            Path file = directory.resolve(MANIFEST_FILE);
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.capacity() != MANIFEST_LENGTH || buffer.getInt() != MANIFEST_MAGIC) {
+                throw new IOException("Not a vector store manifest: " + file);
+            }
+            return new Manifest(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+        }
+
+        /**
+         * 임시 파일에 기록하고 디스크에 동기화한 뒤 한 번의 이동으로 기존 매니페스트를 교체합니다.
+         */
+        void write(Path directory) throws IOException {
+            Path temp = directory.resolve(MANIFEST_FILE + TEMP_SUFFIX);
+            try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Writer.write(channel, ByteBuffer.allocate(MANIFEST_LENGTH)
+                        .putInt(MANIFEST_MAGIC).putLong(generation).putInt(size).putInt(dimensions).putLong(documentsLength)
+                        .flip());
+                channel.force(true);
+            }
+            Files.move(temp, directory.resolve(MANIFEST_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
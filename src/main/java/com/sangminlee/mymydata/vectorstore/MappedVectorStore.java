@@ -0,0 +1,171 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 문서와 임베딩을 {@link MappedVectorFile}에 보관하는 VectorStore입니다.
+ * <p>
+ * SimpleVectorStore와 같이 질문마다 모든 임베딩과 유사도를 계산하지만, 임베딩을 JSON에서 힙으로 읽지 않고 메모리 맵 파일에서 바로 읽으므로
+ * 문서 수와 관계없이 바로 시작하고 힙을 거의 사용하지 않습니다. 본문과 메타데이터는 검색 결과로 선택된 문서만 읽습니다.
+ * 문서 추가는 기존 파일 뒤에 이어 기록하고, 같은 ID의 문서를 대체하거나 삭제할 때만 파일 전체를 새로 기록하여 교체합니다.
+ * 메타데이터 필터 검색은 지원하지 않습니다.
+ */
+public class MappedVectorStore implements VectorStore {
+
+    private final EmbeddingModel embeddingModel;
+    private final Path directory;
+    private volatile MappedVectorFile file;
+
+    /**
+     * MappedVectorStore 생성자입니다. 디렉터리에 기록된 파일이 있으면 엽니다.
+     *
+     * @param embeddingModel 문서와 질문을 임베딩할 모델
+     * @param directory      벡터 파일과 문서 파일을 기록할 디렉터리
+     * @throws IOException 기존 파일을 열지 못한 경우
+     */
+    public MappedVectorStore(EmbeddingModel embeddingModel, Path directory) throws IOException {
+        this.embeddingModel = embeddingModel;
+        this.directory = directory;
+        this.file = MappedVectorFile.exists(directory) ? MappedVectorFile.open(directory) : null;
+    }
+
+    /**
+     * 디렉터리에 저장된 파일이 있는지 확인합니다.
+     *
+     * @param directory 확인할 디렉터리
+     * @return 커밋된 파일이 있으면 true
+     */
+    public static boolean exists(Path directory) {
+        return MappedVectorFile.exists(directory);
+    }
+
+    /**
+     * SimpleVectorStore가 저장한 JSON 파일을 이 스토어의 파일 형식으로 변환합니다. 임베딩을 다시 계산하지 않습니다.
+     *
+     * @param jsonFile  SimpleVectorStore JSON 파일
+     * @param directory 기록할 디렉터리
+     * @return 변환한 문서 수
+     * @throws IOException 읽기, 기록 실패 또는 JSON 형식이 맞지 않는 경우
+     */
+    public static int convert(Path jsonFile, Path directory) throws IOException {
+        return MappedVectorFile.convertSimpleVectorStore(jsonFile, directory);
+    }
+
+    /**
+     * 문서를 임베딩하여 기존 파일 뒤에 추가합니다. 같은 ID의 문서가 있으면 파일을 새로 기록하여 대체합니다.
+     *
+     * @param documents 추가할 문서 리스트
+     */
+    @Override
+    public synchronized void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        var embeddings = new ArrayList<float[]>(documents.size());
+        var ids = new HashSet<String>();
+        for (Document document : documents) {
+            embeddings.add(Vectors.toFloatArray(embeddingModel.embed(document)));
+            ids.add(document.getId());
+        }
+        Appender appender = writer -> {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                writer.append(document.getId(), document.getContent(), document.getMetadata(), embeddings.get(i));
+            }
+        };
+        var current = file;
+        if (current != null && !current.containsAny(ids)) {
+            append(appender);
+        } else {
+            rewrite(ids, embeddings.get(0).length, appender);
+        }
+    }
+
+    @Override
+    public synchronized Optional<Boolean> delete(List<String> idList) {
+        var current = file;
+        if (current == null) {
+            return Optional.of(false);
+        }
+        Set<String> ids = Set.copyOf(idList);
+        int before = current.size();
+        rewrite(ids, current.dimensions(), writer -> {
+        });
+        return Optional.of(file.size() < before);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (request.hasFilterExpression()) {
+            throw new UnsupportedOperationException("MappedVectorStore does not support metadata filter expressions");
+        }
+        var current = file;
+        if (current == null) {
+            return List.of();
+        }
+        float[] query = Vectors.toFloatArray(embeddingModel.embed(request.getQuery()));
+        var result = new ArrayList<Document>(request.getTopK());
+        for (var neighbor : current.search(query, request.getTopK(), request.getSimilarityThreshold())) {
+            result.add(current.document(neighbor.node()).toDocument(neighbor.similarity()));
+        }
+        return result;
+    }
+
+    /**
+     * {@code excludedIds}를 제외한 기존 문서와 {@code appender}가 추가하는 문서로 파일을 새로 기록하고 다시 엽니다.
+     * 검색은 교체가 끝날 때까지 기존 파일을 계속 사용합니다.
+     */
+    private void rewrite(Set<String> excludedIds, int dimensions, Appender appender) {
+        var current = file;
+        try {
+            try (var writer = MappedVectorFile.writer(directory, dimensions)) {
+                if (current != null) {
+                    for (int row = 0; row < current.size(); row++) {
+                        StoredDocument stored = current.document(row);
+                        if (!excludedIds.contains(stored.id())) {
+                            writer.append(stored.id(), stored.content(), stored.metadata(), current.embedding(row));
+                        }
+                    }
+                }
+                appender.append(writer);
+                writer.commit();
+            }
+            file = MappedVectorFile.open(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 기존 파일 뒤에 {@code appender}가 추가하는 문서를 기록하고 다시 엽니다. 기존 문서는 다시 기록하지 않습니다.
+     * 검색은 커밋이 끝날 때까지 기존 파일을 계속 사용합니다.
+     */
+    private void append(Appender appender) {
+        try {
+            try (var writer = MappedVectorFile.appender(directory)) {
+                appender.append(writer);
+                writer.commit();
+            }
+            file = MappedVectorFile.open(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Appender {
+        void append(MappedVectorFile.Writer writer) throws IOException;
+    }
+}
@@ -0,0 +1,98 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 임베딩 간 내적을 계산하는 커널입니다. 정규화된 임베딩에서는 내적이 곧 코사인 유사도입니다.
+ * <p>
+ * {@code jdk.incubator.vector} 모듈이 있으면({@code --add-modules jdk.incubator.vector}) SIMD 명령으로 계산하는
+ * {@link VectorSimilarityKernel}을, 없거나 하드웨어가 SIMD를 지원하지 않으면 스칼라 커널을 사용합니다.
+ */
+@Slf4j
+abstract class SimilarityKernel {
+
+    private static final SimilarityKernel SCALAR = new Scalar();
+
+    /**
+     * 실행 환경에서 사용할 수 있는 가장 빠른 커널을 반환합니다.
+     */
+    static SimilarityKernel preferred() {
+        return Preferred.KERNEL;
+    }
+
+    /**
+     * 스칼라 커널을 반환합니다.
+     */
+    static SimilarityKernel scalar() {
+        return SCALAR;
+    }
+
+    private static SimilarityKernel select() {
+        SimilarityKernel kernel = SCALAR;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                if (VectorSimilarityKernel.isSupported()) {
+                    kernel = new VectorSimilarityKernel();
+                }
+            } catch (LinkageError e) {
+                log.debug("Vector API is not available", e);
+            }
+        }
+        log.info("Using {} similarity kernel", kernel.name());
+        return kernel;
+    }
+
+    /**
+     * 커널 이름입니다.
+     */
+    abstract String name();
+
+    /**
+     * {@code a[aOffset..]}와 {@code b[bOffset..]}의 {@code length}개 원소의 내적을 계산합니다.
+     */
+    abstract float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    float dot(float[] a, float[] b) {
+        return dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * 행 우선으로 이어 붙인 행렬의 앞쪽 {@code rows}개 행과 질의의 내적을 계산하여 {@code scores}에 기록합니다.
+     * 행의 길이는 질의의 길이와 같습니다.
+     *
+     * @param query  질의 벡터
+     * @param matrix 행 우선 행렬
+     * @param rows   계산할 행 수
+     * @param scores 행별 내적을 기록할 배열
+     */
+    void dotRows(float[] query, float[] matrix, int rows, float[] scores) {
+        int dimensions = query.length;
+        for (int row = 0; row < rows; row++) {
+            scores[row] = dot(query, 0, matrix, row * dimensions, dimensions);
+        }
+    }
+
+    /**
+     * 하위 클래스를 먼저 로드해도 초기화 순서가 꼬이지 않도록 커널 선택을 처음 사용할 때로 미룹니다.
+     */
+    private static final class Preferred {
+        static final SimilarityKernel KERNEL = select();
+    }
+
+    private static final class Scalar extends SimilarityKernel {
+
+        @Override
+        String name() {
+            return "scalar";
+        }
+
+        @Override
+        float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+            float sum = 0;
+            for (int i = 0; i < length; i++) {
+                sum += a[aOffset + i] * b[bOffset + i];
+            }
+            return sum;
+        }
+    }
+}
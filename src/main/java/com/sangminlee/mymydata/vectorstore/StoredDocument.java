@@ -0,0 +1,22 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import jakarta.annotation.Nullable;
+import org.springframework.ai.document.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 벡터 스토어가 보관하는 문서입니다. 임베딩은 색인이나 벡터 파일에 따로 있으므로 보관하지 않습니다.
+ */
+record StoredDocument(String id, String content, @Nullable Map<String, Object> metadata) {
+
+    /**
+     * 검색 결과 문서로 변환합니다. SimpleVectorStore와 같이 메타데이터의 distance에 1 - 유사도를 담습니다.
+     */
+    Document toDocument(double similarity) {
+        var resultMetadata = new HashMap<String, Object>(metadata == null ? Map.of() : metadata);
+        resultMetadata.put("distance", (float) (1 - similarity));
+        return new Document(id, content, resultMetadata);
+    }
+}
@@ -0,0 +1,91 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 유사도가 가장 큰 노드를 최대 k개 모으는 최소 힙입니다.
+ * 노드와 유사도를 원시 배열에 보관하므로 후보마다 객체를 만들지 않으며, 결과를 꺼낼 때만 k개의 객체를 만듭니다.
+ * 이 클래스는 스레드 안전하지 않습니다.
+ */
+final class TopK {
+
+    private final int[] nodes;
+    private final float[] similarities;
+    private int size;
+
+    TopK(int k) {
+        this.nodes = new int[k];
+        this.similarities = new float[k];
+    }
+
+    /**
+     * 후보를 추가합니다. 이미 k개가 있으면 가장 작은 유사도보다 클 때만 그 후보를 대신합니다.
+     */
+    void offer(int node, float similarity) {
+        if (size < nodes.length) {
+            nodes[size] = node;
+            similarities[size] = similarity;
+            siftUp(size++);
+        } else if (size > 0 && similarity > similarities[0]) {
+            nodes[0] = node;
+            similarities[0] = similarity;
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 모은 노드를 유사도 내림차순으로 반환합니다.
+     */
+    List<HnswIndex.Neighbor> toList() {
+        var result = new ArrayList<HnswIndex.Neighbor>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new HnswIndex.Neighbor(nodes[i], similarities[i]));
+        }
+        result.sort((a, b) -> Double.compare(b.similarity(), a.similarity()));
+        return result;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (similarities[parent] <= similarities[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if (left < size && similarities[left] < similarities[smallest]) {
+                smallest = left;
+            }
+            if (right < size && similarities[right] < similarities[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int node = nodes[i];
+        nodes[i] = nodes[j];
+        nodes[j] = node;
+        float similarity = similarities[i];
+        similarities[i] = similarities[j];
+        similarities[j] = similarity;
+    }
+}
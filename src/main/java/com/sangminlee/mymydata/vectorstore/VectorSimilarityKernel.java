@@ -0,0 +1,87 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * JDK Vector API로 내적을 계산하는 커널입니다. 실행 환경에서 가장 넓은 SIMD 레지스터 단위로 곱셈-덧셈(FMA)을 누적합니다.
+ * <p>
+ * 여러 행을 계산할 때는 네 행을 함께 계산하여 질의 벡터를 한 번 읽고 네 번 사용합니다.
+ * 이 클래스는 {@code jdk.incubator.vector} 모듈이 있을 때만 로드해야 하며, {@link SimilarityKernel#preferred()}가 이를 확인합니다.
+ */
+final class VectorSimilarityKernel extends SimilarityKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int ROWS_PER_STEP = 4;
+
+    /**
+     * SIMD 레지스터에 float가 네 개 이상 들어가는지 확인합니다. 그보다 좁으면 스칼라 커널보다 느립니다.
+     */
+    static boolean isSupported() {
+        return SPECIES.length() >= 4;
+    }
+
+    @Override
+    String name() {
+        return "vector(" + SPECIES.vectorBitSize() + "-bit)";
+    }
+
+    @Override
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        var sum = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            sum = FloatVector.fromArray(SPECIES, a, aOffset + i).fma(FloatVector.fromArray(SPECIES, b, bOffset + i), sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+
+    @Override
+    void dotRows(float[] query, float[] matrix, int rows, float[] scores) {
+        int dimensions = query.length;
+        int bound = SPECIES.loopBound(dimensions);
+        int row = 0;
+        for (; row + ROWS_PER_STEP <= rows; row += ROWS_PER_STEP) {
+            int offset0 = row * dimensions;
+            int offset1 = offset0 + dimensions;
+            int offset2 = offset1 + dimensions;
+            int offset3 = offset2 + dimensions;
+            var sum0 = FloatVector.zero(SPECIES);
+            var sum1 = FloatVector.zero(SPECIES);
+            var sum2 = FloatVector.zero(SPECIES);
+            var sum3 = FloatVector.zero(SPECIES);
+            int i = 0;
+            for (; i < bound; i += SPECIES.length()) {
+                var q = FloatVector.fromArray(SPECIES, query, i);
+                sum0 = FloatVector.fromArray(SPECIES, matrix, offset0 + i).fma(q, sum0);
+                sum1 = FloatVector.fromArray(SPECIES, matrix, offset1 + i).fma(q, sum1);
+                sum2 = FloatVector.fromArray(SPECIES, matrix, offset2 + i).fma(q, sum2);
+                sum3 = FloatVector.fromArray(SPECIES, matrix, offset3 + i).fma(q, sum3);
+            }
+            float score0 = sum0.reduceLanes(VectorOperators.ADD);
+            float score1 = sum1.reduceLanes(VectorOperators.ADD);
+            float score2 = sum2.reduceLanes(VectorOperators.ADD);
+            float score3 = sum3.reduceLanes(VectorOperators.ADD);
+            for (; i < dimensions; i++) {
+                float q = query[i];
+                score0 += matrix[offset0 + i] * q;
+                score1 += matrix[offset1 + i] * q;
+                score2 += matrix[offset2 + i] * q;
+                score3 += matrix[offset3 + i] * q;
+            }
+            scores[row] = score0;
+            scores[row + 1] = score1;
+            scores[row + 2] = score2;
+            scores[row + 3] = score3;
+        }
+        for (; row < rows; row++) {
+            scores[row] = dot(query, 0, matrix, row * dimensions, dimensions);
+        }
+    }
+}
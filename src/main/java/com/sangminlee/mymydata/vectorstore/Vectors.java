@@ -0,0 +1,63 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import java.util.List;
+
+/**
+ * 임베딩 변환, 정규화, 내적 계산을 모은 유틸리티입니다.
+ * <p>
+ * 내적은 {@link SimilarityKernel#preferred()}로 계산하므로 {@code jdk.incubator.vector} 모듈이 있으면 SIMD 명령을 사용합니다.
+ */
+public final class Vectors {
+
+    private static final SimilarityKernel KERNEL = SimilarityKernel.preferred();
+
+    private Vectors() {
+    }
+
+    /**
+     * EmbeddingModel이 반환한 임베딩을 float 배열로 변환합니다.
+     *
+     * @param embedding 임베딩
+     * @return float 배열
+     */
+    public static float[] toFloatArray(List<Double> embedding) {
+        float[] vector = new float[embedding.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.get(i).floatValue();
+        }
+        return vector;
+    }
+
+    /**
+     * 길이가 1이 되도록 정규화한 복사본을 반환합니다. 영벡터는 그대로 복사합니다.
+     *
+     * @param vector 정규화할 벡터
+     * @return 정규화된 벡터
+     */
+    public static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += (double) v * v;
+        }
+        if (norm == 0) {
+            return vector.clone();
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    /**
+     * 두 벡터의 내적을 계산합니다. 정규화된 벡터에서는 코사인 유사도입니다.
+     *
+     * @param a 벡터
+     * @param b a와 길이가 같은 벡터
+     * @return 내적
+     */
+    public static float dot(float[] a, float[] b) {
+        return KERNEL.dot(a, b);
+    }
+}
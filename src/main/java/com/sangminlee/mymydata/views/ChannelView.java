@@ -3,18 +3,27 @@ package com.sangminlee.mymydata.views;
 import com.sangminlee.mymydata.constant.Author;
 import com.sangminlee.mymydata.service.ChannelService;
 import com.sangminlee.mymydata.service.ChatService;
+import com.sangminlee.mymydata.service.LlmExecutor;
 import com.sangminlee.mymydata.service.MessageService;
 import com.sangminlee.mymydata.util.LimitedSortedAppendOnlyList;
+import com.sangminlee.mymydata.vo.LiveMessageBatch;
 import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageDraft;
+import com.sangminlee.mymydata.vo.MessageSearchHit;
 import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.messages.MessageInput;
 import com.vaadin.flow.component.messages.MessageList;
 import com.vaadin.flow.component.messages.MessageListItem;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.component.upload.Upload;
 import com.vaadin.flow.component.upload.receivers.MemoryBuffer;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.BeforeEvent;
 import com.vaadin.flow.router.HasDynamicTitle;
 import com.vaadin.flow.router.HasUrlParameter;
@@ -23,12 +32,20 @@ import com.vaadin.flow.server.VaadinSession;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.reactivestreams.Subscription;
 import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.BaseSubscriber;
 
 import java.io.InputStream;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.concurrent.CompletionException;
 
 /**
  * 채널 뷰를 정의하는 클래스입니다.
@@ -38,11 +55,24 @@ import java.util.concurrent.CompletableFuture;
 public class ChannelView extends VerticalLayout implements HasUrlParameter<String>, HasDynamicTitle {
 
     private static final int HISTORY_SIZE = 20;
+    private static final int SEARCH_RESULT_SIZE = 20;
     private final ChatService chatService;
     private final MessageService messageService;
     private final ChannelService channelService;
+    private final LlmExecutor llmExecutor;
     private final MessageList messageList;
+    private final MessageList searchResultList;
+    private final Button loadOlderButton;
     private final LimitedSortedAppendOnlyList<Message> receivedMessages;
+    /**
+     * 표시 중인 메시지의 목록 항목을 일련번호별로 보관합니다. 같은 메시지의 항목을 다시 만들지 않습니다.
+     */
+    private final Map<Long, MessageListItem> messageItems = new HashMap<>();
+    /**
+     * 생성 중인 메시지의 목록 항목입니다. 본문이 바뀌면 항목을 새로 만들지 않고 본문만 갱신합니다.
+     */
+    private final Map<String, MessageListItem> draftItems = new LinkedHashMap<>();
+    private List<MessageListItem> renderedItems = List.of();
     private final Upload upload;
     private String channelId;
     private String channelName;
@@ -54,16 +84,30 @@ public class ChannelView extends VerticalLayout implements HasUrlParameter<Strin
      * @param chatService    채팅 관련 기능을 제공하는 서비스
      * @param messageService 메시지 관련 기능을 제공하는 서비스
      * @param channelService 채널 관련 기능을 제공하는 서비스
+     * @param llmExecutor    AI 응답 생성을 실행할 실행기
      * @param chatClient     AI 채팅 클라이언트
      */
-    public ChannelView(ChatService chatService, MessageService messageService, ChannelService channelService, ChatClient chatClient) {
+    public ChannelView(ChatService chatService, MessageService messageService, ChannelService channelService,
+                       LlmExecutor llmExecutor, ChatClient chatClient) {
         this.chatService = chatService;
         this.messageService = messageService;
         this.channelService = channelService;
+        this.llmExecutor = llmExecutor;
 
         receivedMessages = new LimitedSortedAppendOnlyList<>(HISTORY_SIZE, Comparator.comparing(Message::sequenceNumber));
         setSizeFull();
 
+        add(setupSearchField());
+
+        searchResultList = new MessageList();
+        searchResultList.setSizeFull();
+        searchResultList.setVisible(false);
+        add(searchResultList);
+
+        loadOlderButton = new Button("이전 메시지 불러오기", VaadinIcon.ANGLE_UP.create(), event -> loadOlderMessages());
+        loadOlderButton.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
+        add(loadOlderButton);
+
         messageList = new MessageList();
         messageList.setSizeFull();
         add(messageList);
@@ -77,6 +121,55 @@ public class ChannelView extends VerticalLayout implements HasUrlParameter<Strin
         add(messageInput);
     }
 
+    /**
+     * 메시지 검색창을 설정합니다. 입력이 멈추면 검색 결과를 표시하고, 검색어를 지우면 대화 목록으로 돌아갑니다.
+     *
+     * @return 설정된 TextField 컴포넌트
+     */
+    private TextField setupSearchField() {
+        TextField searchField = new TextField();
+        searchField.setPlaceholder("메시지 검색");
+        searchField.setPrefixComponent(VaadinIcon.SEARCH.create());
+        searchField.setClearButtonVisible(true);
+        searchField.setWidthFull();
+        searchField.setValueChangeMode(ValueChangeMode.LAZY);
+        searchField.addValueChangeListener(event -> showSearchResults(event.getValue()));
+        return searchField;
+    }
+
+    /**
+     * 검색 결과를 표시합니다.
+     *
+     * @param query 검색어
+     */
+    private void showSearchResults(String query) {
+        boolean searching = !query.isBlank();
+        searchResultList.setItems(messageService.search(channelId, query, SEARCH_RESULT_SIZE).stream()
+                .map(MessageSearchHit::message)
+                .map(this::createMessageListItem)
+                .toList());
+        searchResultList.setVisible(searching);
+        messageList.setVisible(!searching);
+        loadOlderButton.setVisible(!searching);
+    }
+
+    /**
+     * 표시 중인 가장 오래된 메시지보다 이전의 메시지를 불러와 목록 앞에 추가합니다.
+     * 더 불러올 메시지가 없으면 버튼을 비활성화합니다.
+     */
+    private void loadOlderMessages() {
+        var oldest = receivedMessages.getFirst();
+        if (oldest.isEmpty()) {
+            return;
+        }
+        var older = messageService.getMessagesBefore(channelId, oldest.get().sequenceNumber(), HISTORY_SIZE);
+        if (older.size() < HISTORY_SIZE) {
+            loadOlderButton.setEnabled(false);
+        }
+        receivedMessages.addOlder(older);
+        renderMessages();
+    }
+
     /**
      * 파일 업로드를 위한 Upload 컴포넌트를 설정합니다.
      *
@@ -114,13 +207,18 @@ public class ChannelView extends VerticalLayout implements HasUrlParameter<Strin
                 );
         this.channelId = channelId;
         receivedMessages.clear();
+        messageItems.clear();
+        draftItems.clear();
+        renderedItems = List.of();
+        loadOlderButton.setEnabled(true);
         var subscription = subscribe();
         addDetachListener(v -> subscription.dispose());
     }
 
     /**
      * 사용자가 입력한 메시지를 전송합니다. <br>
-     * 예외 처리 발생 시 (토큰 제한 초과, rate limit 초과 등), 마지막으로 입력한 메세지를 삭제합니다.
+     * AI 응답은 {@link LlmExecutor}에서 생성하며, 같은 채널의 응답은 차례로 생성됩니다. <br>
+     * 예외 처리 발생 시 (토큰 제한 초과, rate limit 초과, 응답 대기열 초과 등), 입력한 메세지가 아직 채널의 마지막 메시지이면 그 메시지를 삭제합니다.
      *
      * @param event 메시지 제출 이벤트
      */
@@ -132,24 +230,38 @@ public class ChannelView extends VerticalLayout implements HasUrlParameter<Strin
         var uploadedFile = (Resource) VaadinSession.getCurrent().getAttribute("uploadedFile");
         VaadinSession.getCurrent().setAttribute("uploadedFile", null);
 
-        CompletableFuture
-                .runAsync(() -> chatService.postMessage(channelId, message, Author.USER))
-                .thenAccept((result -> chatService.answerMessage(channelId, message, uploadedFile)))
+        Message question;
+        try {
+            question = chatService.postMessage(channelId, message, Author.USER);
+        } catch (IllegalArgumentException e) {
+            showError(e.getMessage());
+            return;
+        }
+        llmExecutor.submit(channelId, () -> chatService.answerMessage(question, uploadedFile))
                 .exceptionally(ex -> {
-                    messageService.deleteLastUserMessage(channelId);
-                    getUI().ifPresent(ui -> ui.access(() -> {
-                        Notification notification = Notification.show(
-                                "오류 발생: " + ex.getMessage(), 3000, Notification.Position.TOP_CENTER);
-                        notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
-                        notification.open();
-                    }));
-                    receivedMessages.getLast().ifPresent(receivedMessages::remove);
-                    receiveMessages(List.of());
+                    boolean deleted = messageService.deleteLastMessage(channelId, question.messageId());
+                    var cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    showError(cause.getMessage());
+                    if (deleted) {
+                        getUI().ifPresent(ui -> ui.access(() -> {
+                            receivedMessages.remove(question);
+                            renderMessages();
+                        }));
+                    }
                     return null;
                 })
                 .thenRun(() -> getUI().ifPresent(ui -> ui.access(upload::clearFileList)));
     }
 
+    private void showError(String message) {
+        getUI().ifPresent(ui -> ui.access(() -> {
+            Notification notification = Notification.show(
+                    "오류 발생: " + message, 3000, Notification.Position.TOP_CENTER);
+            notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
+            notification.open();
+        }));
+    }
+
 
     @Override
     public String getPageTitle() {
@@ -165,14 +277,34 @@ public class ChannelView extends VerticalLayout implements HasUrlParameter<Strin
     /**
      * 현재 채널의 메시지를 구독합니다.
      * 이전 메시지 기록을 불러오고 실시간 메시지 업데이트를 시작합니다.
+     * 실시간 메시지는 UI가 이전 묶음을 반영한 뒤에 다음 묶음을 요청하므로, 느린 세션의 메시지는 서버의 구독자 대기열에 쌓입니다.
+     * 생성 중인 AI 응답은 저장된 메시지 뒤에 표시하고, 생성이 끝나면 제거합니다.
      *
      * @return 구독 객체
      */
     private Disposable subscribe() {
-        var subscription = messageService.getLiveMessages(channelId).subscribe(this::receiveMessages);
+        var liveSubscriber = new BaseSubscriber<LiveMessageBatch>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(LiveMessageBatch batch) {
+                getUI().ifPresentOrElse(ui -> ui.access(() -> {
+                    if (batch.gapBefore()) {
+                        receivedMessages.addAll(messageService.getMessageHistory(channelId, HISTORY_SIZE, null));
+                    }
+                    showMessages(batch.messages());
+                    request(1);
+                }), () -> request(1));
+            }
+        };
+        messageService.getLiveMessages(channelId).subscribe(liveSubscriber);
+        var draftSubscription = messageService.getLiveDrafts(channelId).subscribe(this::receiveDraft);
         var lastSeenMessageId = receivedMessages.getLast().map(Message::messageId).orElse(null);
         receiveMessages(messageService.getMessageHistory(channelId, HISTORY_SIZE, lastSeenMessageId));
-        return subscription;
+        return Disposables.composite(liveSubscriber, draftSubscription);
     }
 
     /**
@@ -181,14 +313,78 @@ public class ChannelView extends VerticalLayout implements HasUrlParameter<Strin
      * @param incoming 수신된 메시지 리스트
      */
     private void receiveMessages(List<Message> incoming) {
+        getUI().ifPresent(ui -> ui.access(() -> showMessages(incoming)));
+    }
+
+    /**
+     * 메시지를 추가하고 메시지 목록을 갱신합니다. UI 잠금을 가진 상태에서 호출해야 합니다.
+     *
+     * @param incoming 추가할 메시지 리스트
+     */
+    private void showMessages(List<Message> incoming) {
+        receivedMessages.addAll(incoming);
+        renderMessages();
+    }
+
+    /**
+     * 생성 중인 메시지를 갱신하거나, 생성이 끝났으면 제거합니다.
+     * 이미 표시 중인 메시지는 목록을 다시 설정하지 않고 해당 항목의 본문만 갱신합니다.
+     *
+     * @param draft 생성 중인 메시지
+     */
+    private void receiveDraft(MessageDraft draft) {
         getUI().ifPresent(ui -> ui.access(() -> {
-            receivedMessages.addAll(incoming);
-            messageList.setItems(receivedMessages.stream()
-                    .map(this::createMessageListItem)
-                    .toList());
+            var item = draftItems.get(draft.draftId());
+            if (draft.completed()) {
+                if (draftItems.remove(draft.draftId()) != null) {
+                    renderMessages();
+                }
+            } else if (item != null) {
+                item.setText(draft.text());
+            } else {
+                draftItems.put(draft.draftId(), createDraftListItem(draft));
+                renderMessages();
+            }
         }));
     }
 
+    /**
+     * 표시할 항목 목록을 만들고, 표시 중인 목록과 항목이 하나라도 다를 때만 목록을 다시 설정합니다.
+     * 변경이 없는 묶음(이미 받은 메시지 등)은 브라우저로 아무것도 보내지 않습니다.
+     */
+    private void renderMessages() {
+        var items = Stream.concat(
+                        receivedMessages.stream().map(message ->
+                                messageItems.computeIfAbsent(message.sequenceNumber(), sequenceNumber -> createMessageListItem(message))),
+                        draftItems.values().stream())
+                .toList();
+        if (sameItems(items, renderedItems)) {
+            return;
+        }
+        var visibleSequenceNumbers = receivedMessages.stream().map(Message::sequenceNumber).collect(Collectors.toSet());
+        messageItems.keySet().retainAll(visibleSequenceNumbers);
+        renderedItems = items;
+        messageList.setItems(items);
+    }
+
+    private static boolean sameItems(List<MessageListItem> items, List<MessageListItem> other) {
+        if (items.size() != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) != other.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MessageListItem createDraftListItem(MessageDraft draft) {
+        MessageListItem item = new MessageListItem(draft.text(), null, draft.author());
+        item.setUserColorIndex(draft.color());
+        return item;
+    }
+
     private MessageListItem createMessageListItem(Message message) {
         MessageListItem item = new MessageListItem(message.message(), message.timestamp(), message.author());
         item.setUserColorIndex(message.color());
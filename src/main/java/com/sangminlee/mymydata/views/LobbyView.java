@@ -1,16 +1,19 @@
 package com.sangminlee.mymydata.views;
 
+import com.sangminlee.mymydata.constant.ChannelSort;
 import com.sangminlee.mymydata.service.ChannelService;
 import com.sangminlee.mymydata.vo.Channel;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.component.virtuallist.VirtualList;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.RouterLink;
@@ -20,6 +23,7 @@ import com.vaadin.flow.router.RouterLink;
 public class LobbyView extends VerticalLayout {
 
     private final ChannelService channelService;
+    private final TextField channelFilterField;
     private final VirtualList<Channel> channels;
     private final TextField channelNameField;
     private final Button addChannelButton;
@@ -28,6 +32,15 @@ public class LobbyView extends VerticalLayout {
         this.channelService = channelService;
         setSizeFull();
 
+        channelFilterField = new TextField();
+        channelFilterField.setPlaceholder("Search channels");
+        channelFilterField.setPrefixComponent(VaadinIcon.SEARCH.create());
+        channelFilterField.setClearButtonVisible(true);
+        channelFilterField.setWidthFull();
+        channelFilterField.setValueChangeMode(ValueChangeMode.LAZY);
+        channelFilterField.addValueChangeListener(event -> refreshChannels());
+        add(channelFilterField);
+
         channels = new VirtualList<>();
         channels.setRenderer(new ComponentRenderer<>(this::createChannelComponent));
         add(channels);
@@ -50,8 +63,15 @@ public class LobbyView extends VerticalLayout {
         return new RouterLink(channel.name(), ChannelView.class, channel.id());
     }
 
+    /**
+     * 채널 목록을 필요한 구간만 서버에서 조회하도록 설정합니다.
+     * VirtualList가 화면에 보이는 범위의 offset/limit으로 요청하므로, 전체 채널 목록을 만들거나 전송하지 않습니다.
+     */
     private void refreshChannels() {
-        channels.setItems(channelService.getAllChannels());
+        var namePrefix = channelFilterField.getValue().strip();
+        channels.setItems(
+                query -> channelService.findChannels(namePrefix, query.getOffset(), query.getLimit(), ChannelSort.NAME_ASC).stream(),
+                query -> channelService.countChannels(namePrefix));
     }
 
     @Override
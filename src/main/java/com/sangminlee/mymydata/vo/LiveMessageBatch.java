@@ -0,0 +1,12 @@
+package com.sangminlee.mymydata.vo;
+
+import java.util.List;
+
+/**
+ * 구독자에게 전달되는 실시간 메시지 묶음입니다.
+ *
+ * @param messages  일련번호 오름차순으로 정렬된 메시지 리스트
+ * @param gapBefore 이 묶음 앞에서 구독자 대기열이 넘쳐 메시지가 버려졌는지 여부
+ */
+public record LiveMessageBatch(List<Message> messages, boolean gapBefore) {
+}
@@ -0,0 +1,14 @@
+package com.sangminlee.mymydata.vo;
+
+/**
+ * 생성 중인 메시지입니다. 저장되지 않으며, 실시간으로 구독자에게만 전달됩니다.
+ *
+ * @param draftId   생성 중인 메시지를 식별하는 ID
+ * @param channelId 메시지가 속한 채널 ID
+ * @param author    작성자 표시 이름
+ * @param text      지금까지 생성된 본문
+ * @param color     작성자 색상 인덱스
+ * @param completed 생성이 끝났는지 여부 (끝난 경우 최종 메시지가 저장된 뒤 발행됩니다)
+ */
+public record MessageDraft(String draftId, String channelId, String author, String text, int color, boolean completed) {
+}
@@ -0,0 +1,4 @@
+package com.sangminlee.mymydata.vo;
+
+public record MessageSearchHit(Message message, double score) {
+}
@@ -0,0 +1,6 @@
+package com.sangminlee.mymydata.vo;
+
+import java.util.List;
+
+public record MessagesSavedEvent(List<Message> messages) {
+}
@@ -0,0 +1,67 @@
+package com.sangminlee.mymydata.bus;
+
+import com.sangminlee.mymydata.vo.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.sangminlee.mymydata.vo.MessageFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SequenceOrdererTest {
+
+    private final Scheduler scheduler = Schedulers.newSingle("orderer-test");
+    private final List<Message> delivered = new CopyOnWriteArrayList<>();
+    private final SequenceOrderer orderer = new SequenceOrderer(Duration.ofMillis(200), scheduler,
+            messages -> delivered.addAll(messages));
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    @DisplayName("순서대로 도착한 메시지는 즉시 전달")
+    void inOrderMessagesShouldBeDeliveredImmediatelyTest() {
+        orderer.accept(List.of(message("channel1", 1), message("channel1", 2)));
+        orderer.accept(List.of(message("channel1", 3)));
+
+        assertEquals(List.of(message("channel1", 1), message("channel1", 2), message("channel1", 3)), delivered);
+    }
+
+    @Test
+    @DisplayName("빠진 일련번호가 도착하면 보류한 메시지를 순서대로 전달")
+    void outOfOrderMessagesShouldBeReorderedTest() {
+        orderer.accept(List.of(message("channel1", 1)));
+        orderer.accept(List.of(message("channel1", 3)));
+        orderer.accept(List.of(message("channel2", 7)));
+        assertEquals(List.of(message("channel1", 1), message("channel2", 7)), delivered);
+
+        orderer.accept(List.of(message("channel1", 2)));
+        assertEquals(List.of(message("channel1", 1), message("channel2", 7), message("channel1", 2), message("channel1", 3)), delivered);
+    }
+
+    @Test
+    @DisplayName("빠진 일련번호가 보류 시간 안에 오지 않으면 건너뛰고 전달")
+    void missingSequenceNumberShouldBeSkippedAfterWindowTest() throws InterruptedException {
+        orderer.accept(List.of(message("channel1", 1)));
+        orderer.accept(List.of(message("channel1", 4), message("channel1", 3)));
+        assertEquals(List.of(message("channel1", 1)), delivered);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (delivered.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(message("channel1", 1), message("channel1", 3), message("channel1", 4)), delivered);
+
+        orderer.accept(List.of(message("channel1", 5)));
+        assertEquals(message("channel1", 5), delivered.getLast());
+    }
+}
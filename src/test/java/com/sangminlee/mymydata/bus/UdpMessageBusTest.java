@@ -0,0 +1,111 @@
+package com.sangminlee.mymydata.bus;
+
+import com.sangminlee.mymydata.vo.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.sangminlee.mymydata.vo.MessageFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UdpMessageBusTest {
+
+    private final List<Message> receivedByA = new CopyOnWriteArrayList<>();
+    private final List<Message> receivedByB = new CopyOnWriteArrayList<>();
+    private UdpMessageBus nodeA;
+    private UdpMessageBus nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = new UdpMessageBus("node-a", 0, List.of(), Duration.ofMillis(100), true);
+        nodeB = new UdpMessageBus("node-b", 0, List.of(), Duration.ofMillis(100), true);
+        nodeA.addPeer(loopback(nodeB));
+        nodeB.addPeer(loopback(nodeA));
+        nodeA.subscribe(receivedByA::addAll);
+        nodeB.subscribe(receivedByB::addAll);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    private static InetSocketAddress loopback(UdpMessageBus node) {
+        return new InetSocketAddress("127.0.0.1", node.localAddress().getPort());
+    }
+
+    private void await(List<Message> received, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("한 노드에서 발행한 메시지를 다른 노드의 리스너도 받음")
+    void publishedMessagesShouldReachOtherNodeTest() throws InterruptedException {
+        var messages = IntStream.rangeClosed(1, 500).mapToObj(i -> message("channel1", i)).toList();
+
+        nodeA.publish(messages);
+
+        await(receivedByB, messages.size());
+        assertEquals(messages, receivedByA);
+        assertEquals(messages, receivedByB);
+    }
+
+    @Test
+    @DisplayName("자기 노드가 보낸 데이터그램과 이미 받은 메시지는 다시 전달하지 않음")
+    void ownAndDuplicateMessagesShouldBeIgnoredTest() throws InterruptedException {
+        nodeA.addPeer(loopback(nodeA));
+        nodeA.addPeer(loopback(nodeB));
+
+        nodeA.publish(List.of(message("channel1", 1)));
+        nodeA.publish(List.of(message("channel1", 2)));
+        await(receivedByB, 2);
+        Thread.sleep(200);
+
+        assertEquals(List.of(message("channel1", 1), message("channel1", 2)), receivedByA);
+        assertEquals(List.of(message("channel1", 1), message("channel1", 2)), receivedByB);
+    }
+
+    @Test
+    @DisplayName("여러 노드에서 발행된 메시지를 채널별 일련번호 순으로 전달")
+    void messagesFromBothNodesShouldBeOrderedTest() throws InterruptedException {
+        nodeA.publish(List.of(message("channel1", 1)));
+        await(receivedByB, 1);
+
+        nodeB.publish(List.of(message("channel1", 3)));
+        nodeA.publish(List.of(message("channel1", 2)));
+        await(receivedByA, 3);
+        await(receivedByB, 3);
+
+        var expected = List.of(message("channel1", 1), message("channel1", 2), message("channel1", 3));
+        assertEquals(expected, receivedByA);
+        assertEquals(expected, receivedByB);
+    }
+
+    @Test
+    @DisplayName("저장소를 공유하지 않는 노드에서는 시작하지 않음")
+    void requireSharedStoreTest() {
+        assertThrows(IllegalStateException.class, () -> new UdpMessageBus("node-c", 0, List.of(), Duration.ofMillis(100), false));
+    }
+
+    @Test
+    @DisplayName("닫으면 송신 스레드와 수신 스레드가 모두 끝남")
+    void closeShouldStopThreadsTest() {
+        nodeA.close();
+
+        assertFalse(nodeA.isRunning());
+    }
+}
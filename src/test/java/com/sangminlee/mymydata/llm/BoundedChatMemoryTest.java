@@ -0,0 +1,133 @@
+package com.sangminlee.mymydata.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedChatMemoryTest {
+
+    private final Instant NOW = Instant.parse("2023-01-01T00:00:00Z");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock(NOW);
+
+    private List<Message> messages(String prefix, int count) {
+        return IntStream.rangeClosed(1, count).<Message>mapToObj(i -> new UserMessage(prefix + i)).toList();
+    }
+
+    @Test
+    @DisplayName("대화별 최대 개수를 넘으면 오래된 메시지부터 버림")
+    void addShouldKeepRecentMessagesPerConversationTest() {
+        var chatMemory = new BoundedChatMemory(3, Long.MAX_VALUE, Duration.ofHours(1), clock, meterRegistry);
+        var messages = messages("질문", 5);
+
+        chatMemory.add("channel1", messages);
+
+        assertEquals(messages.subList(2, 5), chatMemory.get("channel1", 100));
+        assertEquals(messages.subList(4, 5), chatMemory.get("channel1", 1));
+    }
+
+    @Test
+    @DisplayName("전체 크기가 예산을 넘으면 가장 오래 사용되지 않은 대화부터 제거")
+    void addOverBudgetShouldEvictLeastRecentlyUsedConversationTest() {
+        // 메시지 하나는 64바이트 오버헤드 + 본문 3자(6바이트)로 70바이트입니다.
+        var chatMemory = new BoundedChatMemory(100, 150, Duration.ofHours(1), clock, meterRegistry);
+        chatMemory.add("channel1", messages("질문", 1));
+        clock.now = NOW.plusSeconds(1);
+        chatMemory.add("channel2", messages("질문", 1));
+        clock.now = NOW.plusSeconds(2);
+        chatMemory.get("channel1", 100);
+
+        clock.now = NOW.plusSeconds(3);
+        chatMemory.add("channel3", messages("질문", 1));
+
+        assertEquals(1, chatMemory.get("channel1", 100).size());
+        assertEquals(List.of(), chatMemory.get("channel2", 100));
+        assertEquals(1, chatMemory.get("channel3", 100).size());
+        assertEquals(140, chatMemory.retainedBytes());
+        assertEquals(2, meterRegistry.get("mymydata.chat.memory.conversations").gauge().value());
+        assertEquals(1, meterRegistry.get("mymydata.chat.memory.evicted").tag("reason", "budget").counter().count());
+    }
+
+    @Test
+    @DisplayName("오래 사용되지 않은 대화는 다음 정리 때 만료")
+    void addShouldExpireIdleConversationsTest() {
+        var chatMemory = new BoundedChatMemory(100, Long.MAX_VALUE, Duration.ofMinutes(10), clock, meterRegistry);
+        chatMemory.add("channel1", messages("질문", 1));
+
+        clock.now = NOW.plus(Duration.ofMinutes(10));
+        chatMemory.add("channel2", messages("질문", 1));
+
+        assertEquals(List.of(), chatMemory.get("channel1", 100));
+        assertEquals(1, chatMemory.get("channel2", 100).size());
+        assertEquals(1, meterRegistry.get("mymydata.chat.memory.evicted").tag("reason", "idle").counter().count());
+    }
+
+    @Test
+    @DisplayName("대화 초기화 시 보관 크기에서 제외")
+    void clearShouldReleaseBytesTest() {
+        var chatMemory = new BoundedChatMemory(100, Long.MAX_VALUE, Duration.ofHours(1), clock, meterRegistry);
+        chatMemory.add("channel1", messages("질문", 2));
+
+        chatMemory.clear("channel1");
+
+        assertEquals(List.of(), chatMemory.get("channel1", 100));
+        assertEquals(0, chatMemory.retainedBytes());
+        assertEquals(0, meterRegistry.get("mymydata.chat.memory.bytes").gauge().value());
+    }
+
+    @Test
+    @DisplayName("여러 세션이 동시에 추가해도 메시지를 잃지 않음")
+    void concurrentAddShouldNotLoseMessagesTest() {
+        var chatMemory = new BoundedChatMemory(10_000, Long.MAX_VALUE, Duration.ofHours(1), Clock.systemUTC(), meterRegistry);
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        for (int session = 0; session < 8; session++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 500; i++) {
+                    chatMemory.add("channel" + (i % 4), List.of(new UserMessage("질문")));
+                }
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        int total = IntStream.range(0, 4).map(i -> chatMemory.get("channel" + i, Integer.MAX_VALUE).size()).sum();
+        assertEquals(8 * 500, total);
+        assertEquals(8 * 500 * 68L, chatMemory.retainedBytes());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
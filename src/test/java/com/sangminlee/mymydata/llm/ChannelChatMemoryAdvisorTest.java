@@ -0,0 +1,27 @@
+package com.sangminlee.mymydata.llm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChannelChatMemoryAdvisorTest {
+
+    @Test
+    @DisplayName("대화 ID에서 질문의 일련번호를 분리")
+    void splitSequencedKeyTest() {
+        assertEquals("channel1", ChannelChatMemoryAdvisor.conversationId("channel1#42"));
+        assertEquals(OptionalLong.of(42), ChannelChatMemoryAdvisor.questionSequenceNumber("channel1#42"));
+    }
+
+    @Test
+    @DisplayName("일련번호가 없는 대화 ID는 그대로 사용")
+    void plainKeyTest() {
+        assertEquals("channel1", ChannelChatMemoryAdvisor.conversationId("channel1"));
+        assertEquals(OptionalLong.empty(), ChannelChatMemoryAdvisor.questionSequenceNumber("channel1"));
+        assertEquals("channel#a", ChannelChatMemoryAdvisor.conversationId("channel#a"));
+        assertEquals(OptionalLong.empty(), ChannelChatMemoryAdvisor.questionSequenceNumber("channel#"));
+    }
+}
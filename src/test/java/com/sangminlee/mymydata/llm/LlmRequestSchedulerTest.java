@@ -0,0 +1,109 @@
+package com.sangminlee.mymydata.llm;
+
+import com.sangminlee.mymydata.constant.LlmPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmRequestSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private long elapsedMillis(long startedAt) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+
+    private void awaitQueued(double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("mymydata.llm.scheduler.queued").gauge().value() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, meterRegistry.get("mymydata.llm.scheduler.queued").gauge().value());
+    }
+
+    private CompletableFuture<Void> acquireAsync(LlmRequestScheduler scheduler, LlmPriority priority, List<LlmPriority> order) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                scheduler.acquire(1, priority);
+                order.add(priority);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("한도 안의 요청은 기다리지 않음")
+    void shouldNotWaitWithinLimitsTest() throws InterruptedException {
+        var scheduler = new LlmRequestScheduler("chat", 600, 60_000, meterRegistry);
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            scheduler.acquire(100, LlmPriority.INTERACTIVE);
+        }
+
+        assertTrue(elapsedMillis(startedAt) < 50);
+    }
+
+    @Test
+    @DisplayName("분당 토큰 수를 다 쓰면 필요한 토큰이 채워질 때까지 기다림")
+    void shouldWaitForTokenRefillTest() throws InterruptedException {
+        var scheduler = new LlmRequestScheduler("chat", 600, 6_000, meterRegistry);
+        scheduler.acquire(6_000, LlmPriority.INTERACTIVE);
+
+        long startedAt = System.nanoTime();
+        scheduler.acquire(10, LlmPriority.INTERACTIVE);
+
+        long elapsed = elapsedMillis(startedAt);
+        assertTrue(elapsed >= 80, "elapsed " + elapsed + "ms");
+        assertTrue(elapsed < 1000, "elapsed " + elapsed + "ms");
+    }
+
+    @Test
+    @DisplayName("한도를 기다리는 중에는 채팅 요청이 먼저 온 문서 적재 요청보다 먼저 보내짐")
+    void interactiveRequestShouldOvertakeBackgroundTest() throws Exception {
+        var scheduler = new LlmRequestScheduler("chat", 600, 1_000_000, meterRegistry);
+        for (int i = 0; i < 600; i++) {
+            scheduler.acquire(1, LlmPriority.INTERACTIVE);
+        }
+        var order = new CopyOnWriteArrayList<LlmPriority>();
+
+        var background = acquireAsync(scheduler, LlmPriority.BACKGROUND, order);
+        awaitQueued(1);
+        var interactive = acquireAsync(scheduler, LlmPriority.INTERACTIVE, order);
+        CompletableFuture.allOf(background, interactive).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(LlmPriority.INTERACTIVE, LlmPriority.BACKGROUND), order);
+        assertEquals(0, meterRegistry.get("mymydata.llm.scheduler.queued").gauge().value());
+    }
+
+    @Test
+    @DisplayName("실제 사용량이 예약보다 적으면 차이를 돌려받아 다음 요청이 기다리지 않음")
+    void settleShouldRefundUnusedTokensTest() throws InterruptedException {
+        var scheduler = new LlmRequestScheduler("chat", 600, 6_000, meterRegistry);
+
+        long reserved = scheduler.acquire(10_000, LlmPriority.INTERACTIVE);
+        scheduler.settle(reserved, 1_000);
+        long startedAt = System.nanoTime();
+        scheduler.acquire(4_000, LlmPriority.INTERACTIVE);
+
+        assertEquals(6_000, reserved);
+        assertTrue(elapsedMillis(startedAt) < 50);
+    }
+
+    @Test
+    @DisplayName("작업 중에만 지정한 우선순위가 적용됨")
+    void callWithPriorityShouldRestorePriorityTest() throws Exception {
+        var inside = LlmRequestScheduler.callWithPriority(LlmPriority.BACKGROUND, LlmRequestScheduler::currentPriority);
+
+        assertEquals(LlmPriority.BACKGROUND, inside);
+        assertEquals(LlmPriority.INTERACTIVE, LlmRequestScheduler.currentPriority());
+    }
+}
@@ -0,0 +1,93 @@
+package com.sangminlee.mymydata.llm;
+
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.repository.MessageRepository;
+import com.sangminlee.mymydata.vo.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageRepositoryChatMemoryTest {
+
+    private final String CHANNEL_ID = "channel1";
+    private final Instant NOW = Instant.parse("2023-01-01T00:00:00Z");
+    @Mock
+    private MessageRepository messageRepository;
+    private MessageRepositoryChatMemory chatMemory;
+
+    @BeforeEach
+    void setUp() {
+        chatMemory = new MessageRepositoryChatMemory(messageRepository);
+    }
+
+    private Message message(long sequenceNumber, Author author, String text) {
+        return new Message("msg" + sequenceNumber, CHANNEL_ID, sequenceNumber, NOW, author.getName(), text, author.getColor());
+    }
+
+    @Test
+    @DisplayName("채널 메시지를 작성자에 따라 user/assistant 메시지로 변환")
+    void getShouldMapAuthorsToRolesTest() {
+        when(messageRepository.findLatest(CHANNEL_ID, 2)).thenReturn(List.of(
+                message(1, Author.USER, "전송요구권이 뭐야?"),
+                message(2, Author.ASSISTANT, "정보주체가 전송을 요구하는 권리입니다.")));
+
+        var history = chatMemory.get(CHANNEL_ID, 2);
+
+        assertEquals(2, history.size());
+        assertInstanceOf(UserMessage.class, history.get(0));
+        assertEquals("전송요구권이 뭐야?", history.get(0).getContent());
+        assertEquals("msg1", history.get(0).getMetadata().get(MessageRepositoryChatMemory.MESSAGE_ID_KEY));
+        assertInstanceOf(AssistantMessage.class, history.get(1));
+        assertEquals("정보주체가 전송을 요구하는 권리입니다.", history.get(1).getContent());
+    }
+
+    @Test
+    @DisplayName("질문의 일련번호 이전 메시지만 반환하여 응답 중인 질문과 대기 중인 질문을 제외")
+    void getBeforeShouldExcludeQuestionAndQueuedQuestionsTest() {
+        when(messageRepository.findBefore(CHANNEL_ID, 3, 2)).thenReturn(List.of(
+                message(1, Author.USER, "전송요구권이 뭐야?"),
+                message(2, Author.ASSISTANT, "정보주체가 전송을 요구하는 권리입니다.")));
+
+        var history = chatMemory.getBefore(CHANNEL_ID, 3, 2);
+
+        assertEquals(List.of("전송요구권이 뭐야?", "정보주체가 전송을 요구하는 권리입니다."),
+                history.stream().map(org.springframework.ai.chat.messages.Message::getContent).toList());
+        verify(messageRepository, never()).findLatest(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("마지막 메시지가 사용자 메시지여도 최근 메시지를 그대로 반환")
+    void getShouldKeepTrailingUserMessageTest() {
+        when(messageRepository.findLatest(CHANNEL_ID, 2)).thenReturn(List.of(
+                message(2, Author.ASSISTANT, "정보주체가 전송을 요구하는 권리입니다."),
+                message(3, Author.USER, "철회는 어떻게 해?")));
+
+        var history = chatMemory.get(CHANNEL_ID, 2);
+
+        assertEquals(List.of("정보주체가 전송을 요구하는 권리입니다.", "철회는 어떻게 해?"),
+                history.stream().map(org.springframework.ai.chat.messages.Message::getContent).toList());
+    }
+
+    @Test
+    @DisplayName("대화 기억 추가와 초기화는 저장소를 변경하지 않음")
+    void addAndClearShouldNotTouchRepositoryTest() {
+        chatMemory.add(CHANNEL_ID, List.of(new UserMessage("전송요구권이 뭐야?")));
+        chatMemory.clear(CHANNEL_ID);
+
+        verifyNoInteractions(messageRepository);
+    }
+}
@@ -0,0 +1,98 @@
+package com.sangminlee.mymydata.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>(meterRegistry.counter("coalesced"));
+
+    private void awaitInFlight(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.inFlight() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, singleFlight.inFlight());
+    }
+
+    @Test
+    @DisplayName("실행 중인 같은 키의 요청은 한 번만 실행하고 결과를 함께 받음")
+    void concurrentSameKeyShouldExecuteOnceTest() throws Exception {
+        var executions = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        var first = CompletableFuture.supplyAsync(() -> singleFlight.execute("전송요구권", () -> {
+            executions.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return "응답";
+        }));
+        awaitInFlight(1);
+
+        var second = CompletableFuture.supplyAsync(() -> singleFlight.execute("전송요구권", () -> {
+            executions.incrementAndGet();
+            return "다른 응답";
+        }));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("coalesced").count() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals("응답", first.get(5, TimeUnit.SECONDS));
+        assertEquals("응답", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+        assertEquals(1, meterRegistry.counter("coalesced").count());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    @DisplayName("작업이 끝난 뒤의 같은 키 요청은 다시 실행")
+    void completedKeyShouldExecuteAgainTest() {
+        var executions = new AtomicInteger();
+
+        singleFlight.execute("전송요구권", () -> "응답" + executions.incrementAndGet());
+        var result = singleFlight.execute("전송요구권", () -> "응답" + executions.incrementAndGet());
+
+        assertEquals("응답2", result);
+        assertEquals(0, meterRegistry.counter("coalesced").count());
+    }
+
+    @Test
+    @DisplayName("실패한 작업의 예외를 합쳐진 요청에도 전달하고 키를 제거")
+    void failureShouldPropagateToWaitersTest() throws Exception {
+        var release = new CountDownLatch(1);
+        var first = CompletableFuture.supplyAsync(() -> singleFlight.execute("전송요구권", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            throw new IllegalStateException("rate limit");
+        }));
+        awaitInFlight(1);
+        var second = CompletableFuture.supplyAsync(() -> singleFlight.execute("전송요구권", () -> "응답"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("coalesced").count() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        var firstError = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+        var secondError = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, firstError.getCause());
+        assertInstanceOf(IllegalStateException.class, secondError.getCause());
+        assertEquals(0, singleFlight.inFlight());
+    }
+}
@@ -0,0 +1,163 @@
+package com.sangminlee.mymydata.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenBudgetChatMemoryTest {
+
+    private final String CONVERSATION_ID = "channel1";
+    @Mock
+    private ChatModel chatModel;
+    @Mock
+    private TokenCountEstimator tokenCountEstimator;
+    @Mock
+    private Clock clock;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private long now = 1_000_000;
+    private TokenBudgetChatMemory chatMemory;
+
+    @BeforeEach
+    void setUp() {
+        // 테스트에서는 글자 수를 토큰 수로 사용합니다.
+        lenient().when(tokenCountEstimator.estimate(anyString())).thenAnswer(invocation -> ((String) invocation.getArgument(0)).length());
+        lenient().when(clock.millis()).thenAnswer(invocation -> now);
+        chatMemory = tokenBudgetChatMemory(new InMemoryChatMemory(), Long.MAX_VALUE);
+    }
+
+    private TokenBudgetChatMemory tokenBudgetChatMemory(ChatMemory delegate, long maxSummaryBytes) {
+        return new TokenBudgetChatMemory(delegate, chatModel, tokenCountEstimator, "{summary}\n{conversation}", 50,
+                Runnable::run, Duration.ofMinutes(10), maxSummaryBytes, clock, meterRegistry);
+    }
+
+    private List<Message> messages(int count) {
+        return java.util.stream.IntStream.rangeClosed(1, count)
+                .<Message>mapToObj(i -> i % 2 == 1
+                        ? new UserMessage("질문%02d 마이데이터 전송요구권이 뭐예요".formatted(i).substring(0, 20))
+                        : new AssistantMessage("답변%02d 정보주체가 전송을 요구하는 권리".formatted(i).substring(0, 20)))
+                .toList();
+    }
+
+    @Test
+    @DisplayName("예산 안의 대화 기억은 요약 없이 그대로 반환")
+    void getWithinBudgetShouldReturnAllMessagesTest() {
+        var messages = messages(2);
+        chatMemory.add(CONVERSATION_ID, messages);
+
+        assertEquals(messages, chatMemory.get(CONVERSATION_ID, 100));
+        verifyNoInteractions(chatModel);
+    }
+
+    @Test
+    @DisplayName("예산을 넘은 오래된 메시지는 백그라운드에서 요약하고 다음 조회부터 요약으로 대신함")
+    void getOverBudgetShouldReplaceOldMessagesWithSummaryTest() {
+        var messages = messages(4);
+        chatMemory.add(CONVERSATION_ID, messages);
+        when(chatModel.call(anyString())).thenReturn("요약1", "요약2");
+
+        var first = chatMemory.get(CONVERSATION_ID, 100);
+        var second = chatMemory.get(CONVERSATION_ID, 100);
+
+        assertEquals(messages.subList(2, 4), first);
+        assertInstanceOf(SystemMessage.class, second.getFirst());
+        assertTrue(second.getFirst().getContent().contains("요약1"));
+        assertEquals(messages.getLast(), second.getLast());
+        verify(chatModel, times(2)).call(anyString());
+    }
+
+    @Test
+    @DisplayName("최근 메시지 수 제한을 지킴")
+    void getShouldRespectLastNTest() {
+        var messages = messages(2);
+        chatMemory.add(CONVERSATION_ID, messages);
+
+        assertEquals(messages.subList(1, 2), chatMemory.get(CONVERSATION_ID, 1));
+        verifyNoInteractions(chatModel);
+    }
+
+    @Test
+    @DisplayName("대화 초기화 시 요약도 제거")
+    void clearShouldRemoveSummaryTest() {
+        chatMemory.add(CONVERSATION_ID, messages(4));
+        when(chatModel.call(anyString())).thenReturn("요약");
+        chatMemory.get(CONVERSATION_ID, 100);
+
+        chatMemory.clear(CONVERSATION_ID);
+
+        assertEquals(List.of(), chatMemory.get(CONVERSATION_ID, 100));
+    }
+
+    @Test
+    @DisplayName("질문의 일련번호가 붙은 대화 ID는 그 질문 이전 메시지만 읽고 원래 대화 ID로 저장")
+    void sequencedKeyShouldReadBeforeQuestionTest() {
+        var delegate = mock(SequencedChatMemory.class);
+        var messages = messages(2);
+        when(delegate.getBefore(CONVERSATION_ID, 5, 100)).thenReturn(messages);
+        var sequencedMemory = tokenBudgetChatMemory(delegate, Long.MAX_VALUE);
+
+        assertEquals(messages, sequencedMemory.get(CONVERSATION_ID + "#5", 100));
+        sequencedMemory.add(CONVERSATION_ID + "#5", messages);
+
+        verify(delegate).add(CONVERSATION_ID, messages);
+        verify(delegate, never()).get(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("오래 조회되지 않은 요약은 다음 요약을 저장할 때 만료")
+    void idleSummaryShouldExpireTest() {
+        when(chatModel.call(anyString())).thenReturn("요약");
+        chatMemory.add("channel1", messages(4));
+        chatMemory.add("channel2", messages(4));
+        chatMemory.get("channel1", 100);
+        long summaryBytes = chatMemory.summaryBytes();
+
+        now += Duration.ofMinutes(10).toMillis();
+        chatMemory.get("channel2", 100);
+
+        assertTrue(summaryBytes > 0);
+        assertEquals(summaryBytes, chatMemory.summaryBytes());
+        assertEquals(summaryBytes, meterRegistry.get("mymydata.chat.memory.bytes").tag("type", "summaries").gauge().value());
+    }
+
+    @Test
+    @DisplayName("요약 전체 크기가 한도를 넘으면 가장 오래 조회되지 않은 요약부터 제거")
+    void summariesOverBudgetShouldEvictLeastRecentlyUsedTest() {
+        when(chatModel.call(anyString())).thenReturn("요약");
+        chatMemory.add("channel1", messages(4));
+        chatMemory.get("channel1", 100);
+        long summaryBytes = chatMemory.summaryBytes();
+        var boundedMemory = tokenBudgetChatMemory(new InMemoryChatMemory(), summaryBytes);
+        boundedMemory.add("channel1", messages(4));
+        boundedMemory.add("channel2", messages(4));
+        boundedMemory.get("channel1", 100);
+
+        now += 1;
+        boundedMemory.get("channel2", 100);
+
+        assertEquals(summaryBytes, boundedMemory.summaryBytes());
+        assertInstanceOf(SystemMessage.class, boundedMemory.get("channel2", 100).getFirst());
+        assertFalse(boundedMemory.get("channel1", 100).getFirst() instanceof SystemMessage);
+    }
+}
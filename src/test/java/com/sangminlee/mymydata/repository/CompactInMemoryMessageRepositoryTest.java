@@ -0,0 +1,12 @@
+package com.sangminlee.mymydata.repository;
+
+/**
+ * {@link InMemoryMessageRepositoryTest}의 모든 시나리오를 {@link MessageLayout#COMPACT} 보관 방식으로 다시 실행합니다.
+ */
+class CompactInMemoryMessageRepositoryTest extends InMemoryMessageRepositoryTest {
+
+    @Override
+    MessageLayout layout() {
+        return MessageLayout.COMPACT;
+    }
+}
@@ -1,7 +1,10 @@
 package com.sangminlee.mymydata.repository;
 
+import com.sangminlee.mymydata.constant.ChannelSort;
 import com.sangminlee.mymydata.vo.Channel;
 import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageDeletedEvent;
+import com.sangminlee.mymydata.vo.MessagesSavedEvent;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,7 +17,9 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class InMemoryChannelRepositoryTest {
@@ -50,13 +55,54 @@ class InMemoryChannelRepositoryTest {
         Channel savedChannel = channelRepository.findAll().getFirst();
 
         Message latestMessage = new Message("msg1", savedChannel.id(), 1L, Instant.now(), "user", "Hello", 0);
-        when(messageRepository.findLatest(savedChannel.id(), 1)).thenReturn(List.of(latestMessage));
+        channelRepository.onMessagesSaved(new MessagesSavedEvent(List.of(latestMessage)));
 
         List<Channel> channels = channelRepository.findAll();
         assertEquals(1, channels.size());
         Channel channel = channels.getFirst();
         assertEquals("Channel 1", channel.name());
         assertEquals(latestMessage, channel.lastMessage());
+        assertEquals(latestMessage, channelRepository.findById(savedChannel.id()).orElseThrow().lastMessage());
+        verify(messageRepository, never()).findLatest(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("이름순으로 정렬된 채널 목록 조회")
+    void findAll_SortedByNameTest() {
+        channelRepository.save("Channel B");
+        channelRepository.save("Channel C");
+        channelRepository.save("Channel A");
+
+        assertEquals(List.of("Channel A", "Channel B", "Channel C"), channelRepository.findAll().stream().map(Channel::name).toList());
+    }
+
+    @Test
+    @DisplayName("늦게 도착한 이전 메시지는 마지막 메시지를 덮어쓰지 않음")
+    void outOfOrderSavedEventTest() {
+        channelRepository.save("Channel 1");
+        String channelId = channelRepository.findAll().getFirst().id();
+        Message first = new Message("msg1", channelId, 1L, Instant.now(), "user", "Hello", 0);
+        Message second = new Message("msg2", channelId, 2L, Instant.now(), "user", "World", 0);
+
+        channelRepository.onMessagesSaved(new MessagesSavedEvent(List.of(second)));
+        channelRepository.onMessagesSaved(new MessagesSavedEvent(List.of(first)));
+
+        assertEquals(second, channelRepository.findAll().getFirst().lastMessage());
+    }
+
+    @Test
+    @DisplayName("메시지 삭제 후 마지막 메시지 갱신")
+    void messageDeletedEventTest() {
+        channelRepository.save("Channel 1");
+        String channelId = channelRepository.findAll().getFirst().id();
+        Message first = new Message("msg1", channelId, 1L, Instant.now(), "user", "Hello", 0);
+        Message second = new Message("msg2", channelId, 2L, Instant.now(), "user", "World", 0);
+        channelRepository.onMessagesSaved(new MessagesSavedEvent(List.of(first, second)));
+        when(messageRepository.findLatest(channelId, 1)).thenReturn(List.of(first));
+
+        channelRepository.onMessageDeleted(new MessageDeletedEvent(channelId));
+
+        assertEquals(first, channelRepository.findAll().getFirst().lastMessage());
     }
 
     @Test
@@ -101,4 +147,37 @@ class InMemoryChannelRepositoryTest {
     void exists_NonExistentChannelTest() {
         assertFalse(channelRepository.exists("non-existent-id"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("채널 수 조회와 구간 조회")
+    void countAndFindPageTest() {
+        for (int i = 0; i < 10; i++) {
+            channelRepository.save("Channel " + i);
+        }
+
+        assertEquals(10, channelRepository.count());
+        assertEquals(List.of("Channel 3", "Channel 4", "Channel 5"),
+                channelRepository.find(3, 3, ChannelSort.NAME_ASC).stream().map(Channel::name).toList());
+        assertEquals(List.of("Channel 9", "Channel 8"),
+                channelRepository.find(0, 2, ChannelSort.NAME_DESC).stream().map(Channel::name).toList());
+        assertEquals(List.of("Channel 9"), channelRepository.find(9, 5, ChannelSort.NAME_ASC).stream().map(Channel::name).toList());
+        assertTrue(channelRepository.find(20, 5, ChannelSort.NAME_ASC).isEmpty());
+    }
+
+    @Test
+    @DisplayName("대소문자를 구분하지 않는 이름 접두어 검색")
+    void findByNamePrefixTest() {
+        channelRepository.save("mydata 문의");
+        channelRepository.save("MyData 공지");
+        channelRepository.save("Lobby");
+        channelRepository.save("my");
+        channelRepository.save("Zebra");
+
+        assertEquals(3, channelRepository.count("MY"));
+        assertEquals(2, channelRepository.count("mydata"));
+        assertEquals(List.of("MyData 공지", "mydata 문의"),
+                channelRepository.find("myData", 0, 10, ChannelSort.NAME_ASC).stream().map(Channel::name).toList());
+        assertEquals(0, channelRepository.count("x"));
+        assertEquals(5, channelRepository.count(""));
+    }
+}
@@ -3,24 +3,64 @@ package com.sangminlee.mymydata.repository;
 import com.sangminlee.mymydata.constant.Author;
 import com.sangminlee.mymydata.vo.Message;
 import com.sangminlee.mymydata.vo.NewMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@ExtendWith(MockitoExtension.class)
 class InMemoryMessageRepositoryTest {
 
-    @InjectMocks
+    @TempDir
+    private Path coldPath;
+
+    private SimpleMeterRegistry meterRegistry;
     private InMemoryMessageRepository messageRepository;
 
+    @BeforeEach
+    void setUp() {
+        messageRepository = openRepository(0, DataSize.ofBytes(0));
+    }
+
+    MessageLayout layout() {
+        return MessageLayout.OBJECT;
+    }
+
+    private InMemoryMessageRepository openRepository(int hotMaxMessages, DataSize hotMaxSize) {
+        meterRegistry = new SimpleMeterRegistry();
+        return new InMemoryMessageRepository(hotMaxMessages, hotMaxSize, coldPath, layout(), meterRegistry);
+    }
+
+    private List<Message> saveMessages(String channelId, int count) {
+        var saved = new ArrayList<Message>();
+        for (int i = 0; i < count; i++) {
+            saved.add(messageRepository.save(new NewMessage(channelId, Instant.now(), "Message " + i, Author.USER)));
+        }
+        return saved;
+    }
+
+    private void deleteLatestMessage(String channelId) {
+        var last = messageRepository.findLatest(channelId, 1).getFirst();
+        assertTrue(messageRepository.deleteLastMessage(channelId, last.messageId()));
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
     @Test
     @DisplayName("빈 저장소에서 최신 메시지 찾기")
     void findLatest_EmptyRepositoryTest() {
@@ -57,6 +97,71 @@ class InMemoryMessageRepositoryTest {
         assertEquals("Message 4", newMessages.get(1).message());
     }
 
+    @Test
+    @DisplayName("마지막으로 본 메시지가 조회 범위보다 오래된 경우 최신 메시지만 조회")
+    void findLatestWithOldLastSeenMessageTest() {
+        for (int i = 0; i < 5; i++) {
+            messageRepository.save(new NewMessage("channel1", Instant.now(), "Message " + i, Author.USER));
+        }
+
+        String lastSeenMessageId = messageRepository.findLatest("channel1", 10).getFirst().messageId();
+
+        List<Message> newMessages = messageRepository.findLatest("channel1", 2, lastSeenMessageId);
+        assertEquals(2, newMessages.size());
+        assertEquals("Message 3", newMessages.get(0).message());
+        assertEquals("Message 4", newMessages.get(1).message());
+    }
+
+    @Test
+    @DisplayName("일련번호 이후의 메시지 조회")
+    void findAfterSequenceNumberTest() {
+        for (int i = 0; i < 5; i++) {
+            messageRepository.save(new NewMessage("channel1", Instant.now(), "Message " + i, Author.USER));
+        }
+        long sequenceNumber = messageRepository.findLatest("channel1", 10).get(1).sequenceNumber();
+
+        List<Message> messages = messageRepository.findAfter("channel1", sequenceNumber, 2);
+        assertEquals(2, messages.size());
+        assertEquals("Message 2", messages.get(0).message());
+        assertEquals("Message 3", messages.get(1).message());
+
+        assertTrue(messageRepository.findAfter("channel1", Long.MAX_VALUE, 10).isEmpty());
+        assertEquals(5, messageRepository.findAfter("channel1", 0, 10).size());
+        assertTrue(messageRepository.findAfter("channel2", 0, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("삭제된 메시지를 마지막으로 본 경우 최신 메시지 조회")
+    void findLatestAfterDeletedLastSeenMessageTest() {
+        messageRepository.save(new NewMessage("channel1", Instant.now(), "Message 0", Author.USER));
+        Message deleted = messageRepository.save(new NewMessage("channel1", Instant.now(), "Message 1", Author.USER));
+        assertTrue(messageRepository.deleteLastMessage("channel1", deleted.messageId()));
+        messageRepository.save(new NewMessage("channel1", Instant.now(), "Message 2", Author.USER));
+
+        List<Message> messages = messageRepository.findLatest("channel1", 10, deleted.messageId());
+        assertEquals(2, messages.size());
+        assertEquals("Message 0", messages.get(0).message());
+        assertEquals("Message 2", messages.get(1).message());
+    }
+
+    @Test
+    @DisplayName("여러 채널의 메시지 일괄 저장")
+    void saveAllTest() {
+        List<NewMessage> newMessages = List.of(
+                new NewMessage("channel1", Instant.now(), "Channel 1 Message 1", Author.USER),
+                new NewMessage("channel2", Instant.now(), "Channel 2 Message 1", Author.USER),
+                new NewMessage("channel1", Instant.now(), "Channel 1 Message 2", Author.ASSISTANT));
+
+        List<Message> saved = messageRepository.saveAll(newMessages);
+
+        assertEquals(3, saved.size());
+        assertEquals("Channel 1 Message 1", saved.get(0).message());
+        assertEquals("Channel 2 Message 1", saved.get(1).message());
+        assertEquals("Channel 1 Message 2", saved.get(2).message());
+        assertEquals(List.of(saved.get(0), saved.get(2)), messageRepository.findLatest("channel1", 10));
+        assertEquals(List.of(saved.get(1)), messageRepository.findLatest("channel2", 10));
+    }
+
     @Test
     @DisplayName("다른 채널의 메시지 분리 확인")
     void separateChannelMessagesTest() {
@@ -73,17 +178,131 @@ class InMemoryMessageRepositoryTest {
     }
 
     @Test
-    @DisplayName("마지막 사용자 메시지 삭제")
-    void deleteLastUserMessageTest() {
+    @DisplayName("마지막 메시지 삭제")
+    void deleteLastMessageTest() {
         messageRepository.save(new NewMessage("channel1", Instant.now(), "User Message 1", Author.USER));
         messageRepository.save(new NewMessage("channel1", Instant.now(), "Assistant Message", Author.ASSISTANT));
-        messageRepository.save(new NewMessage("channel1", Instant.now(), "User Message 2", Author.USER));
+        Message last = messageRepository.save(new NewMessage("channel1", Instant.now(), "User Message 2", Author.USER));
 
-        messageRepository.deleteLastUserMessage("channel1");
+        assertTrue(messageRepository.deleteLastMessage("channel1", last.messageId()));
 
         List<Message> messages = messageRepository.findLatest("channel1", 10);
         assertEquals(2, messages.size());
         assertEquals("User Message 1", messages.get(0).message());
         assertEquals("Assistant Message", messages.get(1).message());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("지정한 메시지가 마지막 메시지일 때만 삭제")
+    void deleteLastMessageByIdTest() {
+        Message question = messageRepository.save(new NewMessage("channel1", Instant.now(), "질문", Author.USER));
+        Message other = messageRepository.save(new NewMessage("channel1", Instant.now(), "다른 사용자의 질문", Author.USER));
+
+        assertFalse(messageRepository.deleteLastMessage("channel1", question.messageId()));
+        assertFalse(messageRepository.deleteLastMessage("channel2", other.messageId()));
+        assertTrue(messageRepository.deleteLastMessage("channel1", other.messageId()));
+
+        assertEquals(List.of(question), messageRepository.findLatest("channel1", 10));
+    }
+
+    @Test
+    @DisplayName("저장과 삭제가 진행되는 동안 조회 결과의 일관성 확인")
+    void concurrentReadWhileWritingTest() throws Exception {
+        int messageCount = 5_000;
+        var writer = new Thread(() -> {
+            for (int i = 0; i < messageCount; i++) {
+                Message saved = messageRepository.save(new NewMessage("channel1", Instant.now(), "Message " + i, Author.USER));
+                if (i % 100 == 99) {
+                    messageRepository.deleteLastMessage("channel1", saved.messageId());
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<Message> messages = messageRepository.findLatest("channel1", 50);
+            for (int i = 1; i < messages.size(); i++) {
+                assertTrue(messages.get(i - 1).sequenceNumber() < messages.get(i).sequenceNumber());
+            }
+        }
+        writer.join();
+
+        assertEquals(messageCount - messageCount / 100, messageRepository.findAfter("channel1", 0, messageCount).size());
+    }
+
+    @Test
+    @DisplayName("보관 한도를 넘은 오래된 메시지를 디스크로 내려놓고 필요할 때 읽기")
+    void spillOldMessagesToColdStorageTest() throws IOException {
+        messageRepository = openRepository(1_500, DataSize.ofBytes(0));
+        List<Message> saved = saveMessages("channel1", 5_000);
+
+        assertEquals(3 * MessageLog.CHUNK_SIZE, gauge("mymydata.messages.cold"));
+        assertEquals(5_000 - 3 * MessageLog.CHUNK_SIZE, gauge("mymydata.messages.hot"));
+        try (Stream<Path> files = Files.list(coldPath.resolve("channel1"))) {
+            assertEquals(3, files.filter(file -> file.toString().endsWith(ColdChunkStore.CHUNK_SUFFIX)).count());
+        }
+
+        assertEquals(saved.subList(4_990, 5_000), messageRepository.findLatest("channel1", 10));
+        assertEquals(saved, messageRepository.findAfter("channel1", 0, 10_000));
+        assertEquals(saved.subList(90, 99), messageRepository.findBefore("channel1", saved.get(99).sequenceNumber(), 9));
+        assertTrue(messageRepository.findBefore("channel1", saved.getFirst().sequenceNumber(), 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("추정 크기 한도를 넘은 메시지를 디스크로 내려놓기")
+    void spillByHotSizeTest() {
+        messageRepository = openRepository(0, DataSize.ofKilobytes(1));
+        List<Message> saved = saveMessages("channel1", 3_000);
+
+        assertEquals(MessageLog.CHUNK_SIZE, gauge("mymydata.messages.cold"));
+        assertTrue(gauge("mymydata.messages.hot.bytes") > 0);
+        assertEquals(saved, messageRepository.findAfter("channel1", 0, 10_000));
+    }
+
+    @Test
+    @DisplayName("hot/cold 지표는 채널 태그 없이 모든 채널의 합계로 기록")
+    void retentionGaugesAggregateChannelsTest() {
+        messageRepository = openRepository(1_500, DataSize.ofBytes(0));
+        saveMessages("channel1", 3_000);
+        saveMessages("channel2", 100);
+        saveMessages("channel3", 100);
+
+        assertEquals(1, meterRegistry.find("mymydata.messages.hot").gauges().size());
+        assertEquals(MessageLog.CHUNK_SIZE, gauge("mymydata.messages.cold"));
+        assertEquals(3_200 - MessageLog.CHUNK_SIZE, gauge("mymydata.messages.hot"));
+    }
+
+    @Test
+    @DisplayName("삭제로 꼬리가 cold 구간에 닿으면 해당 청크를 다시 힙에 올리기")
+    void deleteIntoColdChunkTest() {
+        messageRepository = openRepository(1, DataSize.ofBytes(0));
+        List<Message> saved = saveMessages("channel1", 3 * MessageLog.CHUNK_SIZE);
+        assertEquals(2 * MessageLog.CHUNK_SIZE, gauge("mymydata.messages.cold"));
+
+        for (int i = 0; i < MessageLog.CHUNK_SIZE + 1; i++) {
+            deleteLatestMessage("channel1");
+        }
+
+        int remaining = 2 * MessageLog.CHUNK_SIZE - 1;
+        assertEquals(MessageLog.CHUNK_SIZE, gauge("mymydata.messages.cold"));
+        assertEquals(saved.subList(0, remaining), messageRepository.findAfter("channel1", 0, 10_000));
+
+        Message next = messageRepository.save(new NewMessage("channel1", Instant.now(), "After delete", Author.USER));
+        String lastSeenMessageId = saved.get(remaining - 2).messageId();
+        assertEquals(List.of(saved.get(remaining - 1), next), messageRepository.findLatest("channel1", 10, lastSeenMessageId));
+    }
+
+    @Test
+    @DisplayName("저장 및 삭제 시 갱신되는 메시지 검색")
+    void searchTest() {
+        messageRepository.save(new NewMessage("channel1", Instant.now(), "전송요구 철회 방법", Author.USER));
+        Message answer = messageRepository.save(new NewMessage("channel1", Instant.now(), "전송요구는 언제든 철회할 수 있습니다", Author.ASSISTANT));
+        messageRepository.save(new NewMessage("channel2", Instant.now(), "전송요구", Author.USER));
+        Message deleted = messageRepository.save(new NewMessage("channel1", Instant.now(), "전송요구 다시 질문", Author.USER));
+        assertTrue(messageRepository.deleteLastMessage("channel1", deleted.messageId()));
+
+        var hits = messageRepository.search("channel1", "전송요구", 10);
+        assertEquals(2, hits.size());
+        assertEquals(answer, hits.getFirst().message());
+        assertTrue(messageRepository.search("channel3", "전송요구", 10).isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.vo.Channel;
+import com.sangminlee.mymydata.vo.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JournalChannelRepositoryTest {
+
+    @TempDir
+    private Path journalPath;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    private JournalChannelRepository channelRepository;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(messageRepository.findLatest(anyString(), eq(1))).thenReturn(List.of());
+        channelRepository = new JournalChannelRepository(messageRepository, journalPath);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channelRepository.close();
+    }
+
+    private JournalChannelRepository reopenRepository() {
+        channelRepository.close();
+        channelRepository = new JournalChannelRepository(messageRepository, journalPath);
+        return channelRepository;
+    }
+
+    @Test
+    @DisplayName("재시작 후 채널과 마지막 메시지 복구")
+    void restoreAfterReopenTest() {
+        channelRepository.save("Channel B");
+        channelRepository.save("채널 A");
+        List<Channel> before = channelRepository.findAll();
+        String channelId = before.getFirst().id();
+        Message lastMessage = new Message("msg1", channelId, 7L, Instant.now(), "user", "안녕하세요", 0);
+        when(messageRepository.findLatest(channelId, 1)).thenReturn(List.of(lastMessage));
+
+        reopenRepository();
+
+        List<Channel> after = channelRepository.findAll();
+        assertEquals(before.stream().map(Channel::id).toList(), after.stream().map(Channel::id).toList());
+        assertEquals(List.of("Channel B", "채널 A"), after.stream().map(Channel::name).toList());
+        assertEquals(lastMessage, channelRepository.findById(channelId).orElseThrow().lastMessage());
+        assertNull(after.getLast().lastMessage());
+    }
+
+    @Test
+    @DisplayName("비정상 종료로 손상된 꼬리 항목 무시")
+    void recoverFromTornRecordTest() throws IOException {
+        channelRepository.save("Channel 1");
+        channelRepository.close();
+        Files.write(journalPath.resolve(JournalChannelRepository.CHANNEL_FILE), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        channelRepository = new JournalChannelRepository(messageRepository, journalPath);
+        channelRepository.save("Channel 2");
+
+        assertEquals(List.of("Channel 1", "Channel 2"), reopenRepository().findAll().stream().map(Channel::name).toList());
+    }
+}
@@ -0,0 +1,269 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.NewMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalMessageRepositoryTest {
+
+    @TempDir
+    private Path journalPath;
+
+    private JournalMessageRepository messageRepository;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = openRepository();
+    }
+
+    @AfterEach
+    void tearDown() {
+        messageRepository.close();
+    }
+
+    private JournalMessageRepository openRepository() {
+        return openRepository(Duration.ZERO);
+    }
+
+    private JournalMessageRepository openRepository(Duration commitWindow) {
+        return new JournalMessageRepository(journalPath, DataSize.ofKilobytes(4), 4, Duration.ofSeconds(10), commitWindow);
+    }
+
+    private JournalMessageRepository reopenRepository() {
+        messageRepository.close();
+        messageRepository = openRepository();
+        return messageRepository;
+    }
+
+    private void saveMessages(String channelId, int count) {
+        for (int i = 0; i < count; i++) {
+            messageRepository.save(new NewMessage(channelId, Instant.now(), "메시지 " + i, i % 2 == 0 ? Author.USER : Author.ASSISTANT));
+        }
+    }
+
+    private void deleteLatestMessage(String channelId) {
+        var last = messageRepository.findLatest(channelId, 1).getFirst();
+        assertTrue(messageRepository.deleteLastMessage(channelId, last.messageId()));
+    }
+
+    @Test
+    @DisplayName("빈 저장소에서 최신 메시지 찾기")
+    void findLatest_EmptyRepositoryTest() {
+        assertTrue(messageRepository.findLatest("channel1", 10).isEmpty());
+        assertTrue(messageRepository.findAfter("channel1", 0, 10).isEmpty());
+        assertTrue(messageRepository.findLatest("../outside", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("메시지 저장 및 조회")
+    void saveAndFindLatestTest() {
+        Message savedMessage = messageRepository.save(new NewMessage("channel1", Instant.now(), "안녕하세요", Author.USER));
+
+        List<Message> messages = messageRepository.findLatest("channel1", 10);
+        assertEquals(1, messages.size());
+        assertEquals(savedMessage, messages.getFirst());
+    }
+
+    @Test
+    @DisplayName("재시작 후 메시지 복구")
+    void replayAfterReopenTest() {
+        saveMessages("channel1", 100);
+        saveMessages("channel2", 3);
+        List<Message> before = messageRepository.findLatest("channel1", 100);
+
+        reopenRepository();
+
+        assertEquals(before, messageRepository.findLatest("channel1", 100));
+        assertEquals(3, messageRepository.findLatest("channel2", 10).size());
+        Message next = messageRepository.save(new NewMessage("channel1", Instant.now(), "재시작 이후", Author.USER));
+        assertEquals(before.getLast().sequenceNumber() + 1, next.sequenceNumber());
+    }
+
+    @Test
+    @DisplayName("여러 세그먼트에 걸친 조회")
+    void readAcrossSegmentsTest() throws IOException {
+        saveMessages("channel1", 200);
+
+        try (Stream<Path> files = Files.list(journalPath.resolve("channel1"))) {
+            assertTrue(files.filter(file -> file.toString().endsWith(JournalSegment.DATA_SUFFIX)).count() > 1);
+        }
+        List<Message> all = messageRepository.findAfter("channel1", 0, 1000);
+        assertEquals(200, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(i + 1, all.get(i).sequenceNumber());
+        }
+
+        List<Message> page = messageRepository.findAfter("channel1", 97, 5);
+        assertEquals(List.of(98L, 99L, 100L, 101L, 102L), page.stream().map(Message::sequenceNumber).toList());
+        assertEquals(all.subList(92, 97), messageRepository.findBefore("channel1", 98, 5));
+        assertEquals(all.subList(195, 200), messageRepository.findBefore("channel1", Long.MAX_VALUE, 5));
+
+        String lastSeenMessageId = all.get(194).messageId();
+        List<Message> newMessages = messageRepository.findLatest("channel1", 10, lastSeenMessageId);
+        assertEquals(all.subList(195, 200), newMessages);
+    }
+
+    @Test
+    @DisplayName("마지막 메시지 삭제 후 재시작")
+    void deleteLastMessageTest() {
+        messageRepository.save(new NewMessage("channel1", Instant.now(), "User Message 1", Author.USER));
+        messageRepository.save(new NewMessage("channel1", Instant.now(), "Assistant Message", Author.ASSISTANT));
+        Message last = messageRepository.save(new NewMessage("channel1", Instant.now(), "User Message 2", Author.USER));
+
+        assertTrue(messageRepository.deleteLastMessage("channel1", last.messageId()));
+
+        List<Message> messages = messageRepository.findLatest("channel1", 10);
+        assertEquals(List.of("User Message 1", "Assistant Message"), messages.stream().map(Message::message).toList());
+        assertEquals(messages, reopenRepository().findLatest("channel1", 10));
+    }
+
+    @Test
+    @DisplayName("지정한 메시지가 마지막 메시지일 때만 삭제")
+    void deleteLastMessageByIdTest() {
+        Message question = messageRepository.save(new NewMessage("channel1", Instant.now(), "질문", Author.USER));
+        Message other = messageRepository.save(new NewMessage("channel1", Instant.now(), "다른 사용자의 질문", Author.USER));
+
+        assertFalse(messageRepository.deleteLastMessage("channel1", question.messageId()));
+        assertFalse(messageRepository.deleteLastMessage("channel2", other.messageId()));
+        assertTrue(messageRepository.deleteLastMessage("channel1", other.messageId()));
+
+        assertEquals(List.of(question), reopenRepository().findLatest("channel1", 10));
+    }
+
+    @Test
+    @DisplayName("세그먼트 경계를 넘는 삭제")
+    void deleteAcrossSegmentBoundaryTest() {
+        saveMessages("channel1", 200);
+        List<Message> all = messageRepository.findAfter("channel1", 0, 1000);
+
+        for (int i = 0; i < 150; i++) {
+            deleteLatestMessage("channel1");
+        }
+
+        assertEquals(all.subList(0, 50), messageRepository.findAfter("channel1", 0, 1000));
+        assertEquals(all.subList(0, 50), reopenRepository().findAfter("channel1", 0, 1000));
+    }
+
+    @Test
+    @DisplayName("마지막 메시지 삭제 후 재시작해도 일련번호를 다시 쓰지 않음")
+    void sequenceNumberNotReusedAfterDeleteAndReopenTest() {
+        saveMessages("channel1", 3);
+        deleteLatestMessage("channel1");
+        deleteLatestMessage("channel1");
+
+        Message next = reopenRepository().save(new NewMessage("channel1", Instant.now(), "재시작 이후", Author.USER));
+
+        assertEquals(4, next.sequenceNumber());
+        assertEquals(List.of(1L, 4L), messageRepository.findAfter("channel1", 0, 10).stream().map(Message::sequenceNumber).toList());
+    }
+
+    @Test
+    @DisplayName("재시작 후 검색 색인 복구")
+    void searchAfterReopenTest() {
+        saveMessages("channel1", 10);
+        messageRepository.save(new NewMessage("channel1", Instant.now(), "전송요구 철회 방법", Author.USER));
+
+        reopenRepository();
+
+        var hits = messageRepository.search("channel1", "철회", 10);
+        assertEquals(List.of("전송요구 철회 방법"), hits.stream().map(hit -> hit.message().message()).toList());
+        assertEquals(10, messageRepository.search("channel1", "메시지", 100).size());
+    }
+
+    @Test
+    @DisplayName("여러 채널의 메시지 일괄 저장")
+    void saveAllTest() {
+        List<NewMessage> newMessages = List.of(
+                new NewMessage("channel1", Instant.now(), "채널1-1", Author.USER),
+                new NewMessage("channel2", Instant.now(), "채널2-1", Author.USER),
+                new NewMessage("channel1", Instant.now(), "채널1-2", Author.ASSISTANT));
+
+        List<Message> saved = messageRepository.saveAll(newMessages);
+
+        assertEquals(List.of("채널1-1", "채널2-1", "채널1-2"), saved.stream().map(Message::message).toList());
+        assertEquals(List.of(1L, 1L, 2L), saved.stream().map(Message::sequenceNumber).toList());
+        assertEquals(List.of(saved.get(0), saved.get(2)), reopenRepository().findLatest("channel1", 10));
+    }
+
+    @Test
+    @DisplayName("동시에 도착한 단건 저장의 group commit")
+    void groupCommitTest() throws Exception {
+        messageRepository.close();
+        messageRepository = openRepository(Duration.ofMillis(5));
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var futures = new ArrayList<Future<Message>>();
+            for (int i = 0; i < 64; i++) {
+                var newMessage = new NewMessage("channel" + (i % 4), Instant.now(), "메시지 " + i, Author.USER);
+                futures.add(executor.submit(() -> messageRepository.save(newMessage)));
+            }
+            for (Future<Message> future : futures) {
+                assertNotNull(future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        reopenRepository();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(16, messageRepository.findLatest("channel" + i, 100).size());
+        }
+    }
+
+    @Test
+    @DisplayName("비정상 종료로 손상된 꼬리 레코드 무시")
+    void recoverFromTornRecordTest() throws IOException {
+        saveMessages("channel1", 5);
+        List<Message> before = messageRepository.findLatest("channel1", 10);
+        messageRepository.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(journalPath.resolve("channel1"))) {
+            segment = files.filter(file -> file.toString().endsWith(JournalSegment.DATA_SUFFIX)).findFirst().orElseThrow();
+        }
+        try (var file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // 마지막 레코드의 본문 일부를 손상시킵니다.
+            file.seek(findEndOfRecords(file) - 3);
+            file.write(new byte[]{1, 2, 3});
+        }
+
+        messageRepository = openRepository();
+        assertEquals(before.subList(0, 4), messageRepository.findLatest("channel1", 10));
+        messageRepository.save(new NewMessage("channel1", Instant.now(), "복구 이후", Author.USER));
+        List<Message> latest = reopenRepository().findLatest("channel1", 1);
+        assertEquals("복구 이후", latest.getFirst().message());
+    }
+
+    private static long findEndOfRecords(RandomAccessFile file) throws IOException {
+        long position = 0;
+        while (true) {
+            file.seek(position);
+            int length = file.readInt();
+            if (length == 0) {
+                return position;
+            }
+            position += Integer.BYTES * 2 + length;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.vo.Message;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageLayoutFootprintTest {
+
+    private static final String CHANNEL_ID = "channel1";
+    private static final int MESSAGE_COUNT = 4 * MessageLog.CHUNK_SIZE;
+
+    static {
+        // record 클래스는 Unsafe로 필드 오프셋을 얻을 수 없으므로 JOL의 대체 방식을 사용합니다.
+        System.setProperty("jol.magicFieldOffset", "true");
+    }
+
+    private static MessageLog fill(MessageLayout layout) {
+        return fill(layout, MESSAGE_COUNT);
+    }
+
+    private static MessageLog fill(MessageLayout layout, int messageCount) {
+        var log = new MessageLog(() -> layout.newChunk(CHANNEL_ID), chunkIndex -> {
+            throw new IllegalStateException();
+        });
+        for (int i = 0; i < messageCount; i++) {
+            var author = i % 2 == 0 ? Author.USER : Author.ASSISTANT;
+            log.append(new Message(UUID.randomUUID().toString(), CHANNEL_ID, (long) i + 1, Instant.now(),
+                    author.getName(), "마이데이터 서비스의 전송요구 철회 절차를 알려주세요 " + i, author.getColor()));
+        }
+        return log;
+    }
+
+    private static long bytesPerMessage(MessageLog log) {
+        return GraphLayout.parseInstance(log).totalSize() / MESSAGE_COUNT;
+    }
+
+    @Test
+    @DisplayName("compact 보관 방식의 메시지당 힙 사용량이 object 보관 방식의 60% 미만")
+    void compactLayoutFootprintTest() {
+        var objectLog = fill(MessageLayout.OBJECT);
+        var compactLog = fill(MessageLayout.COMPACT);
+
+        long objectBytes = bytesPerMessage(objectLog);
+        long compactBytes = bytesPerMessage(compactLog);
+
+        assertTrue(compactBytes < objectBytes * 0.6, "object=" + objectBytes + ", compact=" + compactBytes);
+    }
+
+    @Test
+    @DisplayName("메시지가 몇 개뿐인 채널에서도 compact 보관 방식이 청크 크기만큼의 열을 미리 잡지 않음")
+    void compactLayoutSparseChannelFootprintTest() {
+        long objectBytes = GraphLayout.parseInstance(fill(MessageLayout.OBJECT, 3)).totalSize();
+        long compactBytes = GraphLayout.parseInstance(fill(MessageLayout.COMPACT, 3)).totalSize();
+
+        assertTrue(compactBytes < objectBytes, "object=" + objectBytes + ", compact=" + compactBytes);
+        assertTrue(compactBytes < 2_048, "compact=" + compactBytes);
+    }
+
+    @Test
+    @DisplayName("compact 보관 방식에서 메시지를 그대로 복원")
+    void compactLayoutRoundTripTest() {
+        var chunk = MessageLayout.COMPACT.newChunk(CHANNEL_ID);
+        var korean = new Message(UUID.randomUUID().toString(), CHANNEL_ID, 1L, Instant.now(),
+                Author.USER.getName(), "안녕하세요", Author.USER.getColor());
+        var ascii = new Message(UUID.randomUUID().toString(), CHANNEL_ID, 2L, Instant.now(),
+                Author.ASSISTANT.getName(), "Hello, MyData 2024", Author.ASSISTANT.getColor());
+
+        chunk.set(0, korean);
+        chunk.set(1, ascii);
+
+        assertEquals(korean, chunk.get(0));
+        assertEquals(ascii, chunk.get(1));
+        assertEquals(2L, chunk.sequenceNumber(1));
+
+        chunk.set(MessageLog.CHUNK_SIZE - 1, ascii);
+        assertEquals(korean, chunk.get(0));
+        assertEquals(ascii, chunk.get(MessageLog.CHUNK_SIZE - 1));
+    }
+}
@@ -0,0 +1,183 @@
+package com.sangminlee.mymydata.repository;
+
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageSearchHit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageSearchIndexTest {
+
+    private MessageSearchIndex searchIndex = new MessageSearchIndex();
+    private final NavigableMap<Long, Message> messages = new TreeMap<>();
+    private final MessageSearchIndex.MessageSource source = new MessageSearchIndex.MessageSource() {
+        @Override
+        public List<Message> findAfter(long sequenceNumber, int fetchMax) {
+            reads++;
+            onRead.run();
+            return messages.tailMap(sequenceNumber, false).values().stream().limit(fetchMax).toList();
+        }
+
+        @Override
+        public Message findBySequenceNumber(long sequenceNumber) {
+            return messages.get(sequenceNumber);
+        }
+    };
+    private int reads;
+    private Runnable onRead = () -> {
+    };
+    private long nextSequenceNumber = 1;
+
+    private Message add(String text) {
+        var message = addExisting(text);
+        searchIndex.add(message);
+        return message;
+    }
+
+    /**
+     * 색인이 만들어지기 전에 저장된 메시지처럼 저장소에만 추가합니다.
+     */
+    private synchronized Message addExisting(String text) {
+        long sequenceNumber = nextSequenceNumber++;
+        var message = new Message(UUID.randomUUID().toString(), "channel1", sequenceNumber, Instant.now(),
+                Author.USER.getName(), text, Author.USER.getColor());
+        messages.put(sequenceNumber, message);
+        return message;
+    }
+
+    private List<String> search(String query, int limit) {
+        return searchIndex.search("channel1", query, limit, source).stream()
+                .map(hit -> hit.message().message())
+                .toList();
+    }
+
+    @Test
+    @DisplayName("조사나 어미가 붙은 한국어 단어 검색")
+    void searchKoreanSubstringTest() {
+        add("전송요구를 철회하려면 어떻게 해야 하나요?");
+        add("오늘 날씨가 좋네요");
+        add("정기적 전송요구의 유효기간은 얼마인가요");
+
+        assertEquals(List.of("정기적 전송요구의 유효기간은 얼마인가요", "전송요구를 철회하려면 어떻게 해야 하나요?"),
+                search("전송요구", 10));
+        assertEquals(List.of("전송요구를 철회하려면 어떻게 해야 하나요?"), search("철회", 10));
+        assertTrue(search("마이데이터", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("질의 전체가 그대로 포함된 메시지를 먼저 반환")
+    void rankExactPhraseFirstTest() {
+        Message exact = add("개인신용정보 전송요구 방법");
+        Message scattered = add("전송요구 전에 개인신용정보 동의가 필요합니다");
+
+        List<MessageSearchHit> hits = searchIndex.search("channel1", "개인신용정보 전송요구", 10, source);
+
+        assertEquals(List.of(exact, scattered), hits.stream().map(MessageSearchHit::message).toList());
+        assertEquals(1.0, hits.get(0).score());
+        assertEquals(0.5, hits.get(1).score());
+    }
+
+    @Test
+    @DisplayName("대소문자와 문장부호를 무시하고 최신 메시지부터 결과 수 제한")
+    void normalizeAndLimitTest() {
+        for (int i = 0; i < 10; i++) {
+            add("MyData API 문의 " + i);
+        }
+
+        assertEquals(List.of("MyData API 문의 9", "MyData API 문의 8", "MyData API 문의 7"), search("mydata, api!", 3));
+    }
+
+    @Test
+    @DisplayName("삭제된 마지막 메시지는 검색되지 않음")
+    void removeLastTest() {
+        add("첫 번째 질문입니다");
+        Message removed = add("두 번째 질문입니다");
+        assertEquals(List.of("두 번째 질문입니다", "첫 번째 질문입니다"), search("질문", 10));
+
+        messages.remove(removed.sequenceNumber());
+
+        assertEquals(List.of("첫 번째 질문입니다"), search("질문", 10));
+        add("세 번째 질문입니다");
+        assertEquals(List.of("세 번째 질문입니다", "첫 번째 질문입니다"), search("질문", 10));
+    }
+
+    @Test
+    @DisplayName("저장할 때 색인하고 가득 찬 블록은 압축하여, 오래된 블록도 저장소를 다시 읽지 않고 검색")
+    void sealedBlocksTest() {
+        add("오래된 전송요구 철회 문의");
+        for (int i = 0; i < 4 * MessageSearchIndex.BLOCK_SIZE; i++) {
+            add("일반 문의 " + i);
+        }
+
+        assertEquals(4, searchIndex.sealedBlocks("channel1"));
+        assertTrue(searchIndex.sealedBytes("channel1") < 16L * 4 * MessageSearchIndex.BLOCK_SIZE);
+        assertEquals(List.of("오래된 전송요구 철회 문의"), search("철회", 10));
+        String newest = "일반 문의 " + (4 * MessageSearchIndex.BLOCK_SIZE - 1);
+        assertEquals(List.of(newest), search(newest, 1));
+        assertTrue(search("없는단어", 10).isEmpty());
+        assertEquals(0, reads);
+    }
+
+    @Test
+    @DisplayName("기존 메시지는 처음 검색할 때 한 번만 색인하고, 그 뒤에 저장된 메시지와 중복되지 않음")
+    void indexExistingMessagesTest() {
+        addExisting("기존 철회 문의");
+        for (int i = 0; i < 2 * MessageSearchIndex.BLOCK_SIZE; i++) {
+            addExisting("일반 문의 " + i);
+        }
+        add("새 철회 문의");
+
+        assertEquals(List.of("새 철회 문의", "기존 철회 문의"), search("철회", 10));
+        assertEquals(3, searchIndex.sealedBlocks("channel1"));
+        int readsAfterFirstSearch = reads;
+        assertEquals(List.of("새 철회 문의", "기존 철회 문의"), search("철회", 10));
+        assertEquals(readsAfterFirstSearch, reads);
+    }
+
+    @Test
+    @DisplayName("기존 메시지를 색인하는 동안에도 저장이 막히지 않음")
+    void saveWhileIndexingExistingMessagesTest() {
+        addExisting("기존 철회 문의");
+        onRead = () -> {
+            onRead = () -> {
+            };
+            assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> CompletableFuture.runAsync(() -> add("색인 중 저장한 철회 문의")).join());
+        };
+
+        assertEquals(List.of("색인 중 저장한 철회 문의", "기존 철회 문의"), search("철회", 10));
+    }
+
+    @Test
+    @DisplayName("저장할 때 만드는 bigram이 검색어의 bigram과 같음")
+    void messageBigramsTest() {
+        for (String text : List.of("전송요구를 철회하려면?", "MyData 2.0, ①번 항목", "한글\u1100\u1161 조합형", "𝐀𝐁 보충 문자", "", "!!")) {
+            assertArrayEquals(MessageSearchIndex.bigrams(MessageSearchIndex.terms(text)), MessageSearchIndex.bigrams(text), text);
+        }
+    }
+
+    @Test
+    @DisplayName("두 글자 미만의 검색어와 빈 채널")
+    void shortQueryAndUnknownChannelTest() {
+        add("가나다라");
+
+        assertTrue(search("가", 10).isEmpty());
+        assertTrue(search("  ", 10).isEmpty());
+        // 테스트용 저장소는 채널을 구분하지 않으므로 비운 뒤 다른 채널을 검색합니다.
+        messages.clear();
+        assertTrue(searchIndex.search("channel2", "가나", 10, source).isEmpty());
+    }
+}
@@ -1,5 +1,6 @@
 package com.sangminlee.mymydata.service;
 
+import com.sangminlee.mymydata.constant.ChannelSort;
 import com.sangminlee.mymydata.repository.ChannelRepository;
 import com.sangminlee.mymydata.vo.Channel;
 import org.junit.jupiter.api.BeforeEach;
@@ -49,6 +50,17 @@ class ChannelServiceTest {
         verify(channelRepository).findAll();
     }
 
+    @Test
+    @DisplayName("채널 한 페이지와 채널 수 조회")
+    void findChannelsShouldDelegateToRepositoryTest() {
+        List<Channel> page = List.of(new Channel("1", "Channel 1"));
+        when(channelRepository.find("Chan", 0, 50, ChannelSort.NAME_ASC)).thenReturn(page);
+        when(channelRepository.count("Chan")).thenReturn(1);
+
+        assertEquals(page, channelService.findChannels("Chan", 0, 50, ChannelSort.NAME_ASC));
+        assertEquals(1, channelService.countChannels("Chan"));
+    }
+
     @Test
     @DisplayName("새 채널 생성")
     void createChannelShouldSaveToRepositoryTest() {
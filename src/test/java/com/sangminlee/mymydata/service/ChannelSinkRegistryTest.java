@@ -0,0 +1,77 @@
+package com.sangminlee.mymydata.service;
+
+import com.sangminlee.mymydata.vo.Message;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.sangminlee.mymydata.vo.MessageFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChannelSinkRegistryTest {
+
+    private final ChannelSinkRegistry<Message> registry = new ChannelSinkRegistry<>(Message::channelId);
+
+    @Test
+    @DisplayName("첫 구독 시 sink를 만들고 마지막 구독 해제 시 제거")
+    void sinkShouldBeReclaimedAfterLastSubscriberTest() {
+        assertEquals(0, registry.activeChannels());
+
+        var first = registry.subscribe("channel1").subscribe();
+        var second = registry.subscribe("channel1").subscribe();
+        var other = registry.subscribe("channel2").subscribe();
+        assertEquals(2, registry.activeChannels());
+
+        first.dispose();
+        assertEquals(2, registry.activeChannels());
+        second.dispose();
+        assertEquals(1, registry.activeChannels());
+        other.dispose();
+        assertEquals(0, registry.activeChannels());
+    }
+
+    @Test
+    @DisplayName("구독 전에는 sink를 만들지 않음")
+    void sinkShouldBeCreatedLazilyTest() {
+        var live = registry.subscribe("channel1");
+        assertEquals(0, registry.activeChannels());
+
+        registry.publish(List.of(message("channel1", 1)));
+        assertEquals(0, registry.activeChannels());
+
+        var subscription = live.subscribe();
+        assertEquals(1, registry.activeChannels());
+        subscription.dispose();
+    }
+
+    @Test
+    @DisplayName("여러 채널이 섞인 묶음은 채널별로 나누어 발행")
+    void publishShouldRouteMessagesByChannelTest() {
+        var channel1 = registry.subscribe("channel1").next().toFuture();
+        var channel2 = registry.subscribe("channel2").next().toFuture();
+
+        registry.publish(List.of(message("channel1", 1), message("channel2", 1), message("channel1", 2)));
+
+        assertEquals(List.of(message("channel1", 1), message("channel1", 2)), channel1.orTimeout(5, TimeUnit.SECONDS).join());
+        assertEquals(List.of(message("channel2", 1)), channel2.orTimeout(5, TimeUnit.SECONDS).join());
+        assertEquals(0, registry.activeChannels());
+    }
+
+    @Test
+    @DisplayName("sink 제거 후 다시 구독하면 새 sink로 메시지를 받음")
+    void resubscribeAfterReclaimTest() {
+        registry.subscribe("channel1").subscribe().dispose();
+        assertEquals(0, registry.activeChannels());
+
+        var received = new CopyOnWriteArrayList<Message>();
+        var subscription = registry.subscribe("channel1").subscribe(received::addAll);
+        registry.publish(List.of(message("channel1", 1)));
+
+        assertEquals(List.of(message("channel1", 1)), received);
+        subscription.dispose();
+        assertEquals(0, registry.activeChannels());
+    }
+}
@@ -1,18 +1,36 @@
 package com.sangminlee.mymydata.service;
 
 import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.llm.ChannelChatMemoryAdvisor;
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageDraft;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.core.io.ByteArrayResource;
+import reactor.core.publisher.Flux;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
@@ -23,18 +41,30 @@ class ChatServiceTest {
     private final String CHANNEL_ID = "testChannel";
     private final String MESSAGE = "Hello, World!";
     private final Instant NOW = Instant.parse("2023-01-01T00:00:00Z");
+    private final Message QUESTION = new Message("msg2", CHANNEL_ID, 2L, NOW, Author.USER.getName(), MESSAGE, 0);
     @Mock
     private ChannelService channelService;
     @Mock
     private MessageService messageService;
     @Mock
+    private SemanticAnswerCache answerCache;
+    @Mock
+    private ChatMemory chatMemory;
+    @Mock
     private Clock clock;
-    @InjectMocks
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private ChatClient chatClient;
     private ChatService chatService;
 
     @BeforeEach
     void setUp() {
         lenient().when(clock.instant()).thenReturn(NOW);
+        chatService = new ChatService(channelService, messageService, chatClient, answerCache, chatMemory, clock, new SimpleMeterRegistry(), Duration.ZERO, 3, Duration.ZERO);
+    }
+
+    private void streamAnswer(Flux<String> tokens) {
+        when(chatClient.prompt().user(MESSAGE).advisors(ArgumentMatchers.<Consumer<ChatClient.AdvisorSpec>>any()).stream().content())
+                .thenReturn(tokens);
     }
 
     @Test
@@ -64,4 +94,140 @@ class ChatServiceTest {
         verify(messageService, never()).saveMessage(any());
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("스트리밍 응답을 생성 중인 메시지로 발행하고 최종 본문을 한 번만 저장")
+    void answerMessageShouldStreamDraftsAndSaveOnceTest() {
+        when(channelService.channelNotExists(CHANNEL_ID)).thenReturn(false);
+        when(chatClient.prompt().user(MESSAGE).advisors(ArgumentMatchers.<Consumer<ChatClient.AdvisorSpec>>any()).stream().content())
+                .thenReturn(Flux.just("안녕", "하세요", "!"));
+
+        chatService.answerMessage(QUESTION, null);
+
+        verify(messageService, times(1)).saveMessage(argThat(message ->
+                message.message().equals("안녕하세요!") && message.author() == Author.ASSISTANT));
+        var drafts = ArgumentCaptor.forClass(MessageDraft.class);
+        verify(messageService, times(4)).publishDraft(drafts.capture());
+        assertEquals("안녕", drafts.getAllValues().getFirst().text());
+        assertFalse(drafts.getAllValues().getFirst().completed());
+        assertEquals("안녕하세요!", drafts.getValue().text());
+        assertTrue(drafts.getValue().completed());
+        assertEquals(1, drafts.getAllValues().stream().map(MessageDraft::draftId).distinct().count());
+    }
+
+    @Test
+    @DisplayName("스트리밍 중 오류가 나면 저장하지 않고 생성 중인 메시지를 완료 처리")
+    void answerMessageFailureShouldCompleteDraftWithoutSavingTest() {
+        when(chatClient.prompt().user(MESSAGE).advisors(ArgumentMatchers.<Consumer<ChatClient.AdvisorSpec>>any()).stream().content())
+                .thenReturn(Flux.concat(Flux.just("안녕"), Flux.error(new IllegalStateException("rate limit"))));
+
+        assertThrows(IllegalStateException.class, () -> chatService.answerMessage(QUESTION, null));
+
+        verify(messageService, never()).saveMessage(any());
+        var drafts = ArgumentCaptor.forClass(MessageDraft.class);
+        verify(messageService, atLeastOnce()).publishDraft(drafts.capture());
+        assertTrue(drafts.getValue().completed());
+    }
+
+    @Test
+    @DisplayName("첫 토큰을 받기 전에 실패한 스트리밍 요청은 다시 보내고, 토큰을 받은 뒤의 실패는 다시 보내지 않음")
+    void answerMessageShouldRetryOnlyBeforeFirstTokenTest() {
+        when(channelService.channelNotExists(CHANNEL_ID)).thenReturn(false);
+        var subscriptions = new AtomicInteger();
+        streamAnswer(Flux.defer(() -> subscriptions.incrementAndGet() == 1
+                ? Flux.error(new IllegalStateException("connection reset"))
+                : Flux.just("안녕", "하세요")));
+
+        chatService.answerMessage(QUESTION, null);
+
+        assertEquals(2, subscriptions.get());
+        verify(messageService).saveMessage(argThat(message -> message.message().equals("안녕하세요")));
+
+        subscriptions.set(0);
+        streamAnswer(Flux.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Flux.concat(Flux.just("안녕"), Flux.error(new IllegalStateException("connection reset")));
+        }));
+
+        assertThrows(IllegalStateException.class, () -> chatService.answerMessage(QUESTION, null));
+        assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    @DisplayName("발행 간격 안에 받은 토큰은 간격이 끝날 때 발행")
+    void answerMessageShouldPublishPendingTokensAfterIntervalTest() {
+        chatService = new ChatService(channelService, messageService, chatClient, answerCache, chatMemory, clock,
+                new SimpleMeterRegistry(), Duration.ofMillis(50), 3, Duration.ZERO);
+        when(channelService.channelNotExists(CHANNEL_ID)).thenReturn(false);
+        streamAnswer(Flux.concat(Flux.just("안녕", "하세요"), Flux.just("!").delaySubscription(Duration.ofMillis(500))));
+
+        chatService.answerMessage(QUESTION, null);
+
+        var drafts = ArgumentCaptor.forClass(MessageDraft.class);
+        verify(messageService, atLeastOnce()).publishDraft(drafts.capture());
+        assertEquals(List.of("안녕", "안녕하세요", "안녕하세요!", "안녕하세요!"),
+                drafts.getAllValues().stream().map(MessageDraft::text).toList());
+        assertEquals(List.of(false, false, false, true),
+                drafts.getAllValues().stream().map(MessageDraft::completed).toList());
+    }
+
+    @Test
+    @DisplayName("의미가 같은 질문의 응답이 캐시에 있으면 AI 응답을 생성하지 않고 재사용")
+    void answerMessageShouldReuseCachedAnswerTest() {
+        when(channelService.channelNotExists(CHANNEL_ID)).thenReturn(false);
+        when(answerCache.lookup(MESSAGE)).thenReturn(Optional.of(new SemanticAnswerCache.Lookup(new float[]{1f}, "캐시된 응답")));
+
+        chatService.answerMessage(QUESTION, null);
+
+        verify(messageService).saveMessage(argThat(message ->
+                message.message().equals("캐시된 응답") && message.author() == Author.ASSISTANT));
+        verify(chatMemory).add(eq(CHANNEL_ID), ArgumentMatchers.<List<org.springframework.ai.chat.messages.Message>>argThat(messages -> messages.size() == 2));
+        verify(chatClient, never()).prompt();
+        verify(answerCache, never()).put(any(), any());
+    }
+
+    @Test
+    @DisplayName("캐시에 없는 질문의 응답은 생성 후 캐시에 저장")
+    void answerMessageShouldCacheNewAnswerTest() {
+        var lookup = new SemanticAnswerCache.Lookup(new float[]{1f}, null);
+        when(channelService.channelNotExists(CHANNEL_ID)).thenReturn(false);
+        when(answerCache.lookup(MESSAGE)).thenReturn(Optional.of(lookup));
+        when(chatClient.prompt().user(MESSAGE).advisors(ArgumentMatchers.<Consumer<ChatClient.AdvisorSpec>>any()).stream().content())
+                .thenReturn(Flux.just("안녕", "하세요"));
+
+        chatService.answerMessage(QUESTION, null);
+
+        verify(answerCache).put(lookup, "안녕하세요");
+    }
+
+    @Test
+    @DisplayName("이전 대화가 있거나 이미지가 포함된 질문은 캐시를 사용하지 않음")
+    void answerMessageShouldSkipCacheWithContextOrImageTest() {
+        var previous = new Message("msg1", CHANNEL_ID, 1L, NOW, Author.USER.getName(), "이전 질문", 0);
+        when(messageService.getMessagesBefore(CHANNEL_ID, 2L, 1)).thenReturn(List.of(previous));
+        when(chatClient.prompt().user(MESSAGE).advisors(ArgumentMatchers.<Consumer<ChatClient.AdvisorSpec>>any()).stream().content())
+                .thenReturn(Flux.just("응답"));
+        when(chatClient.prompt().user(MESSAGE).advisors(ArgumentMatchers.<Consumer<ChatClient.AdvisorSpec>>any())
+                .user(ArgumentMatchers.<Consumer<ChatClient.PromptUserSpec>>any()).stream().content())
+                .thenReturn(Flux.just("이미지 응답"));
+
+        chatService.answerMessage(QUESTION, new ByteArrayResource(new byte[]{1}));
+        chatService.answerMessage(QUESTION, null);
+
+        verifyNoInteractions(answerCache);
+    }
+
+    @Test
+    @DisplayName("대화 기억 advisor에 질문의 일련번호 전달")
+    @SuppressWarnings("unchecked")
+    void answerMessageShouldPassQuestionSequenceNumberTest() {
+        streamAnswer(Flux.just("응답"));
+
+        chatService.answerMessage(QUESTION, null);
+
+        ArgumentCaptor<Consumer<ChatClient.AdvisorSpec>> advisors = ArgumentCaptor.forClass(Consumer.class);
+        verify(chatClient.prompt().user(MESSAGE), atLeastOnce()).advisors(advisors.capture());
+        var spec = mock(ChatClient.AdvisorSpec.class, RETURNS_SELF);
+        advisors.getValue().accept(spec);
+        verify(spec).param(ChannelChatMemoryAdvisor.QUESTION_SEQUENCE_NUMBER_KEY, 2L);
+    }
+}
@@ -0,0 +1,97 @@
+package com.sangminlee.mymydata.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LiveMessageBatcherTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(300);
+
+    private final Scheduler scheduler = Schedulers.newSingle("batcher-test");
+    private final Timer deliveryLatency = Timer.builder("test.latency").register(new SimpleMeterRegistry());
+    private final Sinks.Many<List<Integer>> source = Sinks.many().multicast().directBestEffort();
+    private final List<List<Integer>> received = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    private void subscribe(int maxSize) {
+        new LiveMessageBatcher(WINDOW, maxSize, scheduler, deliveryLatency).batch(source.asFlux()).subscribe(received::add);
+    }
+
+    private void awaitBatches(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("한가한 채널의 메시지는 즉시 전달")
+    void idleChannelShouldDeliverImmediatelyTest() {
+        subscribe(100);
+
+        source.tryEmitNext(List.of(1));
+
+        assertEquals(List.of(List.of(1)), received);
+        assertEquals(1, deliveryLatency.count());
+    }
+
+    @Test
+    @DisplayName("연속된 메시지는 창이 끝날 때 한 번에 전달")
+    void burstShouldBeCoalescedUntilWindowEndTest() throws InterruptedException {
+        subscribe(100);
+
+        source.tryEmitNext(List.of(1));
+        source.tryEmitNext(List.of(2));
+        source.tryEmitNext(List.of(3, 4));
+        assertEquals(List.of(List.of(1)), received);
+
+        awaitBatches(2);
+        assertEquals(List.of(List.of(1), List.of(2, 3, 4)), received);
+        assertEquals(4, deliveryLatency.count());
+        assertTrue(deliveryLatency.max(TimeUnit.MILLISECONDS) > 0);
+    }
+
+    @Test
+    @DisplayName("창 안에서 최대 크기만큼 모이면 창이 끝나기 전에 전달")
+    void burstShouldBeFlushedAtMaxSizeTest() {
+        subscribe(3);
+
+        source.tryEmitNext(List.of(1));
+        source.tryEmitNext(List.of(2, 3));
+        source.tryEmitNext(List.of(4));
+
+        assertEquals(List.of(List.of(1), List.of(2, 3, 4)), received);
+    }
+
+    @Test
+    @DisplayName("메시지가 없으면 빈 묶음을 전달하지 않고, 한가해지면 다시 즉시 전달")
+    void quietWindowShouldNotEmitEmptyBatchTest() throws InterruptedException {
+        subscribe(100);
+
+        source.tryEmitNext(List.of(1));
+        source.tryEmitNext(List.of());
+        Thread.sleep(WINDOW.toMillis() * 3);
+        assertEquals(List.of(List.of(1)), received);
+
+        source.tryEmitNext(List.of(2));
+        assertEquals(List.of(List.of(1), List.of(2)), received);
+    }
+}
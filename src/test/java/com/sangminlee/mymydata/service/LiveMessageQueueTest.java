@@ -0,0 +1,179 @@
+package com.sangminlee.mymydata.service;
+
+import com.sangminlee.mymydata.constant.LiveOverflowPolicy;
+import com.sangminlee.mymydata.repository.MessageRepository;
+import com.sangminlee.mymydata.vo.LiveMessageBatch;
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveMessageQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Sinks.Many<List<Message>> source = Sinks.many().multicast().directBestEffort();
+    @Mock
+    private MessageRepository messageRepository;
+
+    private Message message(long sequenceNumber) {
+        return MessageFixtures.message("channel1", sequenceNumber);
+    }
+
+    private List<Message> messages(long from, long to) {
+        return LongStream.rangeClosed(from, to).mapToObj(this::message).toList();
+    }
+
+    private SlowSubscriber subscribe(LiveOverflowPolicy policy) {
+        var subscriber = new SlowSubscriber();
+        new LiveMessageQueue(3, policy, messageRepository, Schedulers.immediate(), meterRegistry).bound("channel1", source.asFlux()).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private double depth() {
+        return meterRegistry.get("mymydata.live.queue.depth").gauge().value();
+    }
+
+    @Test
+    @DisplayName("구독자가 요청한 만큼만 전달하고 나머지는 대기열에 보관")
+    void shouldDeliverOnlyRequestedBatchesTest() {
+        var subscriber = subscribe(LiveOverflowPolicy.RESYNC);
+
+        source.tryEmitNext(List.of(message(1)));
+        source.tryEmitNext(List.of(message(2)));
+        assertEquals(List.of(new LiveMessageBatch(List.of(message(1)), false)), subscriber.received);
+        assertEquals(1, depth());
+
+        subscriber.request(1);
+        assertEquals(new LiveMessageBatch(List.of(message(2)), false), subscriber.received.getLast());
+        assertEquals(0, depth());
+    }
+
+    @Test
+    @DisplayName("DROP_OLDEST: 넘친 만큼 오래된 묶음을 버리고 다음 묶음에 누락 표시")
+    void dropOldestShouldMarkGapTest() {
+        var subscriber = subscribe(LiveOverflowPolicy.DROP_OLDEST);
+
+        source.tryEmitNext(List.of(message(1)));
+        for (long i = 2; i <= 6; i++) {
+            source.tryEmitNext(List.of(message(i)));
+        }
+        assertEquals(3, depth());
+
+        subscriber.request(3);
+        assertEquals(List.of(
+                new LiveMessageBatch(List.of(message(1)), false),
+                new LiveMessageBatch(List.of(message(4)), true),
+                new LiveMessageBatch(List.of(message(5)), false),
+                new LiveMessageBatch(List.of(message(6)), false)), subscriber.received);
+        assertEquals(2, meterRegistry.get("mymydata.live.dropped").counter().count());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    @DisplayName("RESYNC: 넘치면 대기열을 비우고 마지막으로 전달한 일련번호 이후를 저장소에서 다시 읽음")
+    void resyncShouldReloadFromRepositoryTest() {
+        when(messageRepository.findAfter("channel1", 1, 3)).thenReturn(messages(2, 4));
+        when(messageRepository.findAfter("channel1", 4, 3)).thenReturn(messages(5, 6));
+        var subscriber = subscribe(LiveOverflowPolicy.RESYNC);
+
+        source.tryEmitNext(List.of(message(1)));
+        source.tryEmitNext(messages(2, 3));
+        source.tryEmitNext(messages(4, 5));
+        assertEquals(0, depth());
+        source.tryEmitNext(List.of(message(6)));
+
+        subscriber.request(2);
+        assertEquals(List.of(
+                new LiveMessageBatch(List.of(message(1)), false),
+                new LiveMessageBatch(messages(2, 4), false),
+                new LiveMessageBatch(messages(5, 6), false)), subscriber.received);
+        assertEquals(0, depth());
+
+        subscriber.request(1);
+        assertEquals(3, subscriber.received.size());
+        assertEquals(4, meterRegistry.get("mymydata.live.dropped").counter().count());
+        assertEquals(1, meterRegistry.get("mymydata.live.resyncs").counter().count());
+    }
+
+    @Test
+    @DisplayName("RESYNC: 저장소 재조회는 발행 스레드가 아닌 재동기화 스케줄러에서 수행")
+    void resyncShouldReadOnSchedulerTest() throws InterruptedException {
+        var readingThread = new AtomicReference<Thread>();
+        when(messageRepository.findAfter("channel1", 0, 3)).thenAnswer(invocation -> {
+            readingThread.set(Thread.currentThread());
+            return messages(1, 3);
+        });
+        var resyncScheduler = Schedulers.newSingle("resync");
+        try {
+            var subscriber = new SlowSubscriber();
+            new LiveMessageQueue(3, LiveOverflowPolicy.RESYNC, messageRepository, resyncScheduler, meterRegistry)
+                    .bound("channel1", source.asFlux()).subscribe(subscriber);
+
+            source.tryEmitNext(messages(1, 4));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (subscriber.received.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(List.of(new LiveMessageBatch(messages(1, 3), false)), subscriber.received);
+            assertNotEquals(Thread.currentThread(), readingThread.get());
+        } finally {
+            resyncScheduler.dispose();
+        }
+    }
+
+    @Test
+    @DisplayName("느린 구독자가 있어도 다른 구독자는 모든 메시지를 받음")
+    void slowSubscriberShouldNotAffectOthersTest() {
+        var queue = new LiveMessageQueue(3, LiveOverflowPolicy.DROP_OLDEST, messageRepository, Schedulers.immediate(), meterRegistry);
+        var slow = new SlowSubscriber();
+        var fast = new ArrayList<LiveMessageBatch>();
+        queue.bound("channel1", source.asFlux()).subscribe(slow);
+        queue.bound("channel1", source.asFlux()).subscribe(fast::add);
+
+        for (long i = 1; i <= 10; i++) {
+            source.tryEmitNext(List.of(message(i)));
+        }
+
+        assertEquals(1, slow.received.size());
+        assertEquals(10, fast.size());
+        assertEquals(messages(1, 10), fast.stream().flatMap(batch -> batch.messages().stream()).toList());
+    }
+
+    /**
+     * 처음에 한 묶음만 요청하고, 이후에는 테스트가 직접 요청하는 구독자입니다.
+     */
+    private static class SlowSubscriber extends BaseSubscriber<LiveMessageBatch> {
+        private final List<LiveMessageBatch> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(LiveMessageBatch batch) {
+            received.add(batch);
+        }
+    }
+}
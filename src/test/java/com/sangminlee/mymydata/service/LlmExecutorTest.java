@@ -0,0 +1,132 @@
+package com.sangminlee.mymydata.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private LlmExecutor llmExecutor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        llmExecutor.close();
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private void awaitGauge(String name, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gauge(name) != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, gauge(name));
+    }
+
+    @Test
+    @DisplayName("동시에 실행되는 작업 수를 제한")
+    void shouldLimitConcurrencyTest() throws Exception {
+        llmExecutor = new LlmExecutor(2, 10, meterRegistry);
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var futures = new ArrayList<CompletableFuture<Void>>();
+
+        for (int i = 0; i < 6; i++) {
+            futures.add(llmExecutor.submit("channel" + i, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                awaitRelease();
+                running.decrementAndGet();
+            }));
+        }
+        awaitGauge("mymydata.llm.active", 2);
+        awaitGauge("mymydata.llm.queued", 4);
+
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, gauge("mymydata.llm.queued"));
+        assertEquals(6, meterRegistry.get("mymydata.llm.wait").timer().count());
+    }
+
+    @Test
+    @DisplayName("같은 채널의 작업은 제출 순서대로 하나씩 실행")
+    void sameChannelTasksShouldRunSequentiallyTest() throws Exception {
+        llmExecutor = new LlmExecutor(4, 10, meterRegistry);
+        var order = new CopyOnWriteArrayList<Integer>();
+        var futures = new ArrayList<CompletableFuture<Integer>>();
+
+        futures.add(llmExecutor.submit("channel1", () -> {
+            awaitRelease();
+            order.add(0);
+            return 0;
+        }));
+        for (int i = 1; i < 5; i++) {
+            int index = i;
+            futures.add(llmExecutor.submit("channel1", () -> {
+                order.add(index);
+                return index;
+            }));
+        }
+        var otherChannel = llmExecutor.submit("channel2", () -> "done");
+
+        assertEquals("done", otherChannel.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(), order);
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(0, 1, 2, 3, 4), order);
+    }
+
+    @Test
+    @DisplayName("앞선 작업이 실패해도 같은 채널의 다음 작업은 실행")
+    void failedTaskShouldNotBlockChannelTest() throws Exception {
+        llmExecutor = new LlmExecutor(1, 10, meterRegistry);
+
+        var failed = llmExecutor.submit("channel1", () -> {
+            throw new IllegalStateException("rate limit");
+        });
+        var next = llmExecutor.submit("channel1", () -> "answer");
+
+        var error = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals("answer", next.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 차면 기다리지 않고 거절")
+    void shouldRejectWhenQueueIsFullTest() throws Exception {
+        llmExecutor = new LlmExecutor(1, 1, meterRegistry);
+        var first = llmExecutor.submit("channel1", this::awaitRelease);
+        var second = llmExecutor.submit("channel2", this::awaitRelease);
+
+        var rejected = llmExecutor.submit("channel3", () -> fail("must not run"));
+
+        var error = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(1, meterRegistry.get("mymydata.llm.rejected").counter().count());
+
+        release.countDown();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertEquals("accepted", llmExecutor.submit("channel3", () -> "accepted").get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,152 @@
+package com.sangminlee.mymydata.service;
+
+import com.sangminlee.mymydata.bus.MessageBus;
+import com.sangminlee.mymydata.constant.Author;
+import com.sangminlee.mymydata.constant.LiveOverflowPolicy;
+import com.sangminlee.mymydata.repository.MessageRepository;
+import com.sangminlee.mymydata.vo.LiveMessageBatch;
+import com.sangminlee.mymydata.vo.Message;
+import com.sangminlee.mymydata.vo.MessageDraft;
+import com.sangminlee.mymydata.vo.MessageDeletedEvent;
+import com.sangminlee.mymydata.vo.MessagesSavedEvent;
+import com.sangminlee.mymydata.vo.NewMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.sangminlee.mymydata.vo.MessageFixtures.NOW;
+import static com.sangminlee.mymydata.vo.MessageFixtures.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageServiceTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private MessageService messageService;
+
+    @BeforeEach
+    void setUp() {
+        messageService = new MessageService(messageRepository, eventPublisher, new DirectMessageBus(), new SimpleMeterRegistry(),
+                Duration.ofMillis(200), 100, 1000, LiveOverflowPolicy.RESYNC);
+    }
+
+    @Test
+    @DisplayName("일괄 저장된 메시지를 한 번에 저장하고 채널별로 발행")
+    void saveMessagesShouldSaveOnceAndEmitBatchTest() {
+        List<NewMessage> newMessages = List.of(
+                new NewMessage("channel1", NOW, "Hello 1", Author.USER),
+                new NewMessage("channel2", NOW, "Hello 1", Author.USER),
+                new NewMessage("channel1", NOW, "Hello 2", Author.USER));
+        List<Message> savedMessages = List.of(message("channel1", 1), message("channel2", 1), message("channel1", 2));
+        when(messageRepository.saveAll(newMessages)).thenReturn(savedMessages);
+
+        var live = messageService.getLiveMessages("channel1").next().map(LiveMessageBatch::messages).toFuture();
+        messageService.saveMessages(newMessages);
+
+        assertEquals(List.of(savedMessages.get(0), savedMessages.get(2)), live.orTimeout(5, TimeUnit.SECONDS).join());
+        verify(messageRepository).saveAll(newMessages);
+        verify(messageRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(new MessagesSavedEvent(savedMessages));
+    }
+
+    @Test
+    @DisplayName("빈 목록 일괄 저장 시 저장소를 호출하지 않음")
+    void saveMessagesWithEmptyListTest() {
+        assertEquals(List.of(), messageService.saveMessages(List.of()));
+        verifyNoInteractions(messageRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("메시지 삭제 시 삭제 이벤트 발행")
+    void deleteLastMessageShouldPublishEventTest() {
+        when(messageRepository.deleteLastMessage("channel1", "msg1")).thenReturn(true);
+
+        assertTrue(messageService.deleteLastMessage("channel1", "msg1"));
+
+        verify(eventPublisher).publishEvent(new MessageDeletedEvent("channel1"));
+    }
+
+    @Test
+    @DisplayName("마지막 메시지가 아니어서 삭제하지 않으면 삭제 이벤트를 발행하지 않음")
+    void deleteLastMessageNotLastShouldNotPublishEventTest() {
+        when(messageRepository.deleteLastMessage("channel1", "msg1")).thenReturn(false);
+
+        assertFalse(messageService.deleteLastMessage("channel1", "msg1"));
+
+        verify(eventPublisher, never()).publishEvent(any(MessageDeletedEvent.class));
+    }
+
+    @Test
+    @DisplayName("다른 채널의 메시지는 실시간 스트림에 포함되지 않음")
+    void liveMessagesShouldContainOnlyChannelMessagesTest() {
+        Message other = message("channel2", 1);
+        Message mine = message("channel1", 1);
+        when(messageRepository.save(any())).thenReturn(other, mine);
+
+        var live = messageService.getLiveMessages("channel1").next().map(LiveMessageBatch::messages).toFuture();
+        messageService.saveMessage(new NewMessage("channel2", NOW, "Hello 1", Author.USER));
+        messageService.saveMessage(new NewMessage("channel1", NOW, "Hello 1", Author.USER));
+
+        assertEquals(List.of(mine), live.orTimeout(5, TimeUnit.SECONDS).join());
+    }
+
+    @Test
+    @DisplayName("빈 검색어는 저장소를 호출하지 않음")
+    void searchWithBlankQueryTest() {
+        assertEquals(List.of(), messageService.search("channel1", "  ", 10));
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    @DisplayName("생성 중인 메시지는 저장하지 않고 해당 채널 구독자에게만 발행")
+    void publishDraftShouldReachChannelSubscribersOnlyTest() {
+        var draft = new MessageDraft("draft1", "channel1", Author.ASSISTANT.getName(), "안녕", Author.ASSISTANT.getColor(), false);
+        var live = messageService.getLiveDrafts("channel1").next().toFuture();
+
+        messageService.publishDraft(new MessageDraft("draft2", "channel2", Author.ASSISTANT.getName(), "다른 채널", Author.ASSISTANT.getColor(), false));
+        messageService.publishDraft(draft);
+
+        assertEquals(draft, live.orTimeout(5, TimeUnit.SECONDS).join());
+        verifyNoInteractions(messageRepository);
+    }
+
+    /**
+     * 발행한 메시지를 그대로 리스너에 전달하는 메시지 버스입니다.
+     */
+    private static class DirectMessageBus implements MessageBus {
+        private final List<Consumer<List<Message>>> listeners = new ArrayList<>();
+
+        @Override
+        public void publish(List<Message> messages) {
+            listeners.forEach(listener -> listener.accept(messages));
+        }
+
+        @Override
+        public void subscribe(Consumer<List<Message>> listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public String nodeId() {
+            return "test-node";
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.sangminlee.mymydata.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SemanticCacheIndexTest {
+
+    private final Instant NOW = Instant.parse("2023-01-01T00:00:00Z");
+
+    @Test
+    @DisplayName("유사도가 기준 이상인 가장 유사한 응답을 반환")
+    void findShouldReturnMostSimilarAnswerAboveThresholdTest() {
+        var index = new SemanticCacheIndex(10, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+        index.put(new float[]{1f, 0f, 0f}, "전송요구권");
+        index.put(new float[]{0.8f, 0.6f, 0f}, "철회");
+
+        assertEquals(Optional.of("전송요구권"), index.find(new float[]{2f, 0.1f, 0f}, 0.95));
+        assertEquals(Optional.of("철회"), index.find(new float[]{0.7f, 0.7f, 0f}, 0.95));
+        assertEquals(Optional.empty(), index.find(new float[]{0f, 0f, 1f}, 0.95));
+    }
+
+    @Test
+    @DisplayName("유효 시간이 지난 응답은 반환하지 않고 제거")
+    void findShouldEvictExpiredEntriesTest() {
+        var clock = new MutableClock(NOW);
+        var index = new SemanticCacheIndex(10, Duration.ofMinutes(10), clock);
+        index.put(new float[]{1f, 0f}, "전송요구권");
+
+        clock.now = NOW.plus(Duration.ofMinutes(10));
+
+        assertEquals(Optional.empty(), index.find(new float[]{1f, 0f}, 0.95));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @DisplayName("최대 개수를 넘으면 가장 오래 조회되지 않은 응답부터 제거")
+    void putShouldEvictLeastRecentlyUsedEntryTest() {
+        var index = new SemanticCacheIndex(2, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+        index.put(new float[]{1f, 0f, 0f}, "첫 번째");
+        index.put(new float[]{0f, 1f, 0f}, "두 번째");
+        index.find(new float[]{1f, 0f, 0f}, 0.95);
+
+        index.put(new float[]{0f, 0f, 1f}, "세 번째");
+
+        assertEquals(2, index.size());
+        assertEquals(Optional.of("첫 번째"), index.find(new float[]{1f, 0f, 0f}, 0.95));
+        assertEquals(Optional.empty(), index.find(new float[]{0f, 1f, 0f}, 0.95));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
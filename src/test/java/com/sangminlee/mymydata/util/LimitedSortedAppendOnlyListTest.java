@@ -104,4 +104,21 @@ class LimitedSortedAppendOnlyListTest {
         List<String> expected = Arrays.asList("apple", "banana", "cherry", "date");
         assertIterableEquals(expected, stringList.stream().toList());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("이전 요소 추가 시 기존 요소 유지")
+    void addOlderTest() {
+        list.addAll(List.of(6, 7, 8, 9, 10));
+
+        list.addOlder(List.of(3, 4, 5));
+        assertIterableEquals(List.of(3, 4, 5, 6, 7, 8, 9, 10), list.stream().toList());
+        assertEquals(3, list.getFirst().orElseThrow());
+
+        list.add(11);
+        assertIterableEquals(List.of(4, 5, 6, 7, 8, 9, 10, 11), list.stream().toList());
+
+        list.clear();
+        list.addAll(List.of(1, 2, 3, 4, 5, 6));
+        assertIterableEquals(List.of(2, 3, 4, 5, 6), list.stream().toList());
+    }
+}
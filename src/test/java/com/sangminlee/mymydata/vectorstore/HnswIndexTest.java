@@ -0,0 +1,126 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 64;
+
+    /**
+     * 임베딩처럼 몇 개의 주제 주변에 모인 벡터를 만듭니다.
+     */
+    private static float[][] clusteredVectors(int count, long seed) {
+        var random = new Random(seed);
+        var centers = new float[20][DIMENSIONS];
+        for (float[] center : centers) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                center[i] = (float) random.nextGaussian();
+            }
+        }
+        var vectors = new float[count][DIMENSIONS];
+        for (float[] vector : vectors) {
+            float[] center = centers[random.nextInt(centers.length)];
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] = center[i] + (float) (random.nextGaussian() * 0.5);
+            }
+        }
+        return vectors;
+    }
+
+    private static HnswIndex index(float[][] vectors) {
+        var index = new HnswIndex(DIMENSIONS, 16, 100, 42);
+        for (float[] vector : vectors) {
+            index.add(vector);
+        }
+        return index;
+    }
+
+    private static double recallAt5(HnswIndex index, float[][] queries, int ef) {
+        int hits = 0;
+        for (float[] query : queries) {
+            var expected = new HashSet<Integer>();
+            index.exactSearch(query, 5).forEach(neighbor -> expected.add(neighbor.node()));
+            for (var neighbor : index.search(query, 5, ef)) {
+                if (expected.contains(neighbor.node())) {
+                    hits++;
+                }
+            }
+        }
+        return hits / (queries.length * 5.0);
+    }
+
+    @Test
+    @DisplayName("근사 검색의 recall@5가 0.95 이상")
+    void searchShouldReachHighRecallTest() {
+        // 같은 주제에서 뽑은 벡터 중 앞쪽은 색인하고 뒤쪽은 질의로 사용합니다.
+        var vectors = clusteredVectors(5200, 1);
+        var index = index(Arrays.copyOfRange(vectors, 0, 5000));
+
+        double recall = recallAt5(index, Arrays.copyOfRange(vectors, 5000, 5200), 64);
+
+        assertTrue(recall >= 0.95, "recall@5 " + recall);
+    }
+
+    @Test
+    @DisplayName("가장 유사한 벡터를 유사도 내림차순으로 반환")
+    void searchShouldReturnSortedNeighborsTest() {
+        var vectors = clusteredVectors(500, 3);
+        var index = index(vectors);
+
+        var result = index.search(vectors[123], 5, 32);
+
+        assertEquals(123, result.getFirst().node());
+        assertEquals(1.0, result.getFirst().similarity(), 1e-5);
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i - 1).similarity() >= result.get(i).similarity());
+        }
+    }
+
+    @Test
+    @DisplayName("삭제된 노드는 결과에서 제외")
+    void searchShouldSkipDeletedNodesTest() {
+        var vectors = clusteredVectors(500, 4);
+        var index = index(vectors);
+
+        index.delete(123);
+
+        assertTrue(index.search(vectors[123], 5, 32).stream().noneMatch(neighbor -> neighbor.node() == 123));
+        assertEquals(5, index.search(vectors[123], 5, 32).size());
+    }
+
+    @Test
+    @DisplayName("기록한 색인을 다시 읽으면 같은 결과를 반환")
+    void writeAndReadShouldPreserveGraphTest() throws IOException {
+        var vectors = clusteredVectors(1000, 5);
+        var index = index(vectors);
+        index.delete(7);
+        var bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        var restored = HnswIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 42);
+
+        assertEquals(index.size(), restored.size());
+        for (float[] query : clusteredVectors(20, 6)) {
+            assertEquals(index.search(query, 5, 32), restored.search(query, 5, 32));
+        }
+    }
+
+    @Test
+    @DisplayName("빈 색인 검색 시 빈 결과 반환")
+    void searchEmptyIndexTest() {
+        assertEquals(List.of(), new HnswIndex(DIMENSIONS, 16, 100, 42).search(new float[DIMENSIONS], 5, 32));
+    }
+}
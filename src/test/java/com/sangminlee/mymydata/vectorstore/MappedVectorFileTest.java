@@ -0,0 +1,169 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedVectorFileTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @TempDir
+    Path directory;
+
+    private static float[][] randomVectors(int count, long seed) {
+        var random = new Random(seed);
+        var vectors = new float[count][DIMENSIONS];
+        for (float[] vector : vectors) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private void write(float[][] vectors) throws IOException {
+        try (var writer = MappedVectorFile.writer(directory, DIMENSIONS)) {
+            for (int i = 0; i < vectors.length; i++) {
+                writer.append("doc" + i, "본문 " + i, Map.of("source", "page" + i), vectors[i]);
+            }
+            writer.commit();
+        }
+    }
+
+    @Test
+    @DisplayName("기록한 문서와 정규화된 임베딩을 다시 열어 읽음")
+    void writeAndOpenTest() throws IOException {
+        float[][] vectors = randomVectors(10, 1);
+        write(vectors);
+
+        var file = MappedVectorFile.open(directory);
+
+        assertEquals(10, file.size());
+        assertEquals(DIMENSIONS, file.dimensions());
+        assertEquals(new StoredDocument("doc7", "본문 7", Map.of("source", "page7")), file.document(7));
+        assertArrayEquals(Vectors.normalize(vectors[3]), file.embedding(3), 1e-6f);
+    }
+
+    @Test
+    @DisplayName("검색 결과는 전체 코사인 유사도 순위의 상위 k개와 같음")
+    void searchShouldMatchBruteForceTest() throws IOException {
+        float[][] vectors = randomVectors(500, 2);
+        write(vectors);
+        var file = MappedVectorFile.open(directory);
+        float[] query = randomVectors(1, 3)[0];
+
+        List<Integer> expected = IntStream.range(0, vectors.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer row) -> cosine(vectors[row], query)).reversed())
+                .limit(5)
+                .toList();
+        var result = file.search(query, 5, -1);
+
+        assertEquals(expected, result.stream().map(HnswIndex.Neighbor::node).toList());
+        assertEquals(cosine(vectors[expected.get(0)], query), result.get(0).similarity(), 1e-5);
+        assertTrue(file.search(query, 5, 0.99).isEmpty());
+    }
+
+    @Test
+    @DisplayName("SimpleVectorStore JSON 파일을 변환")
+    void convertSimpleVectorStoreTest() throws IOException {
+        Path jsonFile = directory.resolve("simple-vectorstore.json");
+        Files.writeString(jsonFile, """
+                {
+                  "a": {"id": "a", "content": "첫 문서", "metadata": {"page": 1}, "embedding": [1.0, 0.0, 0.0]},
+                  "b": {"id": "b", "content": "둘째 문서", "metadata": {}, "embedding": [0.0, 2.0, 0.0]}
+                }
+                """);
+        Path target = directory.resolve("mapped");
+
+        assertEquals(2, MappedVectorFile.convertSimpleVectorStore(jsonFile, target));
+
+        var file = MappedVectorFile.open(target);
+        assertEquals(3, file.dimensions());
+        assertEquals(new StoredDocument("a", "첫 문서", Map.of("page", 1)), file.document(0));
+        var result = file.search(new float[]{0, 1, 0.1f}, 1, 0);
+        assertEquals(1, result.get(0).node());
+        assertEquals("둘째 문서", file.document(1).content());
+    }
+
+    @Test
+    @DisplayName("commit하지 않은 Writer는 기존 파일을 바꾸지 않고 임시 파일을 남기지 않음")
+    void uncommittedWriterShouldKeepExistingFilesTest() throws IOException {
+        write(randomVectors(3, 4));
+
+        try (var writer = MappedVectorFile.writer(directory, DIMENSIONS)) {
+            writer.append("other", "다른 문서", null, randomVectors(1, 5)[0]);
+        }
+
+        assertEquals(3, MappedVectorFile.open(directory).size());
+        try (var files = Files.list(directory)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    @DisplayName("이어 쓰기는 기존 문서를 다시 기록하지 않고 커밋한 뒤에만 보임")
+    void appendTest() throws IOException {
+        float[][] vectors = randomVectors(5, 6);
+        write(Arrays.copyOf(vectors, 3));
+        var before = MappedVectorFile.open(directory);
+
+        try (var writer = MappedVectorFile.appender(directory)) {
+            writer.append("uncommitted", "커밋하지 않은 문서", null, randomVectors(1, 7)[0]);
+        }
+        assertEquals(3, MappedVectorFile.open(directory).size());
+
+        try (var writer = MappedVectorFile.appender(directory)) {
+            writer.append("doc3", "본문 3", Map.of("source", "page3"), vectors[3]);
+            writer.append("doc4", "본문 4", Map.of("source", "page4"), vectors[4]);
+            writer.commit();
+        }
+
+        var after = MappedVectorFile.open(directory);
+        assertEquals(3, before.size());
+        assertEquals(5, after.size());
+        assertEquals(new StoredDocument("doc2", "본문 2", Map.of("source", "page2")), after.document(2));
+        assertEquals(new StoredDocument("doc4", "본문 4", Map.of("source", "page4")), after.document(4));
+        assertArrayEquals(Vectors.normalize(vectors[3]), after.embedding(3), 1e-6f);
+        assertEquals(4, after.search(vectors[4], 1, 0).get(0).node());
+        assertTrue(after.containsAny(Set.of("doc4", "other")));
+        assertFalse(after.containsAny(Set.of("uncommitted")));
+    }
+
+    @Test
+    @DisplayName("새 세대를 커밋하면 매니페스트가 가리키는 파일만 남음")
+    void newGenerationShouldReplaceOldFilesTest() throws IOException {
+        write(randomVectors(3, 8));
+        write(randomVectors(2, 9));
+
+        assertEquals(2, MappedVectorFile.open(directory).size());
+        try (var files = Files.list(directory)) {
+            assertEquals(Set.of(MappedVectorFile.MANIFEST_FILE, "vectors-2.f32", "documents-2.dat", "offsets-2.idx"),
+                    files.map(file -> file.getFileName().toString()).collect(Collectors.toSet()));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SimilarityKernelTest {
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static double exactDot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += (double) a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    private static void assertKernel(SimilarityKernel kernel) {
+        var random = new Random(7);
+        // SIMD 레지스터 길이의 배수가 아닌 차원과 네 행 단위로 나누어떨어지지 않는 행 수로 나머지 처리까지 확인합니다.
+        for (int dimensions : new int[]{1, 3, 17, 1536}) {
+            float[] query = randomVector(random, dimensions);
+            int rows = 7;
+            float[] matrix = randomVector(random, rows * dimensions);
+            float[] scores = new float[rows];
+
+            kernel.dotRows(query, matrix, rows, scores);
+
+            for (int row = 0; row < rows; row++) {
+                double expected = exactDot(query, 0, matrix, row * dimensions, dimensions);
+                assertEquals(expected, scores[row], 1e-3 * Math.sqrt(dimensions));
+                assertEquals(scores[row], kernel.dot(query, 0, matrix, row * dimensions, dimensions), 1e-3 * Math.sqrt(dimensions));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("스칼라 커널의 행렬 내적 계산")
+    void scalarKernelTest() {
+        assertKernel(SimilarityKernel.scalar());
+    }
+
+    @Test
+    @DisplayName("Vector API 커널은 스칼라 커널과 같은 결과를 계산")
+    void vectorKernelTest() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "jdk.incubator.vector is not loaded");
+        assertKernel(new VectorSimilarityKernel());
+    }
+
+    @Test
+    @DisplayName("Vector API 모듈이 있으면 Vector API 커널을 선택")
+    void preferredKernelTest() {
+        boolean vectorModule = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        assertEquals(vectorModule && VectorSimilarityKernel.isSupported(),
+                SimilarityKernel.preferred() instanceof VectorSimilarityKernel);
+    }
+}
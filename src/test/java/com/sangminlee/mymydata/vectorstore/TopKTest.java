@@ -0,0 +1,52 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest {
+
+    @Test
+    @DisplayName("유사도가 가장 큰 k개를 내림차순으로 반환")
+    void topKTest() {
+        var random = new Random(3);
+        float[] similarities = new float[1000];
+        var top = new TopK(10);
+        for (int node = 0; node < similarities.length; node++) {
+            similarities[node] = random.nextFloat();
+            top.offer(node, similarities[node]);
+        }
+
+        List<Integer> expected = IntStream.range(0, similarities.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer node) -> similarities[node]).reversed())
+                .limit(10)
+                .toList();
+        assertEquals(expected, top.toList().stream().map(HnswIndex.Neighbor::node).toList());
+    }
+
+    @Test
+    @DisplayName("후보가 k개보다 적으면 모두 반환")
+    void fewerCandidatesThanKTest() {
+        var top = new TopK(5);
+        top.offer(1, 0.2f);
+        top.offer(2, 0.9f);
+
+        assertEquals(List.of(new HnswIndex.Neighbor(2, 0.9f), new HnswIndex.Neighbor(1, 0.2f)), top.toList());
+    }
+
+    @Test
+    @DisplayName("k가 0이면 아무것도 반환하지 않음")
+    void zeroKTest() {
+        var top = new TopK(0);
+        top.offer(1, 0.5f);
+
+        assertEquals(0, top.size());
+        assertTrue(top.toList().isEmpty());
+    }
+}
@@ -0,0 +1,40 @@
+package com.sangminlee.mymydata.vectorstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VectorsTest {
+
+    @Test
+    @DisplayName("임베딩을 float 배열로 변환")
+    void toFloatArrayTest() {
+        assertArrayEquals(new float[]{0.5f, -1f, 2f}, Vectors.toFloatArray(List.of(0.5, -1.0, 2.0)));
+    }
+
+    @Test
+    @DisplayName("정규화한 벡터의 내적은 코사인 유사도")
+    void normalizeAndDotTest() {
+        float[] a = Vectors.normalize(new float[]{3, 4});
+        float[] b = Vectors.normalize(new float[]{4, 3});
+
+        assertArrayEquals(new float[]{0.6f, 0.8f}, a, 1e-6f);
+        assertEquals(1, Vectors.dot(a, a), 1e-6);
+        assertEquals(0.96, Vectors.dot(a, b), 1e-6);
+    }
+
+    @Test
+    @DisplayName("영벡터는 그대로 유지")
+    void normalizeZeroVectorTest() {
+        float[] zero = new float[3];
+
+        float[] normalized = Vectors.normalize(zero);
+
+        assertArrayEquals(zero, normalized);
+        assertEquals(0, Vectors.dot(normalized, normalized));
+    }
+}
@@ -0,0 +1,30 @@
+package com.sangminlee.mymydata.vo;
+
+import com.sangminlee.mymydata.constant.Author;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * 여러 테스트에서 함께 쓰는 메시지 픽스처입니다.
+ */
+public final class MessageFixtures {
+
+    public static final Instant NOW = Instant.parse("2023-01-01T00:00:00Z");
+
+    private MessageFixtures() {
+    }
+
+    /**
+     * 채널 ID와 일련번호로 사용자 메시지를 만듭니다. 메시지 ID는 채널 ID와 일련번호에서 결정되므로 같은 인자로 만든 메시지는 서로 같습니다.
+     *
+     * @param channelId      채널 ID
+     * @param sequenceNumber 일련번호
+     * @return "Hello {일련번호}" 본문의 메시지
+     */
+    public static Message message(String channelId, long sequenceNumber) {
+        var messageId = UUID.nameUUIDFromBytes((channelId + "/" + sequenceNumber).getBytes(StandardCharsets.UTF_8)).toString();
+        return new Message(messageId, channelId, sequenceNumber, NOW, Author.USER.getName(), "Hello " + sequenceNumber, Author.USER.getColor());
+    }
+}